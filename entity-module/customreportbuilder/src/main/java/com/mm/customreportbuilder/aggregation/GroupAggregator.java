@@ -0,0 +1,211 @@
+package com.mm.customreportbuilder.aggregation;
+
+import com.mm.customreportbuilder.view.ColumnarBatch;
+
+import java.util.*;
+
+/**
+ * Hash aggregation of one grouping level over base rows.
+ *
+ * Rows are first matched against the parent group keys (the already expanded
+ * levels); matching rows are bucketed by the value of the next group column and
+ * folded into primitive accumulators. Only the requested level is computed, so
+ * expanding a group costs one pass over the (filtered) rows and nothing deeper.
+ * A {@link ColumnarBatch} is aggregated by dictionary code: parent matching, group
+ * lookup and number parsing happen once per distinct value instead of once per row.
+ *
+ * Supported aggFuncs: sum, avg, min, max, count, countDistinct (AG Grid names,
+ * case-insensitive; "distinct" is accepted as an alias).
+ */
+public final class GroupAggregator {
+
+    public record ValueColumn(String id, int index, String aggFunc) {}
+
+    private final int[] parentColumns;
+    private final String[] parentKeys;
+    private final int groupColumn;
+    private final ValueColumn[] values;
+    private final Map<String, Bucket> buckets = new HashMap<>();
+
+    /**
+     * @param parentColumns column indexes of the expanded levels
+     * @param parentKeys    their keys (AG Grid groupKeys; null or "" matches a null cell)
+     * @param groupColumn   column index of the level being computed
+     */
+    public GroupAggregator(int[] parentColumns, List<String> parentKeys, int groupColumn, List<ValueColumn> values) {
+        this.parentColumns = parentColumns;
+        this.parentKeys = parentKeys.toArray(new String[0]);
+        this.groupColumn = groupColumn;
+        this.values = values.toArray(new ValueColumn[0]);
+    }
+
+    /** True if the row belongs to the expanded parent group. */
+    public boolean inParent(List<Object> row) {
+        for (int i = 0; i < parentColumns.length; i++) {
+            if (!Objects.equals(key(cell(row, parentColumns[i])), normalizeKey(parentKeys[i]))) return false;
+        }
+        return true;
+    }
+
+    public void accept(List<Object> row) {
+        if (!inParent(row)) return;
+        String key = key(cell(row, groupColumn));
+        Bucket b = buckets.computeIfAbsent(key, k -> new Bucket(values.length));
+        b.rows++;
+        for (int v = 0; v < values.length; v++) {
+            Object cell = cell(row, values[v].index());
+            if (cell != null) b.fold(v, String.valueOf(cell), toDouble(cell));
+        }
+    }
+
+    /** Aggregates every row of the batch (rows must already pass the filters). */
+    public void accept(ColumnarBatch batch) {
+        // Parent keys -> accepted codes; null/empty keys also accept null and absent cells
+        boolean[][] parentCodes = new boolean[parentColumns.length][];
+        boolean[] parentNull = new boolean[parentColumns.length];
+        for (int i = 0; i < parentColumns.length; i++) {
+            String want = normalizeKey(parentKeys[i]);
+            parentNull[i] = want == null;
+            parentCodes[i] = new boolean[batch.dictionarySize(parentColumns[i])];
+            for (int k = 0; k < parentCodes[i].length; k++) {
+                parentCodes[i][k] = Objects.equals(key(batch.value(parentColumns[i], k)), want);
+            }
+        }
+
+        // Group code -> bucket, resolved lazily; all null-keyed codes share one bucket
+        Bucket[] byCode = new Bucket[batch.dictionarySize(groupColumn)];
+        String[] keyOfCode = new String[byCode.length];
+        for (int k = 0; k < byCode.length; k++) keyOfCode[k] = key(batch.value(groupColumn, k));
+
+        String[][] text = new String[values.length][];
+        double[][] numbers = new double[values.length][];
+        for (int v = 0; v < values.length; v++) {
+            int col = values[v].index();
+            numbers[v] = batch.numbers(col, GroupAggregator::toDouble);
+            text[v] = new String[numbers[v].length];
+            for (int k = 0; k < text[v].length; k++) text[v][k] = String.valueOf(batch.value(col, k));
+        }
+
+        rows:
+        for (int r = 0; r < batch.size(); r++) {
+            for (int i = 0; i < parentColumns.length; i++) {
+                int code = batch.code(parentColumns[i], r);
+                if (code < 0 ? !parentNull[i] : !parentCodes[i][code]) continue rows;
+            }
+            int g = batch.code(groupColumn, r);
+            Bucket b = g >= 0 ? byCode[g] : null;
+            if (b == null) {
+                String key = g >= 0 ? keyOfCode[g] : null;
+                b = buckets.computeIfAbsent(key, k -> new Bucket(values.length));
+                if (g >= 0) byCode[g] = b;
+            }
+            b.rows++;
+            for (int v = 0; v < values.length; v++) {
+                int code = batch.code(values[v].index(), r);
+                if (code >= 0) b.fold(v, text[v][code], numbers[v][code]);
+            }
+        }
+    }
+
+    /**
+     * One row per group: {groupField: key, childCount, <valueCol.id>: aggregate}.
+     * A null/empty key is reported as null; AG Grid sends it back as "" in groupKeys.
+     */
+    public List<Map<String, Object>> result(String groupField) {
+        List<Map<String, Object>> out = new ArrayList<>(buckets.size());
+        for (Map.Entry<String, Bucket> e : buckets.entrySet()) {
+            Bucket b = e.getValue();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(groupField, e.getKey());
+            row.put("childCount", b.rows);
+            for (int v = 0; v < values.length; v++) {
+                row.put(values[v].id(), b.value(v, values[v].aggFunc()));
+            }
+            out.add(row);
+        }
+        return out;
+    }
+
+    /** Primitive per-group accumulators, one slot per value column. */
+    private final class Bucket {
+        long rows;
+        final long[] numeric;
+        final double[] sum;
+        final double[] min;
+        final double[] max;
+        final List<Set<String>> distinct;
+
+        Bucket(int n) {
+            numeric = new long[n];
+            sum = new double[n];
+            min = new double[n];
+            max = new double[n];
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+            distinct = new ArrayList<>(n);
+            for (int v = 0; v < n; v++) {
+                distinct.add(isCountDistinct(values[v].aggFunc()) ? new HashSet<>() : null);
+            }
+        }
+
+        void fold(int v, String text, double d) {
+            Set<String> seen = distinct.get(v);
+            if (seen != null) seen.add(text);
+            if (Double.isNaN(d)) return;
+            numeric[v]++;
+            sum[v] += d;
+            if (d < min[v]) min[v] = d;
+            if (d > max[v]) max[v] = d;
+        }
+
+        Object value(int v, String aggFunc) {
+            String fn = aggFunc == null ? "sum" : aggFunc.toLowerCase(Locale.ROOT);
+            return switch (fn) {
+                case "count" -> rows;
+                case "countdistinct", "distinct" -> distinct.get(v).size();
+                case "avg" -> numeric[v] == 0 ? null : sum[v] / numeric[v];
+                case "min" -> numeric[v] == 0 ? null : min[v];
+                case "max" -> numeric[v] == 0 ? null : max[v];
+                default -> numeric[v] == 0 ? null : sum[v];
+            };
+        }
+    }
+
+    public static boolean isSupported(String aggFunc) {
+        if (aggFunc == null) return true;
+        return switch (aggFunc.toLowerCase(Locale.ROOT)) {
+            case "sum", "avg", "min", "max", "count", "countdistinct", "distinct" -> true;
+            default -> false;
+        };
+    }
+
+    private static boolean isCountDistinct(String aggFunc) {
+        return aggFunc != null && ("countdistinct".equalsIgnoreCase(aggFunc) || "distinct".equalsIgnoreCase(aggFunc));
+    }
+
+    private static Object cell(List<Object> row, int idx) {
+        return idx >= 0 && idx < row.size() ? row.get(idx) : null;
+    }
+
+    // Null and empty cells share one group: AG Grid cannot tell them apart in groupKeys
+    private static String key(Object cell) {
+        if (cell == null) return null;
+        String s = String.valueOf(cell);
+        return s.isEmpty() ? null : s;
+    }
+
+    private static String normalizeKey(String key) {
+        return key == null || key.isEmpty() ? null : key;
+    }
+
+    private static double toDouble(Object o) {
+        if (o instanceof Number n) return n.doubleValue();
+        String s = String.valueOf(o).replace(",", "").trim();
+        if (s.isEmpty() || "null".equalsIgnoreCase(s)) return Double.NaN;
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mm.customreportbuilder.aggregation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts occurrences of cell values with an open-addressing table: keys, their
+ * hashes and primitive int counts live in parallel arrays, so counting a row is
+ * one probe with no per-row boxing or entry allocation. Null cells are counted
+ * separately.
+ */
+public final class ValueCounter {
+
+    private String[] keys = new String[64];
+    private int[] hashes = new int[64];
+    private int[] counts = new int[64];
+    private int size;
+    private int nulls;
+
+    public void add(Object cell) {
+        if (cell == null) {
+            nulls++;
+            return;
+        }
+        String key = String.valueOf(cell);
+        int h = mix(key.hashCode());
+        int mask = keys.length - 1;
+        int i = h & mask;
+        while (keys[i] != null) {
+            if (hashes[i] == h && keys[i].equals(key)) {
+                counts[i]++;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        hashes[i] = h;
+        counts[i] = 1;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    /** Distinct values including null (if any null was counted). */
+    public int size() {
+        return size + (nulls > 0 ? 1 : 0);
+    }
+
+    /** [value, count] pairs in table order; null last. */
+    public List<Object[]> entries() {
+        List<Object[]> out = new ArrayList<>(size());
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) out.add(new Object[] { keys[i], counts[i] });
+        }
+        if (nulls > 0) out.add(new Object[] { null, nulls });
+        return out;
+    }
+
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldCounts = counts;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[keys.length];
+        counts = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null) continue;
+            int i = oldHashes[j] & mask;
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            hashes[i] = oldHashes[j];
+            counts[i] = oldCounts[j];
+        }
+    }
+
+    // Spread String.hashCode so linear probing does not cluster on similar keys
+    private static int mix(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
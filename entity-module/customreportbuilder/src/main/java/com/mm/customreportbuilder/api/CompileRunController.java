@@ -42,7 +42,8 @@ public class CompileRunController {
     // Optional safety: enforce read-only, limit, allowed schemas
     String sanitized = (safeSql != null) ? safeSql.sanitizeSelect(compiled) : compiled;
 
-    var submit = reportService.submitStatement(sanitized);
+    // Fact statements carry their template name (speculative views are configured per fact)
+    var submit = reportService.submitStatement(sanitized, "fact".equalsIgnoreCase(req.kind) ? req.name : null);
     return StatementResponse.fromMap(submit);
   }
 }
@@ -1,79 +1,141 @@
 package com.mm.customreportbuilder.api;
 
+import com.mm.customreportbuilder.databricks.DatabricksSqlClient;
+import com.mm.customreportbuilder.export.*;
 import com.mm.customreportbuilder.service.ReportService;
+import com.mm.customreportbuilder.util.CsvWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("api/reports/export")
 public class ExportController {
 
+    private static final Logger log = LoggerFactory.getLogger(ExportController.class);
+
+    private static final String XLSX = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    private static final String PARQUET = "application/vnd.apache.parquet";
+
     private final ReportService reportService;
+    private final ExportPipeline pipeline;
+    private final WarehouseExport warehouse;
+    private final long parquetRowGroupBytes;
 
-    public ExportController(ReportService reportService) {
+    public ExportController(ReportService reportService, ExportPipeline pipeline, WarehouseExport warehouse,
+                            @Value("${EXPORT_PARQUET_ROW_GROUP_BYTES:33554432}") long parquetRowGroupBytes) {
         this.reportService = reportService;
+        this.pipeline = pipeline;
+        this.warehouse = warehouse;
+        this.parquetRowGroupBytes = parquetRowGroupBytes;
     }
 
-    @GetMapping(value = "/csv", produces = "text/csv")
+    @GetMapping(value = "/csv", produces = {"text/csv", "application/gzip"})
     public ResponseEntity<StreamingResponseBody> exportCsv(
         @RequestParam String statementId,
         @RequestParam(required = false, defaultValue = "true") boolean header,
         @RequestParam(required = false, defaultValue = "false") boolean bom, // Excel-friendly
+        @RequestParam(required = false, defaultValue = "false") boolean gzip, // .csv.gz download
+        @RequestParam(required = false) String sortModel,
+        @RequestParam(required = false) String filterModel,
+        @RequestParam(required = false) List<String> columns,  // optional projection (visible columns)
+        @RequestParam(required = false, defaultValue = "auto") String source // auto | cache | warehouse
+    ) {
+        return export(statementId, sortModel, filterModel, columns, source,
+            gzip ? "csv.gz" : "csv", gzip ? "application/gzip" : "text/csv",
+            (out, cols) -> {
+                OutputStream target = gzip ? new GZIPOutputStream(out, 64 * 1024) : out;
+                CsvWriter csv = new CsvWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), 64 * 1024);
+                // Optional BOM for Excel
+                if (bom) {
+                    csv.raw("\uFEFF");
+                }
+                if (header && !cols.isEmpty()) {
+                    for (ExportColumn c : cols) csv.cell(c.name(), CsvWriter.Kind.TEXT);
+                    csv.endRow();
+                }
+                return RowWriter.csv(csv, cols);
+            });
+    }
+
+    @GetMapping(value = "/xlsx", produces = XLSX)
+    public ResponseEntity<StreamingResponseBody> exportXlsx(
+        @RequestParam String statementId,
+        @RequestParam(required = false, defaultValue = "true") boolean header,
         @RequestParam(required = false) String sortModel,
-        @RequestParam(required = false) String filterModel  
+        @RequestParam(required = false) String filterModel,
+        @RequestParam(required = false) List<String> columns,
+        @RequestParam(required = false, defaultValue = "auto") String source
     ) {
-        // 1) Get meta (columns, rowCount, pageSize)
+        return export(statementId, sortModel, filterModel, columns, source, "xlsx", XLSX,
+            (out, cols) -> new XlsxWriter(out, cols, header));
+    }
+
+    @GetMapping(value = "/parquet", produces = PARQUET)
+    public ResponseEntity<StreamingResponseBody> exportParquet(
+        @RequestParam String statementId,
+        @RequestParam(required = false) String sortModel,
+        @RequestParam(required = false) String filterModel,
+        @RequestParam(required = false) List<String> columns,
+        @RequestParam(required = false, defaultValue = "auto") String source
+    ) {
+        return export(statementId, sortModel, filterModel, columns, source, "parquet", PARQUET,
+            (out, cols) -> new ParquetWriter(out, cols, parquetRowGroupBytes));
+    }
+
+    private interface WriterFactory {
+        RowWriter open(OutputStream out, List<ExportColumn> columns) throws IOException;
+    }
+
+    private ResponseEntity<StreamingResponseBody> export(String statementId, String sortModel, String filterModel,
+                                                         List<String> columns, String source, String extension,
+                                                         String contentType, WriterFactory format) {
+        // 1) Get meta (columns, schema)
         Map<String, Object> meta = reportService.getStatementMeta(statementId);
-        List<String> columns = extractColumns(meta);
-        int pageSize = (meta.get("pageSize") instanceof Number)
-            ? ((Number) meta.get("pageSize")).intValue() : 500;
-        Integer rowCount = (meta.get("rowCount") instanceof Number)
-            ? ((Number) meta.get("rowCount")).intValue() : null; // may be null
+        List<String> projection = (columns == null || columns.isEmpty()) ? null : columns;
+        List<String> names = projection != null ? projection : extractColumns(meta);
+        List<ExportColumn> exported = ExportColumn.of(meta, names);
+
+        // 2) Base results can be streamed from the warehouse without touching the page cache
+        DatabricksSqlClient.ResultManifest direct = warehouseSource(statementId, meta, source, sortModel, filterModel);
+        int[] resultColumns = direct != null ? resultColumns(meta, names) : null;
+
+        // 3) Otherwise rows are read ahead from the cache (same sort / filter view as the grid) while this thread encodes
+        ExportPipeline.Blocks blocks = direct == null ? pipeline.open(statementId, sortModel, filterModel, projection) : null;
 
         StreamingResponseBody body = out -> {
-        try (BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024)) {
-            // Optional BOM for Excel
-            if (bom) {
-            bw.write('\uFEFF');
+            long startedAt = System.currentTimeMillis();
+            CountingOutputStream counted = new CountingOutputStream(out);
+            long rowsWritten;
+            try (blocks; RowWriter writer = format.open(counted, exported)) {
+                // 4) Stream the rows
+                rowsWritten = direct != null
+                        ? warehouse.write(statementId, direct, resultColumns, writer)
+                        : writeBlocks(blocks, writer, exported.size());
+                writer.finish();
             }
-            // 2) Header
-            if (header && !columns.isEmpty()) {
-            bw.write(csvLine(columns));
-            bw.write("\r\n");
-            }
-            // 3) Stream rows in blocks
-            int start = 0;
-            int block = (pageSize > 0 ? pageSize : 500);
-            while (true) {
-            int end = start + block;
-            //Map<String, Object> res = reportService.getRows(statementId, start, end);
-            Map<String, Object> res = getRowsWithModels(statementId, start, end, sortModel, filterModel);
-            List<?> rows = extractRows(res);
-            if (rows == null || rows.isEmpty()) break;
-
-            for (Object r : rows) {
-                List<String> values = rowToValues(r, columns);
-                bw.write(csvLine(values));
-                bw.write("\r\n");
-            }
-            bw.flush();
-            start = end;
-            if (rowCount != null && start >= rowCount) break;
-            }
-        }
+            long ms = Math.max(1L, System.currentTimeMillis() - startedAt);
+            log.info("export.{} stmt={} source={} rows={} bytes={} ms={} MB/s={}", extension, statementId,
+                    direct != null ? "warehouse" : "cache", rowsWritten, counted.count, ms,
+                    String.format(Locale.ROOT, "%.1f", counted.count / 1048576.0 / (ms / 1000.0)));
         };
 
-        String filename = statementId + ".csv";
+        String filename = statementId + "." + extension;
         return ResponseEntity.ok()
             .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
-            .contentType(MediaType.parseMediaType("text/csv"))
+            .contentType(MediaType.parseMediaType(contentType))
             .body(body);
     }
 
@@ -97,71 +159,75 @@ public class ExportController {
         return List.of();
     }
 
-    @SuppressWarnings("unchecked")
-    private static List<?> extractRows(Map<String, Object> res) {
-        if (res == null) return List.of();
-        Object rows = (res.get("rows") != null) ? res.get("rows")
-                : (res.get("data") != null) ? res.get("data")
-                : (res.get("result") != null) ? res.get("result") : null;
-        if (rows instanceof List) return (List<?>) rows;
-
-        Object chunks = res.get("chunks");
-        if (chunks instanceof List) {
-        for (Object ch : (List<?>) chunks) {
-            if (ch instanceof Map) {
-            Object rr = ((Map<?, ?>) ch).get("rows");
-            if (rr instanceof List && !((List<?>) rr).isEmpty()) return (List<?>) rr;
+    private static long writeBlocks(ExportPipeline.Blocks blocks, RowWriter writer, int width) throws IOException {
+        long written = 0;
+        Object[] cells = new Object[width];
+        for (List<List<Object>> rows = blocks.next(); rows != null; rows = blocks.next()) {
+            for (List<Object> row : rows) {
+                int n = row.size();
+                for (int i = 0; i < width; i++) cells[i] = i < n ? row.get(i) : null;
+                writer.row(cells);
             }
+            written += rows.size();
+            writer.flush();
         }
-        }
-        return List.of();
+        return written;
     }
 
-    @SuppressWarnings("unchecked")
-    private static List<String> rowToValues(Object row, List<String> columns) {
-        if (row instanceof List) {
-        List<?> arr = (List<?>) row;
-        List<String> vals = new ArrayList<>(columns.size());
-        for (int i = 0; i < columns.size(); i++) {
-            Object v = (i < arr.size()) ? arr.get(i) : null;
-            vals.add(stringify(v));
+    // Warehouse result to export from, or null for the page cache
+    private DatabricksSqlClient.ResultManifest warehouseSource(String statementId, Map<String, Object> meta, String source,
+                                                               String sortModel, String filterModel) {
+        String mode = source == null ? "auto" : source.trim().toLowerCase(Locale.ROOT);
+        if (!mode.equals("auto") && !mode.equals("cache") && !mode.equals("warehouse")) {
+            throw new IllegalArgumentException("Unknown export source: " + source);
         }
-        return vals;
+        boolean base = !present(sortModel, "[]") && !present(filterModel, "{}");
+        if (mode.equals("warehouse")) {
+            if (!base) throw new IllegalArgumentException("Warehouse exports take no sort or filter model");
+            DatabricksSqlClient.ResultManifest m = warehouse.manifest(statementId);
+            if (m == null) throw new IllegalArgumentException("Statement result is not available in the warehouse");
+            return m;
         }
-        if (row instanceof Map) {
-        Map<String, Object> m = (Map<String, Object>) row;
-        List<String> vals = new ArrayList<>(columns.size());
-        for (String c : columns) vals.add(stringify(m.get(c)));
-        return vals;
-        }
-        return List.of();
+        return mode.equals("auto") && base && warehouse.preferred(meta.get("rowCount")) ? warehouse.manifest(statementId) : null;
     }
 
-    private static String stringify(Object v) {
-        if (v == null) return "";
-        // If you prefer JSON for nested structs/arrays, swap to Jackson here
-        return String.valueOf(v);
+    // Positions of the exported columns in the warehouse result row (statement column order)
+    private static int[] resultColumns(Map<String, Object> meta, List<String> columns) {
+        List<String> all = extractColumns(meta);
+        int[] out = new int[columns.size()];
+        for (int k = 0; k < out.length; k++) {
+            int idx = -1;
+            for (int i = 0; i < all.size() && idx < 0; i++) {
+                if (all.get(i).equalsIgnoreCase(columns.get(k))) idx = i;
+            }
+            if (idx < 0) throw new IllegalArgumentException("Unknown column: " + columns.get(k));
+            out[k] = idx;
+        }
+        return out;
     }
 
-    private static String csvLine(List<String> values) {
-        return values.stream().map(ExportController::quoteCsv).collect(Collectors.joining(","));
+    private static boolean present(String model, String empty) {
+        return model != null && !model.isBlank() && !empty.equals(model.trim());
     }
 
-    private static String quoteCsv(String s) {
-        if (s == null) s = "";
-        boolean needs = s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r");
-        if (needs) s = "\"" + s.replace("\"", "\"\"") + "\"";
-        return s;
-    }
-    
-    // Try the 5-arg overload; fall back to the 3-arg one if your ReportService doesn’t have it yet.
-    private Map<String, Object> getRowsWithModels(String statementId, int start, int end, String sortModel, String filterModel) {
-        try {
-            // If you already have this overload, this will work as-is:
-            return reportService.getRows(statementId, start, end, sortModel, filterModel);
-        } catch (NoSuchMethodError | NoSuchMethodException | RuntimeException e) {
-            // Fallback: original signature without models
-            return reportService.getRows(statementId, start, end);
+    // Bytes actually sent, for the throughput log
+    private static final class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
         }
     }
 }
@@ -0,0 +1,27 @@
+package com.mm.customreportbuilder.api;
+
+import com.mm.customreportbuilder.service.ReportService;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+// Server-side row grouping: body is an AG Grid SSRM request (rowGroupCols, groupKeys, valueCols,
+// filterModel, sortModel, startRow, endRow) plus statementId
+@RestController
+@RequestMapping("api/reports/groups")
+public class GroupsController {
+    private final ReportService reportService;
+
+    public GroupsController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @PostMapping
+    public Map<String, Object> groups(@RequestBody Map<String, Object> body) {
+        Object statementId = body.get("statementId");
+        if (!(statementId instanceof String s) || s.isBlank()) {
+            throw new IllegalArgumentException("statementId must not be blank");
+        }
+        return reportService.getGroupRows(s, body);
+    }
+}
@@ -1,14 +1,31 @@
 package com.mm.customreportbuilder.api;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.mm.customreportbuilder.service.ReportService;
+import com.mm.customreportbuilder.util.CborWriter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("api/reports")
 public class ReportsController {
+    // Completed statements and READY views never change
+    private static final String IMMUTABLE = "private, max-age=31536000, immutable";
+    private static final ObjectMapper MAPPER = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+
     private final ReportService reportService;
 
     public ReportsController(ReportService reportService) {
@@ -25,24 +42,224 @@ public class ReportsController {
         return reportService.submitStatement(sql);
     }
 
+    // Conditional: 304 while the meta (state, rowCount, ingest progress, ...) is unchanged
     @GetMapping("/meta")
-    public Map<String, Object> meta(@RequestParam String statementId) {
+    public ResponseEntity<Map<String, Object>> meta(@RequestParam String statementId,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         if (statementId == null || statementId.isBlank()) {
             throw new IllegalArgumentException("statementId must not be blank");
         }
-        return reportService.getStatementMeta(statementId);
+        Map<String, Object> meta = reportService.getStatementMeta(statementId);
+        String tag = "m-" + digest(meta);
+        if (matches(ifNoneMatch, tag) != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag).cacheControl(CacheControl.noCache().cachePrivate()).build();
+        }
+        return ResponseEntity.ok().eTag(tag).cacheControl(CacheControl.noCache().cachePrivate()).body(meta);
     }
 
+    // Async: a request for pages still being ingested or a view still building waits without a worker thread (see awaitRows)
     @GetMapping
-    public ResponseEntity<Map<String, Object>> page(@RequestParam String statementId,
-                                                    @RequestParam int startRow,
-                                                    @RequestParam int endRow,
-                                                    @RequestParam(required = false) String sortModel,
-                                                    @RequestParam(required = false) String filterModel) {
+    public CompletableFuture<ResponseEntity<?>> page(@RequestParam String statementId,
+                                  @RequestParam int startRow,
+                                  @RequestParam int endRow,
+                                  @RequestParam(required = false) String sortModel,
+                                  @RequestParam(required = false) String filterModel,
+                                  @RequestParam(required = false) String quickFilter,
+                                  @RequestParam(required = false) List<String> columns,
+                                  @RequestParam(required = false) String cursor,
+                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                  @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (statementId == null || statementId.isBlank()) {
+            throw new IllegalArgumentException("statementId must not be blank");
+        }
+        // Tags are only issued for completed results, so a match on a concrete tag needs no lookup at all
+        String tag = rowsTag(statementId, startRow, endRow, sortModel, filterModel, quickFilter, columns, acceptsCbor(accept));
+        String matched = matches(ifNoneMatch, tag, tag + "-gz");
+        if (matched != null) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(matched)
+                    .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE).header(HttpHeaders.VARY, VARY).build());
+        }
+        return reportService.awaitRows(statementId, startRow, endRow, sortModel, filterModel, quickFilter, cursor).thenApply(ready ->
+                rows(statementId, startRow, endRow, sortModel, filterModel, quickFilter, columns, cursor, accept, acceptEncoding, tag,
+                        ifNoneMatch));
+    }
+
+    private ResponseEntity<?> rows(String statementId, int startRow, int endRow, String sortModel, String filterModel,
+                                   String quickFilter, List<String> columns, String cursor, String accept, String acceptEncoding,
+                                   String tag, String ifNoneMatch) {
+        // Decided before reading: rows read while ingest was still running (short blocks) must not be
+        // tagged immutable if it completes meanwhile
+        boolean complete = reportService.isComplete(statementId, sortModel, filterModel, quickFilter, cursor);
+        if (complete && isWildcard(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tag)
+                    .header(HttpHeaders.CACHE_CONTROL, IMMUTABLE).header(HttpHeaders.VARY, VARY).build();
+        }
+        // Block == one stored page: send the stored gzip bytes instead of decoding and re-encoding them
+        if ((columns == null || columns.isEmpty()) && acceptsGzip(acceptEncoding) && !acceptsCbor(accept)) {
+            byte[] gz = reportService.getRowsGzipped(statementId, startRow, endRow, sortModel, filterModel, quickFilter, cursor);
+            if (gz != null) {
+                ResponseEntity.BodyBuilder ok = ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .header(HttpHeaders.VARY, VARY);
+                if (complete) {
+                    ok.eTag(tag + "-gz").header(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+                }
+                return ok.body(gz);
+            }
+        }
+        Map<String, Object> rows = reportService.getAvailableRows(statementId, startRow, endRow, sortModel, filterModel, quickFilter,
+                columns, cursor);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().header(HttpHeaders.VARY, VARY);
+        if (complete) {
+            ok.eTag(tag).header(HttpHeaders.CACHE_CONTROL, IMMUTABLE);
+        }
+        return ok.body(rows);
+    }
+
+    /**
+     * Several blocks of one model in one request (grid block + prefetch, concurrent block loads):
+     * {"statementId", "ranges": [[startRow, endRow], ...], "sortModel", "filterModel", "quickFilter", "columns", "cursor"}.
+     * Models may be sent as JSON text (as on GET /api/reports) or as JSON values. "complete" tells
+     * the client the model's rows are final, so blocks can be loaded as cacheable GETs from then on.
+     */
+    @PostMapping("/blocks")
+    public CompletableFuture<Map<String, Object>> blocks(@RequestBody Map<String, Object> body) {
+        Object id = body.get("statementId");
+        if (!(id instanceof String statementId) || statementId.isBlank()) {
+            throw new IllegalArgumentException("statementId must not be blank");
+        }
+        if (!(body.get("ranges") instanceof List<?> raw)) {
+            throw new IllegalArgumentException("ranges must be a list of [startRow, endRow]");
+        }
+        List<int[]> ranges = new ArrayList<>(raw.size());
+        for (Object r : raw) {
+            if (!(r instanceof List<?> pair) || pair.size() != 2
+                    || !(pair.get(0) instanceof Number start) || !(pair.get(1) instanceof Number end)) {
+                throw new IllegalArgumentException("ranges must be a list of [startRow, endRow]");
+            }
+            ranges.add(new int[]{start.intValue(), end.intValue()});
+        }
+        List<String> columns = null;
+        if (body.get("columns") instanceof List<?> cols) {
+            columns = new ArrayList<>(cols.size());
+            for (Object c : cols) columns.add(String.valueOf(c));
+        }
+        String sortModel = modelJson(body.get("sortModel"));
+        String filterModel = modelJson(body.get("filterModel"));
+        String quickFilter = body.get("quickFilter") instanceof String q ? q : null;
+        String cursor = body.get("cursor") instanceof String c ? c : null;
+        List<String> projection = columns;
+        // Base pages are ingested in order: once the furthest range is covered, all are (views: once READY)
+        int from = ranges.stream().mapToInt(r -> r[0]).min().orElse(0);
+        int to = ranges.stream().mapToInt(r -> r[1]).max().orElse(0);
+        return reportService.awaitRows(statementId, from, to, sortModel, filterModel, quickFilter, cursor).thenApply(ready -> {
+            // Decided before reading, as for GET: rows read while still ingesting / building are not final
+            boolean complete = reportService.isComplete(statementId, sortModel, filterModel, quickFilter, cursor);
+            Map<String, Object> out = reportService.getRowBlocks(statementId, ranges, sortModel, filterModel, quickFilter,
+                    projection, cursor);
+            out.put("complete", complete);
+            return out;
+        });
+    }
+
+    private static String modelJson(Object model) {
+        if (model == null || model instanceof String) return (String) model;
+        try {
+            return MAPPER.writeValueAsString(model);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid model", e);
+        }
+    }
+
+    // Strong tag over everything that selects the rows and their encoding (raw request values, so no meta is needed)
+    private static String rowsTag(String statementId, int startRow, int endRow, String sortModel, String filterModel,
+                                  String quickFilter, List<String> columns, boolean cbor) {
+        List<Object> key = Arrays.asList(statementId, startRow, endRow, blankToNull(sortModel, "[]"), blankToNull(filterModel, "{}"),
+                blankToNull(quickFilter, ""), columns == null || columns.isEmpty() ? null : columns, cbor ? "cbor" : "json");
+        return "r-" + digest(key);
+    }
+
+    private static String blankToNull(String s, String empty) {
+        return s == null || s.isBlank() || empty.equals(s.trim()) ? null : s;
+    }
+
+    // Returns the candidate named in If-None-Match, or null; "*" is not a tag we issued (see isWildcard)
+    private static String matches(String ifNoneMatch, String... candidates) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) return null;
+        for (String part : ifNoneMatch.split(",")) {
+            String t = part.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.length() >= 2 && t.startsWith("\"") && t.endsWith("\"")) t = t.substring(1, t.length() - 1);
+            for (String c : candidates) if (c.equals(t)) return c;
+        }
+        return null;
+    }
+
+    // "If-None-Match: *": any current representation matches, so only once one exists (the rows are final)
+    private static boolean isWildcard(String ifNoneMatch) {
+        if (ifNoneMatch == null) return false;
+        for (String part : ifNoneMatch.split(",")) if (part.trim().equals("*")) return true;
+        return false;
+    }
+
+    private static String digest(Object value) {
+        try {
+            return DigestUtils.md5DigestAsHex(MAPPER.writeValueAsBytes(value));
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot compute ETag", e);
+        }
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            if (!"gzip".equalsIgnoreCase(tokens[0].trim())) continue;
+            return tokens.length < 2 || !tokens[1].replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+
+    private static boolean acceptsCbor(String accept) {
+        return accept != null && accept.toLowerCase(java.util.Locale.ROOT).contains(CborWriter.MEDIA_TYPE);
+    }
+
+    // Build state/progress of a sorted/filtered view; with build=true a missing view is built in the background
+    @GetMapping("/view")
+    public Map<String, Object> view(@RequestParam String statementId,
+                                    @RequestParam(required = false) String sortModel,
+                                    @RequestParam(required = false) String filterModel,
+                                    @RequestParam(required = false) String quickFilter,
+                                    @RequestParam(required = false, defaultValue = "false") boolean build) {
+        if (statementId == null || statementId.isBlank()) {
+            throw new IllegalArgumentException("statementId must not be blank");
+        }
+        return reportService.getViewStatus(statementId, sortModel, filterModel, quickFilter, build);
+    }
+
+    // Row counts per distinct value of a bitmap-indexed column (filter badges); indexed=false otherwise
+    @GetMapping("/value-counts")
+    public Map<String, Object> valueCounts(@RequestParam String statementId, @RequestParam String column) {
+        if (statementId == null || statementId.isBlank()) {
+            throw new IllegalArgumentException("statementId must not be blank");
+        }
+        return reportService.getValueCounts(statementId, column);
+    }
+
+    // Distinct values with counts for set filters; the column's own filter is ignored, other filters apply
+    @GetMapping("/distinct")
+    public Map<String, Object> distinct(@RequestParam String statementId,
+                                        @RequestParam String column,
+                                        @RequestParam(required = false) String filterModel,
+                                        @RequestParam(required = false) String search,
+                                        @RequestParam(required = false, defaultValue = "0") int offset,
+                                        @RequestParam(required = false, defaultValue = "1000") int limit) {
         if (statementId == null || statementId.isBlank()) {
             throw new IllegalArgumentException("statementId must not be blank");
         }
-        return ResponseEntity.ok(reportService.getRows(statementId, startRow, endRow, sortModel, filterModel));
+        return reportService.getDistinctValues(statementId, column, filterModel, search, offset, limit);
     }
 
     @DeleteMapping
@@ -0,0 +1,61 @@
+package com.mm.customreportbuilder.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mm.customreportbuilder.cache.StatementEventBus;
+import com.mm.customreportbuilder.service.ReportService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Server-Sent Events per statement: the current meta as a first "meta" event, then every
+ * "meta" / "view" event published by the ingest listener and view builds (on any node).
+ * Streams are async (SseEmitter), so open streams hold no request threads.
+ */
+@RestController
+@RequestMapping("api/reports/events")
+public class StatementEventsController {
+
+    private final StatementEventBus events;
+    private final ReportService reportService;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long timeoutMs;
+
+    public StatementEventsController(StatementEventBus events, ReportService reportService,
+                                     @Value("${SSE_TIMEOUT_MS:1800000}") long timeoutMs) {
+        this.events = events;
+        this.reportService = reportService;
+        this.timeoutMs = timeoutMs;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam String statementId) throws IOException {
+        if (statementId == null || statementId.isBlank()) {
+            throw new IllegalArgumentException("statementId must not be blank");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Runnable unsubscribe = events.subscribe(statementId, e -> send(emitter, e.type(), e.data()));
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(() -> {
+            unsubscribe.run();
+            emitter.complete();
+        });
+        emitter.onError(t -> unsubscribe.run());
+
+        // Snapshot after subscribing, so no transition falls between the two
+        send(emitter, "meta", mapper.writeValueAsString(reportService.getStatementMeta(statementId)));
+        return emitter;
+    }
+
+    private static void send(SseEmitter emitter, String type, String json) {
+        try {
+            emitter.send(SseEmitter.event().name(type).data(json, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away; completing triggers the unsubscribe
+            emitter.completeWithError(e);
+        }
+    }
+}
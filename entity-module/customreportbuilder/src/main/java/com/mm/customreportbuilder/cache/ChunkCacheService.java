@@ -33,6 +33,10 @@ public class ChunkCacheService {
         return "report:%s:%s:chunk:%d".formatted(userId, statementId, index);
     }
 
+    private String sqlKey(String userId, String statementId) {
+        return "report:%s:%s:sql".formatted(userId, statementId);
+    }
+
     public void putMeta(
         String userId,
         String statementId,
@@ -67,6 +71,20 @@ public class ChunkCacheService {
         }
     }
 
+    // Merge arbitrary fields (e.g. ingest progress) into the meta without touching the rest
+    public void putMetaFields(String userId, String statementId, Map<String, Object> fields) {
+        try {
+            Map<String, Object> meta = getMeta(userId, statementId);
+            if (meta == null) {
+                meta = new HashMap<>();
+            }
+            meta.putAll(fields);
+            stringTemplate.opsForValue().set(metaKey(userId, statementId), mapper.writeValueAsString(meta), ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed serialize metadata", e);
+        }
+    }
+
     public Map<String, Object> getMeta(String userId, String statementId) {
         try {
             String json = stringTemplate.opsForValue().get(metaKey(userId, statementId));
@@ -83,7 +101,7 @@ public class ChunkCacheService {
     public void putChunk(String userId, String statementId, int index, List<List<Object>> rows) {
         try {
             byte[] json = mapper.writeValueAsBytes(rows);
-            byte[] gzipped = com.mm.customreportbuilder.util.GzipUtils.gzip(json);
+            byte[] gzipped = com.mm.customreportbuilder.util.GzipUtils.gzipSpliceable(json); // served as-is for page-aligned blocks
             bytesTemplate.opsForValue().set(chunkKey(userId, statementId, index), gzipped, ttlSeconds, TimeUnit.SECONDS);
         } catch (Exception e) {
             throw new RuntimeException("Failed serialize chunk", e);
@@ -91,19 +109,80 @@ public class ChunkCacheService {
     }
 
     public List<List<Object>> getChunk(String userId, String statementId, int index) {
+        return getChunk(userId, statementId, index, null);
+    }
+
+    /** Stored (gzipped JSON) bytes of a page, without decoding; null if absent. */
+    public byte[] getChunkBytes(String userId, String statementId, int index) {
+        return bytesTemplate.opsForValue().get(chunkKey(userId, statementId, index));
+    }
+
+    // columns != null: decode only those column positions (see RowProjection)
+    public List<List<Object>> getChunk(String userId, String statementId, int index, int[] columns) {
         try {
             byte[] gzipped = bytesTemplate.opsForValue().get(chunkKey(userId, statementId, index));
             if (gzipped == null) {
                 return null;
             }
             byte[] json = com.mm.customreportbuilder.util.GzipUtils.ungzip(gzipped);
-            return mapper.readValue(json, new TypeReference<List<List<Object>>>() {});
+            return decodeRows(json, columns);
         } catch (Exception e) {
             throw new RuntimeException("Failed deserialize chunk", e);
         }
     }
 
+    // Batched read of several pages in one round trip (MGET); missing pages are absent from the result
+    public Map<Integer, List<List<Object>>> getChunks(String userId, String statementId, Collection<Integer> indexes) {
+        return getChunks(userId, statementId, indexes, null);
+    }
+
+    public Map<Integer, List<List<Object>>> getChunks(String userId, String statementId, Collection<Integer> indexes, int[] columns) {
+        Map<Integer, List<List<Object>>> out = new HashMap<>();
+        if (indexes == null || indexes.isEmpty()) {
+            return out;
+        }
+        List<Integer> order = new ArrayList<>(indexes);
+        List<String> keys = new ArrayList<>(order.size());
+        for (Integer index : order) {
+            keys.add(chunkKey(userId, statementId, index));
+        }
+        try {
+            List<byte[]> values = bytesTemplate.opsForValue().multiGet(keys);
+            if (values == null) {
+                return out;
+            }
+            for (int i = 0; i < order.size() && i < values.size(); i++) {
+                byte[] gzipped = values.get(i);
+                if (gzipped == null) {
+                    continue;
+                }
+                byte[] json = com.mm.customreportbuilder.util.GzipUtils.ungzip(gzipped);
+                out.put(order.get(i), decodeRows(json, columns));
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed deserialize chunks", e);
+        }
+    }
+
+    private List<List<Object>> decodeRows(byte[] json, int[] columns) throws java.io.IOException {
+        if (columns != null) {
+            return com.mm.customreportbuilder.util.RowProjection.decode(mapper, json, columns);
+        }
+        return mapper.readValue(json, new TypeReference<List<List<Object>>>() {});
+    }
+
+    // Original statement text, kept so views can be pushed back down to the warehouse
+    public void putSql(String userId, String statementId, String sql) {
+        stringTemplate.opsForValue().set(sqlKey(userId, statementId), sql, ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    public String getSql(String userId, String statementId) {
+        return stringTemplate.opsForValue().get(sqlKey(userId, statementId));
+    }
+
     public void invalidateStatement(String userId, String statementId) {
+        stringTemplate.delete(sqlKey(userId, statementId));
         stringTemplate.delete(metaKey(userId, statementId));
         Map<String, Object> meta = getMeta(userId, statementId);
         if (meta != null) {
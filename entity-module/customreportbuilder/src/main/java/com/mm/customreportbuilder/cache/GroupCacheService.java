@@ -0,0 +1,101 @@
+package com.mm.customreportbuilder.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.mm.customreportbuilder.util.GzipUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches aggregates computed over the cached pages of a statement.
+ * Key pattern:
+ *   Groups:   report:{userId}:{statementId}:group:{sig}     (gzipped JSON list of group rows)
+ *   Distinct: report:{userId}:{statementId}:distinct:{sig}  (gzipped JSON list of [value, count])
+ *
+ * The signature covers the group columns, the expanded parent keys, the value
+ * columns with their aggFuncs and the filter model, so each expansion is cached
+ * separately and sorting/paging reuse the same entry. Distinct signatures cover
+ * the column and the other columns' filters.
+ *
+ * TTL: REDIS_VIEW_TTL (seconds) if set, otherwise REDIS_CHUNK_TTL, otherwise 600s.
+ */
+@Service
+public class GroupCacheService {
+
+    private final RedisTemplate<String, byte[]> bytesTemplate;
+    private final ObjectMapper mapper = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+    private final long ttlSeconds;
+
+    public GroupCacheService(
+            RedisTemplate<String, byte[]> bytesTemplate,
+            @Value("${REDIS_VIEW_TTL:${REDIS_CHUNK_TTL:600}}") long ttlSeconds) {
+        this.bytesTemplate = bytesTemplate;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    private String groupKey(String userId, String statementId, String sig) {
+        return "report:%s:%s:group:%s".formatted(userId, statementId, sig);
+    }
+
+    private String distinctKey(String userId, String statementId, String sig) {
+        return "report:%s:%s:distinct:%s".formatted(userId, statementId, sig);
+    }
+
+    /** Stable signature over a group spec (maps are hashed with sorted keys). */
+    public String computeSignature(String statementId, Map<String, Object> spec) {
+        try {
+            String payload = (statementId == null ? "" : statementId) + "|" + mapper.writeValueAsString(spec);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(payload.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 16; i++) sb.append(String.format("%02x", hash[i]));
+            return sb.toString();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to compute group signature", e);
+        }
+    }
+
+    public void putGroups(String userId, String statementId, String sig, List<Map<String, Object>> groups) {
+        try {
+            byte[] gz = GzipUtils.gzip(mapper.writeValueAsBytes(groups));
+            bytesTemplate.opsForValue().set(groupKey(userId, statementId, sig), gz, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to put groups", e);
+        }
+    }
+
+    public List<Map<String, Object>> getGroups(String userId, String statementId, String sig) {
+        try {
+            byte[] gz = bytesTemplate.opsForValue().get(groupKey(userId, statementId, sig));
+            if (gz == null) return null;
+            return mapper.readValue(GzipUtils.ungzip(gz), new TypeReference<List<Map<String, Object>>>() {});
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get groups", e);
+        }
+    }
+
+    public void putDistinct(String userId, String statementId, String sig, List<List<Object>> valueCounts) {
+        try {
+            byte[] gz = GzipUtils.gzip(mapper.writeValueAsBytes(valueCounts));
+            bytesTemplate.opsForValue().set(distinctKey(userId, statementId, sig), gz, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to put distinct values", e);
+        }
+    }
+
+    public List<List<Object>> getDistinct(String userId, String statementId, String sig) {
+        try {
+            byte[] gz = bytesTemplate.opsForValue().get(distinctKey(userId, statementId, sig));
+            if (gz == null) return null;
+            return mapper.readValue(GzipUtils.ungzip(gz), new TypeReference<List<List<Object>>>() {});
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get distinct values", e);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.mm.customreportbuilder.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mm.customreportbuilder.index.BitmapIndex;
+import com.mm.customreportbuilder.index.PageBlooms;
+import com.mm.customreportbuilder.index.PageStats;
+import com.mm.customreportbuilder.index.TrigramIndex;
+import com.mm.customreportbuilder.util.GzipUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest-time indexes over the base pages of a statement.
+ * Key pattern:
+ *   Zone map: report:{userId}:{statementId}:zone:{pageIndex}   (gzipped PageStats JSON)
+ *   Bloom:    report:{userId}:{statementId}:bloom:{pageIndex}  (raw PageBlooms bits, high-cardinality text columns)
+ *   Bitmap:   report:{userId}:{statementId}:bix:{columnIndex}  (gzipped BitmapIndex, low-cardinality columns)
+ *   Trigram:  report:{userId}:{statementId}:tri:{columnIndex}  (gzipped TrigramIndex, built lazily)
+ *   Trigram columns: report:{userId}:{statementId}:tri:columns (SET of column indexes with a trigram index)
+ *   Quick:    report:{userId}:{statementId}:quick              (gzipped TrigramIndex over whole-row text, built lazily)
+ *
+ * Which columns carry a bitmap index is recorded in the base meta (bitmapColumns, written once at
+ * ingest); trigram indexes are built by concurrent requests, so their columns go to a SET instead.
+ *
+ * Indexes share the base chunk TTL so they never outlive the pages they describe.
+ */
+@Service
+public class IndexCacheService {
+
+    private final RedisTemplate<String, byte[]> bytesTemplate;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final long ttlSeconds;
+
+    public IndexCacheService(
+            RedisTemplate<String, byte[]> bytesTemplate,
+            @Value("${REDIS_CHUNK_TTL:600}") long ttlSeconds) {
+        this.bytesTemplate = bytesTemplate;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    /* ====================== Keys ====================== */
+
+    private String zoneKey(String userId, String statementId, int index) {
+        return "report:%s:%s:zone:%d".formatted(userId, statementId, index);
+    }
+
+    private String bloomKey(String userId, String statementId, int index) {
+        return "report:%s:%s:bloom:%d".formatted(userId, statementId, index);
+    }
+
+    private String bitmapKey(String userId, String statementId, int column) {
+        return "report:%s:%s:bix:%d".formatted(userId, statementId, column);
+    }
+
+    private String trigramKey(String userId, String statementId, int column) {
+        return "report:%s:%s:tri:%d".formatted(userId, statementId, column);
+    }
+
+    private String trigramColumnsKey(String userId, String statementId) {
+        return "report:%s:%s:tri:columns".formatted(userId, statementId);
+    }
+
+    private String quickKey(String userId, String statementId) {
+        return "report:%s:%s:quick".formatted(userId, statementId);
+    }
+
+    /* ====================== Zone maps ====================== */
+
+    public void putPageStats(String userId, String statementId, int index, PageStats stats) {
+        try {
+            byte[] gz = GzipUtils.gzip(mapper.writeValueAsBytes(stats));
+            bytesTemplate.opsForValue().set(zoneKey(userId, statementId, index), gz, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to put page stats", e);
+        }
+    }
+
+    /** Batched read (MGET); pages without stats are absent from the result. */
+    public Map<Integer, PageStats> getPageStats(String userId, String statementId, Collection<Integer> indexes) {
+        Map<Integer, PageStats> out = new HashMap<>();
+        if (indexes == null || indexes.isEmpty()) return out;
+        List<Integer> order = new ArrayList<>(indexes);
+        List<String> keys = new ArrayList<>(order.size());
+        for (Integer i : order) keys.add(zoneKey(userId, statementId, i));
+        try {
+            List<byte[]> values = bytesTemplate.opsForValue().multiGet(keys);
+            if (values == null) return out;
+            for (int i = 0; i < order.size() && i < values.size(); i++) {
+                byte[] gz = values.get(i);
+                if (gz == null) continue;
+                out.put(order.get(i), mapper.readValue(GzipUtils.ungzip(gz), PageStats.class));
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get page stats", e);
+        }
+    }
+
+    /* ====================== Bloom filters ====================== */
+
+    // Stored uncompressed: bloom bits are close to random and do not gzip
+    public void putPageBlooms(String userId, String statementId, int index, PageBlooms blooms) {
+        bytesTemplate.opsForValue().set(bloomKey(userId, statementId, index), blooms.toBytes(), ttlSeconds, TimeUnit.SECONDS);
+    }
+
+    /** Batched read (MGET); pages without filters are absent from the result. */
+    public Map<Integer, PageBlooms> getPageBlooms(String userId, String statementId, Collection<Integer> indexes) {
+        Map<Integer, PageBlooms> out = new HashMap<>();
+        if (indexes == null || indexes.isEmpty()) return out;
+        List<Integer> order = new ArrayList<>(indexes);
+        List<String> keys = new ArrayList<>(order.size());
+        for (Integer i : order) keys.add(bloomKey(userId, statementId, i));
+        try {
+            List<byte[]> values = bytesTemplate.opsForValue().multiGet(keys);
+            if (values == null) return out;
+            for (int i = 0; i < order.size() && i < values.size(); i++) {
+                if (values.get(i) != null) out.put(order.get(i), PageBlooms.fromBytes(values.get(i)));
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get page blooms", e);
+        }
+    }
+
+    /* ====================== Bitmap indexes ====================== */
+
+    public void putBitmapIndex(String userId, String statementId, int column, BitmapIndex index) {
+        try {
+            byte[] gz = GzipUtils.gzip(index.toBytes());
+            bytesTemplate.opsForValue().set(bitmapKey(userId, statementId, column), gz, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to put bitmap index", e);
+        }
+    }
+
+    public BitmapIndex getBitmapIndex(String userId, String statementId, int column) {
+        try {
+            byte[] gz = bytesTemplate.opsForValue().get(bitmapKey(userId, statementId, column));
+            if (gz == null) return null;
+            return BitmapIndex.fromBytes(GzipUtils.ungzip(gz));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get bitmap index", e);
+        }
+    }
+
+    /* ====================== Trigram indexes ====================== */
+
+    public void putTrigramIndex(String userId, String statementId, int column, TrigramIndex index) {
+        try {
+            byte[] gz = GzipUtils.gzip(index.toBytes());
+            bytesTemplate.opsForValue().set(trigramKey(userId, statementId, column), gz, ttlSeconds, TimeUnit.SECONDS);
+            // SADD, not a read-modify-write of the meta: indexes of different columns may finish at once
+            String columnsKey = trigramColumnsKey(userId, statementId);
+            bytesTemplate.opsForSet().add(columnsKey, Integer.toString(column).getBytes(StandardCharsets.UTF_8));
+            bytesTemplate.expire(columnsKey, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to put trigram index", e);
+        }
+    }
+
+    /** Columns a trigram index was stored for. */
+    public Set<Integer> getTrigramColumns(String userId, String statementId) {
+        Set<byte[]> members = bytesTemplate.opsForSet().members(trigramColumnsKey(userId, statementId));
+        Set<Integer> columns = new TreeSet<>();
+        if (members != null) {
+            for (byte[] m : members) columns.add(Integer.parseInt(new String(m, StandardCharsets.UTF_8)));
+        }
+        return columns;
+    }
+
+    public TrigramIndex getTrigramIndex(String userId, String statementId, int column) {
+        try {
+            byte[] gz = bytesTemplate.opsForValue().get(trigramKey(userId, statementId, column));
+            if (gz == null) return null;
+            return TrigramIndex.fromBytes(GzipUtils.ungzip(gz));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get trigram index", e);
+        }
+    }
+
+    /* ====================== Quick filter index ====================== */
+
+    public void putQuickIndex(String userId, String statementId, TrigramIndex index) {
+        try {
+            byte[] gz = GzipUtils.gzip(index.toBytes());
+            bytesTemplate.opsForValue().set(quickKey(userId, statementId), gz, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to put quick filter index", e);
+        }
+    }
+
+    public TrigramIndex getQuickIndex(String userId, String statementId) {
+        try {
+            byte[] gz = bytesTemplate.opsForValue().get(quickKey(userId, statementId));
+            if (gz == null) return null;
+            return TrigramIndex.fromBytes(GzipUtils.ungzip(gz));
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get quick filter index", e);
+        }
+    }
+
+    /* ====================== Invalidation ====================== */
+
+    public void invalidateStatement(String userId, String statementId, int pageCount, Collection<Integer> bitmapColumns) {
+        bytesTemplate.delete(quickKey(userId, statementId));
+        for (Integer c : getTrigramColumns(userId, statementId)) {
+            bytesTemplate.delete(trigramKey(userId, statementId, c));
+        }
+        bytesTemplate.delete(trigramColumnsKey(userId, statementId));
+        for (int i = 0; i < pageCount; i++) {
+            bytesTemplate.delete(zoneKey(userId, statementId, i));
+            bytesTemplate.delete(bloomKey(userId, statementId, i));
+        }
+        if (bitmapColumns != null) {
+            for (Integer c : bitmapColumns) {
+                bytesTemplate.delete(bitmapKey(userId, statementId, c));
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.mm.customreportbuilder.cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Waits for base pages of a statement still being ingested, for its ingest to end or for one of
+ * its views to turn READY, without holding a thread.
+ *
+ * A waiter is a future completed by the statement's "meta" / "view" events (see {@link StatementEventBus})
+ * once pagesIngested covers the requested rows, ingestion has ended or the view is READY, or by a
+ * single timer thread when the deadline passes. Futures complete on a small worker pool, so whatever the
+ * caller chains onto them (Redis reads, decoding) never runs on the Redis listener or timer thread.
+ */
+@Component
+public class PageAvailability {
+
+    private static final Logger log = LoggerFactory.getLogger(PageAvailability.class);
+    private static final Set<String> TERMINAL_STATES = Set.of("FAILED", "CANCELED", "CLOSED");
+
+    private final ChunkCacheService cache;
+    private final StatementEventBus events;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    public PageAvailability(
+            ChunkCacheService cache,
+            StatementEventBus events,
+            @Value("${ROWS_ASYNC_THREADS:8}") int threads) {
+        this.cache = cache;
+        this.events = events;
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "page-wait-timer");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        this.timer = scheduler;
+        this.workers = new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "rows-async");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Completes when the base pages behind rows [startRow, endRow) are stored, ingestion has ended
+     * (or the statement is unknown), or {@code timeoutMs} has passed. Already complete when no wait is needed.
+     */
+    public CompletableFuture<Void> await(String userId, String statementId, int startRow, int endRow, long timeoutMs) {
+        Map<String, Object> meta = cache.getMeta(userId, statementId);
+        if (meta == null || timeoutMs <= 0) return CompletableFuture.completedFuture(null);
+        int pageSize = ((Number) meta.getOrDefault("pageSize", 500)).intValue();
+        int lastPage = Math.max(0, (Math.max(endRow, startRow + 1) - 1) / pageSize);
+        if (covers(meta, lastPage)) return CompletableFuture.completedFuture(null);
+
+        // Pages stored between the first read and the subscription raised no event for us
+        CompletableFuture<Void> ready = when(statementId, "meta", m -> covers(m, lastPage),
+                () -> covers(cache.getMeta(userId, statementId), lastPage), timeoutMs, "page " + lastPage);
+        return ready.thenRunAsync(() -> {}, workers);
+    }
+
+    /** Completes once ingestion of the statement has ended (or it is unknown), or {@code timeoutMs} has passed. */
+    public CompletableFuture<Void> awaitIngest(String userId, String statementId, long timeoutMs) {
+        Map<String, Object> meta = cache.getMeta(userId, statementId);
+        if (meta == null || timeoutMs <= 0 || ingestEnded(meta)) return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> ready = when(statementId, "meta", PageAvailability::ingestEnded,
+                () -> ingestEnded(cache.getMeta(userId, statementId)), timeoutMs, "ingest");
+        return ready.thenRunAsync(() -> {}, workers);
+    }
+
+    /**
+     * Completes once a "view" event reports view {@code sig} READY, {@code isReady} does (checked after
+     * subscribing), {@code build} has finished either way, or {@code timeoutMs} has passed.
+     */
+    public CompletableFuture<Void> awaitView(String statementId, String sig, BooleanSupplier isReady,
+                                             CompletableFuture<?> build, long timeoutMs) {
+        if (timeoutMs <= 0) return CompletableFuture.completedFuture(null);
+        CompletableFuture<Void> ready = when(statementId, "view",
+                m -> m != null && sig.equals(m.get("sig")) && "READY".equals(m.get("state")), isReady, timeoutMs, "view " + sig);
+        // A failed build publishes no READY: its caller falls back instead of waiting out the deadline
+        build.whenComplete((v, t) -> ready.complete(null));
+        return ready.thenRunAsync(() -> {}, workers);
+    }
+
+    // Completed by the first matching event, by {@code already} (checked once subscribed) or at the deadline
+    private CompletableFuture<Void> when(String statementId, String type, Predicate<Map<String, Object>> done,
+                                         BooleanSupplier already, long timeoutMs, String what) {
+        CompletableFuture<Void> ready = new CompletableFuture<>();
+        Runnable unsubscribe = events.subscribe(statementId, e -> {
+            if (type.equals(e.type()) && done.test(parse(e.data()))) ready.complete(null);
+        });
+        ScheduledFuture<?> deadline = timer.schedule(() -> {
+            if (ready.complete(null)) {
+                log.debug("Gave up waiting for {} of statementId={} after {}ms", what, statementId, timeoutMs);
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        ready.whenComplete((v, t) -> {
+            unsubscribe.run();
+            deadline.cancel(false);
+        });
+        if (already.getAsBoolean()) ready.complete(null);
+        return ready;
+    }
+
+    private static boolean ingestEnded(Map<String, Object> meta) {
+        if (meta == null) return false;
+        // Published as true/false when ingestion ends; stored only once true
+        if (meta.get("ingestComplete") instanceof Boolean) return true;
+        return meta.get("state") instanceof String s && TERMINAL_STATES.contains(s);
+    }
+
+    private static boolean covers(Map<String, Object> meta, int lastPage) {
+        if (meta == null) return false;
+        if (meta.get("pagesIngested") instanceof Number n && n.intValue() > lastPage) return true;
+        return ingestEnded(meta);
+    }
+
+    private Map<String, Object> parse(String json) {
+        try {
+            return mapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+}
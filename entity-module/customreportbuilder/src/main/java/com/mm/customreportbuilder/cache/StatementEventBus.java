@@ -0,0 +1,93 @@
+package com.mm.customreportbuilder.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Statement progress events, fanned out across nodes through Redis pub/sub.
+ * Channel: report:{userId}:{statementId}:events, message {"type": ..., "data": {...}}.
+ *
+ * Types: "meta" (state, rowCount, pagesIngested, ingestComplete; only the fields that
+ * changed) and "view" (build progress / READY of one view sig). Events are best-effort:
+ * a failed publish is logged and dropped, the meta in Redis stays authoritative.
+ * Every node subscribes to the channel pattern once and dispatches to its local
+ * subscribers (the open SSE streams).
+ */
+@Service
+public class StatementEventBus implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementEventBus.class);
+
+    public record Event(String type, String data) {}
+
+    private final RedisTemplate<String, String> stringTemplate;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConcurrentHashMap<String, Set<Consumer<Event>>> subscribers = new ConcurrentHashMap<>();
+
+    public StatementEventBus(
+            @Qualifier("redisStringTemplate") RedisTemplate<String, String> stringTemplate,
+            RedisMessageListenerContainer listenerContainer) {
+        this.stringTemplate = stringTemplate;
+        listenerContainer.addMessageListener(this, new PatternTopic("report:*:*:events"));
+    }
+
+    private String channel(String userId, String statementId) {
+        return "report:%s:%s:events".formatted(userId, statementId);
+    }
+
+    public void publish(String userId, String statementId, String type, Map<String, Object> data) {
+        try {
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("type", type);
+            message.put("data", data);
+            stringTemplate.convertAndSend(channel(userId, statementId), mapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.debug("Failed to publish {} event for statementId={}: {}", type, statementId, e.toString());
+        }
+    }
+
+    /** Local subscription to one statement's events; run the returned handle to unsubscribe. */
+    public Runnable subscribe(String statementId, Consumer<Event> listener) {
+        subscribers.computeIfAbsent(statementId, k -> ConcurrentHashMap.newKeySet()).add(listener);
+        return () -> subscribers.computeIfPresent(statementId, (k, set) -> {
+            set.remove(listener);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String[] parts = channel.split(":");
+        if (parts.length < 4) return;
+        Set<Consumer<Event>> listeners = subscribers.get(parts[2]);
+        if (listeners == null || listeners.isEmpty()) return;
+        try {
+            JsonNode node = mapper.readTree(message.getBody());
+            Event event = new Event(node.path("type").asText(), node.path("data").toString());
+            for (Consumer<Event> l : listeners) {
+                try {
+                    l.accept(event);
+                } catch (RuntimeException e) {
+                    log.debug("Event listener failed for statementId={}: {}", parts[2], e.toString());
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Dropping malformed event on {}: {}", channel, e.toString());
+        }
+    }
+}
@@ -3,9 +3,12 @@ package com.mm.customreportbuilder.cache;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mm.customreportbuilder.util.GzipUtils;
+import com.mm.customreportbuilder.util.PackedInts;
+import com.mm.customreportbuilder.util.RowProjection;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
@@ -16,30 +19,51 @@ import java.util.concurrent.TimeUnit;
 /**
  * Caches sorted/filtered "views" derived from a base statement result.
  * Key pattern:
- *   Meta:  report:{userId}:{statementId}:view:{sig}:meta
- *   Chunk: report:{userId}:{statementId}:view:{sig}:chunk:{index}
+ *   Meta:   report:{userId}:{statementId}:view:{sig}:meta
+ *   Chunk:  report:{userId}:{statementId}:view:{sig}:chunk:{index}
+ *   Perm:   report:{userId}:{statementId}:view:{sig}:perm:{index}   (storage=permutation)
+ *   Catalog: report:{userId}:{statementId}:views  (hash sig -> {sortModel, filterModel, quickFilter, rowCount, storage})
+ *   Lock:   report:{userId}:{statementId}:view:{sig}:lock           (single builder across nodes)
+ *
+ * Meta.state is BUILDING (with phase/pagesScanned/rowsMatched progress) while a
+ * build runs and READY once every page is stored. Metas without a state predate
+ * progress tracking and are treated as READY.
+ *
+ * A view is stored either as materialized row pages ("rows") or as a compact
+ * row-id permutation over the base pages ("permutation"); see meta.storage.
  *
  * TTL:
  *   REDIS_VIEW_TTL (seconds) if set, otherwise REDIS_CHUNK_TTL, otherwise 600s.
- *
- * Note: This service is not wired anywhere yet (Step 2). No behavior change.
  */
 @Service
 public class ViewCacheService {
 
+    public static final String STATE_BUILDING = "BUILDING";
+    public static final String STATE_READY = "READY";
+
+    private static final DefaultRedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+
     private final RedisTemplate<String, byte[]> bytesTemplate;
     private final RedisTemplate<String, String> stringTemplate;
     private final ObjectMapper mapper = new ObjectMapper();
     private final long ttlSeconds;
+    private final long lockTtlMs;
 
     public ViewCacheService(
             RedisTemplate<String, byte[]> bytesTemplate,
             @Qualifier("redisStringTemplate") RedisTemplate<String, String> stringTemplate,
-            @Value("${REDIS_VIEW_TTL:${REDIS_CHUNK_TTL:600}}") long ttlSeconds
+            @Value("${REDIS_VIEW_TTL:${REDIS_CHUNK_TTL:600}}") long ttlSeconds,
+            @Value("${VIEW_BUILD_LOCK_TTL_MS:60000}") long lockTtlMs
     ) {
         this.bytesTemplate = bytesTemplate;
         this.stringTemplate = stringTemplate;
         this.ttlSeconds = ttlSeconds;
+        this.lockTtlMs = lockTtlMs;
     }
 
     /* ====================== Keys ====================== */
@@ -52,6 +76,18 @@ public class ViewCacheService {
         return "report:%s:%s:view:%s:chunk:%d".formatted(userId, statementId, sig, index);
     }
 
+    private String permKey(String userId, String statementId, String sig, int index) {
+        return "report:%s:%s:view:%s:perm:%d".formatted(userId, statementId, sig, index);
+    }
+
+    private String lockKey(String userId, String statementId, String sig) {
+        return "report:%s:%s:view:%s:lock".formatted(userId, statementId, sig);
+    }
+
+    private String catalogKey(String userId, String statementId) {
+        return "report:%s:%s:views".formatted(userId, statementId);
+    }
+
     /* ====================== Signature ====================== */
 
     /**
@@ -60,12 +96,18 @@ public class ViewCacheService {
      * - SHA-256, hex-encoded, 32 chars prefix (short id).
      */
     public String computeSignature(String statementId, String sortModelJson, String filterModelJson) {
+        return computeSignature(statementId, sortModelJson, filterModelJson, null);
+    }
+
+    /** Same, plus the canonical quick filter (see QuickFilter.normalize); views without one keep their sig. */
+    public String computeSignature(String statementId, String sortModelJson, String filterModelJson, String quickFilter) {
         try {
             String normSort = canonicalJsonOrNull(sortModelJson);
             String normFilter = canonicalJsonOrNull(filterModelJson);
             String payload = (statementId == null ? "" : statementId) + "|" +
                     (normSort == null ? "" : normSort) + "|" +
-                    (normFilter == null ? "" : normFilter);
+                    (normFilter == null ? "" : normFilter) +
+                    (quickFilter == null ? "" : "|q:" + quickFilter);
             MessageDigest md = MessageDigest.getInstance("SHA-256");
             byte[] hash = md.digest(payload.getBytes(StandardCharsets.UTF_8));
             // return first 32 hex chars (128-bit prefix is enough)
@@ -79,7 +121,8 @@ public class ViewCacheService {
             // Fallback to a simple hash if anything goes wrong
             String s = (statementId == null ? "" : statementId) + "|" +
                        (sortModelJson == null ? "" : sortModelJson) + "|" +
-                       (filterModelJson == null ? "" : filterModelJson);
+                       (filterModelJson == null ? "" : filterModelJson) +
+                       (quickFilter == null ? "" : "|q:" + quickFilter);
             return Integer.toHexString(s.hashCode());
         }
     }
@@ -137,12 +180,62 @@ public class ViewCacheService {
         return Boolean.TRUE.equals(stringTemplate.hasKey(metaKey(userId, statementId, sig)));
     }
 
+    /** A view is servable once its meta says READY (or carries no state at all). */
+    public static boolean isReady(Map<String, Object> meta) {
+        if (meta == null) return false;
+        Object state = meta.get("state");
+        return state == null || STATE_READY.equals(state);
+    }
+
+    /** Publish build progress as a BUILDING meta (the build lock is kept alive by its owner, see renewLock). */
+    public void putProgress(String userId, String statementId, String sig, int pageSize, Map<String, Object> progress) {
+        Map<String, Object> extra = new LinkedHashMap<>(progress);
+        extra.put("state", STATE_BUILDING);
+        extra.put("updatedAt", System.currentTimeMillis());
+        putMeta(userId, statementId, sig, pageSize, null, extra);
+    }
+
+    /** A BUILDING meta whose build lock is gone was left by a builder that died: nothing will finish it. */
+    public boolean isAbandoned(String userId, String statementId, String sig, Map<String, Object> meta) {
+        return meta != null && STATE_BUILDING.equals(meta.get("state")) && !isLocked(userId, statementId, sig);
+    }
+
+    /* ====================== Build lock ====================== */
+
+    /** Try to become the (cluster-wide) builder of a view; returns an owner token or null. */
+    public String tryLock(String userId, String statementId, String sig) {
+        String token = UUID.randomUUID().toString();
+        Boolean ok = stringTemplate.opsForValue().setIfAbsent(
+                lockKey(userId, statementId, sig), token, lockTtlMs, TimeUnit.MILLISECONDS);
+        return Boolean.TRUE.equals(ok) ? token : null;
+    }
+
+    public long lockTtlMs() {
+        return lockTtlMs;
+    }
+
+    public boolean isLocked(String userId, String statementId, String sig) {
+        return Boolean.TRUE.equals(stringTemplate.hasKey(lockKey(userId, statementId, sig)));
+    }
+
+    /** Extend the lock to a full TTL if we still own it; false once it expired or was taken over. */
+    public boolean renewLock(String userId, String statementId, String sig, String token) {
+        Long ok = stringTemplate.execute(RENEW_SCRIPT, List.of(lockKey(userId, statementId, sig)), token, String.valueOf(lockTtlMs));
+        return ok != null && ok == 1L;
+    }
+
+    /** Release the lock only if we still own it. */
+    public void unlock(String userId, String statementId, String sig, String token) {
+        if (token == null) return;
+        stringTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey(userId, statementId, sig)), token);
+    }
+
     /* ====================== Chunks ====================== */
 
     public void putChunk(String userId, String statementId, String sig, int index, List<List<Object>> rows) {
         try {
             byte[] json = mapper.writeValueAsBytes(rows);
-            byte[] gz = GzipUtils.gzip(json);
+            byte[] gz = GzipUtils.gzipSpliceable(json); // served as-is for page-aligned blocks
             bytesTemplate.opsForValue().set(
                     chunkKey(userId, statementId, sig, index),
                     gz,
@@ -153,24 +246,145 @@ public class ViewCacheService {
         }
     }
 
+    /** Batched read of view pages (MGET); missing pages are absent from the result. */
+    public Map<Integer, List<List<Object>>> getChunks(String userId, String statementId, String sig, Collection<Integer> indexes) {
+        return getChunks(userId, statementId, sig, indexes, null);
+    }
+
+    /** columns != null: decode only those column positions (see RowProjection). */
+    public Map<Integer, List<List<Object>>> getChunks(String userId, String statementId, String sig, Collection<Integer> indexes,
+                                                      int[] columns) {
+        Map<Integer, List<List<Object>>> out = new HashMap<>();
+        if (indexes == null || indexes.isEmpty()) return out;
+        List<Integer> order = new ArrayList<>(indexes);
+        List<String> keys = new ArrayList<>(order.size());
+        for (Integer i : order) keys.add(chunkKey(userId, statementId, sig, i));
+        try {
+            List<byte[]> values = bytesTemplate.opsForValue().multiGet(keys);
+            if (values == null) return out;
+            for (int i = 0; i < order.size() && i < values.size(); i++) {
+                byte[] gz = values.get(i);
+                if (gz == null) continue;
+                byte[] json = GzipUtils.ungzip(gz);
+                out.put(order.get(i), columns != null
+                        ? RowProjection.decode(mapper, json, columns)
+                        : mapper.readValue(json, new TypeReference<List<List<Object>>>() {}));
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get view chunks", e);
+        }
+    }
+
     public List<List<Object>> getChunk(String userId, String statementId, String sig, int index) {
+        return getChunk(userId, statementId, sig, index, null);
+    }
+
+    /** Stored (gzipped JSON) bytes of a view page, without decoding; null if absent. */
+    public byte[] getChunkBytes(String userId, String statementId, String sig, int index) {
+        return bytesTemplate.opsForValue().get(chunkKey(userId, statementId, sig, index));
+    }
+
+    /** columns != null: decode only those column positions (see RowProjection). */
+    public List<List<Object>> getChunk(String userId, String statementId, String sig, int index, int[] columns) {
         try {
             byte[] gz = bytesTemplate.opsForValue().get(chunkKey(userId, statementId, sig, index));
             if (gz == null) return null;
             byte[] json = GzipUtils.ungzip(gz);
+            if (columns != null) return RowProjection.decode(mapper, json, columns);
             return mapper.readValue(json, new TypeReference<List<List<Object>>>() {});
         } catch (Exception e) {
             throw new RuntimeException("Failed to get view chunk", e);
         }
     }
 
+    /* ====================== Permutation ====================== */
+
+    /** Store one page worth of base row ids (delta + bit-packed). */
+    public void putPermutationChunk(String userId, String statementId, String sig, int index, int[] rowIds, int from, int to) {
+        try {
+            bytesTemplate.opsForValue().set(
+                    permKey(userId, statementId, sig, index),
+                    PackedInts.encode(rowIds, from, to),
+                    ttlSeconds, TimeUnit.SECONDS
+            );
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to put view permutation", e);
+        }
+    }
+
+    /** Batched read of permutation pages; missing pages are absent from the result. */
+    public Map<Integer, int[]> getPermutationChunks(String userId, String statementId, String sig, Collection<Integer> indexes) {
+        Map<Integer, int[]> out = new HashMap<>();
+        if (indexes == null || indexes.isEmpty()) return out;
+        List<Integer> order = new ArrayList<>(indexes);
+        List<String> keys = new ArrayList<>(order.size());
+        for (Integer i : order) keys.add(permKey(userId, statementId, sig, i));
+        try {
+            List<byte[]> values = bytesTemplate.opsForValue().multiGet(keys);
+            if (values == null) return out;
+            for (int i = 0; i < order.size() && i < values.size(); i++) {
+                byte[] packed = values.get(i);
+                if (packed != null) out.put(order.get(i), PackedInts.decode(packed));
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get view permutation", e);
+        }
+    }
+
+    /* ====================== Catalog ====================== */
+
+    /**
+     * Record a built view with the (normalized) models it was built from, so later
+     * requests can find cached views their filter refines.
+     */
+    public void registerView(String userId, String statementId, String sig,
+                             String sortModelJson, String filterModelJson, String quickFilter,
+                             int rowCount, String storage) {
+        try {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("sortModel", canonicalJsonOrNull(sortModelJson));
+            entry.put("filterModel", canonicalJsonOrNull(filterModelJson));
+            entry.put("quickFilter", quickFilter);
+            entry.put("rowCount", rowCount);
+            entry.put("storage", storage);
+            String key = catalogKey(userId, statementId);
+            stringTemplate.opsForHash().put(key, sig, mapper.writeValueAsString(entry));
+            stringTemplate.expire(key, ttlSeconds, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to register view", e);
+        }
+    }
+
+    /** All catalogued views of a statement: sig -> {sortModel, filterModel, quickFilter, rowCount, storage}. */
+    public Map<String, Map<String, Object>> listViews(String userId, String statementId) {
+        try {
+            Map<Object, Object> raw = stringTemplate.opsForHash().entries(catalogKey(userId, statementId));
+            Map<String, Map<String, Object>> out = new LinkedHashMap<>();
+            for (Map.Entry<Object, Object> e : raw.entrySet()) {
+                out.put(String.valueOf(e.getKey()),
+                        mapper.readValue(String.valueOf(e.getValue()), new TypeReference<Map<String, Object>>() {}));
+            }
+            return out;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to list views", e);
+        }
+    }
+
+    public void unregisterView(String userId, String statementId, String sig) {
+        stringTemplate.opsForHash().delete(catalogKey(userId, statementId), sig);
+    }
+
     /* ====================== Eviction ====================== */
 
     public void invalidateView(String userId, String statementId, String sig, Integer totalChunks) {
         stringTemplate.delete(metaKey(userId, statementId, sig));
+        unregisterView(userId, statementId, sig);
         if (totalChunks != null && totalChunks >= 0) {
             for (int i = 0; i < totalChunks; i++) {
                 bytesTemplate.delete(chunkKey(userId, statementId, sig, i));
+                bytesTemplate.delete(permKey(userId, statementId, sig, i));
             }
         }
         // Note: We are not SCAN-ing to discover unknown chunk counts here to avoid
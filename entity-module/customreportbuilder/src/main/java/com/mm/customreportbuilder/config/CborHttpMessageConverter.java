@@ -0,0 +1,46 @@
+package com.mm.customreportbuilder.config;
+
+import com.mm.customreportbuilder.util.CborWriter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes Map responses as CBOR when the client sends {@code Accept: application/cbor}.
+ * Registered after the Jackson converter, so JSON stays the default for every other Accept.
+ */
+public class CborHttpMessageConverter extends AbstractHttpMessageConverter<Map<?, ?>> {
+
+    public static final MediaType APPLICATION_CBOR = MediaType.parseMediaType(CborWriter.MEDIA_TYPE);
+
+    public CborHttpMessageConverter() {
+        super(APPLICATION_CBOR);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Map.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Map<?, ?> readInternal(Class<? extends Map<?, ?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("CBOR request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Map<?, ?> body, HttpOutputMessage outputMessage) throws IOException {
+        CborWriter writer = new CborWriter(outputMessage.getBody());
+        writer.write(body);
+        writer.flush();
+    }
+}
@@ -1,7 +1,9 @@
 package com.mm.customreportbuilder.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @ConfigurationProperties(prefix = "app")
@@ -12,7 +14,10 @@ public class FactsProperties {
 
   public static class FactConfig {
     private String path; // classpath:sql/facts/...
+    private List<String> hotSorts = new ArrayList<>(); // views pre-built after ingest, e.g. "price:desc" or "category name:asc,price:desc"
     public String getPath() { return path; }
     public void setPath(String path) { this.path = path; }
+    public List<String> getHotSorts() { return hotSorts; }
+    public void setHotSorts(List<String> hotSorts) { this.hotSorts = hotSorts; }
   }
 }
@@ -0,0 +1,53 @@
+package com.mm.customreportbuilder.config;
+
+import com.mm.customreportbuilder.view.SpeculativeViewBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.List;
+
+/**
+ * Web MVC setup:
+ *  - counts in-flight report requests (speculative view builds only run while there are none)
+ *  - adds CBOR as an alternative response encoding, negotiated by the Accept header
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final SpeculativeViewBuilder speculative;
+
+    public WebConfig(SpeculativeViewBuilder speculative) {
+        this.speculative = speculative;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new HandlerInterceptor() {
+            @Override
+            public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+                // Async requests pass here twice but complete once (afterCompletion on the async dispatch only)
+                if (request.getDispatcherType() != DispatcherType.ASYNC) speculative.requestStarted();
+                return true;
+            }
+
+            @Override
+            public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+                speculative.requestFinished();
+            }
+        }).addPathPatterns("/api/reports/**")
+                // Long-lived SSE streams are not load
+                .excludePathPatterns("/api/reports/events");
+    }
+
+    // Appended after Jackson: JSON remains the default, CBOR only on Accept: application/cbor
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new CborHttpMessageConverter());
+    }
+}
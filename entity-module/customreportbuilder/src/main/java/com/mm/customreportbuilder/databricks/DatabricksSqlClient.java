@@ -6,6 +6,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.*;
@@ -16,11 +17,13 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.GZIPInputStream;
 
 @Component
 public class DatabricksSqlClient {
     private static final Logger log = LoggerFactory.getLogger(DatabricksSqlClient.class);
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT = new ParameterizedTypeReference<>() {};
 
     private final RestTemplate rest;
     private final String host;
@@ -64,11 +67,19 @@ public class DatabricksSqlClient {
     }
 
     public String submitStatement(String sql) {
+        return submitStatement(sql, List.of());
+    }
+
+    /** Submit with named parameter markers ({name, value, type}) referenced as :name in the SQL. */
+    public String submitStatement(String sql, List<Map<String, Object>> parameters) {
         Map<String, Object> body = new HashMap<>();
         body.put("statement", sql);
         body.put("warehouse_id", warehouseId);
         body.put("disposition", "EXTERNAL_LINKS");
         body.put("format", "JSON_ARRAY");
+        if (parameters != null && !parameters.isEmpty()) {
+            body.put("parameters", parameters);
+        }
 
         Map<?, ?> resp = exchange("/api/2.0/sql/statements/", HttpMethod.POST, body, Map.class);
         Object id = resp == null ? null : resp.get("statement_id");
@@ -79,6 +90,19 @@ public class DatabricksSqlClient {
         return (String) id;
     }
 
+    /**
+     * Ask the warehouse to stop a statement. Best effort: a statement that already finished,
+     * or a failed request, is only logged.
+     */
+    public void cancelStatement(String statementId) {
+        try {
+            exchange("/api/2.0/sql/statements/" + statementId + "/cancel", HttpMethod.POST, null, Map.class);
+            log.debug("Cancelled statement id={}", statementId);
+        } catch (RuntimeException e) {
+            log.warn("Cancel of statement id={} failed: {}", statementId, e.toString());
+        }
+    }
+
     public record SchemaInfo(List<String> columnNames, List<Map<String, Object>> columnMeta) {}
 
     public SchemaInfo getSchema(String statementId) {
@@ -104,8 +128,8 @@ public class DatabricksSqlClient {
         return new SchemaInfo(names, cols);
     }
 
-    public void streamChunks(String statementId, int pageSize, ChunkListener listener) {
-        exec.submit(() -> {
+    public Future<?> streamChunks(String statementId, int pageSize, ChunkListener listener) {
+        return exec.submit(() -> {
             try {
                 boolean processed = false;
                 int pollMs = 1000;
@@ -128,10 +152,12 @@ public class DatabricksSqlClient {
                             Map<String, Object> result = cast(status.get("result"));
                             List<Map<String, Object>> externalLinks = extractExternalLinks(result);
                             if (!externalLinks.isEmpty()) {
+                                int nextIdx = 0;
                                 for (int i = 0; i < externalLinks.size(); i++) {
                                     Map<String, Object> link = externalLinks.get(i);
                                     Integer idxOpt = asInt(link.get("chunk_index"));
                                     int chunkIdx = (idxOpt != null) ? idxOpt : i;
+                                    nextIdx = Math.max(nextIdx, chunkIdx + 1);
                                     String url = (String) link.get("external_link");
                                     if (url == null || url.isBlank()) continue;
                                     List<List<Object>> rows = downloadExternalLink(url, chunkIdx);
@@ -139,6 +165,14 @@ public class DatabricksSqlClient {
                                         listener.onChunk(chunkIdx, rows, totalRows, state);
                                     }
                                 }
+                                // The status response only carries links for the first chunk(s); fetch the rest
+                                int dbChunkCount = (totalChunkCount != null) ? totalChunkCount : nextIdx;
+                                for (int dbIndex = nextIdx; dbIndex < dbChunkCount; dbIndex++) {
+                                    List<List<Object>> dbRows = fetchChunk(statementId, dbIndex, pageSize);
+                                    if (dbRows != null && !dbRows.isEmpty()) {
+                                        listener.onChunk(dbIndex, dbRows, totalRows, state);
+                                    }
+                                }
                             } else {
                                 int dbChunkCount = (totalChunkCount != null && totalChunkCount > 0) ? totalChunkCount : 1;
 
@@ -156,6 +190,7 @@ public class DatabricksSqlClient {
                                     }
                                 }
                             }
+                            listener.onComplete(totalRows, state);
                         }
                         break;
                     }
@@ -170,6 +205,11 @@ public class DatabricksSqlClient {
         });
     }
 
+    private boolean isTerminal(String state) {
+        return "SUCCEEDED".equals(state) || "FAILED".equals(state)
+                || "CANCELED".equals(state) || "CLOSED".equals(state);
+    }
+
     private String extractState(Map<String, Object> status) {
         if (status == null) return null;
         Map<String, Object> s = cast(status.get("status"));
@@ -191,12 +231,16 @@ public class DatabricksSqlClient {
         return out;
     }
 
+    private ResponseEntity<byte[]> getExternalLink(String url) {
+        // Presigned URL: no bearer token
+        HttpHeaders h = new HttpHeaders();
+        h.setAccept(List.of(MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN));
+        return rest.exchange(URI.create(url), HttpMethod.GET, new HttpEntity<>(h), byte[].class);
+    }
+
     private List<List<Object>> downloadExternalLink(String url, int chunkIdx) {
         try {
-            HttpHeaders h = new HttpHeaders();
-            h.setAccept(List.of(MediaType.APPLICATION_JSON, MediaType.TEXT_PLAIN));
-            URI uri = URI.create(url);
-            ResponseEntity<byte[]> resp = rest.exchange(uri, HttpMethod.GET, new HttpEntity<>(h), byte[].class);
+            ResponseEntity<byte[]> resp = getExternalLink(url);
             if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null) {
                 log.warn("External link non-200 chunk={} status={}", chunkIdx, resp.getStatusCode());
                 return List.of();
@@ -249,6 +293,59 @@ public class DatabricksSqlClient {
         return out;
     }
 
+    /** Result layout of a statement; state is null while Databricks returns no status. */
+    public record ResultManifest(String state, Integer totalRowCount, int totalChunkCount) {}
+
+    public ResultManifest getResultManifest(String statementId) {
+        Map<String, Object> status = fetchStatus(statementId);
+        Map<String, Object> manifest = status == null ? null : cast(status.get("manifest"));
+        Integer chunks = manifest != null ? asInt(manifest.get("total_chunk_count")) : null;
+        return new ResultManifest(extractState(status),
+                manifest != null ? asInt(manifest.get("total_row_count")) : null,
+                chunks != null ? chunks : 0);
+    }
+
+    /**
+     * Payload of one result chunk as served (JSON_ARRAY text, possibly gzipped), fetched through
+     * the chunk's external link without decoding it. Unlike the ingest path, failures are thrown:
+     * a consumer such as an export must not silently lose rows.
+     */
+    public byte[] downloadChunk(String statementId, int chunkIndex) {
+        Map<String, Object> resp = exchange("/api/2.0/sql/statements/" + statementId + "/result/chunks/" + chunkIndex,
+                HttpMethod.GET, null, JSON_OBJECT);
+        if (resp == null) throw new IllegalStateException("Empty chunk response chunk=" + chunkIndex);
+
+        String url = null;
+        for (Map<String, Object> link : extractExternalLinks(resp)) {
+            Integer idx = asInt(link.get("chunk_index"));
+            if (idx == null || idx == chunkIndex) {
+                url = (String) link.get("external_link");
+                break;
+            }
+        }
+        if (url == null && resp.get("external_link") instanceof String link) url = link;
+        if (url == null) {
+            // INLINE results carry the rows themselves
+            if (resp.get("data_array") instanceof List<?> rows) {
+                try {
+                    return mapper.writeValueAsBytes(rows);
+                } catch (Exception e) {
+                    throw new IllegalStateException("Cannot serialize inline chunk=" + chunkIndex, e);
+                }
+            }
+            throw new IllegalStateException("No external link for chunk=" + chunkIndex);
+        }
+        try {
+            ResponseEntity<byte[]> link = getExternalLink(url);
+            if (!link.getStatusCode().is2xxSuccessful() || link.getBody() == null) {
+                throw new IllegalStateException("External link " + link.getStatusCode() + " chunk=" + chunkIndex);
+            }
+            return link.getBody();
+        } catch (RestClientException e) {
+            throw new IllegalStateException("External link download failed chunk=" + chunkIndex + ": " + e.getMessage(), e);
+        }
+    }
+
     public List<List<Object>> fetchChunk(String statementId, int chunkIndex, int pageSize) {
         String path = "/api/2.0/sql/statements/" + statementId + "/result/chunks/" + chunkIndex
                 + "?row_limit=" + pageSize + "&format=JSON_ARRAY";
@@ -305,6 +402,10 @@ public class DatabricksSqlClient {
     }
 
     private <T> T exchange(String path, HttpMethod method, Object body, Class<T> type) {
+        return exchange(path, method, body, ParameterizedTypeReference.forType(type));
+    }
+
+    private <T> T exchange(String path, HttpMethod method, Object body, ParameterizedTypeReference<T> type) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(token);
         headers.setContentType(MediaType.APPLICATION_JSON);
@@ -328,5 +429,8 @@ public class DatabricksSqlClient {
     @FunctionalInterface
     public interface ChunkListener {
         void onChunk(int chunkIndex, List<List<Object>> rows, Integer totalRows, String state);
+
+        /** Called once after the last chunk of a statement in a terminal state has been delivered. */
+        default void onComplete(Integer totalRows, String state) {}
     }
 }
\ No newline at end of file
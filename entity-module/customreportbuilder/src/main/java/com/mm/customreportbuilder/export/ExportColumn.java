@@ -0,0 +1,57 @@
+package com.mm.customreportbuilder.export;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An exported column with its Databricks type from the statement schema: type_name (upper
+ * case, "STRING" when unknown) plus precision / scale for DECIMAL. A DECIMAL without a known
+ * scale is exported as STRING, so no format rounds it.
+ */
+public record ExportColumn(String name, String typeName, int precision, int scale) {
+
+    private static final Pattern DECIMAL_TEXT = Pattern.compile("(?i)decimal\\s*\\(\\s*(\\d+)\\s*,\\s*(\\d+)\\s*\\)");
+
+    /** Columns {@code names} (matched case-insensitively) typed from meta.schema. */
+    public static List<ExportColumn> of(Map<String, Object> meta, List<String> names) {
+        Map<String, Map<?, ?>> byName = new HashMap<>();
+        if (meta.get("schema") instanceof List<?> schema) {
+            for (Object o : schema) {
+                if (o instanceof Map<?, ?> m && m.get("name") != null) {
+                    byName.put(String.valueOf(m.get("name")).toLowerCase(Locale.ROOT), m);
+                }
+            }
+        }
+        List<ExportColumn> out = new ArrayList<>(names.size());
+        for (String name : names) out.add(of(name, byName.get(name.toLowerCase(Locale.ROOT))));
+        return out;
+    }
+
+    private static ExportColumn of(String name, Map<?, ?> meta) {
+        String type = meta != null && meta.get("type_name") != null
+                ? String.valueOf(meta.get("type_name")).toUpperCase(Locale.ROOT) : "STRING";
+        if (!type.equals("DECIMAL")) return new ExportColumn(name, type, 0, 0);
+
+        Integer precision = asInt(meta.get("type_precision"));
+        Integer scale = asInt(meta.get("type_scale"));
+        if ((precision == null || scale == null) && meta.get("type_text") instanceof String text) {
+            Matcher m = DECIMAL_TEXT.matcher(text);
+            if (m.find()) {
+                precision = Integer.parseInt(m.group(1));
+                scale = Integer.parseInt(m.group(2));
+            }
+        }
+        return precision == null || scale == null
+                ? new ExportColumn(name, "STRING", 0, 0)
+                : new ExportColumn(name, type, precision, scale);
+    }
+
+    private static Integer asInt(Object o) {
+        if (o instanceof Number n) return n.intValue();
+        if (o instanceof String s) {
+            try { return Integer.parseInt(s.trim()); } catch (NumberFormatException ignored) {}
+        }
+        return null;
+    }
+}
@@ -0,0 +1,183 @@
+package com.mm.customreportbuilder.export;
+
+import com.mm.customreportbuilder.service.ReportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Read-ahead for exports: a reader thread pulls the (sorted / filtered / projected) result
+ * through ReportService, EXPORT_PAGES_PER_READ pages per batched read, into a bounded queue
+ * of EXPORT_READ_AHEAD_BLOCKS blocks, while the response writer drains it. Redis reads and
+ * decoding overlap with encoding and the network instead of alternating with them.
+ *
+ * Base pages still being ingested are waited for; a short read only ends the export once
+ * ingestion has ended (views are complete once READY).
+ */
+@Component
+public class ExportPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportPipeline.class);
+    private static final Set<String> TERMINAL_STATES = Set.of("FAILED", "CANCELED", "CLOSED");
+
+    private final ReportService reportService;
+    private final ExecutorService readers;
+    private final int readAhead;
+    private final int pagesPerRead;
+    private final int maxReadRows;
+
+    public ExportPipeline(
+            ReportService reportService,
+            @Value("${EXPORT_READ_THREADS:4}") int threads,
+            @Value("${EXPORT_READ_AHEAD_BLOCKS:4}") int readAhead,
+            @Value("${EXPORT_PAGES_PER_READ:8}") int pagesPerRead,
+            @Value("${ROWS_BATCH_MAX_BLOCK_ROWS:10000}") int maxReadRows) {
+        this.reportService = reportService;
+        this.readAhead = Math.max(1, readAhead);
+        this.pagesPerRead = Math.max(1, pagesPerRead);
+        this.maxReadRows = Math.max(1, maxReadRows);
+        this.readers = new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "export-read");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /**
+     * Start reading a statement's rows. {@code columns}: projection (null = all columns, in
+     * statement order); an unknown column fails here, before anything has been written.
+     */
+    public Blocks open(String statementId, String sortModel, String filterModel, List<String> columns) {
+        List<String> projection = columns == null || columns.isEmpty() ? null : columns;
+        // Zero-length range: resolves the projection (400 on unknown columns) without reading pages
+        reportService.getRowBlocks(statementId, List.of(new int[]{0, 0}), null, null, null, projection, null);
+
+        Map<String, Object> meta = reportService.getStatementMeta(statementId);
+        int pageSize = meta.get("pageSize") instanceof Number n && n.intValue() > 0 ? n.intValue() : 500;
+        Blocks blocks = new Blocks(readAhead);
+        blocks.reader = readers.submit(() -> read(blocks, statementId, sortModel, filterModel, projection, pageSize));
+        return blocks;
+    }
+
+    private void read(Blocks blocks, String statementId, String sortModel, String filterModel, List<String> projection,
+                      int pageSize) {
+        boolean view = present(sortModel, "[]") || present(filterModel, "{}");
+        // One range per read, so it stays within the batched read limit
+        int span = (int) Math.min((long) pageSize * pagesPerRead, maxReadRows);
+        int start = 0;
+        String cursor = null;
+        try {
+            if (view) {
+                // Block reads never build a view: wait for it here, and never export base rows in its place
+                reportService.awaitRows(statementId, 0, 0, sortModel, filterModel, null, null).get();
+                if (!reportService.isComplete(statementId, sortModel, filterModel, null, null)) {
+                    throw new IllegalStateException("View of stmt=" + statementId + " is not available");
+                }
+            }
+            while (!blocks.closed) {
+                int end = start + span;
+                reportService.awaitRows(statementId, start, end).get();
+                Map<String, Object> res = reportService.getRowBlocks(statementId, List.of(new int[]{start, end}),
+                        sortModel, filterModel, null, projection, cursor);
+                if (res.get("cursor") instanceof String c) cursor = c;
+                List<List<Object>> rows = rowsOf(res);
+                if (!rows.isEmpty()) blocks.put(rows);
+                start += rows.size();
+                if (rows.size() < span && (view || ingestEnded(statementId))) break;
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            log.warn("Export read failed stmt={} at row {}: {}", statementId, start, t.toString());
+            blocks.failure = t;
+        } finally {
+            blocks.end();
+        }
+    }
+
+    private boolean ingestEnded(String statementId) {
+        Map<String, Object> meta = reportService.getStatementMeta(statementId);
+        // Missing meta (expired) has no pageSize: nothing more will arrive either
+        return !meta.containsKey("pageSize") || Boolean.TRUE.equals(meta.get("ingestComplete"))
+                || (meta.get("state") instanceof String s && TERMINAL_STATES.contains(s));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<List<Object>> rowsOf(Map<String, Object> res) {
+        if (res.get("blocks") instanceof List<?> list && !list.isEmpty() && list.get(0) instanceof Map<?, ?> block
+                && block.get("rows") instanceof List<?> rows) {
+            return (List<List<Object>>) rows;
+        }
+        return List.of();
+    }
+
+    private static boolean present(String model, String empty) {
+        return model != null && !model.isBlank() && !empty.equals(model.trim());
+    }
+
+    /** Blocks in result order; close() stops the reader (also when the client went away). */
+    public static final class Blocks implements AutoCloseable {
+        private static final List<List<Object>> END = Collections.unmodifiableList(new ArrayList<>());
+
+        private final BlockingQueue<List<List<Object>>> queue;
+        private volatile boolean closed;
+        private volatile Throwable failure;
+        private Future<?> reader;
+
+        private Blocks(int capacity) {
+            this.queue = new ArrayBlockingQueue<>(capacity + 1); // + the end marker
+        }
+
+        /** Next block, or null once all rows were delivered. */
+        public List<List<Object>> next() throws IOException {
+            try {
+                List<List<Object>> block = queue.take();
+                if (block != END) return block;
+                queue.offer(END); // stay at the end for further calls
+                if (failure != null) throw new IOException("Export read failed", failure);
+                return null;
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Export interrupted", ie);
+            }
+        }
+
+        private void put(List<List<Object>> block) throws InterruptedException {
+            while (!closed) {
+                if (queue.offer(block, 200, TimeUnit.MILLISECONDS)) return;
+            }
+        }
+
+        private void end() {
+            while (!closed) {
+                try {
+                    if (queue.offer(END, 200, TimeUnit.MILLISECONDS)) return;
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            if (reader != null) reader.cancel(true);
+            queue.clear();
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        readers.shutdownNow();
+    }
+}
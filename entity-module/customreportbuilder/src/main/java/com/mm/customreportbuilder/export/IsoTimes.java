@@ -0,0 +1,74 @@
+package com.mm.customreportbuilder.export;
+
+import java.time.*;
+
+/**
+ * Date / timestamp text as the warehouse renders it ("2024-02-03", "2024-02-03T04:05:06.789Z",
+ * also with a space separator or an offset), parsed without DateTimeFormatter for the common
+ * shapes; anything else goes through java.time. Timestamps without an offset are taken as UTC.
+ * Parse errors are DateTimeException.
+ */
+final class IsoTimes {
+
+    private IsoTimes() {}
+
+    static long epochDay(String s) {
+        if (s.length() == 10 && s.charAt(4) == '-' && s.charAt(7) == '-') {
+            return LocalDate.of(digits(s, 0, 4), digits(s, 5, 7), digits(s, 8, 10)).toEpochDay();
+        }
+        return LocalDate.parse(s).toEpochDay();
+    }
+
+    static long epochMicros(String s) {
+        int n = s.length();
+        if (n >= 19 && s.charAt(4) == '-' && s.charAt(7) == '-' && (s.charAt(10) == 'T' || s.charAt(10) == ' ')
+                && s.charAt(13) == ':' && s.charAt(16) == ':') {
+            long day = LocalDate.of(digits(s, 0, 4), digits(s, 5, 7), digits(s, 8, 10)).toEpochDay();
+            int hour = digits(s, 11, 13), minute = digits(s, 14, 16), second = digits(s, 17, 19);
+            if (hour > 23 || minute > 59 || second > 59) throw new DateTimeException("Invalid time: " + s);
+            int i = 19;
+            long micros = 0;
+            if (i < n && s.charAt(i) == '.') {
+                int scale = 100_000;
+                for (i++; i < n && Character.isDigit(s.charAt(i)); i++) {
+                    micros += (s.charAt(i) - '0') * (long) scale; // digits beyond micros are truncated
+                    scale /= 10;
+                }
+            }
+            int offsetSeconds = 0;
+            if (i < n) {
+                char c = s.charAt(i);
+                if (c == 'Z' && i == n - 1) {
+                    offsetSeconds = 0;
+                } else if ((c == '+' || c == '-') && n - i == 6 && s.charAt(i + 3) == ':') {
+                    offsetSeconds = (digits(s, i + 1, i + 3) * 3600 + digits(s, i + 4, i + 6) * 60) * (c == '-' ? -1 : 1);
+                } else {
+                    return slow(s);
+                }
+            }
+            long seconds = day * 86_400L + hour * 3600L + minute * 60L + second - offsetSeconds;
+            return Math.addExact(Math.multiplyExact(seconds, 1_000_000L), micros);
+        }
+        return slow(s);
+    }
+
+    private static long slow(String s) {
+        Instant t;
+        try {
+            t = OffsetDateTime.parse(s).toInstant();
+        } catch (DateTimeException e) {
+            t = LocalDateTime.parse(s.replace(' ', 'T')).toInstant(ZoneOffset.UTC);
+        }
+        return Math.addExact(Math.multiplyExact(t.getEpochSecond(), 1_000_000L), t.getNano() / 1000);
+    }
+
+    private static int digits(String s, int from, int to) {
+        int v = 0;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') throw new DateTimeException("Invalid date / time: " + s);
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+}
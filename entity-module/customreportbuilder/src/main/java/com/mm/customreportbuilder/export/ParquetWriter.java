@@ -0,0 +1,476 @@
+package com.mm.customreportbuilder.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming Parquet writer for flat results, typed from the statement schema.
+ *
+ * Every column is OPTIONAL and PLAIN encoded; pages are GZIP compressed as soon as they
+ * reach PAGE_BYTES, and a row group is written out once its compressed pages reach
+ * {@code rowGroupBytes}, so the heap holds at most one row group however large the result.
+ * Only the footer (one entry per row group and column) grows with the file.
+ *
+ * Types: BOOLEAN; INT32 (TINYINT / SMALLINT / INT); INT64 (BIGINT); FLOAT; DOUBLE; DATE
+ * (INT32 days); TIMESTAMP (INT64 micros, adjusted to UTC); TIMESTAMP_NTZ (INT64 micros of
+ * the wall-clock time, logical type TIMESTAMP with isAdjustedToUTC=false, so readers do not
+ * shift it into their time zone); DECIMAL (BYTE_ARRAY unscaled, with its precision / scale);
+ * everything else UTF-8 text. A value that does not fit its column type fails the export
+ * instead of being dropped.
+ */
+public final class ParquetWriter implements RowWriter {
+
+    private static final byte[] MAGIC = "PAR1".getBytes(StandardCharsets.US_ASCII);
+    private static final int PAGE_BYTES = 256 * 1024;
+
+    // parquet.thrift enums
+    private static final int BOOLEAN = 0, INT32 = 1, INT64 = 2, FLOAT = 4, DOUBLE = 5, BYTE_ARRAY = 6;
+    private static final int UTF8 = 0, DECIMAL = 5, DATE = 6, TIMESTAMP_MICROS = 10, INT_8 = 15, INT_16 = 16;
+    private static final int OPTIONAL = 1, ENCODING_PLAIN = 0, ENCODING_RLE = 3, CODEC_GZIP = 2, DATA_PAGE = 0;
+
+    private final OutputStream out;
+    private final Column[] columns;
+    private final long rowGroupBytes;
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private long position;
+    private long rows;
+    private int groupRows;
+
+    public ParquetWriter(OutputStream out, List<ExportColumn> columns, long rowGroupBytes) throws IOException {
+        this.out = out;
+        this.rowGroupBytes = Math.max(PAGE_BYTES, rowGroupBytes);
+        this.columns = new Column[columns.size()];
+        for (int i = 0; i < this.columns.length; i++) this.columns[i] = new Column(columns.get(i));
+        write(MAGIC, 0, MAGIC.length);
+    }
+
+    @Override
+    public void row(Object[] cells) throws IOException {
+        long buffered = 0;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].add(cells[i]);
+            buffered += columns[i].bufferedBytes();
+        }
+        rows++;
+        groupRows++;
+        if (buffered >= rowGroupBytes) writeRowGroup();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (groupRows > 0) writeRowGroup();
+        Buf footer = new Buf(1024);
+        fileMetaData(new Compact(footer));
+        write(footer.bytes, 0, footer.size);
+        byte[] len = new byte[4];
+        for (int k = 0; k < 4; k++) len[k] = (byte) (footer.size >>> (8 * k));
+        write(len, 0, 4);
+        write(MAGIC, 0, MAGIC.length);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Without finish() there is no footer: the partial file is unreadable rather than short
+        out.close();
+    }
+
+    private void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        position += len;
+    }
+
+    private void writeRowGroup() throws IOException {
+        ChunkMeta[] chunks = new ChunkMeta[columns.length];
+        long total = 0;
+        for (int i = 0; i < columns.length; i++) {
+            Column c = columns[i];
+            c.cutPage();
+            chunks[i] = new ChunkMeta(position, c.values, c.pagesUncompressed, c.pages.size);
+            write(c.pages.bytes, 0, c.pages.size);
+            total += c.pagesUncompressed;
+            c.resetChunk();
+        }
+        rowGroups.add(new RowGroup(chunks, total, groupRows));
+        groupRows = 0;
+        out.flush();
+    }
+
+    private record ChunkMeta(long offset, long values, long uncompressed, long compressed) {}
+
+    private record RowGroup(ChunkMeta[] chunks, long totalBytes, long rows) {}
+
+    /* ====================== Columns ====================== */
+
+    /** Buffers one column: PLAIN values and definition levels of the open page, then finished pages. */
+    private static final class Column {
+        final ExportColumn spec;
+        final int physical;
+        final int converted; // -1: none
+        final boolean ntz;   // TIMESTAMP_NTZ: micros without a converted type (which would mean UTC)
+        final Buf pageValues = new Buf(PAGE_BYTES + 1024);
+        final Buf pages = new Buf(PAGE_BYTES);
+        byte[] defined = new byte[1024]; // definition level bits of the open page
+        int pageCount;                   // values (incl. nulls) in the open page
+        int booleans;                    // booleans bit-packed so far in the open page
+        long values;                     // values in the column chunk
+        long pagesUncompressed;
+
+        Column(ExportColumn spec) {
+            this.spec = spec;
+            this.ntz = spec.typeName().equals("TIMESTAMP_NTZ");
+            switch (spec.typeName()) {
+                case "BOOLEAN" -> { physical = BOOLEAN; converted = -1; }
+                case "BYTE", "TINYINT" -> { physical = INT32; converted = INT_8; }
+                case "SHORT", "SMALLINT" -> { physical = INT32; converted = INT_16; }
+                case "INT", "INTEGER" -> { physical = INT32; converted = -1; }
+                case "LONG", "BIGINT" -> { physical = INT64; converted = -1; }
+                case "FLOAT" -> { physical = FLOAT; converted = -1; }
+                case "DOUBLE" -> { physical = DOUBLE; converted = -1; }
+                case "DATE" -> { physical = INT32; converted = DATE; }
+                case "TIMESTAMP" -> { physical = INT64; converted = TIMESTAMP_MICROS; }
+                case "TIMESTAMP_NTZ" -> { physical = INT64; converted = -1; }
+                case "DECIMAL" -> { physical = BYTE_ARRAY; converted = DECIMAL; }
+                default -> { physical = BYTE_ARRAY; converted = UTF8; }
+            }
+        }
+
+        long bufferedBytes() {
+            return pages.size + pageValues.size;
+        }
+
+        void add(Object v) throws IOException {
+            if (pageCount >> 3 == defined.length) defined = Arrays.copyOf(defined, defined.length * 2);
+            if (v != null) {
+                defined[pageCount >> 3] |= (byte) (1 << (pageCount & 7));
+                try {
+                    encode(v);
+                } catch (RuntimeException e) {
+                    throw new IOException("Column " + spec.name() + ": cannot write '" + v + "' as " + spec.typeName(), e);
+                }
+            }
+            pageCount++;
+            if (pageValues.size >= PAGE_BYTES) cutPage();
+        }
+
+        private void encode(Object v) {
+            switch (physical) {
+                case BOOLEAN -> {
+                    boolean b = v instanceof Boolean bool ? bool : parseBoolean(String.valueOf(v));
+                    if ((booleans & 7) == 0) pageValues.put(0);
+                    if (b) pageValues.bytes[pageValues.size - 1] |= (byte) (1 << (booleans & 7));
+                    booleans++;
+                }
+                case INT32 -> pageValues.intLE(converted == DATE ? epochDay(v) : Math.toIntExact(toLong(v)));
+                case INT64 -> pageValues.longLE(converted == TIMESTAMP_MICROS || ntz ? epochMicros(v) : toLong(v));
+                case FLOAT -> pageValues.intLE(Float.floatToIntBits(Float.parseFloat(String.valueOf(v))));
+                case DOUBLE -> pageValues.longLE(Double.doubleToLongBits(Double.parseDouble(String.valueOf(v))));
+                default -> {
+                    byte[] b = converted == DECIMAL
+                            ? new BigDecimal(String.valueOf(v)).setScale(spec.scale(), RoundingMode.UNNECESSARY)
+                                    .unscaledValue().toByteArray()
+                            : String.valueOf(v).getBytes(StandardCharsets.UTF_8);
+                    pageValues.intLE(b.length);
+                    pageValues.put(b, 0, b.length);
+                }
+            }
+        }
+
+        /** Compresses the open page into {@link #pages}. */
+        void cutPage() throws IOException {
+            if (pageCount == 0) return;
+            // Definition levels: 4-byte length, then one bit-packed run (bit width 1) of all the page's values
+            int groups = (pageCount + 7) >> 3;
+            Buf levels = new Buf(groups + 16);
+            levels.varint(((long) groups << 1) | 1);
+            levels.put(defined, 0, groups);
+
+            Buf page = new Buf(4 + levels.size + pageValues.size);
+            page.intLE(levels.size);
+            page.put(levels.bytes, 0, levels.size);
+            page.put(pageValues.bytes, 0, pageValues.size);
+            byte[] compressed = gzip(page.bytes, page.size);
+
+            int headerStart = pages.size;
+            Compact header = new Compact(pages);
+            header.i32(1, DATA_PAGE);
+            header.i32(2, page.size);
+            header.i32(3, compressed.length);
+            header.beginStruct(5);
+            header.i32(1, pageCount);
+            header.i32(2, ENCODING_PLAIN);
+            header.i32(3, ENCODING_RLE);
+            header.i32(4, ENCODING_RLE);
+            header.endStruct();
+            header.stop();
+            int headerBytes = pages.size - headerStart;
+            pages.put(compressed, 0, compressed.length);
+
+            values += pageCount;
+            pagesUncompressed += headerBytes + page.size;
+            pageValues.size = 0;
+            Arrays.fill(defined, 0, groups, (byte) 0);
+            pageCount = 0;
+            booleans = 0;
+        }
+
+        void resetChunk() {
+            pages.size = 0;
+            values = 0;
+            pagesUncompressed = 0;
+        }
+    }
+
+    private static boolean parseBoolean(String s) {
+        if (s.equalsIgnoreCase("true")) return true;
+        if (s.equalsIgnoreCase("false")) return false;
+        throw new IllegalArgumentException("not a boolean");
+    }
+
+    private static long toLong(Object v) {
+        if (v instanceof Number n && !(v instanceof BigDecimal)) return n.longValue();
+        String s = String.valueOf(v);
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException e) {
+            return new BigDecimal(s).longValueExact(); // "12.0", "1E3"
+        }
+    }
+
+    private static int epochDay(Object v) {
+        return Math.toIntExact(IsoTimes.epochDay(String.valueOf(v)));
+    }
+
+    private static long epochMicros(Object v) {
+        return IsoTimes.epochMicros(String.valueOf(v));
+    }
+
+    private static byte[] gzip(byte[] data, int len) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(len / 3 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(bos, 8192) {
+            { def.setLevel(Deflater.BEST_SPEED); }
+        }) {
+            gz.write(data, 0, len);
+        }
+        return bos.toByteArray();
+    }
+
+    /* ====================== Footer ====================== */
+
+    private void fileMetaData(Compact t) {
+        t.i32(1, 1); // version
+        t.beginList(2, Compact.STRUCT, columns.length + 1);
+        t.beginElement();
+        t.string(4, "schema");
+        t.i32(5, columns.length);
+        t.endElement();
+        for (Column c : columns) {
+            t.beginElement();
+            t.i32(1, c.physical);
+            t.i32(3, OPTIONAL);
+            t.string(4, c.spec.name());
+            if (c.converted >= 0) t.i32(6, c.converted);
+            if (c.converted == DECIMAL) {
+                t.i32(7, c.spec.scale());
+                t.i32(8, c.spec.precision());
+            }
+            if (c.converted == TIMESTAMP_MICROS || c.ntz) {
+                // logicalType = TIMESTAMP(isAdjustedToUTC, unit = MICROS)
+                t.beginStruct(10);
+                t.beginStruct(8);
+                t.bool(1, !c.ntz);
+                t.beginStruct(2);
+                t.beginStruct(2);
+                t.endStruct();
+                t.endStruct();
+                t.endStruct();
+                t.endStruct();
+            }
+            t.endElement();
+        }
+        t.i64(3, rows);
+        t.beginList(4, Compact.STRUCT, rowGroups.size());
+        for (RowGroup g : rowGroups) {
+            t.beginElement();
+            t.beginList(1, Compact.STRUCT, columns.length);
+            for (int i = 0; i < columns.length; i++) {
+                ChunkMeta m = g.chunks()[i];
+                t.beginElement();
+                t.i64(2, m.offset());
+                t.beginStruct(3);
+                t.i32(1, columns[i].physical);
+                t.beginList(2, Compact.I32, 2);
+                t.element(ENCODING_PLAIN);
+                t.element(ENCODING_RLE);
+                t.beginList(3, Compact.BINARY, 1);
+                t.element(columns[i].spec.name());
+                t.i32(4, CODEC_GZIP);
+                t.i64(5, m.values());
+                t.i64(6, m.uncompressed());
+                t.i64(7, m.compressed());
+                t.i64(9, m.offset());
+                t.endStruct();
+                t.endElement();
+            }
+            t.i64(2, g.totalBytes());
+            t.i64(3, g.rows());
+            t.endElement();
+        }
+        t.string(6, "customreportbuilder");
+        t.stop();
+    }
+
+    /** Thrift compact protocol, just what the Parquet page headers and footer need. */
+    private static final class Compact {
+        static final int TRUE = 1, FALSE = 2, I32 = 5, I64 = 6, BINARY = 8, LIST = 9, STRUCT = 12;
+
+        private final Buf out;
+        private final int[] stack = new int[8];
+        private int depth;
+        private int lastField;
+
+        Compact(Buf out) {
+            this.out = out;
+        }
+
+        void bool(int id, boolean v) {
+            field(id, v ? TRUE : FALSE);
+        }
+
+        void i32(int id, int v) {
+            field(id, I32);
+            out.varint(zigzag(v));
+        }
+
+        void i64(int id, long v) {
+            field(id, I64);
+            out.varint(zigzag(v));
+        }
+
+        void string(int id, String s) {
+            field(id, BINARY);
+            element(s);
+        }
+
+        void beginStruct(int id) {
+            field(id, STRUCT);
+            push();
+        }
+
+        void endStruct() {
+            stop();
+            lastField = stack[--depth];
+        }
+
+        void beginList(int id, int elementType, int size) {
+            field(id, LIST);
+            if (size < 15) {
+                out.put((size << 4) | elementType);
+            } else {
+                out.put(0xF0 | elementType);
+                out.varint(size);
+            }
+        }
+
+        /** Struct element of a list. */
+        void beginElement() {
+            push();
+        }
+
+        void endElement() {
+            endStruct();
+        }
+
+        void element(int v) {
+            out.varint(zigzag(v));
+        }
+
+        void element(String s) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            out.varint(b.length);
+            out.put(b, 0, b.length);
+        }
+
+        void stop() {
+            out.put(0);
+        }
+
+        private void push() {
+            stack[depth++] = lastField;
+            lastField = 0;
+        }
+
+        private void field(int id, int type) {
+            int delta = id - lastField;
+            if (delta > 0 && delta <= 15) {
+                out.put((delta << 4) | type);
+            } else {
+                out.put(type);
+                out.varint(zigzag(id));
+            }
+            lastField = id;
+        }
+
+        private static long zigzag(long v) {
+            return (v << 1) ^ (v >> 63);
+        }
+    }
+
+    /** Growable byte buffer. */
+    private static final class Buf {
+        byte[] bytes;
+        int size;
+
+        Buf(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void put(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void put(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, bytes, size, len);
+            size += len;
+        }
+
+        void intLE(int v) {
+            ensure(4);
+            for (int k = 0; k < 4; k++) bytes[size++] = (byte) (v >>> (8 * k));
+        }
+
+        void longLE(long v) {
+            ensure(8);
+            for (int k = 0; k < 8; k++) bytes[size++] = (byte) (v >>> (8 * k));
+        }
+
+        void varint(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        private void ensure(int n) {
+            if (bytes.length - size < n) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + n));
+        }
+    }
+}
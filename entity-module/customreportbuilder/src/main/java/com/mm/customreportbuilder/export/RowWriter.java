@@ -0,0 +1,49 @@
+package com.mm.customreportbuilder.export;
+
+import com.mm.customreportbuilder.util.CsvWriter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Output format of an export. Rows arrive in result order with their cells in output column
+ * order. {@link #finish()} completes the file (sheet index, footer); closing without it
+ * leaves the output incomplete, so a failed export is not mistaken for a whole one.
+ */
+public interface RowWriter extends Closeable {
+
+    void row(Object[] cells) throws IOException;
+
+    /** End of a block of rows: buffered output may go to the client now. */
+    void flush() throws IOException;
+
+    void finish() throws IOException;
+
+    static RowWriter csv(CsvWriter csv, List<ExportColumn> columns) {
+        CsvWriter.Kind[] kinds = new CsvWriter.Kind[columns.size()];
+        for (int i = 0; i < kinds.length; i++) kinds[i] = CsvWriter.Kind.of(columns.get(i).typeName());
+        return new RowWriter() {
+            @Override
+            public void row(Object[] cells) throws IOException {
+                for (int i = 0; i < kinds.length; i++) csv.cell(cells[i], kinds[i]);
+                csv.endRow();
+            }
+
+            @Override
+            public void flush() throws IOException {
+                csv.flush();
+            }
+
+            @Override
+            public void finish() throws IOException {
+                csv.flush();
+            }
+
+            @Override
+            public void close() throws IOException {
+                csv.close();
+            }
+        };
+    }
+}
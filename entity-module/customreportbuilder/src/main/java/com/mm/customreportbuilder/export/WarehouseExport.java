@@ -0,0 +1,159 @@
+package com.mm.customreportbuilder.export;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mm.customreportbuilder.databricks.DatabricksSqlClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Export of a base result straight from the warehouse, bypassing the Redis page cache.
+ *
+ * The result chunks are downloaded through their Databricks external links, up to
+ * EXPORT_DIRECT_PARALLEL at a time, and transcoded into the export format in chunk order
+ * while the next ones download. Each chunk is kept as the bytes it was served in and streamed through a
+ * JSON parser cell by cell, so memory is bounded by the chunks in flight, not by the
+ * result size, and nothing is written to (or read from) Redis.
+ *
+ * Only base results apply: sorted / filtered exports need the cached view. In "auto" mode
+ * results of at least EXPORT_DIRECT_MIN_ROWS rows go this way; smaller ones are cheap to
+ * read back from the page cache they are already in.
+ */
+@Component
+public class WarehouseExport {
+
+    private static final Logger log = LoggerFactory.getLogger(WarehouseExport.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final DatabricksSqlClient client;
+    private final ExecutorService downloads;
+    private final int parallel;
+    private final long minRows;
+
+    public WarehouseExport(
+            DatabricksSqlClient client,
+            @Value("${EXPORT_DIRECT_THREADS:8}") int threads,
+            @Value("${EXPORT_DIRECT_PARALLEL:4}") int parallel,
+            @Value("${EXPORT_DIRECT_MIN_ROWS:100000}") long minRows) {
+        this.client = client;
+        this.minRows = Math.max(0L, minRows);
+        this.parallel = Math.max(1, parallel);
+        this.downloads = new ThreadPoolExecutor(
+                Math.max(1, threads), Math.max(1, threads),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "export-download");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /** True if an "auto" export of a base result with this many rows should come from the warehouse. */
+    public boolean preferred(Object rowCount) {
+        return rowCount instanceof Number n && n.longValue() >= minRows;
+    }
+
+    /** The statement's result layout if it can be exported from the warehouse (succeeded), else null. */
+    public DatabricksSqlClient.ResultManifest manifest(String statementId) {
+        try {
+            DatabricksSqlClient.ResultManifest m = client.getResultManifest(statementId);
+            return "SUCCEEDED".equals(m.state()) ? m : null;
+        } catch (RuntimeException e) {
+            // Result no longer available in the warehouse (or unreachable): the cached pages still are
+            log.debug("No warehouse result for stmt={}: {}", statementId, e.toString());
+            return null;
+        }
+    }
+
+    /**
+     * Writes every row of the result, as the cells of {@code columns} (positions in the result
+     * row), and returns the row count.
+     */
+    public long write(String statementId, DatabricksSqlClient.ResultManifest manifest, int[] columns,
+                      RowWriter out) throws IOException {
+        int chunks = manifest.totalChunkCount();
+        ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>(parallel);
+        int next = 0;
+        long rows = 0;
+        try {
+            while (next < chunks && inFlight.size() < parallel) inFlight.add(download(statementId, next++));
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                byte[] payload = await(inFlight.poll(), chunk);
+                if (next < chunks) inFlight.add(download(statementId, next++));
+                rows += transcode(payload, columns, out);
+                out.flush();
+            }
+        } finally {
+            for (Future<byte[]> f : inFlight) f.cancel(true);
+        }
+        return rows;
+    }
+
+    private Future<byte[]> download(String statementId, int chunk) {
+        return downloads.submit(() -> client.downloadChunk(statementId, chunk));
+    }
+
+    private static byte[] await(Future<byte[]> f, int chunk) throws IOException {
+        try {
+            return f.get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", ie);
+        } catch (ExecutionException e) {
+            throw new IOException("Warehouse chunk " + chunk + " failed", e.getCause());
+        }
+    }
+
+    // JSON_ARRAY chunk -> rows, one cell at a time; returns the row count
+    private static long transcode(byte[] payload, int[] columns, RowWriter out) throws IOException {
+        long rows = 0;
+        int width = 0;
+        for (int c : columns) width = Math.max(width, c + 1);
+        String[] row = new String[width];
+        Object[] cells = new Object[columns.length];
+        try (InputStream in = open(payload); JsonParser p = MAPPER.createParser(in)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) throw new IOException("Unexpected chunk payload");
+            while (p.nextToken() == JsonToken.START_ARRAY) {
+                Arrays.fill(row, null);
+                int i = 0;
+                for (JsonToken t = p.nextToken(); t != JsonToken.END_ARRAY; t = p.nextToken(), i++) {
+                    if (t == null) throw new IOException("Truncated chunk payload");
+                    String value;
+                    if (t == JsonToken.START_ARRAY || t == JsonToken.START_OBJECT) {
+                        value = MAPPER.writeValueAsString(p.readValueAsTree());
+                    } else {
+                        value = t == JsonToken.VALUE_NULL ? null : p.getText();
+                    }
+                    if (i < width) row[i] = value;
+                }
+                for (int k = 0; k < columns.length; k++) cells[k] = row[columns[k]];
+                out.row(cells);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static InputStream open(byte[] payload) throws IOException {
+        InputStream in = new ByteArrayInputStream(payload);
+        boolean gzip = payload.length >= 2 && payload[0] == (byte) 0x1f && payload[1] == (byte) 0x8b;
+        return gzip ? new GZIPInputStream(in, 64 * 1024) : in;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        downloads.shutdownNow();
+    }
+}
@@ -0,0 +1,377 @@
+package com.mm.customreportbuilder.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streaming XLSX (Office Open XML) writer. Rows are written straight into the worksheet XML
+ * entry of the zip as they arrive, with inline strings (no shared string table), so only the
+ * current row is in memory whatever the sheet size. The workbook parts that list the sheets
+ * are written last, once the sheet count is known; a result beyond the 1,048,576 rows of a
+ * sheet continues on the next one (with the header repeated).
+ *
+ * Numeric, boolean, date and timestamp columns become typed cells (dates with a date format);
+ * values Excel cannot hold exactly (more than 15 significant digits) or that do not parse stay
+ * text, so nothing is silently rounded.
+ */
+public final class XlsxWriter implements RowWriter {
+
+    private static final int MAX_SHEET_ROWS = 1_048_576;
+    private static final int MAX_CELL_CHARS = 32_767;
+    private static final long EXCEL_EPOCH_DAY = LocalDate.of(1899, 12, 30).toEpochDay();
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    private static final String NS_REL = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    private static final String NS_PKG_REL = "http://schemas.openxmlformats.org/package/2006/relationships";
+
+    // cellXfs in styles.xml
+    private static final int STYLE_DATE = 1;
+    private static final int STYLE_TIMESTAMP = 2;
+    private static final int STYLE_HEADER = 3;
+
+    private enum Type { TEXT, NUMBER, BOOLEAN, DATE, TIMESTAMP }
+
+    private final OutputStream raw;
+    private final ZipOutputStream zip;
+    private final Writer xml;
+    private final char[] buf = new char[64 * 1024]; // XML not yet handed to the encoder
+    private int pos;
+    private final List<ExportColumn> columns;
+    private final boolean header;
+    private final Type[] types;
+    private final String[] letters;
+    private int sheets;
+    private int sheetRow;    // rows written on the current sheet
+    private boolean finished;
+
+    public XlsxWriter(OutputStream out, List<ExportColumn> columns, boolean header) throws IOException {
+        this.raw = out;
+        this.zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        this.zip.setLevel(Deflater.BEST_SPEED);
+        this.xml = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+        this.columns = columns;
+        this.header = header;
+        this.types = new Type[columns.size()];
+        this.letters = new String[columns.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = typeOf(columns.get(i).typeName());
+            letters[i] = columnLetters(i);
+        }
+        startSheet();
+    }
+
+    @Override
+    public void row(Object[] cells) throws IOException {
+        if (sheetRow == MAX_SHEET_ROWS) {
+            endSheet();
+            startSheet();
+        }
+        int r = ++sheetRow;
+        put("<row r=\"");
+        putInt(r);
+        put("\">");
+        for (int i = 0; i < types.length; i++) {
+            Object v = cells[i];
+            if (v != null) cell(i, r, v);
+        }
+        put("</row>");
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        xml.flush();
+        zip.flush();
+    }
+
+    @Override
+    public void finish() throws IOException {
+        endSheet();
+        part("[Content_Types].xml", contentTypes());
+        part("_rels/.rels", "<Relationships xmlns=\"" + NS_PKG_REL + "\">"
+                + "<Relationship Id=\"rId1\" Type=\"" + NS_REL + "/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        part("xl/workbook.xml", workbook());
+        part("xl/_rels/workbook.xml.rels", workbookRels());
+        part("xl/styles.xml", STYLES);
+        zip.finish();
+        zip.flush();
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // Unfinished: leave the zip without its central directory rather than close it into a valid file
+        if (finished) zip.close();
+        else raw.close();
+    }
+
+    /* ====================== Sheets ====================== */
+
+    private void startSheet() throws IOException {
+        sheets++;
+        sheetRow = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheets + ".xml"));
+        put("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n<worksheet xmlns=\"" + NS_MAIN + "\">");
+        if (header) {
+            put("<sheetViews><sheetView workbookViewId=\"0\">"
+                    + "<pane ySplit=\"1\" topLeftCell=\"A2\" activePane=\"bottomLeft\" state=\"frozen\"/>"
+                    + "</sheetView></sheetViews>");
+        }
+        put("<sheetData>");
+        if (header) {
+            int r = ++sheetRow;
+            put("<row r=\"1\">");
+            for (int i = 0; i < letters.length; i++) inlineString(i, r, columns.get(i).name(), STYLE_HEADER);
+            put("</row>");
+        }
+    }
+
+    private void endSheet() throws IOException {
+        put("</sheetData></worksheet>");
+        drain();
+        xml.flush();
+        zip.closeEntry();
+    }
+
+    private void part(String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        put("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+        put(content);
+        drain();
+        xml.flush();
+        zip.closeEntry();
+    }
+
+    private String contentTypes() {
+        StringBuilder sb = new StringBuilder("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/styles.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.styles+xml\"/>");
+        for (int s = 1; s <= sheets; s++) {
+            sb.append("<Override PartName=\"/xl/worksheets/sheet").append(s)
+              .append(".xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        return sb.append("</Types>").toString();
+    }
+
+    private String workbook() {
+        StringBuilder sb = new StringBuilder("<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_REL + "\"><sheets>");
+        for (int s = 1; s <= sheets; s++) {
+            sb.append("<sheet name=\"").append(s == 1 ? "Export" : "Export (" + s + ")")
+              .append("\" sheetId=\"").append(s).append("\" r:id=\"rId").append(s).append("\"/>");
+        }
+        return sb.append("</sheets></workbook>").toString();
+    }
+
+    private String workbookRels() {
+        StringBuilder sb = new StringBuilder("<Relationships xmlns=\"" + NS_PKG_REL + "\">");
+        for (int s = 1; s <= sheets; s++) {
+            sb.append("<Relationship Id=\"rId").append(s).append("\" Type=\"").append(NS_REL)
+              .append("/worksheet\" Target=\"worksheets/sheet").append(s).append(".xml\"/>");
+        }
+        sb.append("<Relationship Id=\"rId").append(sheets + 1).append("\" Type=\"").append(NS_REL)
+          .append("/styles\" Target=\"styles.xml\"/>");
+        return sb.append("</Relationships>").toString();
+    }
+
+    private static final String STYLES = "<styleSheet xmlns=\"" + NS_MAIN + "\">"
+            + "<fonts count=\"2\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font>"
+            + "<font><b/><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>"
+            + "<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>"
+            + "<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>"
+            + "<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>"
+            + "<cellXfs count=\"4\">"
+            + "<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>"
+            + "<xf numFmtId=\"14\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"22\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>"
+            + "<xf numFmtId=\"0\" fontId=\"1\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyFont=\"1\"/>"
+            + "</cellXfs>"
+            + "<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>"
+            + "</styleSheet>";
+
+    /* ====================== Cells ====================== */
+
+    private void cell(int i, int r, Object v) throws IOException {
+        String s = String.valueOf(v);
+        switch (types[i]) {
+            case NUMBER -> {
+                if (exactNumber(s)) {
+                    numeric(i, r, s, 0);
+                    return;
+                }
+            }
+            case BOOLEAN -> {
+                if (s.equalsIgnoreCase("true") || s.equalsIgnoreCase("false")) {
+                    ref(i, r);
+                    put(" t=\"b\"><v>");
+                    put(s.equalsIgnoreCase("true") ? '1' : '0');
+                    put("</v></c>");
+                    return;
+                }
+            }
+            case DATE -> {
+                Double serial = dateSerial(s);
+                if (serial != null) {
+                    numeric(i, r, serial.toString(), STYLE_DATE);
+                    return;
+                }
+            }
+            case TIMESTAMP -> {
+                Double serial = timestampSerial(s);
+                if (serial != null) {
+                    numeric(i, r, serial.toString(), STYLE_TIMESTAMP);
+                    return;
+                }
+            }
+            default -> { }
+        }
+        inlineString(i, r, s, 0);
+    }
+
+    private void numeric(int i, int r, String value, int style) throws IOException {
+        ref(i, r);
+        if (style != 0) {
+            put(" s=\"");
+            putInt(style);
+            put('"');
+        }
+        put("><v>");
+        put(value);
+        put("</v></c>");
+    }
+
+    private void inlineString(int i, int r, String s, int style) throws IOException {
+        ref(i, r);
+        if (style != 0) {
+            put(" s=\"");
+            putInt(style);
+            put('"');
+        }
+        int n = Math.min(s.length(), MAX_CELL_CHARS);
+        boolean preserve = n > 0 && (Character.isWhitespace(s.charAt(0)) || Character.isWhitespace(s.charAt(n - 1)));
+        put(preserve ? " t=\"inlineStr\"><is><t xml:space=\"preserve\">" : " t=\"inlineStr\"><is><t>");
+        for (int k = 0; k < n; k++) {
+            char c = s.charAt(k);
+            switch (c) {
+                case '<' -> put("&lt;");
+                case '>' -> put("&gt;");
+                case '&' -> put("&amp;");
+                default -> {
+                    // Control chars other than tab / line breaks are not allowed in XML 1.0
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        if (c != 0xFFFE && c != 0xFFFF) put(c);
+                    }
+                }
+            }
+        }
+        put("</t></is></c>");
+    }
+
+    private void ref(int i, int r) throws IOException {
+        put("<c r=\"");
+        put(letters[i]);
+        putInt(r);
+        put('"');
+    }
+
+    private void put(String s) throws IOException {
+        int n = s.length();
+        if (buf.length - pos < n) {
+            drain();
+            if (n > buf.length) {
+                xml.write(s);
+                return;
+            }
+        }
+        s.getChars(0, n, buf, pos);
+        pos += n;
+    }
+
+    private void put(char c) throws IOException {
+        if (pos == buf.length) drain();
+        buf[pos++] = c;
+    }
+
+    // Row numbers and style ids (non-negative), without a String per cell
+    private void putInt(int v) throws IOException {
+        if (buf.length - pos < 10) drain();
+        int len = 1;
+        for (int t = v; t >= 10; t /= 10) len++;
+        for (int i = pos + len - 1; i >= pos; i--, v /= 10) buf[i] = (char) ('0' + v % 10);
+        pos += len;
+    }
+
+    private void drain() throws IOException {
+        xml.write(buf, 0, pos);
+        pos = 0;
+    }
+
+    /* ====================== Values ====================== */
+
+    private static Type typeOf(String typeName) {
+        return switch (typeName) {
+            case "BYTE", "TINYINT", "SHORT", "SMALLINT", "INT", "INTEGER", "LONG", "BIGINT", "FLOAT", "DOUBLE", "DECIMAL" ->
+                    Type.NUMBER;
+            case "BOOLEAN" -> Type.BOOLEAN;
+            case "DATE" -> Type.DATE;
+            case "TIMESTAMP", "TIMESTAMP_NTZ" -> Type.TIMESTAMP;
+            default -> Type.TEXT;
+        };
+    }
+
+    // Plain decimal notation Excel stores exactly (at most 15 significant digits)
+    private static boolean exactNumber(String s) {
+        int n = s.length();
+        int i = n > 0 && s.charAt(0) == '-' ? 1 : 0;
+        int digits = 0;
+        int significant = 0;
+        boolean dot = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && !dot) {
+                dot = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                if (c != '0' || significant > 0) significant++;
+            } else {
+                return false;
+            }
+        }
+        return digits > 0 && significant <= 15;
+    }
+
+    private static Double dateSerial(String s) {
+        try {
+            return (double) (IsoTimes.epochDay(s) - EXCEL_EPOCH_DAY);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    // Timestamps are shown in UTC (the warehouse's JSON renders them with an offset)
+    private static Double timestampSerial(String s) {
+        try {
+            return IsoTimes.epochMicros(s) / 86_400e6 - EXCEL_EPOCH_DAY;
+        } catch (DateTimeException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    // 0 -> A, 25 -> Z, 26 -> AA
+    private static String columnLetters(int index) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = index + 1; n > 0; n = (n - 1) / 26) sb.insert(0, (char) ('A' + (n - 1) % 26));
+        return sb.toString();
+    }
+}
@@ -0,0 +1,173 @@
+package com.mm.customreportbuilder.index;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Bitmap index over one low-cardinality column: dictionary value -> base row ids.
+ *
+ * Dictionary keys use the view engine's text semantics (lower-cased, null = ""),
+ * so every row of the statement sits in exactly one bitmap and any text filter can
+ * be answered by scanning the dictionary instead of the rows.
+ */
+public final class BitmapIndex {
+
+    private final Map<String, RoaringBitmap> values;
+
+    private BitmapIndex(Map<String, RoaringBitmap> values) {
+        this.values = values;
+    }
+
+    public int cardinality() {
+        return values.size();
+    }
+
+    /** Rows per dictionary value (filter UI badges). */
+    public Map<String, Integer> counts() {
+        Map<String, Integer> out = new TreeMap<>();
+        values.forEach((k, v) -> out.put(k, v.cardinality()));
+        return out;
+    }
+
+    /** Matching row ids for {@code fd}, or null when the filter cannot be answered from this index. */
+    public RoaringBitmap evaluate(FilterDescriptor fd) {
+        if (fd == null) return null;
+        if (fd.isCompound()) {
+            if (fd.getConditions() == null || fd.getConditions().isEmpty()) return null;
+            boolean and = "AND".equalsIgnoreCase(fd.getOperator());
+            RoaringBitmap acc = null;
+            for (FilterDescriptor c : fd.getConditions()) {
+                RoaringBitmap r = evaluate(c);
+                if (r == null) return null;
+                acc = acc == null ? r : (and ? RoaringBitmap.and(acc, r) : RoaringBitmap.or(acc, r));
+            }
+            return acc;
+        }
+        if (!"text".equalsIgnoreCase(fd.getFilterType()) || fd.getType() == null) return null;
+        String type = fd.getType().toLowerCase(Locale.ROOT);
+        String q = fd.getFilter() == null ? "" : fd.getFilter().toLowerCase(Locale.ROOT);
+        if ("equals".equals(type)) {
+            RoaringBitmap r = values.get(q);
+            return r == null ? new RoaringBitmap() : r;
+        }
+        RoaringBitmap acc = new RoaringBitmap();
+        for (Map.Entry<String, RoaringBitmap> e : values.entrySet()) {
+            String k = e.getKey();
+            Boolean m = switch (type) {
+                case "contains" -> k.contains(q);
+                case "notcontains" -> !k.contains(q);
+                case "notequals" -> !k.equals(q);
+                case "startswith" -> k.startsWith(q);
+                case "endswith" -> k.endsWith(q);
+                default -> null;
+            };
+            if (m == null) return null; // unknown type: leave it to the row filter
+            if (m) acc = RoaringBitmap.or(acc, e.getValue());
+        }
+        return acc;
+    }
+
+    /* ====================== Serialization ====================== */
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeInt(values.size());
+            for (Map.Entry<String, RoaringBitmap> e : values.entrySet()) {
+                byte[] k = e.getKey().getBytes(StandardCharsets.UTF_8);
+                byte[] v = e.getValue().toBytes();
+                out.writeInt(k.length);
+                out.write(k);
+                out.writeInt(v.length);
+                out.write(v);
+            }
+            out.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static BitmapIndex fromBytes(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            int n = in.readInt();
+            Map<String, RoaringBitmap> values = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                String k = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+                values.put(k, RoaringBitmap.fromBytes(in.readNBytes(in.readInt())));
+            }
+            return new BitmapIndex(values);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* ====================== Ingest ====================== */
+
+    /**
+     * Accumulates bitmaps for every column while pages are ingested. A column is
+     * dropped as soon as it exceeds {@code maxCardinality} distinct values (or a row
+     * is too short to contain it, since the view engine ignores filters for such rows).
+     */
+    public static final class Builder {
+        private final int maxCardinality;
+        private final List<Map<String, RoaringBitmap>> columns = new ArrayList<>();
+        private final BitSet dropped = new BitSet();
+        private long rowsSeen;
+
+        public Builder(int maxCardinality) {
+            this.maxCardinality = maxCardinality;
+        }
+
+        public void addPage(List<List<Object>> rows, int firstRowId) {
+            for (int i = 0; i < rows.size(); i++) {
+                List<Object> row = rows.get(i);
+                while (columns.size() < row.size()) {
+                    // Rows seen so far lacked this column
+                    if (rowsSeen > 0) dropped.set(columns.size());
+                    columns.add(new HashMap<>());
+                }
+                for (int c = 0; c < columns.size(); c++) {
+                    if (dropped.get(c)) continue;
+                    if (c >= row.size()) {
+                        drop(c);
+                        continue;
+                    }
+                    Object cell = row.get(c);
+                    String key = cell == null ? "" : String.valueOf(cell).toLowerCase(Locale.ROOT);
+                    Map<String, RoaringBitmap> dict = columns.get(c);
+                    RoaringBitmap bm = dict.get(key);
+                    if (bm == null) {
+                        if (dict.size() >= maxCardinality) {
+                            drop(c);
+                            continue;
+                        }
+                        bm = new RoaringBitmap();
+                        dict.put(key, bm);
+                    }
+                    bm.add(firstRowId + i);
+                }
+                rowsSeen++;
+            }
+        }
+
+        private void drop(int c) {
+            dropped.set(c);
+            columns.set(c, Map.of());
+        }
+
+        /** Finished indexes by column position (only columns under the cardinality limit). */
+        public Map<Integer, BitmapIndex> build() {
+            Map<Integer, BitmapIndex> out = new LinkedHashMap<>();
+            for (int c = 0; c < columns.size(); c++) {
+                if (!dropped.get(c) && !columns.get(c).isEmpty()) out.put(c, new BitmapIndex(columns.get(c)));
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.mm.customreportbuilder.index;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Bloom filters for one base page, one per high-cardinality text column.
+ *
+ * Values are hashed the way text equality compares them (lower-cased, null = ""),
+ * so a page whose filter says "no" cannot contain a row passing a text equals
+ * filter on that column. Low-cardinality columns are left to the bitmap indexes
+ * and numeric/date columns to the zone maps.
+ *
+ * Layout: int columns, then per column: int index, byte hashes, int words, long[] bits.
+ */
+public final class PageBlooms {
+
+    private final Map<Integer, Bloom> filters;
+
+    private PageBlooms(Map<Integer, Bloom> filters) {
+        this.filters = filters;
+    }
+
+    public boolean isEmpty() {
+        return filters.isEmpty();
+    }
+
+    /**
+     * Build filters for the columns of {@code rows} with at least {@code minDistinct}
+     * distinct values that are not purely numeric.
+     */
+    public static PageBlooms compute(List<List<Object>> rows, int minDistinct, double fpp) {
+        Map<Integer, Bloom> out = new LinkedHashMap<>();
+        int width = Integer.MAX_VALUE;
+        for (List<Object> r : rows) width = Math.min(width, r.size());
+        if (rows.isEmpty()) width = 0;
+
+        // Columns some rows lack are skipped: the view engine ignores filters for those rows
+        for (int c = 0; c < width; c++) {
+            Set<String> distinct = new HashSet<>();
+            boolean numeric = true;
+            for (List<Object> row : rows) {
+                Object cell = row.get(c);
+                String v = cell == null ? "" : String.valueOf(cell).toLowerCase(Locale.ROOT);
+                distinct.add(v);
+                if (numeric && cell != null && !isNumber(v)) numeric = false;
+            }
+            if (numeric || distinct.size() < minDistinct) continue;
+            Bloom b = Bloom.create(distinct.size(), fpp);
+            for (String v : distinct) b.put(v);
+            out.put(c, b);
+        }
+        return new PageBlooms(out);
+    }
+
+    /** False only if no row of the page can pass the text equality parts of these filters. */
+    public boolean canMatch(Map<Integer, FilterDescriptor> filtersByColumn) {
+        for (Map.Entry<Integer, FilterDescriptor> e : filtersByColumn.entrySet()) {
+            Bloom b = filters.get(e.getKey());
+            if (b != null && !canMatch(b, e.getValue())) return false;
+        }
+        return true;
+    }
+
+    private static boolean canMatch(Bloom b, FilterDescriptor fd) {
+        if (fd == null) return true;
+        if (fd.isCompound()) {
+            if (fd.getConditions() == null || fd.getConditions().isEmpty()) return true;
+            boolean and = "AND".equalsIgnoreCase(fd.getOperator());
+            for (FilterDescriptor c : fd.getConditions()) {
+                boolean m = canMatch(b, c);
+                if (and && !m) return false;
+                if (!and && m) return true;
+            }
+            return and;
+        }
+        if (!"text".equalsIgnoreCase(fd.getFilterType()) || !"equals".equalsIgnoreCase(fd.getType())) return true;
+        String q = fd.getFilter() == null ? "" : fd.getFilter().toLowerCase(Locale.ROOT);
+        return b.mightContain(q);
+    }
+
+    /** True if {@code fd} contains a text equals condition a bloom filter could rule out. */
+    public static boolean applies(FilterDescriptor fd) {
+        if (fd == null) return false;
+        if (fd.isCompound()) {
+            if (fd.getConditions() == null) return false;
+            for (FilterDescriptor c : fd.getConditions()) if (applies(c)) return true;
+            return false;
+        }
+        return "text".equalsIgnoreCase(fd.getFilterType()) && "equals".equalsIgnoreCase(fd.getType());
+    }
+
+    private static boolean isNumber(String s) {
+        String t = s.replace(",", "").trim();
+        if (t.isEmpty() || "null".equals(t)) return true;
+        try {
+            new java.math.BigDecimal(t);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /* ====================== Serialization ====================== */
+
+    public byte[] toBytes() {
+        int size = 4;
+        for (Bloom b : filters.values()) size += 4 + 1 + 4 + b.bits.length * 8;
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.putInt(filters.size());
+        for (Map.Entry<Integer, Bloom> e : filters.entrySet()) {
+            Bloom b = e.getValue();
+            buf.putInt(e.getKey());
+            buf.put((byte) b.hashes);
+            buf.putInt(b.bits.length);
+            for (long w : b.bits) buf.putLong(w);
+        }
+        return buf.array();
+    }
+
+    public static PageBlooms fromBytes(byte[] data) {
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        int n = buf.getInt();
+        Map<Integer, Bloom> filters = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            int column = buf.getInt();
+            int hashes = buf.get();
+            long[] bits = new long[buf.getInt()];
+            for (int k = 0; k < bits.length; k++) bits[k] = buf.getLong();
+            filters.put(column, new Bloom(bits, hashes));
+        }
+        return new PageBlooms(filters);
+    }
+
+    /* ====================== Bloom filter ====================== */
+
+    private static final class Bloom {
+        final long[] bits;
+        final int hashes;
+
+        Bloom(long[] bits, int hashes) {
+            this.bits = bits;
+            this.hashes = hashes;
+        }
+
+        static Bloom create(int expected, double fpp) {
+            double p = Math.min(0.5, Math.max(1e-6, fpp));
+            long m = (long) Math.ceil(-expected * Math.log(p) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (m + 63) / 64);
+            int k = (int) Math.max(1, Math.round((double) words * 64 / expected * Math.log(2)));
+            return new Bloom(new long[words], Math.min(k, 16));
+        }
+
+        void put(String v) {
+            long h = hash(v);
+            int h1 = (int) h, h2 = (int) (h >>> 32);
+            long m = (long) bits.length * 64;
+            for (int i = 0; i < hashes; i++) {
+                long idx = Math.floorMod(h1 + (long) i * h2, m);
+                bits[(int) (idx >>> 6)] |= 1L << idx;
+            }
+        }
+
+        boolean mightContain(String v) {
+            long h = hash(v);
+            int h1 = (int) h, h2 = (int) (h >>> 32);
+            long m = (long) bits.length * 64;
+            for (int i = 0; i < hashes; i++) {
+                long idx = Math.floorMod(h1 + (long) i * h2, m);
+                if ((bits[(int) (idx >>> 6)] & (1L << idx)) == 0) return false;
+            }
+            return true;
+        }
+
+        /** 64-bit FNV-1a over UTF-8 bytes followed by a murmur3 finalizer. */
+        private static long hash(String v) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : v.getBytes(StandardCharsets.UTF_8)) {
+                h ^= (b & 0xFF);
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
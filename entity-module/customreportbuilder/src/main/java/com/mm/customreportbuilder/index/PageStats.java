@@ -0,0 +1,218 @@
+package com.mm.customreportbuilder.index;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Zone map for one base page: row count plus per-column min/max/null statistics.
+ *
+ * Computed once at ingest and consulted by the view engine to skip pages that
+ * provably contain no matching row. Every check is conservative and mirrors the
+ * in-memory filter semantics (text lower-cased with nulls as "", number filters
+ * fail on null cells except inRange, null dates pass every date filter).
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PageStats {
+
+    /** Text values longer than this are not tracked (a truncated max would be wrong). */
+    private static final int MAX_TEXT_STAT_LENGTH = 64;
+
+    public int rows;
+    public List<ColumnStats> cols = new ArrayList<>();
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ColumnStats {
+        public int nulls;
+        /** Rows too short to have this column (the view engine ignores the filter for them) */
+        public int absent;
+        /** Cells that parse as numbers, and their range */
+        public int nums;
+        public BigDecimal nmin;
+        public BigDecimal nmax;
+        /** Cells that parse as yyyy-MM-dd dates, and their range (ISO strings) */
+        public int dates;
+        public String dmin;
+        public String dmax;
+        /** Range of lower-cased text values (null cells count as ""); null if not tracked */
+        public String tmin;
+        public String tmax;
+        public Boolean textUntracked;
+    }
+
+    public static PageStats compute(List<List<Object>> rows) {
+        PageStats ps = new PageStats();
+        ps.rows = rows.size();
+        int width = 0;
+        for (List<Object> r : rows) width = Math.max(width, r.size());
+        for (int c = 0; c < width; c++) ps.cols.add(new ColumnStats());
+
+        for (List<Object> row : rows) {
+            for (int c = 0; c < width; c++) {
+                ColumnStats cs = ps.cols.get(c);
+                if (c >= row.size()) {
+                    cs.absent++;
+                    continue;
+                }
+                Object cell = row.get(c);
+                if (cell == null) cs.nulls++;
+
+                BigDecimal n = toNumber(cell);
+                if (n != null) {
+                    cs.nums++;
+                    if (cs.nmin == null || n.compareTo(cs.nmin) < 0) cs.nmin = n;
+                    if (cs.nmax == null || n.compareTo(cs.nmax) > 0) cs.nmax = n;
+                }
+
+                LocalDate d = toDate(cell);
+                if (d != null) {
+                    cs.dates++;
+                    String iso = d.toString();
+                    if (cs.dmin == null || iso.compareTo(cs.dmin) < 0) cs.dmin = iso;
+                    if (cs.dmax == null || iso.compareTo(cs.dmax) > 0) cs.dmax = iso;
+                }
+
+                if (cs.textUntracked == null) {
+                    String t = cell == null ? "" : String.valueOf(cell).toLowerCase(Locale.ROOT);
+                    if (t.length() > MAX_TEXT_STAT_LENGTH) {
+                        cs.textUntracked = Boolean.TRUE;
+                        cs.tmin = null;
+                        cs.tmax = null;
+                    } else {
+                        if (cs.tmin == null || t.compareTo(cs.tmin) < 0) cs.tmin = t;
+                        if (cs.tmax == null || t.compareTo(cs.tmax) > 0) cs.tmax = t;
+                    }
+                }
+            }
+        }
+        return ps;
+    }
+
+    /**
+     * False only if no row of this page can pass every filter.
+     * @param filtersByColumn filter per resolved column index
+     */
+    public boolean canMatch(Map<Integer, FilterDescriptor> filtersByColumn) {
+        for (Map.Entry<Integer, FilterDescriptor> e : filtersByColumn.entrySet()) {
+            int idx = e.getKey();
+            // Rows without the column pass the filter, so such pages are never skipped
+            if (idx >= cols.size() || cols.get(idx).absent > 0) continue;
+            if (!canMatch(cols.get(idx), e.getValue())) return false;
+        }
+        return true;
+    }
+
+    private boolean canMatch(ColumnStats cs, FilterDescriptor fd) {
+        if (fd == null) return true;
+        if (rows == 0) return false;
+        if (fd.isCompound()) {
+            if (fd.getConditions() == null || fd.getConditions().isEmpty()) return true;
+            boolean and = "AND".equalsIgnoreCase(fd.getOperator());
+            for (FilterDescriptor c : fd.getConditions()) {
+                boolean m = canMatch(cs, c);
+                if (and && !m) return false;
+                if (!and && m) return true;
+            }
+            return and;
+        }
+        String type = lower(fd.getType());
+        String filterType = lower(fd.getFilterType());
+        if (type == null || filterType == null) return true;
+        return switch (filterType) {
+            case "text" -> textCanMatch(cs, type, fd);
+            case "number" -> numberCanMatch(cs, type, fd);
+            case "date" -> dateCanMatch(cs, type, fd);
+            default -> true;
+        };
+    }
+
+    private boolean textCanMatch(ColumnStats cs, String type, FilterDescriptor fd) {
+        if (cs.tmin == null || cs.tmax == null) return true;
+        String q = fd.getFilter() == null ? "" : fd.getFilter().toLowerCase(Locale.ROOT);
+        return switch (type) {
+            case "equals" -> cs.tmin.compareTo(q) <= 0 && cs.tmax.compareTo(q) >= 0;
+            case "notequals" -> !(cs.tmin.equals(q) && cs.tmax.equals(q));
+            default -> true;
+        };
+    }
+
+    private boolean numberCanMatch(ColumnStats cs, String type, FilterDescriptor fd) {
+        BigDecimal a = toNumber(fd.getFilter());
+        BigDecimal b = toNumber(fd.getFilterTo());
+        if ("inrange".equals(type)) {
+            if (a == null || b == null || cs.nums < rows) return true; // null/unparseable cells pass inRange
+            return cs.nmax.compareTo(a) >= 0 && cs.nmin.compareTo(b) <= 0;
+        }
+        boolean comparison = switch (type) {
+            case "equals", "notequals", "greaterthan", "greaterthanequal", "lessthan", "lessthanequal" -> true;
+            default -> false;
+        };
+        if (!comparison) return true;
+        if (a == null || cs.nums == 0) return false; // comparisons never match null cells or a null operand
+        return rangeCanMatch(type, cs.nmin, cs.nmax, a);
+    }
+
+    private boolean dateCanMatch(ColumnStats cs, String type, FilterDescriptor fd) {
+        LocalDate a = toDate(fd.getDateFrom() != null ? fd.getDateFrom() : fd.getFilter());
+        LocalDate b = toDate(fd.getDateTo());
+        if (a == null || cs.dates < rows) return true; // null dates pass every date filter
+        LocalDate min = LocalDate.parse(cs.dmin);
+        LocalDate max = LocalDate.parse(cs.dmax);
+        if ("inrange".equals(type)) {
+            if (b == null) return true;
+            return !max.isBefore(a) && !min.isAfter(b);
+        }
+        return rangeCanMatch(type, min, max, a);
+    }
+
+    private static <T extends Comparable<? super T>> boolean rangeCanMatch(String type, T min, T max, T a) {
+        return switch (type) {
+            case "equals" -> min.compareTo(a) <= 0 && max.compareTo(a) >= 0;
+            case "notequals" -> !(min.compareTo(a) == 0 && max.compareTo(a) == 0);
+            case "greaterthan" -> max.compareTo(a) > 0;
+            case "greaterthanequal" -> max.compareTo(a) >= 0;
+            case "lessthan" -> min.compareTo(a) < 0;
+            case "lessthanequal" -> min.compareTo(a) <= 0;
+            default -> true;
+        };
+    }
+
+    // ---------------- Helpers (same parsing as the view engine) ----------------
+
+    private static String lower(String s) {
+        return s == null ? null : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static BigDecimal toNumber(Object o) {
+        if (o == null) return null;
+        try {
+            if (o instanceof BigDecimal bd) return bd;
+            if (o instanceof Integer i) return new BigDecimal(i);
+            if (o instanceof Long l) return new BigDecimal(l);
+            if (o instanceof Double d) return BigDecimal.valueOf(d);
+            if (o instanceof Float f) return BigDecimal.valueOf(f.doubleValue());
+            String s = String.valueOf(o).replaceAll(",", "").trim();
+            if (s.isEmpty() || "null".equalsIgnoreCase(s)) return null;
+            return new BigDecimal(s);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static LocalDate toDate(Object o) {
+        if (o == null) return null;
+        String s = String.valueOf(o).trim();
+        if (s.isEmpty() || "null".equalsIgnoreCase(s) || s.length() < 10) return null;
+        try {
+            return LocalDate.parse(s.substring(0, 10));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package com.mm.customreportbuilder.index;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Compressed bitmap over non-negative int row ids, following the Roaring layout:
+ * ids are split by their high 16 bits into containers; a container holding at most
+ * 4096 values is a sorted char array, a denser one is a 1024-long bitset.
+ *
+ * Supports what the bitmap indexes need (appends, AND/OR/AND-NOT, cardinality,
+ * next-set-bit probes, binary round trip). Not thread-safe.
+ */
+public final class RoaringBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+
+    // High 16 bits of the ids in containers[i], ascending; the first size entries are in use
+    private char[] keys = new char[4];
+    private Container[] containers = new Container[4];
+    private int size;
+
+    public void add(int x) {
+        if (x < 0) throw new IllegalArgumentException("Row id must be non-negative: " + x);
+        char hi = (char) (x >>> 16);
+        int i = containerIndex(hi);
+        if (i < 0) {
+            i = -i - 1;
+            grow();
+            System.arraycopy(keys, i, keys, i + 1, size - i);
+            System.arraycopy(containers, i, containers, i + 1, size - i);
+            keys[i] = hi;
+            containers[i] = new ArrayContainer();
+            size++;
+        }
+        containers[i] = containers[i].add((char) x);
+    }
+
+    public boolean contains(int x) {
+        if (x < 0) return false;
+        int i = containerIndex((char) (x >>> 16));
+        return i >= 0 && containers[i].contains((char) x);
+    }
+
+    public int cardinality() {
+        int n = 0;
+        for (int i = 0; i < size; i++) n += containers[i].cardinality();
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Smallest id {@code >= from}, or -1. */
+    public int nextSetBit(int from) {
+        if (from < 0) from = 0;
+        char hi = (char) (from >>> 16);
+        int i = containerIndex(hi);
+        if (i >= 0) {
+            int lo = containers[i].nextSetBit(from & 0xFFFF);
+            if (lo >= 0) return (hi << 16) | lo;
+            i++;
+        } else {
+            i = -i - 1;
+        }
+        for (; i < size; i++) {
+            int lo = containers[i].nextSetBit(0);
+            if (lo >= 0) return (keys[i] << 16) | lo;
+        }
+        return -1;
+    }
+
+    public static RoaringBitmap and(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size && j < b.size) {
+            char ka = a.keys[i], kb = b.keys[j];
+            if (ka < kb) i++;
+            else if (ka > kb) j++;
+            else {
+                Container c = a.containers[i].and(b.containers[j]);
+                if (c.cardinality() > 0) out.append(ka, c);
+                i++;
+                j++;
+            }
+        }
+        return out;
+    }
+
+    public static RoaringBitmap or(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap out = new RoaringBitmap();
+        int i = 0, j = 0;
+        while (i < a.size || j < b.size) {
+            char ka = i < a.size ? a.keys[i] : Character.MAX_VALUE;
+            char kb = j < b.size ? b.keys[j] : Character.MAX_VALUE;
+            if (j >= b.size || (i < a.size && ka < kb)) {
+                out.append(ka, a.containers[i++].copy());
+            } else if (i >= a.size || kb < ka) {
+                out.append(kb, b.containers[j++].copy());
+            } else {
+                out.append(ka, a.containers[i++].or(b.containers[j++]));
+            }
+        }
+        return out;
+    }
+
+    public static RoaringBitmap andNot(RoaringBitmap a, RoaringBitmap b) {
+        RoaringBitmap out = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            char ka = a.keys[i];
+            while (j < b.size && b.keys[j] < ka) j++;
+            Container c = (j < b.size && b.keys[j] == ka)
+                    ? a.containers[i].andNot(b.containers[j])
+                    : a.containers[i].copy();
+            if (c.cardinality() > 0) out.append(ka, c);
+        }
+        return out;
+    }
+
+    private void append(char key, Container c) {
+        grow();
+        keys[size] = key;
+        containers[size++] = c;
+    }
+
+    private void grow() {
+        if (size < keys.length) return;
+        keys = Arrays.copyOf(keys, size * 2);
+        containers = Arrays.copyOf(containers, size * 2);
+    }
+
+    private int containerIndex(char hi) {
+        // Appends are mostly ascending: check the last container first
+        int n = size;
+        if (n > 0 && keys[n - 1] == hi) return n - 1;
+        int lo = 0, h = n - 1;
+        while (lo <= h) {
+            int mid = (lo + h) >>> 1;
+            char k = keys[mid];
+            if (k < hi) lo = mid + 1;
+            else if (k > hi) h = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    /* ====================== Serialization ====================== */
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeChar(keys[i]);
+                containers[i].write(out);
+            }
+            out.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static RoaringBitmap fromBytes(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            RoaringBitmap rb = new RoaringBitmap();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                char key = in.readChar();
+                rb.append(key, Container.read(in));
+            }
+            return rb;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* ====================== Containers ====================== */
+
+    private abstract static class Container {
+        abstract Container add(char x);
+        abstract boolean contains(char x);
+        abstract int cardinality();
+        abstract int nextSetBit(int from);
+        abstract long[] toWords();
+        abstract Container copy();
+        abstract void write(DataOutputStream out) throws IOException;
+
+        Container and(Container o) {
+            if (this instanceof ArrayContainer a) return a.filter(o, true);
+            if (o instanceof ArrayContainer b) return b.filter(this, true);
+            long[] w = toWords(), v = o.toWords();
+            for (int k = 0; k < w.length; k++) w[k] &= v[k];
+            return fromWords(w);
+        }
+
+        Container or(Container o) {
+            if (this instanceof ArrayContainer a) {
+                // Sparse on both sides: a sorted merge, no 8 KB word arrays
+                if (o instanceof ArrayContainer b && a.size + b.size <= ARRAY_MAX) return a.union(b);
+                if (o instanceof BitmapContainer) return o.or(a);
+            }
+            long[] w = toWords();
+            if (o instanceof ArrayContainer b) {
+                for (int i = 0; i < b.size; i++) w[b.values[i] >>> 6] |= 1L << b.values[i];
+            } else {
+                long[] v = ((BitmapContainer) o).words;
+                for (int k = 0; k < w.length; k++) w[k] |= v[k];
+            }
+            return fromWords(w);
+        }
+
+        Container andNot(Container o) {
+            if (this instanceof ArrayContainer a) return a.filter(o, false);
+            long[] w = toWords(), v = o.toWords();
+            for (int k = 0; k < w.length; k++) w[k] &= ~v[k];
+            return fromWords(w);
+        }
+
+        static Container fromWords(long[] w) {
+            int card = 0;
+            for (long x : w) card += Long.bitCount(x);
+            if (card > ARRAY_MAX) return new BitmapContainer(w, card);
+            ArrayContainer a = new ArrayContainer(card);
+            for (int k = 0; k < w.length; k++) {
+                long x = w[k];
+                while (x != 0) {
+                    a.values[a.size++] = (char) (k * 64 + Long.numberOfTrailingZeros(x));
+                    x &= x - 1;
+                }
+            }
+            return a;
+        }
+
+        static Container read(DataInputStream in) throws IOException {
+            byte type = in.readByte();
+            if (type == 0) {
+                int n = in.readUnsignedShort() + 1;
+                ArrayContainer a = new ArrayContainer(n);
+                for (int i = 0; i < n; i++) a.values[i] = in.readChar();
+                a.size = n;
+                return a;
+            }
+            long[] w = new long[1024];
+            int card = 0;
+            for (int k = 0; k < w.length; k++) {
+                w[k] = in.readLong();
+                card += Long.bitCount(w[k]);
+            }
+            return new BitmapContainer(w, card);
+        }
+    }
+
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int size;
+
+        ArrayContainer() { this(4); }
+
+        ArrayContainer(int capacity) { this.values = new char[Math.max(1, capacity)]; }
+
+        @Override
+        Container add(char x) {
+            int pos = (size > 0 && values[size - 1] < x) ? -(size + 1) : Arrays.binarySearch(values, 0, size, x);
+            if (pos >= 0) return this;
+            if (size >= ARRAY_MAX) {
+                Container b = new BitmapContainer(toWords(), size);
+                return b.add(x);
+            }
+            pos = -pos - 1;
+            if (size == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX, values.length * 2));
+            System.arraycopy(values, pos, values, pos + 1, size - pos);
+            values[pos] = x;
+            size++;
+            return this;
+        }
+
+        @Override
+        boolean contains(char x) { return Arrays.binarySearch(values, 0, size, x) >= 0; }
+
+        @Override
+        int cardinality() { return size; }
+
+        @Override
+        int nextSetBit(int from) {
+            int pos = Arrays.binarySearch(values, 0, size, (char) from);
+            if (pos < 0) pos = -pos - 1;
+            return pos < size ? values[pos] : -1;
+        }
+
+        @Override
+        long[] toWords() {
+            long[] w = new long[1024];
+            for (int i = 0; i < size; i++) w[values[i] >>> 6] |= 1L << values[i];
+            return w;
+        }
+
+        /** Keep the values that are (keep=true) or are not (keep=false) in {@code o}. */
+        ArrayContainer filter(Container o, boolean keep) {
+            ArrayContainer out = new ArrayContainer(size);
+            for (int i = 0; i < size; i++) {
+                if (o.contains(values[i]) == keep) out.values[out.size++] = values[i];
+            }
+            return out;
+        }
+
+        /** Sorted merge of the two value sets. */
+        ArrayContainer union(ArrayContainer o) {
+            ArrayContainer out = new ArrayContainer(size + o.size);
+            char[] v = out.values;
+            int i = 0, j = 0, n = 0;
+            while (i < size && j < o.size) {
+                char x = values[i], y = o.values[j];
+                if (x < y) { v[n++] = x; i++; }
+                else if (x > y) { v[n++] = y; j++; }
+                else { v[n++] = x; i++; j++; }
+            }
+            while (i < size) v[n++] = values[i++];
+            while (j < o.size) v[n++] = o.values[j++];
+            out.size = n;
+            return out;
+        }
+
+        @Override
+        Container copy() {
+            ArrayContainer c = new ArrayContainer(size);
+            System.arraycopy(values, 0, c.values, 0, size);
+            c.size = size;
+            return c;
+        }
+
+        @Override
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(0);
+            out.writeShort(size - 1);
+            for (int i = 0; i < size; i++) out.writeChar(values[i]);
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        int card;
+
+        BitmapContainer(long[] words, int card) {
+            this.words = words;
+            this.card = card;
+        }
+
+        @Override
+        Container add(char x) {
+            long bit = 1L << x;
+            if ((words[x >>> 6] & bit) == 0) {
+                words[x >>> 6] |= bit;
+                card++;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char x) { return (words[x >>> 6] & (1L << x)) != 0; }
+
+        @Override
+        int cardinality() { return card; }
+
+        @Override
+        int nextSetBit(int from) {
+            int k = from >>> 6;
+            if (k >= words.length) return -1;
+            long w = words[k] & (-1L << from);
+            while (true) {
+                if (w != 0) return k * 64 + Long.numberOfTrailingZeros(w);
+                if (++k == words.length) return -1;
+                w = words[k];
+            }
+        }
+
+        @Override
+        long[] toWords() { return words.clone(); }
+
+        @Override
+        Container copy() { return new BitmapContainer(words.clone(), card); }
+
+        @Override
+        void write(DataOutputStream out) throws IOException {
+            out.writeByte(1);
+            for (long w : words) out.writeLong(w);
+        }
+    }
+}
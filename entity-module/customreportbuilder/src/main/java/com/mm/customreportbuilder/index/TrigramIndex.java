@@ -0,0 +1,177 @@
+package com.mm.customreportbuilder.index;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Trigram -> row-id postings for one text column.
+ *
+ * Cells are indexed the way the view engine compares them (lower-cased, null = "").
+ * A row can only contain a query of length >= 3 if it holds every trigram of the
+ * query, so intersecting the postings yields a superset of the matches; the exact
+ * check still runs on those candidates. Trigrams are folded into an int (10 bits
+ * per char), so non-ASCII collisions only widen the candidate set.
+ */
+public final class TrigramIndex {
+
+    /** Postings key for rows too short to have the column (the view engine lets them pass). */
+    private static final int ABSENT = -1;
+
+    private final Map<Integer, RoaringBitmap> postings;
+
+    private TrigramIndex(Map<Integer, RoaringBitmap> postings) {
+        this.postings = postings;
+    }
+
+    public int size() {
+        return postings.containsKey(ABSENT) ? postings.size() - 1 : postings.size();
+    }
+
+    /** True if {@code fd} has a text condition trigrams can narrow (so building the index pays off). */
+    public static boolean applies(FilterDescriptor fd) {
+        if (fd == null) return false;
+        if (fd.isCompound()) {
+            if (fd.getConditions() == null) return false;
+            for (FilterDescriptor c : fd.getConditions()) if (applies(c)) return true;
+            return false;
+        }
+        if (!"text".equalsIgnoreCase(fd.getFilterType()) || fd.getType() == null) return false;
+        String type = fd.getType().toLowerCase(Locale.ROOT);
+        return (type.equals("contains") || type.equals("equals") || type.equals("startswith") || type.equals("endswith"))
+                && fd.getFilter() != null && fd.getFilter().length() >= 3;
+    }
+
+    /** Candidate row ids for {@code fd}, or null when trigrams cannot narrow it. */
+    public RoaringBitmap candidates(FilterDescriptor fd) {
+        if (fd == null) return null;
+        if (fd.isCompound()) {
+            if (fd.getConditions() == null || fd.getConditions().isEmpty()) return null;
+            boolean and = "AND".equalsIgnoreCase(fd.getOperator());
+            RoaringBitmap acc = null;
+            for (FilterDescriptor c : fd.getConditions()) {
+                RoaringBitmap r = candidates(c);
+                if (r == null) {
+                    if (and) continue;     // an AND is still narrowed by its other branches
+                    return null;           // an OR branch that matches anything cannot be narrowed
+                }
+                acc = acc == null ? r : (and ? RoaringBitmap.and(acc, r) : RoaringBitmap.or(acc, r));
+            }
+            return acc;
+        }
+        if (!"text".equalsIgnoreCase(fd.getFilterType()) || fd.getType() == null) return null;
+        String type = fd.getType().toLowerCase(Locale.ROOT);
+        if (!(type.equals("contains") || type.equals("equals") || type.equals("startswith") || type.equals("endswith"))) {
+            return null;
+        }
+        String q = fd.getFilter() == null ? "" : fd.getFilter().toLowerCase(Locale.ROOT);
+        if (q.length() < 3) return null;
+
+        RoaringBitmap absent = postings.get(ABSENT);
+        RoaringBitmap acc = containing(q);
+        return absent == null ? acc : RoaringBitmap.or(acc, absent);
+    }
+
+    /**
+     * Candidate row ids containing every (lower-cased) term, or null if no term has
+     * 3 or more chars. Used for the quick filter over whole-row text.
+     */
+    public RoaringBitmap candidatesAll(Collection<String> terms) {
+        RoaringBitmap acc = null;
+        for (String t : terms) {
+            if (t.length() < 3) continue;
+            RoaringBitmap r = containing(t);
+            acc = acc == null ? r : RoaringBitmap.and(acc, r);
+            if (acc.isEmpty()) break;
+        }
+        return acc;
+    }
+
+    private RoaringBitmap containing(String q) {
+        RoaringBitmap acc = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            RoaringBitmap p = postings.get(trigram(q, i));
+            if (p == null) return new RoaringBitmap();
+            acc = acc == null ? p : RoaringBitmap.and(acc, p);
+            if (acc.isEmpty()) break;
+        }
+        return acc;
+    }
+
+    private static int trigram(String s, int i) {
+        return ((s.charAt(i) & 0x3FF) << 20) | ((s.charAt(i + 1) & 0x3FF) << 10) | (s.charAt(i + 2) & 0x3FF);
+    }
+
+    /* ====================== Serialization ====================== */
+
+    public byte[] toBytes() {
+        try {
+            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bos);
+            out.writeInt(postings.size());
+            for (Map.Entry<Integer, RoaringBitmap> e : postings.entrySet()) {
+                byte[] v = e.getValue().toBytes();
+                out.writeInt(e.getKey());
+                out.writeInt(v.length);
+                out.write(v);
+            }
+            out.flush();
+            return bos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static TrigramIndex fromBytes(byte[] data) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            int n = in.readInt();
+            Map<Integer, RoaringBitmap> postings = new HashMap<>(n * 2);
+            for (int i = 0; i < n; i++) {
+                int key = in.readInt();
+                postings.put(key, RoaringBitmap.fromBytes(in.readNBytes(in.readInt())));
+            }
+            return new TrigramIndex(postings);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* ====================== Build ====================== */
+
+    public static final class Builder {
+        private final int column;
+        private final Map<Integer, RoaringBitmap> postings = new HashMap<>();
+
+        public Builder(int column) {
+            this.column = column;
+        }
+
+        public void addPage(List<List<Object>> rows, int firstRowId) {
+            for (int i = 0; i < rows.size(); i++) {
+                List<Object> row = rows.get(i);
+                int rowId = firstRowId + i;
+                if (column >= row.size()) {
+                    postings.computeIfAbsent(ABSENT, t -> new RoaringBitmap()).add(rowId);
+                    continue;
+                }
+                Object cell = row.get(column);
+                if (cell == null) continue;
+                addText(rowId, String.valueOf(cell).toLowerCase(Locale.ROOT));
+            }
+        }
+
+        /** Index already lower-cased text for one row; row ids must be added in ascending order. */
+        public void addText(int rowId, String s) {
+            for (int k = 0; k + 3 <= s.length(); k++) {
+                // Row ids arrive in ascending order, so repeated trigrams of one row are cheap no-ops
+                postings.computeIfAbsent(trigram(s, k), t -> new RoaringBitmap()).add(rowId);
+            }
+        }
+
+        public TrigramIndex build() {
+            return new TrigramIndex(postings);
+        }
+    }
+}
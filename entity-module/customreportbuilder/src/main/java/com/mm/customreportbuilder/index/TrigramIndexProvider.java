@@ -0,0 +1,156 @@
+package com.mm.customreportbuilder.index;
+
+import com.mm.customreportbuilder.cache.ChunkCacheService;
+import com.mm.customreportbuilder.cache.IndexCacheService;
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import com.mm.customreportbuilder.view.QuickFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lazily built trigram indexes (opt-in via INDEX_TRIGRAM_ENABLED).
+ *
+ * The first text filter a trigram index can narrow builds the index for that column
+ * from the cached base pages, stores it with the statement in Redis and keeps the
+ * most recently used ones in memory, so the following keystrokes only probe postings.
+ * Indexes are only built once ingest has completed (meta.ingestComplete), since a
+ * partial index would hide rows.
+ *
+ * The quick filter index (opt-in via INDEX_QUICK_FILTER_ENABLED) is the same structure over the
+ * whole-row text the quick filter searches, built on the first quick filter search.
+ */
+@Component
+public class TrigramIndexProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(TrigramIndexProvider.class);
+
+    private final ChunkCacheService cache;
+    private final IndexCacheService indexCache;
+    private final boolean enabled;
+    private final boolean quickEnabled;
+    private final Map<String, TrigramIndex> recent;
+    private final ConcurrentHashMap<String, CompletableFuture<TrigramIndex>> inFlight = new ConcurrentHashMap<>();
+
+    public TrigramIndexProvider(
+            ChunkCacheService cache,
+            IndexCacheService indexCache,
+            @Value("${INDEX_TRIGRAM_ENABLED:false}") boolean enabled,
+            @Value("${INDEX_QUICK_FILTER_ENABLED:false}") boolean quickEnabled,
+            @Value("${INDEX_TRIGRAM_MEMORY_ENTRIES:8}") int memoryEntries) {
+        this.cache = cache;
+        this.indexCache = indexCache;
+        this.enabled = enabled;
+        this.quickEnabled = quickEnabled;
+        final int max = Math.max(1, memoryEntries);
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TrigramIndex> eldest) {
+                return size() > max;
+            }
+        });
+    }
+
+    /** Candidate rows for a filter on {@code column}, or null if trigrams are off or cannot help. */
+    public RoaringBitmap candidates(String userId, String statementId, int column, FilterDescriptor fd) {
+        if (!enabled || !TrigramIndex.applies(fd)) return null;
+        TrigramIndex index = get(userId + "|" + statementId + "|" + column, () -> {
+            TrigramIndex cached = indexCache.getTrigramIndex(userId, statementId, column);
+            return cached != null ? cached : build(userId, statementId, column);
+        });
+        return index == null ? null : index.candidates(fd);
+    }
+
+    /** Candidate rows containing every quick filter term, or null if the index is off or cannot help. */
+    public RoaringBitmap quickCandidates(String userId, String statementId, List<String> terms) {
+        if (!quickEnabled || terms.stream().noneMatch(t -> t.length() >= 3)) return null;
+        TrigramIndex index = get(userId + "|" + statementId + "|quick", () -> {
+            TrigramIndex cached = indexCache.getQuickIndex(userId, statementId);
+            return cached != null ? cached : buildQuick(userId, statementId);
+        });
+        return index == null ? null : index.candidatesAll(terms);
+    }
+
+    private TrigramIndex get(String key, Supplier<TrigramIndex> loader) {
+        TrigramIndex index = recent.get(key);
+        if (index != null) return index;
+
+        CompletableFuture<TrigramIndex> mine = new CompletableFuture<>();
+        CompletableFuture<TrigramIndex> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) return running.join();
+        try {
+            index = loader.get();
+            if (index != null) recent.put(key, index);
+            mine.complete(index);
+            return index;
+        } catch (RuntimeException e) {
+            mine.complete(null);
+            log.warn("Trigram index unavailable key={}: {}", key, e.toString());
+            return null;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private TrigramIndex build(String userId, String statementId, int column) {
+        Map<String, Object> meta = cache.getMeta(userId, statementId);
+        if (meta == null || !Boolean.TRUE.equals(meta.get("ingestComplete"))) return null;
+
+        long startedAt = System.currentTimeMillis();
+        TrigramIndex.Builder builder = new TrigramIndex.Builder(column);
+        int pages = forEachBasePage(userId, statementId, meta, builder::addPage);
+        if (pages < 0) return null;
+        TrigramIndex index = builder.build();
+        indexCache.putTrigramIndex(userId, statementId, column, index);
+
+        log.debug("Built trigram index stmt={} column={} trigrams={} pages={} in {}ms",
+                statementId, column, index.size(), pages, System.currentTimeMillis() - startedAt);
+        return index;
+    }
+
+    private TrigramIndex buildQuick(String userId, String statementId) {
+        Map<String, Object> meta = cache.getMeta(userId, statementId);
+        if (meta == null || !Boolean.TRUE.equals(meta.get("ingestComplete"))) return null;
+
+        long startedAt = System.currentTimeMillis();
+        TrigramIndex.Builder builder = new TrigramIndex.Builder(-1);
+        int pages = forEachBasePage(userId, statementId, meta, (page, firstRowId) -> {
+            for (int i = 0; i < page.size(); i++) builder.addText(firstRowId + i, QuickFilter.rowText(page.get(i)));
+        });
+        if (pages < 0) return null;
+        TrigramIndex index = builder.build();
+        indexCache.putQuickIndex(userId, statementId, index);
+
+        log.debug("Built quick filter index stmt={} trigrams={} pages={} in {}ms",
+                statementId, index.size(), pages, System.currentTimeMillis() - startedAt);
+        return index;
+    }
+
+    private interface PageConsumer {
+        void accept(List<List<Object>> page, int firstRowId);
+    }
+
+    /** Feeds every base page in order; returns the page count, or -1 if a page has expired (no partial index). */
+    private int forEachBasePage(String userId, String statementId, Map<String, Object> meta, PageConsumer consumer) {
+        int pageSize = ((Number) meta.getOrDefault("pageSize", 500)).intValue();
+        int pages = meta.get("pagesIngested") instanceof Number n ? n.intValue() : 0;
+        final int batch = 64;
+        for (int from = 0; from < pages; from += batch) {
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = from; i < Math.min(pages, from + batch); i++) indexes.add(i);
+            Map<Integer, List<List<Object>>> chunks = cache.getChunks(userId, statementId, indexes);
+            for (Integer i : indexes) {
+                List<List<Object>> page = chunks.get(i);
+                if (page == null) return -1;
+                consumer.accept(page, i * pageSize);
+            }
+        }
+        return pages;
+    }
+}
@@ -1,14 +1,16 @@
 package com.mm.customreportbuilder.model.aggrid;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
- * Matches AG Grid filter model shape (generic for text/number/date).
+ * Matches AG Grid filter model shape (generic for text/number/date/set).
  * See: https://www.ag-grid.com/javascript-data-grid/filter-set-api/
  */
 public class FilterDescriptor {
     // common
-    private String filterType; // "text" | "number" | "date" | etc.
+    private String filterType; // "text" | "number" | "date" | "set" | etc.
     private String type;       // operation, e.g. "contains", "equals", "greaterThan", "inRange", ...
     private String filter;     // value (text/number)
     private String filterTo;   // used for inRange for number
@@ -16,6 +18,9 @@ public class FilterDescriptor {
     private String dateTo;     // used for date range
     private String operator;   // "AND" | "OR" (compound)
     private List<FilterDescriptor> conditions; // compound filters
+    private List<String> values; // set filter: selected values (null entry = blanks)
+
+    private transient Set<String> valueSet; // hashed lookup over values, built on first use
 
     public boolean isCompound() {
         return operator != null && conditions != null && !conditions.isEmpty();
@@ -44,4 +49,17 @@ public class FilterDescriptor {
 
     public List<FilterDescriptor> getConditions() { return conditions; }
     public void setConditions(List<FilterDescriptor> conditions) { this.conditions = conditions; }
+
+    public List<String> getValues() { return values; }
+    public void setValues(List<String> values) { this.values = values; this.valueSet = null; }
+
+    /** Set filter membership of a cell (exact string match; a null cell matches a null value). */
+    public boolean containsValue(Object cell) {
+        Set<String> set = valueSet;
+        if (set == null) {
+            set = values == null ? Set.of() : new HashSet<>(values);
+            valueSet = set;
+        }
+        return set.contains(cell == null ? null : String.valueOf(cell));
+    }
 }
@@ -1,13 +1,86 @@
 package com.mm.customreportbuilder.service;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public interface ReportService {
     Map<String, Object> submitStatement(String sql);
+    Map<String, Object> submitStatement(String sql, String template);
     Map<String, Object> getStatementMeta(String statementId);
     Map<String, Object> getRows(String statementId, int startRow, int endRow);
 
     Map<String, Object> getRows(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson);
 
+    Map<String, Object> getRows(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson,
+                                String quickFilter);
+
+    Map<String, Object> getRows(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson,
+                                String quickFilter, List<String> columns);
+
+    /**
+     * Completes once the base pages behind rows [startRow, endRow) are stored, ingestion has ended or
+     * CACHE_FIRST_CHUNK_MAX_WAIT_MS has passed. Nothing blocks while waiting; work chained onto the
+     * future runs on a row worker thread.
+     */
+    CompletableFuture<Void> awaitRows(String statementId, int startRow, int endRow);
+
+    /**
+     * awaitRows for rows of a sort/filter/quick filter model, whose row numbers are view rows: completes
+     * once base ingest has ended and the view is READY (a missing view is built in the background
+     * meanwhile), the build has failed, or VIEW_BUILD_MAX_WAIT_MS has passed (reads then fail with 503).
+     * Without a model, same as awaitRows above.
+     */
+    CompletableFuture<Void> awaitRows(String statementId, int startRow, int endRow, String sortModelJson,
+                                      String filterModelJson, String quickFilter, String cursor);
+
+    /**
+     * Same as the getRows overload with columns, but never waits: neither for pages still being ingested
+     * nor for a view build (see awaitRows). A view that is not READY fails with 503 (ResponseStatusException):
+     * base rows are neither sorted nor filtered, so the client has to retry rather than cache them.
+     *
+     * {@code cursor}: token from the "cursor" field of an earlier response for the same models (may be null).
+     * A cursor known to this node skips parsing the models and computing the view signature; responses over a
+     * view of a completely ingested statement carry one. The same applies to the methods below taking a cursor.
+     */
+    Map<String, Object> getAvailableRows(String statementId, int startRow, int endRow, String sortModelJson,
+                                         String filterModelJson, String quickFilter, List<String> columns, String cursor);
+
+    /**
+     * Several row blocks of one sort/filter/quick filter model in one call:
+     * {"blocks": [{"startRow", "endRow", "rows"}, ...], "lastRow": ...} (plus "columns" with a projection).
+     * Each range is [startRow, endRow); blocks come back in request order. Does not wait for pages
+     * still being ingested nor for a view build (see awaitRows); a view that is not READY fails with 503
+     * as in getAvailableRows.
+     */
+    Map<String, Object> getRowBlocks(String statementId, List<int[]> ranges, String sortModelJson, String filterModelJson,
+                                     String quickFilter, List<String> columns, String cursor);
+
+    /**
+     * Gzipped JSON response body ({"rows": ..., "lastRow": ..., "cursor": ...}) for a block that is exactly one stored
+     * page, built from the stored page bytes without decoding them; null when the fast path does not apply.
+     */
+    byte[] getRowsGzipped(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson,
+                          String quickFilter, String cursor);
+
+    /**
+     * True once the rows for these models can no longer change: base ingest completed and, with any
+     * sort/filter/quick filter, the view is READY. Responses for such rows may be cached as immutable,
+     * provided this is checked before the rows are read: rows read earlier may be incomplete.
+     */
+    boolean isComplete(String statementId, String sortModelJson, String filterModelJson, String quickFilter, String cursor);
+
+    Map<String, Object> getViewStatus(String statementId, String sortModelJson, String filterModelJson, boolean startBuild);
+
+    Map<String, Object> getViewStatus(String statementId, String sortModelJson, String filterModelJson,
+                                      String quickFilter, boolean startBuild);
+
+    Map<String, Object> getValueCounts(String statementId, String column);
+
+    Map<String, Object> getDistinctValues(String statementId, String column, String filterModelJson,
+                                          String search, int offset, int limit);
+
+    Map<String, Object> getGroupRows(String statementId, Map<String, Object> request);
+
     void evict(String statementId);
 }
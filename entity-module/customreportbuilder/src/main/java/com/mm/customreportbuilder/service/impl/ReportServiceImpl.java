@@ -4,32 +4,76 @@ import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
 
 import com.mm.customreportbuilder.service.ReportService;
 import com.mm.customreportbuilder.databricks.DatabricksSqlClient;
 import com.mm.customreportbuilder.databricks.DatabricksSqlClient.SchemaInfo;
+import com.mm.customreportbuilder.aggregation.GroupAggregator;
+import com.mm.customreportbuilder.aggregation.ValueCounter;
+import com.mm.customreportbuilder.index.BitmapIndex;
+import com.mm.customreportbuilder.index.PageBlooms;
+import com.mm.customreportbuilder.index.PageStats;
+import com.mm.customreportbuilder.index.RoaringBitmap;
+import com.mm.customreportbuilder.index.TrigramIndexProvider;
 import com.mm.customreportbuilder.cache.ChunkCacheService;
+import com.mm.customreportbuilder.cache.GroupCacheService;
+import com.mm.customreportbuilder.cache.IndexCacheService;
+import com.mm.customreportbuilder.cache.PageAvailability;
+import com.mm.customreportbuilder.cache.StatementEventBus;
 import com.mm.customreportbuilder.cache.ViewCacheService;
 import com.mm.customreportbuilder.model.aggrid.AgGridParsedModels;
 import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
 import com.mm.customreportbuilder.model.aggrid.SortModelEntry;
+import com.mm.customreportbuilder.security.SafeSqlPolicy;
 import com.mm.customreportbuilder.util.AgGridModelParser;
+import com.mm.customreportbuilder.util.GzipUtils;
+import com.mm.customreportbuilder.util.RowProjection;
+import com.mm.customreportbuilder.view.CellFilter;
+import com.mm.customreportbuilder.view.ColumnarBatch;
+import com.mm.customreportbuilder.view.FilterSubsumption;
+import com.mm.customreportbuilder.view.QuickFilter;
+import com.mm.customreportbuilder.view.SparkSqlViewRewriter;
+import com.mm.customreportbuilder.view.SpeculativeViewBuilder;
+import com.mm.customreportbuilder.view.ViewBuildCoordinator;
+import com.mm.customreportbuilder.view.ViewPlanner;
 
 @Service
 public class ReportServiceImpl implements ReportService {
 
     private static final Logger log = LoggerFactory.getLogger(ReportServiceImpl.class);
+    private static final ObjectMapper MODEL_MAPPER = new ObjectMapper();
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]");
 
     private final DatabricksSqlClient client;
     private final ChunkCacheService cache;
     private final ViewCacheService viewCache;
+    private final IndexCacheService indexCache;
+    private final GroupCacheService groupCache;
+    private final TrigramIndexProvider trigrams;
+    private final ViewBuildCoordinator buildCoordinator;
+    private final ViewPlanner planner;
+    private final SpeculativeViewBuilder speculative;
+    private final SafeSqlPolicy safeSql;
+    private final StatementEventBus events;
+    private final PageAvailability pages;
 
     @Value("${CACHE_PAGE_SIZE:500}")
     private int PAGE_SIZE;
@@ -37,9 +81,21 @@ public class ReportServiceImpl implements ReportService {
     @Value("${CACHE_FIRST_CHUNK_MAX_WAIT_MS:8000}")
     private long FIRST_CHUNK_MAX_WAIT_MS;
 
+    // How long async view requests wait for ingest to end and the view to turn READY
+    @Value("${VIEW_BUILD_MAX_WAIT_MS:120000}")
+    private long VIEW_BUILD_MAX_WAIT_MS;
+
     @Value("${CACHE_FIRST_CHUNK_POLL_MS:150}")
     private long FIRST_CHUNK_POLL_MS;
 
+    // Upper bound on the ranges of one batched block request
+    @Value("${ROWS_BATCH_MAX_BLOCKS:16}")
+    private int ROWS_BATCH_MAX_BLOCKS;
+
+    // Upper bound on the rows of one range in a batched block request (buffers are sized by range)
+    @Value("${ROWS_BATCH_MAX_BLOCK_ROWS:10000}")
+    private int ROWS_BATCH_MAX_BLOCK_ROWS;
+
     // Guardrails for view building (to avoid huge in-memory sorts if rowCount unknown)
     @Value("${VIEW_MAX_SCAN_PAGES:2000}")           // 2000 * 500 = ~1,000,000 rows cap when rowCount unknown
     private int VIEW_MAX_SCAN_PAGES;
@@ -47,51 +103,188 @@ public class ReportServiceImpl implements ReportService {
     @Value("${VIEW_BUILD_LOG_EVERY:25}")            // log progress every N pages
     private int VIEW_BUILD_LOG_EVERY;
 
-    public ReportServiceImpl(DatabricksSqlClient client, ChunkCacheService cache, ViewCacheService viewCache) {
+    // "rows" = materialize sorted/filtered row pages per view,
+    // "permutation" = store only packed base row ids (+ filter bitmap) and resolve rows from base pages
+    @Value("${VIEW_STORAGE_MODE:rows}")
+    private String VIEW_STORAGE_MODE;
+
+    // Max time a pushed-down view query may take before we fall back to the in-memory build
+    @Value("${VIEW_PUSHDOWN_TIMEOUT_MS:120000}")
+    private long VIEW_PUSHDOWN_TIMEOUT_MS;
+
+    // Per-page min/max/null statistics computed at ingest, used to skip base pages during filtering
+    @Value("${INDEX_ZONE_MAPS_ENABLED:true}")
+    private boolean INDEX_ZONE_MAPS_ENABLED;
+
+    // Per-page Bloom filters over high-cardinality text columns, for text equals filters
+    @Value("${INDEX_BLOOM_ENABLED:true}")
+    private boolean INDEX_BLOOM_ENABLED;
+
+    @Value("${INDEX_BLOOM_FPP:0.01}")                // target false-positive rate
+    private double INDEX_BLOOM_FPP;
+
+    @Value("${INDEX_BLOOM_MIN_DISTINCT:64}")         // fewer distinct values per page: left to zone maps / bitmaps
+    private int INDEX_BLOOM_MIN_DISTINCT;
+
+    // Optional dictionary -> row-id bitmaps for columns with at most INDEX_BITMAP_MAX_CARDINALITY distinct values
+    @Value("${INDEX_BITMAP_ENABLED:false}")
+    private boolean INDEX_BITMAP_ENABLED;
+
+    @Value("${INDEX_BITMAP_MAX_CARDINALITY:1000}")
+    private int INDEX_BITMAP_MAX_CARDINALITY;
+
+    // Resolved view requests by cursor token (see resolveView); in-process, other nodes resolve from the models
+    @Value("${VIEW_CURSOR_CACHE_ENTRIES:512}")
+    private int VIEW_CURSOR_CACHE_ENTRIES;
+
+    @Value("${VIEW_CURSOR_TTL_MS:300000}")          // below REDIS_CHUNK_TTL: a cursor never outlives its base pages
+    private long VIEW_CURSOR_TTL_MS;
+
+    // req carries what reads need from the base meta (pageSize, rowCount, columns): a hit reads no meta
+    private record Cursor(ViewRequest req, String sortModelJson, String filterModelJson, String quickFilter, long issuedAt) {}
+
+    private final Map<String, Cursor> cursors = Collections.synchronizedMap(new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cursor> eldest) {
+            return size() > Math.max(1, VIEW_CURSOR_CACHE_ENTRIES);
+        }
+    });
+
+    public ReportServiceImpl(DatabricksSqlClient client, ChunkCacheService cache, ViewCacheService viewCache,
+                             IndexCacheService indexCache, GroupCacheService groupCache, TrigramIndexProvider trigrams,
+                             ViewBuildCoordinator buildCoordinator, ViewPlanner planner, SpeculativeViewBuilder speculative,
+                             SafeSqlPolicy safeSql, StatementEventBus events, PageAvailability pages) {
         this.client = client;
         this.cache = cache;
         this.viewCache = viewCache;
+        this.indexCache = indexCache;
+        this.groupCache = groupCache;
+        this.trigrams = trigrams;
+        this.buildCoordinator = buildCoordinator;
+        this.planner = planner;
+        this.speculative = speculative;
+        this.safeSql = safeSql;
+        this.events = events;
+        this.pages = pages;
     }
 
-    // ======================== Submit & Meta (unchanged) ========================
+    // ======================== Submit & Meta ========================
 
     @Override
     public Map<String, Object> submitStatement(String sql) {
+        return submitStatement(sql, null);
+    }
+
+    /** {@code template}: fact template the SQL was compiled from (null for ad hoc SQL); drives speculative views. */
+    @Override
+    public Map<String, Object> submitStatement(String sql, String template) {
         String userId = "local";
 
         String statementId = client.submitStatement(sql);
+        cache.putSql(userId, statementId, sql);
         SchemaInfo schemaInfo = client.getSchema(statementId);
 
         // Initialize meta
         cache.putMeta(userId, statementId, PAGE_SIZE, null, schemaInfo.columnNames(), schemaInfo.columnMeta(), "PENDING");
+        if (template != null) {
+            cache.putMetaFields(userId, statementId, Map.of("template", template));
+        }
 
         final AtomicInteger nextPageIndex = new AtomicInteger(0);
-
-        client.streamChunks(statementId, PAGE_SIZE, (chunkIndex, rows, totalRows, state) -> {
-            // Update meta with latest totals and state whenever available
-            if (totalRows != null || state != null) {
-                try {
-                    cache.putMeta(userId, statementId, PAGE_SIZE, totalRows, null, null, state);
-                } catch (Exception e) {
-                    log.warn("Failed to update meta for statementId={} during stream: {}", statementId, e.toString());
+        final BitmapIndex.Builder bitmaps = INDEX_BITMAP_ENABLED ? new BitmapIndex.Builder(INDEX_BITMAP_MAX_CARDINALITY) : null;
+
+        client.streamChunks(statementId, PAGE_SIZE, new DatabricksSqlClient.ChunkListener() {
+            @Override
+            public void onChunk(int chunkIndex, List<List<Object>> rows, Integer totalRows, String state) {
+                // Update meta with latest totals and state whenever available
+                if (totalRows != null || state != null) {
+                    try {
+                        cache.putMeta(userId, statementId, PAGE_SIZE, totalRows, null, null, state);
+                    } catch (Exception e) {
+                        log.warn("Failed to update meta for statementId={} during stream: {}", statementId, e.toString());
+                    }
+                    Map<String, Object> changed = new HashMap<>();
+                    if (totalRows != null) changed.put("rowCount", totalRows);
+                    if (state != null) changed.put("state", state);
+                    events.publish(userId, statementId, "meta", changed);
                 }
-            }
 
-            // chunkIndex == -1 is used for meta/state notifications — skip data handling
-            if (chunkIndex >= 0 && rows != null && !rows.isEmpty()) {
-                // Re-slice the Databricks DB chunk into PAGE_SIZE pages
-                for (int offset = 0; offset < rows.size(); offset += PAGE_SIZE) {
-                    int to = Math.min(offset + PAGE_SIZE, rows.size());
-                    int pageIdx = nextPageIndex.getAndIncrement();
+                // chunkIndex == -1 is used for meta/state notifications — skip data handling
+                if (chunkIndex >= 0 && rows != null && !rows.isEmpty()) {
+                    // Re-slice the Databricks DB chunk into PAGE_SIZE pages
+                    for (int offset = 0; offset < rows.size(); offset += PAGE_SIZE) {
+                        int to = Math.min(offset + PAGE_SIZE, rows.size());
+                        int pageIdx = nextPageIndex.getAndIncrement();
+
+                        List<List<Object>> pageRows = rows.subList(offset, to);
+                        cache.putChunk(userId, statementId, pageIdx, pageRows);
+                        if (INDEX_ZONE_MAPS_ENABLED) {
+                            try {
+                                indexCache.putPageStats(userId, statementId, pageIdx, PageStats.compute(pageRows));
+                            } catch (Exception e) {
+                                // Missing stats only disable skipping for this page
+                                log.debug("Failed to store page stats page={} statementId={}: {}", pageIdx, statementId, e.toString());
+                            }
+                        }
+                        if (INDEX_BLOOM_ENABLED) {
+                            try {
+                                PageBlooms blooms = PageBlooms.compute(pageRows, INDEX_BLOOM_MIN_DISTINCT, INDEX_BLOOM_FPP);
+                                if (!blooms.isEmpty()) indexCache.putPageBlooms(userId, statementId, pageIdx, blooms);
+                            } catch (Exception e) {
+                                log.debug("Failed to store page blooms page={} statementId={}: {}", pageIdx, statementId, e.toString());
+                            }
+                        }
+                        if (bitmaps != null) {
+                            bitmaps.addPage(pageRows, pageIdx * PAGE_SIZE);
+                        }
 
-                    List<List<Object>> pageRows = rows.subList(offset, to);
-                    cache.putChunk(userId, statementId, pageIdx, pageRows);
+                        if (pageIdx % 20 == 0) {
+                            log.debug("STORED base page chunk={} rows={} statementId={} (from dbChunkIndex={})",
+                                    pageIdx, pageRows.size(), statementId, chunkIndex);
+                        }
+                    }
+                    // Ingest progress, used by the view planner to cost in-memory builds
+                    try {
+                        cache.putMetaFields(userId, statementId, Map.of("pagesIngested", nextPageIndex.get()));
+                    } catch (Exception e) {
+                        log.debug("Failed to record ingest progress for statementId={}: {}", statementId, e.toString());
+                    }
+                    events.publish(userId, statementId, "meta", Map.of("pagesIngested", nextPageIndex.get()));
+                }
+            }
 
-                    if (pageIdx % 20 == 0) {
-                        log.debug("STORED base page chunk={} rows={} statementId={} (from dbChunkIndex={})",
-                                pageIdx, pageRows.size(), statementId, chunkIndex);
+            @Override
+            public void onComplete(Integer totalRows, String state) {
+                Map<String, Object> done = new HashMap<>();
+                done.put("state", state);
+                if (totalRows != null) done.put("rowCount", totalRows);
+                done.put("pagesIngested", nextPageIndex.get());
+                done.put("ingestComplete", "SUCCEEDED".equals(state));
+                if (!"SUCCEEDED".equals(state)) {
+                    events.publish(userId, statementId, "meta", done);
+                    return;
+                }
+                // Indexes over the complete result (bitmaps now, trigrams lazily) may only be used from here on
+                try {
+                    cache.putMetaFields(userId, statementId, Map.of("ingestComplete", true));
+                } catch (Exception e) {
+                    log.warn("Failed to mark ingest complete for statementId={}: {}", statementId, e.toString());
+                }
+                events.publish(userId, statementId, "meta", done);
+                if (bitmaps != null) {
+                    try {
+                        Map<Integer, BitmapIndex> built = bitmaps.build();
+                        for (Map.Entry<Integer, BitmapIndex> e : built.entrySet()) {
+                            indexCache.putBitmapIndex(userId, statementId, e.getKey(), e.getValue());
+                        }
+                        cache.putMetaFields(userId, statementId, Map.of("bitmapColumns", new ArrayList<>(built.keySet())));
+                        log.debug("Stored bitmap indexes for columns {} statementId={}", built.keySet(), statementId);
+                    } catch (Exception e) {
+                        log.warn("Failed to store bitmap indexes for statementId={}: {}", statementId, e.toString());
                     }
                 }
+                // Pre-build the template's hot sorts while nobody is waiting on the node
+                speculative.schedule(statementId, template, sortModelJson -> prebuildView(statementId, sortModelJson));
             }
         });
 
@@ -113,10 +306,46 @@ public class ReportServiceImpl implements ReportService {
         return out;
     }
 
-    // ======================== Base rows (unchanged) ========================
+    // ======================== Base rows ========================
 
     @Override
     public Map<String, Object> getRows(String statementId, int startRow, int endRow) {
+        return baseRows(statementId, startRow, endRow, null, FIRST_CHUNK_MAX_WAIT_MS);
+    }
+
+    @Override
+    public CompletableFuture<Void> awaitRows(String statementId, int startRow, int endRow) {
+        return pages.await("local", statementId, startRow, endRow, FIRST_CHUNK_MAX_WAIT_MS);
+    }
+
+    @Override
+    public CompletableFuture<Void> awaitRows(String statementId, int startRow, int endRow, String sortModelJson,
+                                             String filterModelJson, String quickFilter, String cursor) {
+        String userId = "local";
+        boolean sortPresentRaw   = sortModelJson != null && !sortModelJson.isBlank() && !"[]".equals(sortModelJson.trim());
+        boolean filterPresentRaw = filterModelJson != null && !filterModelJson.isBlank() && !"{}".equals(filterModelJson.trim());
+        boolean quickPresent     = QuickFilter.normalize(quickFilter) != null;
+        if (!sortPresentRaw && !filterPresentRaw && !quickPresent) {
+            return awaitRows(statementId, startRow, endRow);
+        }
+        // View row numbers say nothing about base pages: wait for the whole ingest, then for the view
+        long deadline = System.currentTimeMillis() + VIEW_BUILD_MAX_WAIT_MS;
+        return pages.awaitIngest(userId, statementId, VIEW_BUILD_MAX_WAIT_MS).thenCompose(ingested -> {
+            ViewRequest req = resolveView(userId, statementId, sortModelJson, filterModelJson, quickFilter, cursor);
+            // Unknown statement, or still ingesting at the deadline: the read answers (503 for a view not READY)
+            if (req == null || !req.ingestComplete()) return CompletableFuture.completedFuture(null);
+            BooleanSupplier ready = () -> ViewCacheService.isReady(viewCache.getMeta(userId, statementId, req.sig()));
+            if (ready.getAsBoolean()) return CompletableFuture.completedFuture(null);
+            CompletableFuture<Boolean> build = buildCoordinator.buildAsync(userId, statementId, req.sig(), () -> buildView(req));
+            return pages.awaitView(statementId, req.sig(), ready, build, deadline - System.currentTimeMillis());
+        });
+    }
+
+    /**
+     * projection != null: only those column positions are decoded and returned.
+     * Pages not ingested yet are polled for up to maxWaitMs (0: served as far as they exist).
+     */
+    private Map<String, Object> baseRows(String statementId, int startRow, int endRow, int[] projection, long maxWaitMs) {
         String userId = "local";
         Map<String, Object> meta = cache.getMeta(userId, statementId);
 
@@ -134,14 +363,17 @@ public class ReportServiceImpl implements ReportService {
         int firstChunk = Math.max(0, startRow / pageSize);
         int lastChunk = Math.max(firstChunk, (endRow - 1) / pageSize);
 
-        final long deadline = System.currentTimeMillis() + Math.max(0L, FIRST_CHUNK_MAX_WAIT_MS);
+        // Nothing more will arrive once ingest has completed
+        long waitMs = Boolean.TRUE.equals(meta.get("ingestComplete")) ? 0L : Math.max(0L, maxWaitMs);
+        final long deadline = System.currentTimeMillis() + waitMs;
         List<List<Object>> buffer = new ArrayList<>();
 
         for (int index = firstChunk; index <= lastChunk; index++) {
-            List<List<Object>> chunk = cache.getChunk(userId, statementId, index);
+            List<List<Object>> chunk = cache.getChunk(userId, statementId, index, projection);
 
-            if (chunk == null || chunk.isEmpty()) {
+            if ((chunk == null || chunk.isEmpty()) && waitMs > 0) {
                 chunk = waitForChunk(userId, statementId, index, deadline, Math.max(1L, FIRST_CHUNK_POLL_MS));
+                if (chunk != null && projection != null) chunk = RowProjection.projectAll(chunk, projection);
             }
 
             if (chunk != null && !chunk.isEmpty()) {
@@ -171,34 +403,472 @@ public class ReportServiceImpl implements ReportService {
     // This overload is declared in ReportService and called by the controller.
     @Override
     public Map<String, Object> getRows(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson) {
+        return getRows(statementId, startRow, endRow, sortModelJson, filterModelJson, null);
+    }
+
+    @Override
+    public Map<String, Object> getRows(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson,
+                                       String quickFilter) {
+        return getRows(statementId, startRow, endRow, sortModelJson, filterModelJson, quickFilter, null);
+    }
+
+    /**
+     * With {@code columns}, rows carry only those columns (in request order, listed under "columns").
+     * Projection is applied when pages are read, so views are shared across projections.
+     */
+    @Override
+    public Map<String, Object> getRows(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson,
+                                       String quickFilter, List<String> columns) {
+        return rows(statementId, startRow, endRow, sortModelJson, filterModelJson, quickFilter, columns, null, FIRST_CHUNK_MAX_WAIT_MS);
+    }
+
+    @Override
+    public Map<String, Object> getAvailableRows(String statementId, int startRow, int endRow, String sortModelJson,
+                                                String filterModelJson, String quickFilter, List<String> columns, String cursor) {
+        return rows(statementId, startRow, endRow, sortModelJson, filterModelJson, quickFilter, columns, cursor, 0L);
+    }
+
+    private Map<String, Object> rows(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson,
+                                     String quickFilter, List<String> columns, String cursor, long maxWaitMs) {
+        if (columns == null || columns.isEmpty()) {
+            return viewRows(statementId, startRow, endRow, sortModelJson, filterModelJson, quickFilter, cursor, null, maxWaitMs);
+        }
+        Map<String, Object> meta = cache.getMeta("local", statementId);
+        if (meta == null) {
+            return viewRows(statementId, startRow, endRow, sortModelJson, filterModelJson, quickFilter, cursor, null, maxWaitMs);
+        }
+        List<String> names = new ArrayList<>(columns.size());
+        int[] projection = resolveProjection(baseColumns(meta), columns, names);
+        Map<String, Object> out = new HashMap<>(
+                viewRows(statementId, startRow, endRow, sortModelJson, filterModelJson, quickFilter, cursor, projection, maxWaitMs));
+        out.put("columns", names);
+        return out;
+    }
+
+    // Column positions of the requested columns; their canonical names are added to {@code names}
+    private int[] resolveProjection(List<String> all, List<String> columns, List<String> names) {
+        Map<String, Integer> colIndex = indexColumns(all);
+        int[] projection = new int[columns.size()];
+        for (int k = 0; k < columns.size(); k++) {
+            Integer idx = resolveColumnIndex(columns.get(k), colIndex);
+            if (idx == null) throw new IllegalArgumentException("Unknown column: " + columns.get(k));
+            projection[k] = idx;
+            names.add(all.get(idx));
+        }
+        return projection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> baseColumns(Map<String, Object> meta) {
+        return (List<String>) meta.getOrDefault("columns", List.of());
+    }
+
+    // Column name -> Databricks type_name from the base schema (empty if unknown)
+    private static Map<String, String> typeNames(Map<String, Object> meta) {
+        Map<String, String> typeNames = new HashMap<>();
+        if (meta.get("schema") instanceof List<?> cols) {
+            for (Object c : cols) {
+                if (c instanceof Map<?, ?> m && m.get("name") instanceof String name && m.get("type_name") instanceof String type) {
+                    typeNames.put(name, type);
+                }
+            }
+        }
+        return typeNames;
+    }
+
+    private Map<String, Object> viewRows(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson,
+                                         String quickFilter, String cursor, int[] projection, long maxWaitMs) {
         String userId = "local";
         boolean sortPresentRaw   = sortModelJson != null && !sortModelJson.isBlank() && !"[]".equals(sortModelJson.trim());
         boolean filterPresentRaw = filterModelJson != null && !filterModelJson.isBlank() && !"{}".equals(filterModelJson.trim());
+        boolean quickPresent     = QuickFilter.normalize(quickFilter) != null;
 
         // If truly nothing requested → base
-        if (!sortPresentRaw && !filterPresentRaw) {
-            return getRows(statementId, startRow, endRow);
+        if (!sortPresentRaw && !filterPresentRaw && !quickPresent) {
+            return baseRows(statementId, startRow, endRow, projection, maxWaitMs);
         }
 
-        // Build the view (first time) from base pages
-        Map<String, Object> baseMeta = cache.getMeta(userId, statementId);
-        if (baseMeta == null) {
+        ViewRequest req = resolveView(userId, statementId, sortModelJson, filterModelJson, quickFilter, cursor);
+        if (req == null) {
             // Base not ready → empty
             return Map.of("rows", List.of(), "lastRow", null);
         }
+        String token = cursorFor(req, sortModelJson, filterModelJson, quickFilter);
+        if (startRow == 0 && !req.hasFilter()) {
+            speculative.recordSort(req.template(), req.sortModel());
+        }
+
+        Map<String, Object> viewMeta = viewCache.getMeta(userId, statementId, req.sig());
+        if (!ViewCacheService.isReady(viewMeta)) {
+            // Exactly one builder per (statement, sig) across threads and nodes; everybody else waits for it.
+            // Reads that may not wait (async requests, which awaited the view already) never build inline.
+            boolean built = maxWaitMs > 0 && buildCoordinator.buildOnce(userId, statementId, req.sig(), () -> buildView(req));
+            viewMeta = built ? viewCache.getMeta(userId, statementId, req.sig()) : null;
+            if (!ViewCacheService.isReady(viewMeta)) throw viewUnavailable(statementId, req.sig());
+        }
+
+        int ps = ((Number) viewMeta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
+        Map<String, Object> rows = sliceFromView(userId, statementId, req.sig(), startRow, endRow, ps, projection);
+        if (token == null) return rows;
+        Map<String, Object> out = new HashMap<>(rows);
+        out.put("cursor", token);
+        return out;
+    }
+
+    // ======================== Row blocks (batched) ========================
+
+    /**
+     * Base meta, projection, view signature and view state are resolved once for all blocks, and
+     * the pages behind every block are read in one MGET (permutation views: one MGET of row ids,
+     * then one of the base pages they point into). Base pages not ingested yet end their block
+     * early; callers wait for them first (awaitRows). With a live cursor the base meta is not read
+     * at all: the cursor's request carries the base page size, row count and columns.
+     */
+    @Override
+    public Map<String, Object> getRowBlocks(String statementId, List<int[]> ranges, String sortModelJson, String filterModelJson,
+                                            String quickFilter, List<String> columns, String cursor) {
+        String userId = "local";
+        if (ranges == null || ranges.isEmpty()) throw new IllegalArgumentException("ranges must not be empty");
+        if (ranges.size() > ROWS_BATCH_MAX_BLOCKS) {
+            throw new IllegalArgumentException("At most " + ROWS_BATCH_MAX_BLOCKS + " ranges per request");
+        }
+        for (int[] r : ranges) {
+            if (r == null || r.length != 2 || r[0] < 0 || r[1] < r[0]) {
+                throw new IllegalArgumentException("Each range must be [startRow, endRow] with 0 <= startRow <= endRow");
+            }
+            if (r[1] - r[0] > ROWS_BATCH_MAX_BLOCK_ROWS) {
+                throw new IllegalArgumentException("At most " + ROWS_BATCH_MAX_BLOCK_ROWS + " rows per range");
+            }
+        }
+
+        Map<String, Object> out = new LinkedHashMap<>();
+        boolean sortPresentRaw   = sortModelJson != null && !sortModelJson.isBlank() && !"[]".equals(sortModelJson.trim());
+        boolean filterPresentRaw = filterModelJson != null && !filterModelJson.isBlank() && !"{}".equals(filterModelJson.trim());
+        boolean quickPresent     = QuickFilter.normalize(quickFilter) != null;
+        boolean base = !sortPresentRaw && !filterPresentRaw && !quickPresent;
+
+        // The base meta is only read on a cursor miss: the cursor's request carries what the reads need
+        ViewRequest hit = base ? null : cursorHit(statementId, sortModelJson, filterModelJson, quickFilter, cursor);
+        Map<String, Object> meta = hit != null ? null : cache.getMeta(userId, statementId);
+        if (hit == null && meta == null) {
+            out.put("blocks", emptyBlocks(ranges));
+            out.put("lastRow", null);
+            return out;
+        }
+        int[] projection = null;
+        if (columns != null && !columns.isEmpty()) {
+            List<String> names = new ArrayList<>(columns.size());
+            projection = resolveProjection(hit != null ? hit.columns() : baseColumns(meta), columns, names);
+            out.put("columns", names);
+        }
+        if (base) {
+            int pageSize = ((Number) meta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
+            return baseBlocks(userId, statementId, pageSize, safeInt(meta.get("rowCount")), ranges, projection, out);
+        }
+
+        ViewRequest req = hit != null ? hit : resolveView(userId, statementId, meta, sortModelJson, filterModelJson, quickFilter);
+        String token = cursorFor(req, sortModelJson, filterModelJson, quickFilter);
+        if (token != null) out.put("cursor", token);
+        if (!req.hasFilter() && ranges.stream().anyMatch(r -> r[0] == 0)) {
+            speculative.recordSort(req.template(), req.sortModel());
+        }
+        Map<String, Object> viewMeta = viewCache.getMeta(userId, statementId, req.sig());
+        // Never built inline: callers wait for the view first (awaitRows with the models)
+        if (!ViewCacheService.isReady(viewMeta)) throw viewUnavailable(statementId, req.sig());
+
+        int pageSize = ((Number) viewMeta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
+        Integer rowCount = safeInt(viewMeta.get("rowCount"));
+        List<int[]> reads = clampToRows(ranges, rowCount);
+        Set<Integer> indexes = pageIndexes(reads, pageSize);
+        List<Map<String, Object>> blocks = new ArrayList<>(ranges.size());
+        if ("permutation".equals(viewMeta.get("storage"))) {
+            Map<Integer, int[]> perms = viewCache.getPermutationChunks(userId, statementId, req.sig(), indexes);
+            int basePageSize = req.pageSize();
+            List<int[]> ids = new ArrayList<>(ranges.size());
+            Set<Integer> baseIndexes = new LinkedHashSet<>();
+            for (int[] r : reads) {
+                int[] rowIds = permutationIds(perms, r[0], r[1], pageSize);
+                for (int id : rowIds) baseIndexes.add(id / basePageSize);
+                ids.add(rowIds);
+            }
+            Map<Integer, List<List<Object>>> basePages = cache.getChunks(userId, statementId, baseIndexes, projection);
+            for (int b = 0; b < ranges.size(); b++) {
+                List<List<Object>> rows = new ArrayList<>(ids.get(b).length);
+                for (int id : ids.get(b)) {
+                    List<List<Object>> basePage = basePages.get(id / basePageSize);
+                    int offset = id % basePageSize;
+                    if (basePage == null || offset >= basePage.size()) {
+                        log.warn("Permutation view references missing base row {} (stmt={}, sig={})", id, statementId, req.sig());
+                        break;
+                    }
+                    rows.add(basePage.get(offset));
+                }
+                blocks.add(block(ranges.get(b), rows));
+            }
+        } else {
+            Map<Integer, List<List<Object>>> pages = viewCache.getChunks(userId, statementId, req.sig(), indexes, projection);
+            for (int b = 0; b < ranges.size(); b++) {
+                int[] r = reads.get(b);
+                blocks.add(block(ranges.get(b), slicePages(pages, r[0], r[1], pageSize)));
+            }
+        }
+        out.put("blocks", blocks);
+        out.put("lastRow", rowCount);
+        return out;
+    }
+
+    private Map<String, Object> baseBlocks(String userId, String statementId, int pageSize, Integer rowCount, List<int[]> ranges,
+                                           int[] projection, Map<String, Object> out) {
+        List<int[]> reads = clampToRows(ranges, rowCount);
+        Map<Integer, List<List<Object>>> basePages = cache.getChunks(userId, statementId, pageIndexes(reads, pageSize), projection);
+        List<Map<String, Object>> blocks = new ArrayList<>(ranges.size());
+        for (int b = 0; b < ranges.size(); b++) {
+            int[] r = reads.get(b);
+            blocks.add(block(ranges.get(b), slicePages(basePages, r[0], r[1], pageSize)));
+        }
+        out.put("blocks", blocks);
+        out.put("lastRow", rowCount);
+        return out;
+    }
+
+    // Base rows are in base order and unfiltered: mixed into a model's blocks they would corrupt the grid, so the client retries
+    private static ResponseStatusException viewUnavailable(String statementId, String sig) {
+        log.warn("View unavailable for stmt={} sig={}; asking the client to retry", statementId, sig);
+        return new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "View is not ready yet; retry");
+    }
+
+    // Ranges cut at the row count (when known), so nothing is read or allocated past the last row
+    private static List<int[]> clampToRows(List<int[]> ranges, Integer rowCount) {
+        if (rowCount == null) return ranges;
+        List<int[]> reads = new ArrayList<>(ranges.size());
+        for (int[] r : ranges) {
+            int end = Math.min(r[1], rowCount);
+            reads.add(new int[]{Math.min(r[0], end), end});
+        }
+        return reads;
+    }
+
+    private static Set<Integer> pageIndexes(List<int[]> ranges, int pageSize) {
+        Set<Integer> indexes = new TreeSet<>();
+        for (int[] r : ranges) {
+            if (r[1] <= r[0]) continue;
+            for (int i = r[0] / pageSize; i <= (r[1] - 1) / pageSize; i++) indexes.add(i);
+        }
+        return indexes;
+    }
+
+    // Rows [startRow, endRow) from contiguous pages; a missing page ends the slice (end of the result)
+    private static List<List<Object>> slicePages(Map<Integer, List<List<Object>>> pages, int startRow, int endRow, int pageSize) {
+        List<List<Object>> rows = new ArrayList<>(Math.max(0, endRow - startRow));
+        if (endRow <= startRow) return rows;
+        for (int i = startRow / pageSize; i <= (endRow - 1) / pageSize; i++) {
+            List<List<Object>> page = pages.get(i);
+            if (page == null || page.isEmpty()) break;
+            int base = i * pageSize;
+            int from = Math.max(0, startRow - base);
+            int to = Math.min(page.size(), endRow - base);
+            if (from < to) rows.addAll(page.subList(from, to));
+            if (page.size() < pageSize) break;
+        }
+        return rows;
+    }
+
+    // Base row ids of view rows [startRow, endRow) in view order
+    private static int[] permutationIds(Map<Integer, int[]> perms, int startRow, int endRow, int pageSize) {
+        int[] ids = new int[Math.max(0, endRow - startRow)];
+        int n = 0;
+        for (int i = startRow / pageSize; endRow > startRow && i <= (endRow - 1) / pageSize; i++) {
+            int[] perm = perms.get(i);
+            if (perm == null || perm.length == 0) break;
+            int base = i * pageSize;
+            int from = Math.max(0, startRow - base);
+            int to = Math.min(perm.length, endRow - base);
+            for (int k = from; k < to; k++) ids[n++] = perm[k];
+        }
+        return n == ids.length ? ids : Arrays.copyOf(ids, n);
+    }
+
+    private static Map<String, Object> block(int[] range, List<List<Object>> rows) {
+        Map<String, Object> block = new LinkedHashMap<>();
+        block.put("startRow", range[0]);
+        block.put("endRow", range[1]);
+        block.put("rows", rows);
+        return block;
+    }
+
+    private static List<Map<String, Object>> emptyBlocks(List<int[]> ranges) {
+        List<Map<String, Object>> blocks = new ArrayList<>(ranges.size());
+        for (int[] r : ranges) blocks.add(block(r, List.of()));
+        return blocks;
+    }
+
+    // Page-aligned blocks of a base statement or READY rows view: stored page bytes wrapped in the envelope
+    @Override
+    public byte[] getRowsGzipped(String statementId, int startRow, int endRow, String sortModelJson, String filterModelJson,
+                                 String quickFilter, String cursor) {
+        String userId = "local";
+        boolean sortPresentRaw   = sortModelJson != null && !sortModelJson.isBlank() && !"[]".equals(sortModelJson.trim());
+        boolean filterPresentRaw = filterModelJson != null && !filterModelJson.isBlank() && !"{}".equals(filterModelJson.trim());
+        boolean quickPresent     = QuickFilter.normalize(quickFilter) != null;
+
+        if (!sortPresentRaw && !filterPresentRaw && !quickPresent) {
+            Map<String, Object> meta = cache.getMeta(userId, statementId);
+            if (meta == null) return null;
+            int pageSize = ((Number) meta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
+            if (!isPageAligned(startRow, endRow, pageSize)) return null;
+            return wrapPage(cache.getChunkBytes(userId, statementId, startRow / pageSize), safeInt(meta.get("rowCount")), null);
+        }
+
+        ViewRequest req = resolveView(userId, statementId, sortModelJson, filterModelJson, quickFilter, cursor);
+        if (req == null) return null;
+        Map<String, Object> viewMeta = viewCache.getMeta(userId, statementId, req.sig());
+        // Views still building and permutation views (rows live in base pages) take the normal path
+        if (!ViewCacheService.isReady(viewMeta) || "permutation".equals(viewMeta.get("storage"))) return null;
+        int pageSize = ((Number) viewMeta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
+        if (!isPageAligned(startRow, endRow, pageSize)) return null;
+        byte[] body = wrapPage(viewCache.getChunkBytes(userId, statementId, req.sig(), startRow / pageSize),
+                safeInt(viewMeta.get("rowCount")), cursorFor(req, sortModelJson, filterModelJson, quickFilter));
+        if (body != null && startRow == 0 && !req.hasFilter()) {
+            speculative.recordSort(req.template(), req.sortModel());
+        }
+        return body;
+    }
+
+    @Override
+    public boolean isComplete(String statementId, String sortModelJson, String filterModelJson, String quickFilter, String cursor) {
+        String userId = "local";
+        // Cursors are only issued once ingest completed
+        ViewRequest hit = cursorHit(statementId, sortModelJson, filterModelJson, quickFilter, cursor);
+        if (hit != null) return ViewCacheService.isReady(viewCache.getMeta(userId, statementId, hit.sig()));
+        Map<String, Object> meta = cache.getMeta(userId, statementId);
+        if (meta == null || !Boolean.TRUE.equals(meta.get("ingestComplete"))) return false;
+        boolean sortPresentRaw   = sortModelJson != null && !sortModelJson.isBlank() && !"[]".equals(sortModelJson.trim());
+        boolean filterPresentRaw = filterModelJson != null && !filterModelJson.isBlank() && !"{}".equals(filterModelJson.trim());
+        boolean quickPresent     = QuickFilter.normalize(quickFilter) != null;
+        if (!sortPresentRaw && !filterPresentRaw && !quickPresent) return true;
+        // A view that is not READY yet was answered with 503
+        ViewRequest req = resolveView(userId, statementId, sortModelJson, filterModelJson, quickFilter);
+        return req != null && ViewCacheService.isReady(viewCache.getMeta(userId, statementId, req.sig()));
+    }
+
+    private static boolean isPageAligned(int startRow, int endRow, int pageSize) {
+        return pageSize > 0 && startRow >= 0 && startRow % pageSize == 0 && endRow - startRow == pageSize;
+    }
+
+    // Null for missing pages and pages stored before they were spliceable
+    private static byte[] wrapPage(byte[] gz, Integer rowCount, String cursor) {
+        GzipUtils.Member page = GzipUtils.member(gz);
+        if (page == null) return null;
+        // Cursor tokens are hex and base-36 digits: no JSON escaping needed
+        String suffix = ",\"lastRow\":" + rowCount + (cursor == null ? "" : ",\"cursor\":\"" + cursor + "\"") + "}";
+        return GzipUtils.wrap("{\"rows\":".getBytes(StandardCharsets.UTF_8), page, suffix.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Map<String, Object> getViewStatus(String statementId, String sortModelJson, String filterModelJson, boolean startBuild) {
+        return getViewStatus(statementId, sortModelJson, filterModelJson, null, startBuild);
+    }
+
+    @Override
+    public Map<String, Object> getViewStatus(String statementId, String sortModelJson, String filterModelJson,
+                                             String quickFilter, boolean startBuild) {
+        String userId = "local";
+        boolean sortPresentRaw   = sortModelJson != null && !sortModelJson.isBlank() && !"[]".equals(sortModelJson.trim());
+        boolean filterPresentRaw = filterModelJson != null && !filterModelJson.isBlank() && !"{}".equals(filterModelJson.trim());
+        boolean quickPresent     = QuickFilter.normalize(quickFilter) != null;
+        if (!sortPresentRaw && !filterPresentRaw && !quickPresent) {
+            // No view involved: the grid reads base pages directly
+            return getStatementMeta(statementId);
+        }
+
+        ViewRequest req = resolveView(userId, statementId, sortModelJson, filterModelJson, quickFilter);
+        if (req == null) {
+            return Map.of("statementId", statementId, "state", "PENDING");
+        }
+
+        Map<String, Object> viewMeta = viewCache.getMeta(userId, statementId, req.sig());
+        if (viewCache.isAbandoned(userId, statementId, req.sig(), viewMeta)) {
+            // Left by a node that died mid-build: report (and rebuild) it as missing
+            viewMeta = null;
+        }
+        if (viewMeta == null && startBuild) {
+            buildCoordinator.buildAsync(userId, statementId, req.sig(), () -> buildView(req));
+            viewMeta = Map.of("state", ViewCacheService.STATE_BUILDING, "phase", "queued");
+        }
+
+        Map<String, Object> out = new HashMap<>();
+        if (viewMeta != null) out.putAll(viewMeta);
+        out.putIfAbsent("state", viewMeta == null ? "MISSING" : ViewCacheService.STATE_READY);
+        out.put("statementId", statementId);
+        out.put("sig", req.sig());
+        return out;
+    }
+
+    /** Normalized models + signature for one view request; null while the base statement has no meta. */
+    private record ViewRequest(String userId, String statementId, String template, String sig,
+                               String sortModelJson, String filterModelJson, String quickFilter,
+                               List<SortModelEntry> sortModel, Map<String, FilterDescriptor> filterMap, List<String> quickTerms,
+                               List<String> columns, Map<String, Integer> colIndex, Integer rowCount, int pageSize,
+                               boolean ingestComplete) {
+        boolean hasSort() { return sortModel != null && !sortModel.isEmpty(); }
+        boolean hasFilter() { return (filterMap != null && !filterMap.isEmpty()) || hasQuickFilter(); }
+        boolean hasQuickFilter() { return !quickTerms.isEmpty(); }
+    }
+
+    /**
+     * resolveView through a cursor: a live token issued for exactly these raw models on this statement
+     * returns the cached request without reading meta, parsing, normalizing or hashing anything.
+     */
+    private ViewRequest resolveView(String userId, String statementId, String sortModelJson, String filterModelJson,
+                                    String quickFilter, String cursor) {
+        ViewRequest hit = cursorHit(statementId, sortModelJson, filterModelJson, quickFilter, cursor);
+        return hit != null ? hit : resolveView(userId, statementId, sortModelJson, filterModelJson, quickFilter);
+    }
+
+    private ViewRequest cursorHit(String statementId, String sortModelJson, String filterModelJson, String quickFilter,
+                                  String cursor) {
+        if (cursor == null || cursor.isEmpty()) return null;
+        Cursor c = cursors.get(cursor);
+        if (c == null) return null;
+        if (System.currentTimeMillis() - c.issuedAt() > VIEW_CURSOR_TTL_MS) {
+            cursors.remove(cursor, c);
+            return null;
+        }
+        boolean same = c.req().statementId().equals(statementId) && Objects.equals(c.sortModelJson(), sortModelJson)
+                && Objects.equals(c.filterModelJson(), filterModelJson) && Objects.equals(c.quickFilter(), quickFilter);
+        return same ? c.req() : null;
+    }
+
+    // Token for a resolved request (null while ingesting: rowCount and columns may still change)
+    private String cursorFor(ViewRequest req, String sortModelJson, String filterModelJson, String quickFilter) {
+        if (!req.ingestComplete()) return null;
+        String token = req.sig() + "." + Integer.toString(req.pageSize(), 36);
+        Cursor c = cursors.get(token);
+        if (c == null || c.req() != req) {
+            cursors.put(token, new Cursor(req, sortModelJson, filterModelJson, quickFilter, System.currentTimeMillis()));
+        }
+        return token;
+    }
+
+    private ViewRequest resolveView(String userId, String statementId, String sortModelJson, String filterModelJson,
+                                    String quickFilter) {
+        return resolveView(userId, statementId, cache.getMeta(userId, statementId), sortModelJson, filterModelJson, quickFilter);
+    }
+
+    private ViewRequest resolveView(String userId, String statementId, Map<String, Object> baseMeta, String sortModelJson,
+                                    String filterModelJson, String quickFilter) {
+        if (baseMeta == null) {
+            return null;
+        }
 
         // Columns & indexes
-        @SuppressWarnings("unchecked")
-        List<String> columns = (List<String>) baseMeta.getOrDefault("columns", List.of());
+        List<String> columns = baseColumns(baseMeta);
         Map<String, Integer> colIndex = indexColumns(columns);
         Integer rowCount = safeInt(baseMeta.get("rowCount"));
         int pageSize = ((Number) baseMeta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
 
-        // Build guardrail: if rowCount unknown, cap scan by VIEW_MAX_SCAN_PAGES
-        int maxPagesToScan = (rowCount != null) ? Math.max(0, (rowCount + pageSize - 1) / pageSize)
-                                                : VIEW_MAX_SCAN_PAGES;
-
         // If client sent a filter, normalize its keys to match actual column ids (case/format-insensitive)
+        boolean filterPresentRaw = filterModelJson != null && !filterModelJson.isBlank() && !"{}".equals(filterModelJson.trim());
         if (filterPresentRaw) {
             String normalized = normalizeFilterKeys(filterModelJson, colIndex.keySet());
             if (normalized != null) {
@@ -209,101 +879,687 @@ public class ReportServiceImpl implements ReportService {
         // Parse ONLY the sort via the parser
         AgGridParsedModels parsedSort = AgGridModelParser.parse(sortModelJson, null, null);
         List<SortModelEntry> sortModel = parsedSort.getSortModel();
-        boolean hasSort = sortModel != null && !sortModel.isEmpty();
 
         // Parse the FILTER model directly (robustly) with Jackson
         Map<String, FilterDescriptor> filterMap = parseFilterModel(filterModelJson);
-        boolean hasFilter = filterMap != null && !filterMap.isEmpty();
 
-        // Final signature & cache check (canonicalization handled inside ViewCacheService)
-        final String sig = viewCache.computeSignature(statementId, sortModelJson, filterModelJson);
+        // Quick filter: canonical terms, part of the signature like any other filter
+        List<String> quickTerms = QuickFilter.terms(quickFilter);
+        quickFilter = QuickFilter.normalize(quickFilter);
+
+        // Final signature (canonicalization handled inside ViewCacheService)
+        String sig = viewCache.computeSignature(statementId, sortModelJson, filterModelJson, quickFilter);
 
         log.debug("final sort JSON:   {}", sortModelJson);
         log.debug("final filter JSON: {}", filterModelJson);
         log.debug("final filter keys: {}", (filterMap == null ? "null" : filterMap.keySet()));
 
-        Map<String, Object> viewMeta = viewCache.getMeta(userId, statementId, sig);
-        if (viewMeta != null) {
-            int ps = ((Number) viewMeta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
-            return sliceFromView(userId, statementId, sig, startRow, endRow, ps);
-        }
+        return new ViewRequest(userId, statementId, (String) baseMeta.get("template"), sig, sortModelJson, filterModelJson, quickFilter,
+                sortModel, filterMap, quickTerms, columns, colIndex, rowCount, pageSize, Boolean.TRUE.equals(baseMeta.get("ingestComplete")));
+    }
+
+    /**
+     * Speculative build of a sorted, unfiltered view (see {@link SpeculativeViewBuilder}).
+     * Returns false if the build was abandoned because interactive load rose; true if the
+     * view is ready or cannot be built at all (no point in retrying).
+     */
+    private boolean prebuildView(String statementId, String sortModelJson) {
+        String userId = "local";
+        ViewRequest req = resolveView(userId, statementId, sortModelJson, null, null);
+        if (req == null || !req.hasSort() || sortKeys(req.sortModel(), req.colIndex()).isEmpty()) return true;
+        if (ViewCacheService.isReady(viewCache.getMeta(userId, statementId, req.sig()))) return true;
+        // Someone asking for this very view keeps the build going
+        BooleanSupplier abandon = () -> speculative.busy() && !buildCoordinator.isAwaited(statementId, req.sig());
+        boolean built = buildCoordinator.buildOnce(userId, statementId, req.sig(), () -> buildView(req, abandon));
+        if (built) log.debug("Speculative view ready stmt={} sig={} sort={}", statementId, req.sig(), sortModelJson);
+        return built || ViewCacheService.isReady(viewCache.getMeta(userId, statementId, req.sig()));
+    }
 
-        log.debug("rows sig: stmt={} sortPresentRaw={} filterPresentRaw={} hasSort={} hasFilter={} cols={}",
-                statementId, sortPresentRaw, filterPresentRaw, hasSort, hasFilter, colIndex.keySet());
+    private boolean buildView(ViewRequest req) {
+        return buildView(req, null);
+    }
 
-        // 1) Read base pages, apply filters on the fly, collect into memory
-        List<List<Object>> filtered = new ArrayList<>(Math.min(rowCount != null ? rowCount : 10000, 200000));
-        int scanned = 0;
-        for (int pageIdx = 0; pageIdx < maxPagesToScan; pageIdx++) {
-            List<List<Object>> chunk = cache.getChunk(userId, statementId, pageIdx);
-            if (chunk == null || chunk.isEmpty()) {
-                // If rowCount is known we can break early once we covered all pages
-                if (rowCount != null && pageIdx >= maxPagesToScan - 1) break;
-                // else: keep scanning until cap
+    /**
+     * Build and store one view, publishing progress (phase, pages scanned, rows matched) in the view meta.
+     * Runs under {@link ViewBuildCoordinator}, so at most one build per (statement, sig) is active.
+     * Returns false if the view could not be built (scan cap hit with unknown row count) or was abandoned.
+     *
+     * {@code abandon} is set for speculative builds: it is polled between pages and phases, and such
+     * builds always run in memory (never pushed down to the warehouse).
+     */
+    private boolean buildView(ViewRequest req, BooleanSupplier abandon) {
+        final String userId = req.userId();
+        final String statementId = req.statementId();
+        final String sig = req.sig();
+        final List<SortModelEntry> sortModel = req.sortModel();
+        final Map<String, FilterDescriptor> filterMap = req.filterMap();
+        final List<String> quickTerms = req.quickTerms();
+        final Map<String, Integer> colIndex = req.colIndex();
+        final boolean hasSort = req.hasSort();
+        final boolean hasFilter = req.hasFilter();
+        final Integer rowCount = req.rowCount();
+        final int pageSize = req.pageSize();
+
+        // Build guardrail: if rowCount unknown, cap scan by VIEW_MAX_SCAN_PAGES
+        int maxPagesToScan = (rowCount != null) ? Math.max(0, (rowCount + pageSize - 1) / pageSize)
+                                                : VIEW_MAX_SCAN_PAGES;
+
+        log.debug("rows sig: stmt={} hasSort={} hasFilter={} cols={}", statementId, hasSort, hasFilter, colIndex.keySet());
+
+        final boolean permutation = "permutation".equalsIgnoreCase(VIEW_STORAGE_MODE);
+        final long startedAt = System.currentTimeMillis();
+        publishProgress(req, "scan", 0, maxPagesToScan, 0, startedAt);
+
+        // 1) Collect matching rows: from a cached view this filter refines (cheap) or from the base pages
+        final int capacity = Math.min(rowCount != null ? Math.max(rowCount, 16) : 10000, 200000);
+        ColumnarBatch.Builder collected = newBatchBuilder(colIndex, capacity, hasFilter ? filterMap : null);
+        boolean alreadySorted = false;
+
+        Map.Entry<String, Map<String, Object>> source = findRefinementSource(userId, statementId, sig, sortModel, filterMap, quickTerms, permutation);
+
+        // 0) Cost-based choice: re-run the statement on the warehouse with WHERE/ORDER BY, or build in memory
+        Map<String, Object> baseMeta = cache.getMeta(userId, statementId);
+        String baseSql = cache.getSql(userId, statementId);
+        Integer sourceRows = source == null ? null : safeInt(source.getValue().get("rowCount"));
+        ViewPlanner.Plan plan = planner.plan(statementId, sig, rowCount,
+                sourceRows != null ? sourceRows : (rowCount != null ? rowCount : (long) maxPagesToScan * pageSize),
+                baseMeta == null ? null : (String) baseMeta.get("state"),
+                baseMeta == null ? null : safeInt(baseMeta.get("pagesIngested")),
+                pageSize, hasSort, filterMap, req.hasQuickFilter(), baseSql, permutation,
+                baseMeta != null && SparkSqlViewRewriter.isSortTranslatable(sortModel, baseColumns(baseMeta), typeNames(baseMeta)));
+        if (plan.strategy() == ViewPlanner.Strategy.PUSHDOWN && abandon == null) {
+            if (buildViewPushdown(req, baseSql, baseMeta, plan, startedAt)) {
+                return true;
+            }
+            log.warn("Pushdown failed for stmt={} sig={}; building in memory", statementId, sig);
+            publishProgress(req, "scan", 0, maxPagesToScan, 0, startedAt);
+        }
+
+        if (source != null) {
+            String sourceSig = source.getKey();
+            List<SortModelEntry> sourceSort = AgGridModelParser.parseSort((String) source.getValue().get("sortModel"));
+            log.debug("Deriving view sig={} from cached view sig={} rows={} (stmt={})",
+                    sig, sourceSig, source.getValue().get("rowCount"), statementId);
+            publishProgress(req, "refine", 0, maxPagesToScan, 0, startedAt);
+            if (abandoned(req, abandon)) return false;
+            if (!collectFromView(userId, statementId, sourceSig, quickTerms, collected)) {
+                // Source view expired mid-read; start over from base
+                collected = newBatchBuilder(colIndex, capacity, hasFilter ? filterMap : null);
+                source = null;
             } else {
-                // Filter rows using the robustly-parsed filter map
-                if (!hasFilter) {
-                    filtered.addAll(chunk);
+                alreadySorted = sameSort(sortModel, sourceSort);
+            }
+        }
+
+        if (source == null) {
+            BitSet skippable = hasFilter ? skippablePages(userId, statementId, filterMap, colIndex, maxPagesToScan) : new BitSet();
+            BitmapMatch bitmapMatch = hasFilter ? bitmapCandidates(userId, statementId, baseMeta, filterMap, quickTerms, colIndex) : null;
+            int scanned = 0;
+            for (int pageIdx = 0; pageIdx < maxPagesToScan; pageIdx++) {
+                if (abandoned(req, abandon)) return false;
+                if (bitmapMatch != null) {
+                    int next = bitmapMatch.rows().nextSetBit(pageIdx * pageSize);
+                    if (next < 0 || next >= (pageIdx + 1) * pageSize) skippable.set(pageIdx);
+                }
+                if (skippable.get(pageIdx)) {
+                    // Zone map or bitmap index proves no row on this page passes the filter
+                    scanned++;
+                    continue;
+                }
+                List<List<Object>> chunk = cache.getChunk(userId, statementId, pageIdx);
+                if (chunk == null || chunk.isEmpty()) {
+                    // If rowCount is known we can break early once we covered all pages
+                    if (rowCount != null && pageIdx >= maxPagesToScan - 1) break;
+                    // else: keep scanning until cap
                 } else {
-                    for (List<Object> row : chunk) {
-                        if (rowMatchesFilters(row, filterMap, colIndex)) {
-                            filtered.add(row);
+                    // Filters run inside the batch builder, once per distinct value of each dictionary-encoded filtered column
+                    for (int i = 0; i < chunk.size(); i++) {
+                        List<Object> row = chunk.get(i);
+                        int rowId = pageIdx * pageSize + i;
+                        if (bitmapMatch != null) {
+                            if (!bitmapMatch.rows().contains(rowId)) continue;
+                            if (bitmapMatch.exact()) {
+                                collected.append(row, rowId);
+                                continue;
+                            }
                         }
+                        if (QuickFilter.matches(row, quickTerms)) collected.offer(row, rowId);
                     }
                 }
+
+                scanned++;
+                if (VIEW_BUILD_LOG_EVERY > 0 && pageIdx % VIEW_BUILD_LOG_EVERY == 0) {
+                    log.debug("View build scanning base page {} (sig={}, stmt={})", pageIdx, sig, statementId);
+                    publishProgress(req, "scan", scanned, maxPagesToScan, collected.size(), startedAt);
+                }
+
+                // Early exit if rowCount known and we’ve read all pages
+                if (rowCount != null && pageIdx >= maxPagesToScan - 1) break;
             }
 
-            scanned++;
-            if (VIEW_BUILD_LOG_EVERY > 0 && pageIdx % VIEW_BUILD_LOG_EVERY == 0) {
-                log.debug("View build scanning base page {} (sig={}, stmt={})", pageIdx, sig, statementId);
+            // If we hit scan cap with unknown rowCount, the caller falls back to base.
+            if (rowCount == null && scanned >= VIEW_MAX_SCAN_PAGES) {
+                log.warn("View build hit scan cap ({} pages) for stmt={}, sig={}. Falling back to base.", VIEW_MAX_SCAN_PAGES, statementId, sig);
+                viewCache.invalidateView(userId, statementId, sig, 0);
+                return false;
             }
+            if (!skippable.isEmpty()) {
+                log.debug("View build skipped {} of {} base pages via indexes (sig={}, stmt={})",
+                        skippable.cardinality(), scanned, sig, statementId);
+            }
+        }
 
-            // Early exit if rowCount known and we’ve read all pages
-            if (rowCount != null && pageIdx >= maxPagesToScan - 1) break;
+        if (abandoned(req, abandon)) return false;
+        ColumnarBatch batch = collected.build();
+        int total = batch.size();
+
+        // 2) Sort if needed (filtering a view that is already in the requested order keeps it ordered)
+        int[] order;
+        if (hasSort && !alreadySorted) {
+            publishProgress(req, "sort", maxPagesToScan, maxPagesToScan, total, startedAt);
+            order = batch.order(sortKeys(sortModel, colIndex), this::compareCells);
+        } else {
+            order = new int[total];
+            for (int i = 0; i < total; i++) order[i] = i;
         }
 
-        // If we hit scan cap with unknown rowCount, we return base (fallback).
-        if (rowCount == null && scanned >= VIEW_MAX_SCAN_PAGES) {
-            log.warn("View build hit scan cap ({} pages) for stmt={}, sig={}. Falling back to base.", VIEW_MAX_SCAN_PAGES, statementId, sig);
-            return getRows(statementId, startRow, endRow);
+        // 3) Store as view pages (or as a row-id permutation) in Redis; meta flips to READY last
+        if (abandoned(req, abandon)) return false;
+        publishProgress(req, "store", maxPagesToScan, maxPagesToScan, total, startedAt);
+        int totalChunks = (total + pageSize - 1) / pageSize;
+        if (permutation) {
+            int[] rowIds = new int[total];
+            for (int k = 0; k < total; k++) rowIds[k] = batch.rowId(order[k]);
+            storeViewPermutation(userId, statementId, sig, pageSize, rowIds, total, plan.toMap());
+        } else {
+            // Rows are materialized one page at a time, only for storing
+            for (int i = 0; i < totalChunks; i++) {
+                int from = i * pageSize;
+                int to = Math.min(from + pageSize, total);
+                List<List<Object>> page = new ArrayList<>(to - from);
+                for (int k = from; k < to; k++) page.add(batch.row(order[k]));
+                viewCache.putChunk(userId, statementId, sig, i, page);
+            }
+            viewCache.putMeta(userId, statementId, sig, pageSize, total, Map.of(
+                    "chunkCount", totalChunks, "storage", "rows",
+                    "state", ViewCacheService.STATE_READY,
+                    "buildMs", System.currentTimeMillis() - startedAt,
+                    "plan", plan.toMap()));
         }
 
-        // 2) Sort if needed
-        if (hasSort) {
-            Comparator<List<Object>> cmp = buildComparator(sortModel, colIndex);
-            filtered.sort(cmp);
+        viewCache.registerView(userId, statementId, sig, req.sortModelJson(), req.filterModelJson(), req.quickFilter(),
+                total, permutation ? "permutation" : "rows");
+        publishViewReady(req, total);
+
+        log.debug("View built for stmt={} sig={} rows={} chunks={} storage={} in {}ms", statementId, sig, total, totalChunks,
+                permutation ? "permutation" : "rows", System.currentTimeMillis() - startedAt);
+        return true;
+    }
+
+    /**
+     * Build the view on the warehouse: wrap the original statement with the translated sort/filter,
+     * stream the result straight into view pages, then flip the meta to READY.
+     * Returns false (after cleaning up) on any failure so the caller can build in memory instead.
+     */
+    private boolean buildViewPushdown(ViewRequest req, String baseSql, Map<String, Object> baseMeta,
+                                      ViewPlanner.Plan plan, long startedAt) {
+        final String userId = req.userId();
+        final String statementId = req.statementId();
+        final String sig = req.sig();
+        final int pageSize = req.pageSize();
+
+        List<String> columns = baseColumns(baseMeta);
+        Map<String, String> typeNames = typeNames(baseMeta);
+
+        final AtomicInteger pagesWritten = new AtomicInteger(0);
+        String viewStatementId = null;
+        try {
+            SparkSqlViewRewriter.Rewritten rewritten = SparkSqlViewRewriter.rewrite(
+                    baseSql, req.sortModel(), req.filterMap(), columns, typeNames);
+            String sql = safeSql.sanitizeSelect(rewritten.sql());
+            viewStatementId = client.submitStatement(sql, rewritten.parameters());
+            log.debug("Pushed down view sig={} of stmt={} as statement {}", sig, statementId, viewStatementId);
+
+            // Databricks chunks are re-sliced into full view pages; the remainder waits in the carry buffer
+            final List<List<Object>> carry = new ArrayList<>();
+            final AtomicReference<String> finalState = new AtomicReference<>();
+            final AtomicReference<Exception> failure = new AtomicReference<>();
+            final int pagesTotal = plan.estimatedRows() > 0 ? (int) ((plan.estimatedRows() + pageSize - 1) / pageSize) : 0;
+            publishProgress(req, "pushdown", 0, pagesTotal, 0, startedAt);
+
+            Future<?> stream = client.streamChunks(viewStatementId, pageSize, (chunkIndex, rows, totalRows, state) -> {
+                if (state != null) finalState.set(state);
+                if (chunkIndex < 0 || rows == null || rows.isEmpty() || failure.get() != null) return;
+                try {
+                    carry.addAll(rows);
+                    int offset = 0;
+                    while (carry.size() - offset >= pageSize) {
+                        viewCache.putChunk(userId, statementId, sig, pagesWritten.getAndIncrement(),
+                                new ArrayList<>(carry.subList(offset, offset + pageSize)));
+                        offset += pageSize;
+                    }
+                    carry.subList(0, offset).clear();
+                    publishProgress(req, "pushdown", pagesWritten.get(), pagesTotal,
+                            pagesWritten.get() * pageSize + carry.size(), startedAt);
+                } catch (Exception e) {
+                    failure.set(e);
+                }
+            });
+
+            try {
+                stream.get(VIEW_PUSHDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException te) {
+                stream.cancel(true);
+                throw new IllegalStateException("Pushdown timed out after " + VIEW_PUSHDOWN_TIMEOUT_MS + "ms");
+            }
+            if (failure.get() != null) throw failure.get();
+            if (!"SUCCEEDED".equals(finalState.get())) {
+                throw new IllegalStateException("Pushdown statement ended in state " + finalState.get());
+            }
+            if (!carry.isEmpty()) {
+                viewCache.putChunk(userId, statementId, sig, pagesWritten.getAndIncrement(), new ArrayList<>(carry));
+            }
+
+            int totalChunks = pagesWritten.get();
+            int total = (totalChunks == 0) ? 0 : (totalChunks - 1) * pageSize + (carry.isEmpty() ? pageSize : carry.size());
+            viewCache.putMeta(userId, statementId, sig, pageSize, total, Map.of(
+                    "chunkCount", totalChunks, "storage", "rows",
+                    "state", ViewCacheService.STATE_READY,
+                    "buildMs", System.currentTimeMillis() - startedAt,
+                    "pushdownStatementId", viewStatementId,
+                    "plan", plan.toMap()));
+            viewCache.registerView(userId, statementId, sig, req.sortModelJson(), req.filterModelJson(), null, total, "rows");
+            publishViewReady(req, total);
+
+            log.info("view.pushdown stmt={} sig={} rows={} chunks={} ms={}", statementId, sig, total, totalChunks,
+                    System.currentTimeMillis() - startedAt);
+            return true;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            if (viewStatementId != null) client.cancelStatement(viewStatementId);
+            viewCache.invalidateView(userId, statementId, sig, pagesWritten.get());
+            return false;
+        } catch (Exception e) {
+            log.warn("view.pushdown failed stmt={} sig={}: {}", statementId, sig, e.toString());
+            // Timed out or failed locally: the warehouse would otherwise keep running the statement
+            if (viewStatementId != null) client.cancelStatement(viewStatementId);
+            viewCache.invalidateView(userId, statementId, sig, pagesWritten.get());
+            return false;
         }
+    }
 
-        // 3) Store as view pages in Redis
-        int total = filtered.size();
-        int totalChunks = (total + pageSize - 1) / pageSize;
-        viewCache.putMeta(userId, statementId, sig, pageSize, total, Map.of("chunkCount", totalChunks));
+    // Speculative build giving way to interactive load: drop its progress meta so the view reads as missing
+    private boolean abandoned(ViewRequest req, BooleanSupplier abandon) {
+        if (abandon == null || !abandon.getAsBoolean()) return false;
+        viewCache.invalidateView(req.userId(), req.statementId(), req.sig(), 0);
+        log.debug("Abandoned speculative view build stmt={} sig={}", req.statementId(), req.sig());
+        return true;
+    }
 
-        for (int i = 0; i < totalChunks; i++) {
-            int from = i * pageSize;
-            int to = Math.min(from + pageSize, total);
-            List<List<Object>> page = filtered.subList(from, to);
-            viewCache.putChunk(userId, statementId, sig, i, page);
+    private void publishProgress(ViewRequest req, String phase, int pagesScanned, int pagesTotal, int rowsMatched, long startedAt) {
+        try {
+            Map<String, Object> progress = new LinkedHashMap<>();
+            progress.put("phase", phase);
+            progress.put("pagesScanned", pagesScanned);
+            progress.put("pagesTotal", pagesTotal);
+            progress.put("rowsMatched", rowsMatched);
+            progress.put("startedAt", startedAt);
+            viewCache.putProgress(req.userId(), req.statementId(), req.sig(), req.pageSize(), progress);
+            progress.put("sig", req.sig());
+            progress.put("state", ViewCacheService.STATE_BUILDING);
+            events.publish(req.userId(), req.statementId(), "view", progress);
+        } catch (Exception e) {
+            log.debug("Failed to publish view progress sig={}: {}", req.sig(), e.toString());
+        }
+    }
+
+    private void publishViewReady(ViewRequest req, int rowCount) {
+        Map<String, Object> ready = new LinkedHashMap<>();
+        ready.put("sig", req.sig());
+        ready.put("state", ViewCacheService.STATE_READY);
+        ready.put("rowCount", rowCount);
+        events.publish(req.userId(), req.statementId(), "view", ready);
+    }
+
+    @Override
+    public Map<String, Object> getValueCounts(String statementId, String column) {
+        String userId = "local";
+        Map<String, Object> out = new HashMap<>();
+        out.put("statementId", statementId);
+        out.put("column", column);
+        out.put("indexed", false);
+        out.put("counts", Map.of());
+
+        Map<String, Object> meta = cache.getMeta(userId, statementId);
+        if (meta == null || !(meta.get("bitmapColumns") instanceof List<?> indexed)) return out;
+        @SuppressWarnings("unchecked")
+        List<String> columns = (List<String>) meta.getOrDefault("columns", List.of());
+        Integer idx = resolveColumnIndex(column, indexColumns(columns));
+        if (idx == null || indexed.stream().noneMatch(o -> o instanceof Number n && n.intValue() == idx)) return out;
+
+        BitmapIndex index = indexCache.getBitmapIndex(userId, statementId, idx);
+        if (index == null) return out;
+        out.put("indexed", true);
+        out.put("counts", index.counts());
+        return out;
+    }
+
+    /**
+     * Distinct values of one column with row counts, for AG Grid set filters. Like the grid,
+     * the column's own filter is ignored and every other active filter applies. The full
+     * value list is cached per (statement, column, other filters); search and paging run on it.
+     */
+    @Override
+    public Map<String, Object> getDistinctValues(String statementId, String column, String filterModelJson,
+                                                 String search, int offset, int limit) {
+        String userId = "local";
+        Map<String, Object> out = new HashMap<>();
+        out.put("statementId", statementId);
+        out.put("values", List.of());
+        out.put("total", 0);
+
+        Map<String, Object> baseMeta = cache.getMeta(userId, statementId);
+        if (baseMeta == null) return out;
+        @SuppressWarnings("unchecked")
+        List<String> columns = (List<String>) baseMeta.getOrDefault("columns", List.of());
+        Map<String, Integer> colIndex = indexColumns(columns);
+        Integer idx = resolveColumnIndex(column, colIndex);
+        if (idx == null) throw new IllegalArgumentException("Unknown column: " + column);
+        out.put("column", columns.get(idx));
+
+        // Other columns' filters only
+        Map<String, FilterDescriptor> filterMap = new HashMap<>(parseFilterModel(normalizeFilterKeys(filterModelJson, colIndex.keySet())));
+        filterMap.keySet().removeIf(k -> idx.equals(resolveColumnIndex(k, colIndex)));
+        String otherFilters = toJson(new TreeMap<>(filterMap));
+
+        String sig = groupCache.computeSignature(statementId, Map.of("distinct", columns.get(idx), "filterModel", otherFilters));
+        List<List<Object>> valueCounts = null;
+        try {
+            valueCounts = groupCache.getDistinct(userId, statementId, sig);
+        } catch (Exception e) {
+            log.warn("Cached distinct values unreadable stmt={} sig={}: {}", statementId, sig, e.toString());
+        }
+        if (valueCounts == null) {
+            long startedAt = System.currentTimeMillis();
+            ValueCounter counter = new ValueCounter();
+            scanFilteredBase(userId, statementId, baseMeta, filterMap, colIndex,
+                    row -> counter.add(idx < row.size() ? row.get(idx) : null));
+            valueCounts = new ArrayList<>(counter.size());
+            for (Object[] e : counter.entries()) valueCounts.add(Arrays.asList(e));
+            valueCounts.sort((a, b) -> compareCells(a.get(0), b.get(0)));
+            if (Boolean.TRUE.equals(baseMeta.get("ingestComplete"))) {
+                groupCache.putDistinct(userId, statementId, sig, valueCounts);
+            }
+            log.debug("Counted {} distinct values stmt={} column={} in {}ms",
+                    valueCounts.size(), statementId, columns.get(idx), System.currentTimeMillis() - startedAt);
+        }
+
+        List<List<Object>> matching = valueCounts;
+        if (search != null && !search.isEmpty()) {
+            String prefix = search.toLowerCase(Locale.ROOT);
+            matching = new ArrayList<>();
+            for (List<Object> vc : valueCounts) {
+                Object v = vc.get(0);
+                if (v != null && String.valueOf(v).toLowerCase(Locale.ROOT).startsWith(prefix)) matching.add(vc);
+            }
+        }
+        int from = Math.min(Math.max(0, offset), matching.size());
+        int to = Math.min(matching.size(), from + Math.max(0, limit));
+        List<Map<String, Object>> values = new ArrayList<>(to - from);
+        for (List<Object> vc : matching.subList(from, to)) {
+            Map<String, Object> v = new LinkedHashMap<>();
+            v.put("value", vc.get(0));
+            v.put("count", vc.get(1));
+            values.add(v);
+        }
+        out.put("values", values);
+        out.put("total", matching.size());
+        out.put("offset", from);
+        out.put("sig", sig);
+        return out;
+    }
+
+    // ======================== Group rows (server-side row grouping) ========================
+
+    /**
+     * One level of a grouped view in AG Grid server-side row model shape: {rows, lastRow}.
+     * Group levels are hash-aggregated over the filtered base pages and cached per group
+     * signature; the leaf level returns the matching rows as objects keyed by column name.
+     */
+    @Override
+    public Map<String, Object> getGroupRows(String statementId, Map<String, Object> request) {
+        String userId = "local";
+        Map<String, Object> out = new HashMap<>();
+        out.put("rows", List.of());
+        out.put("lastRow", null);
+
+        Map<String, Object> baseMeta = cache.getMeta(userId, statementId);
+        if (baseMeta == null) return out;
+        @SuppressWarnings("unchecked")
+        List<String> columns = (List<String>) baseMeta.getOrDefault("columns", List.of());
+        Map<String, Integer> colIndex = indexColumns(columns);
+
+        List<Map<String, Object>> rowGroupCols = listOfMaps(request.get("rowGroupCols"));
+        List<Map<String, Object>> valueCols = listOfMaps(request.get("valueCols"));
+        List<String> groupKeys = new ArrayList<>();
+        if (request.get("groupKeys") instanceof List<?> keys) {
+            for (Object k : keys) groupKeys.add(k == null ? null : String.valueOf(k));
+        }
+        int startRow = Math.max(0, request.get("startRow") instanceof Number n ? n.intValue() : 0);
+        int endRow = request.get("endRow") instanceof Number n ? n.intValue() : startRow + PAGE_SIZE;
+        if (groupKeys.size() > rowGroupCols.size()) {
+            throw new IllegalArgumentException("groupKeys deeper than rowGroupCols");
+        }
+
+        String filterModelJson = toJson(request.get("filterModel"));
+        String normalized = normalizeFilterKeys(filterModelJson, colIndex.keySet());
+        if (normalized != null) filterModelJson = normalized;
+        Map<String, FilterDescriptor> filterMap = parseFilterModel(filterModelJson);
+        List<SortModelEntry> sortModel = AgGridModelParser.parseSort(toJson(request.get("sortModel")));
+
+        int level = groupKeys.size();
+        int[] parentColumns = new int[level];
+        for (int i = 0; i < level; i++) parentColumns[i] = requireColumn(rowGroupCols.get(i), colIndex);
+
+        // Leaf level: the rows of the expanded group
+        if (level == rowGroupCols.size()) {
+            GroupAggregator parent = new GroupAggregator(parentColumns, groupKeys, -1, List.of());
+            ColumnarBatch.Builder collected = newBatchBuilder(colIndex, 1024, null);
+            scanFilteredBase(userId, statementId, baseMeta, filterMap, colIndex, row -> {
+                if (parent.inParent(row)) collected.append(row, -1);
+            });
+            ColumnarBatch leaves = collected.build();
+            int[] order = leaves.order(sortKeys(sortModel, colIndex), this::compareCells);
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (int k = Math.min(startRow, leaves.size()); k < Math.min(Math.max(startRow, endRow), leaves.size()); k++) {
+                List<Object> row = leaves.row(order[k]);
+                Map<String, Object> obj = new LinkedHashMap<>();
+                for (int c = 0; c < columns.size(); c++) obj.put(columns.get(c), c < row.size() ? row.get(c) : null);
+                rows.add(obj);
+            }
+            out.put("rows", rows);
+            out.put("lastRow", leaves.size());
+            return out;
+        }
+
+        // Group level: one row per distinct key of the next group column
+        Map<String, Object> groupCol = rowGroupCols.get(level);
+        int groupColumn = requireColumn(groupCol, colIndex);
+        String groupField = fieldOf(groupCol);
+        List<GroupAggregator.ValueColumn> values = new ArrayList<>();
+        List<Map<String, Object>> valueSpec = new ArrayList<>();
+        for (Map<String, Object> vc : valueCols) {
+            String aggFunc = vc.get("aggFunc") == null ? null : String.valueOf(vc.get("aggFunc"));
+            if (!GroupAggregator.isSupported(aggFunc)) {
+                throw new IllegalArgumentException("Unsupported aggFunc: " + aggFunc);
+            }
+            values.add(new GroupAggregator.ValueColumn(fieldOf(vc), requireColumn(vc, colIndex), aggFunc));
+            valueSpec.add(Map.of("id", fieldOf(vc), "aggFunc", aggFunc == null ? "sum" : aggFunc.toLowerCase(Locale.ROOT)));
+        }
+
+        List<String> groupIds = new ArrayList<>();
+        for (int i = 0; i <= level; i++) groupIds.add(fieldOf(rowGroupCols.get(i)));
+        Map<String, Object> spec = new HashMap<>();
+        spec.put("rowGroupCols", groupIds);
+        spec.put("groupKeys", groupKeys);
+        spec.put("valueCols", valueSpec);
+        spec.put("filterModel", filterModelJson == null ? "" : filterModelJson);
+        String sig = groupCache.computeSignature(statementId, spec);
+
+        List<Map<String, Object>> groups = null;
+        try {
+            groups = groupCache.getGroups(userId, statementId, sig);
+        } catch (Exception e) {
+            log.warn("Cached groups unreadable stmt={} sig={}: {}", statementId, sig, e.toString());
+        }
+        if (groups == null) {
+            long startedAt = System.currentTimeMillis();
+            GroupAggregator agg = new GroupAggregator(parentColumns, groupKeys, groupColumn, values);
+            agg.accept(collectFilteredBase(userId, statementId, baseMeta, filterMap, colIndex));
+            groups = agg.result(groupField);
+            // Only a complete ingest yields final aggregates; partial ones are recomputed next time
+            if (Boolean.TRUE.equals(baseMeta.get("ingestComplete"))) {
+                groupCache.putGroups(userId, statementId, sig, groups);
+            }
+            log.debug("Aggregated {} groups for stmt={} sig={} level={} in {}ms",
+                    groups.size(), statementId, sig, level, System.currentTimeMillis() - startedAt);
+        }
+
+        groups = new ArrayList<>(groups);
+        groups.sort(groupComparator(sortModel, groupField));
+        out.put("rows", groups.subList(Math.min(startRow, groups.size()), Math.min(Math.max(startRow, endRow), groups.size())));
+        out.put("lastRow", groups.size());
+        out.put("sig", sig);
+        return out;
+    }
+
+    /** Feeds every base row passing the filter to {@code sink}, skipping pages and rows the indexes rule out. */
+    private void scanFilteredBase(String userId, String statementId, Map<String, Object> baseMeta,
+                                  Map<String, FilterDescriptor> filterMap, Map<String, Integer> colIndex,
+                                  java.util.function.Consumer<List<Object>> sink) {
+        boolean hasFilter = filterMap != null && !filterMap.isEmpty();
+        scanBase(userId, statementId, baseMeta, filterMap, colIndex, (row, rowId, exact) -> {
+            if (exact || !hasFilter || rowMatchesFilters(row, filterMap, colIndex)) sink.accept(row);
+        });
+    }
+
+    /** Same rows as {@link #scanFilteredBase}, collected into a columnar batch (filters run per distinct value). */
+    private ColumnarBatch collectFilteredBase(String userId, String statementId, Map<String, Object> baseMeta,
+                                              Map<String, FilterDescriptor> filterMap, Map<String, Integer> colIndex) {
+        Integer rowCount = safeInt(baseMeta.get("rowCount"));
+        ColumnarBatch.Builder builder = newBatchBuilder(colIndex, rowCount == null ? 10000 : Math.min(rowCount, 200000), filterMap);
+        scanBase(userId, statementId, baseMeta, filterMap, colIndex, (row, rowId, exact) -> {
+            if (exact) builder.append(row, rowId);
+            else builder.offer(row, rowId);
+        });
+        return builder.build();
+    }
+
+    private interface BaseRowSink {
+        /** {@code exact}: the bitmap indexes already proved the row passes the filter. */
+        void accept(List<Object> row, int rowId, boolean exact);
+    }
+
+    // Base rows not ruled out by zone maps, Bloom filters or bitmap/trigram candidates
+    private void scanBase(String userId, String statementId, Map<String, Object> baseMeta,
+                          Map<String, FilterDescriptor> filterMap, Map<String, Integer> colIndex, BaseRowSink sink) {
+        int pageSize = ((Number) baseMeta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
+        Integer pagesIngested = safeInt(baseMeta.get("pagesIngested"));
+        Integer rowCount = safeInt(baseMeta.get("rowCount"));
+        int pageCount = pagesIngested != null ? pagesIngested
+                : rowCount != null ? (rowCount + pageSize - 1) / pageSize : 0;
+        boolean hasFilter = filterMap != null && !filterMap.isEmpty();
+
+        BitSet skippable = hasFilter ? skippablePages(userId, statementId, filterMap, colIndex, pageCount) : new BitSet();
+        BitmapMatch bitmapMatch = hasFilter ? bitmapCandidates(userId, statementId, baseMeta, filterMap, List.of(), colIndex) : null;
+        for (int pageIdx = 0; pageIdx < pageCount; pageIdx++) {
+            if (skippable.get(pageIdx)) continue;
+            List<List<Object>> chunk = cache.getChunk(userId, statementId, pageIdx);
+            if (chunk == null) continue;
+            for (int i = 0; i < chunk.size(); i++) {
+                int rowId = pageIdx * pageSize + i;
+                if (bitmapMatch != null && !bitmapMatch.rows().contains(rowId)) continue;
+                sink.accept(chunk.get(i), rowId, bitmapMatch != null && bitmapMatch.exact());
+            }
         }
+    }
 
-        log.debug("View built for stmt={} sig={} rows={} chunks={}", statementId, sig, total, totalChunks);
+    // Sort on the group column or an aggregate; default: group key ascending
+    private Comparator<Map<String, Object>> groupComparator(List<SortModelEntry> sortModel, String groupField) {
+        Comparator<Map<String, Object>> cmp = null;
+        for (SortModelEntry s : sortModel) {
+            String key = s.getColId().equalsIgnoreCase(groupField) || "ag-Grid-AutoColumn".equals(s.getColId())
+                    ? groupField : s.getColId();
+            boolean asc = s.isAsc();
+            Comparator<Map<String, Object>> c = (a, b) -> {
+                int x = compareCells(a.get(key), b.get(key));
+                return asc ? x : -x;
+            };
+            cmp = cmp == null ? c : cmp.thenComparing(c);
+        }
+        Comparator<Map<String, Object>> byKey = (a, b) -> compareCells(a.get(groupField), b.get(groupField));
+        return cmp == null ? byKey : cmp.thenComparing(byKey);
+    }
 
-        // 4) Serve the requested slice from the freshly built view
-        return sliceFromView(userId, statementId, sig, startRow, endRow, pageSize);
+    private int requireColumn(Map<String, Object> col, Map<String, Integer> colIndex) {
+        Integer idx = resolveColumnIndex(fieldOf(col), colIndex);
+        if (idx == null && col.get("id") != null) idx = resolveColumnIndex(String.valueOf(col.get("id")), colIndex);
+        if (idx == null) throw new IllegalArgumentException("Unknown column: " + fieldOf(col));
+        return idx;
     }
 
-    // ======================== Eviction (unchanged) ========================
+    private static String fieldOf(Map<String, Object> col) {
+        Object f = col.get("field");
+        if (f == null) f = col.get("id");
+        if (f == null) throw new IllegalArgumentException("Column without field/id");
+        return String.valueOf(f);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> listOfMaps(Object o) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        if (o instanceof List<?> l) {
+            for (Object e : l) if (e instanceof Map<?, ?> m) out.add((Map<String, Object>) m);
+        }
+        return out;
+    }
+
+    // Request models may arrive as JSON objects or as already-encoded strings
+    private String toJson(Object model) {
+        if (model == null) return null;
+        if (model instanceof String s) return s;
+        try {
+            return MODEL_MAPPER.writeValueAsString(model);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid model: " + e.getMessage());
+        }
+    }
+
+    // ======================== Eviction ========================
 
     @Override
     public void evict(String statementId) {
+        Map<String, Object> meta = cache.getMeta("local", statementId);
+        if (meta != null) {
+            Integer pagesIngested = safeInt(meta.get("pagesIngested"));
+            List<Integer> bitmapColumns = new ArrayList<>();
+            if (meta.get("bitmapColumns") instanceof List<?> cols) {
+                for (Object o : cols) if (o instanceof Number n) bitmapColumns.add(n.intValue());
+            }
+            indexCache.invalidateStatement("local", statementId, pagesIngested == null ? 0 : pagesIngested, bitmapColumns);
+        }
         cache.invalidateStatement("local", statementId);
+        synchronized (cursors) {
+            cursors.values().removeIf(c -> c.req().statementId().equals(statementId));
+        }
         // Views for the statement will be lazily overwritten on next build; you can add a bulk
         // SCAN-based eviction here if you want hard cleanup of all views for this statement.
     }
 
     // ======================== Helpers ========================
 
-    private Map<String, Object> sliceFromView(String userId, String statementId, String sig, int startRow, int endRow, int pageSize) {
+    private Map<String, Object> sliceFromView(String userId, String statementId, String sig, int startRow, int endRow, int pageSize,
+                                              int[] projection) {
         Map<String, Object> meta = viewCache.getMeta(userId, statementId, sig);
         if (meta == null) return Map.of("rows", List.of(), "lastRow", null);
 
@@ -312,12 +1568,16 @@ public class ReportServiceImpl implements ReportService {
             return Map.of("rows", List.of(), "lastRow", rowCount);
         }
 
+        if ("permutation".equals(meta.get("storage"))) {
+            return sliceFromPermutation(userId, statementId, sig, startRow, endRow, pageSize, rowCount, projection);
+        }
+
         int firstChunk = Math.max(0, startRow / pageSize);
         int lastChunk = Math.max(firstChunk, (endRow - 1) / pageSize);
 
         List<List<Object>> buffer = new ArrayList<>();
         for (int index = firstChunk; index <= lastChunk; index++) {
-            List<List<Object>> chunk = viewCache.getChunk(userId, statementId, sig, index);
+            List<List<Object>> chunk = viewCache.getChunk(userId, statementId, sig, index, projection);
             if (chunk != null && !chunk.isEmpty()) {
                 buffer.addAll(chunk);
             } else {
@@ -340,6 +1600,196 @@ public class ReportServiceImpl implements ReportService {
         return Map.of("rows", page, "lastRow", rowCount);
     }
 
+    // Resolve a slice of a permutation view: packed row ids → batched base page fetch → rows in view order.
+    private Map<String, Object> sliceFromPermutation(String userId, String statementId, String sig,
+                                                     int startRow, int endRow, int pageSize, Integer rowCount,
+                                                     int[] projection) {
+        Map<String, Object> baseMeta = cache.getMeta(userId, statementId);
+        if (baseMeta == null) return Map.of("rows", List.of(), "lastRow", rowCount);
+        int basePageSize = ((Number) baseMeta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
+
+        int firstChunk = Math.max(0, startRow / pageSize);
+        int lastChunk = Math.max(firstChunk, (endRow - 1) / pageSize);
+        List<Integer> permIndexes = new ArrayList<>();
+        for (int i = firstChunk; i <= lastChunk; i++) permIndexes.add(i);
+        Map<Integer, int[]> perms = viewCache.getPermutationChunks(userId, statementId, sig, permIndexes);
+
+        // Row ids for [startRow, endRow) in view order
+        int[] ids = new int[Math.max(0, endRow - startRow)];
+        int n = 0;
+        for (int i = firstChunk; i <= lastChunk; i++) {
+            int[] perm = perms.get(i);
+            if (perm == null || perm.length == 0) break; // view should be contiguous; missing means end
+            int base = i * pageSize;
+            int from = Math.max(0, startRow - base);
+            int to = Math.min(perm.length, endRow - base);
+            for (int k = from; k < to; k++) ids[n++] = perm[k];
+        }
+        if (n == 0) return Map.of("rows", List.of(), "lastRow", rowCount);
+
+        Set<Integer> pageIndexes = new LinkedHashSet<>();
+        for (int k = 0; k < n; k++) pageIndexes.add(ids[k] / basePageSize);
+        Map<Integer, List<List<Object>>> pages = cache.getChunks(userId, statementId, pageIndexes, projection);
+
+        List<List<Object>> page = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            List<List<Object>> basePage = pages.get(ids[k] / basePageSize);
+            int offset = ids[k] % basePageSize;
+            if (basePage == null || offset >= basePage.size()) {
+                // Base page expired underneath the view; serve what we have rather than misaligned rows
+                log.warn("Permutation view references missing base row {} (stmt={}, sig={})", ids[k], statementId, sig);
+                break;
+            }
+            page.add(basePage.get(offset));
+        }
+        return Map.of("rows", page, "lastRow", rowCount);
+    }
+
+    private void storeViewPermutation(String userId, String statementId, String sig, int pageSize,
+                                      int[] rowIds, int total, Map<String, Object> plan) {
+        int totalChunks = (total + pageSize - 1) / pageSize;
+        for (int i = 0; i < totalChunks; i++) {
+            int from = i * pageSize;
+            int to = Math.min(from + pageSize, total);
+            viewCache.putPermutationChunk(userId, statementId, sig, i, rowIds, from, to);
+        }
+
+        viewCache.putMeta(userId, statementId, sig, pageSize, total, Map.of(
+                "chunkCount", totalChunks, "storage", "permutation", "state", ViewCacheService.STATE_READY,
+                "plan", plan));
+    }
+
+    // ---------------- Incremental refinement ----------------
+
+    /** Batch builder for a view build; rows offered to it must pass {@code filterMap} (null = no filter). */
+    private ColumnarBatch.Builder newBatchBuilder(Map<String, Integer> colIndex, int capacity,
+                                                  Map<String, FilterDescriptor> filterMap) {
+        int columns = 0;
+        for (Integer i : colIndex.values()) columns = Math.max(columns, i + 1);
+        List<ColumnarBatch.ColumnFilter> filters = new ArrayList<>();
+        if (filterMap != null) {
+            for (Map.Entry<String, FilterDescriptor> e : filterMap.entrySet()) {
+                Integer idx = resolveColumnIndex(e.getKey(), colIndex);
+                if (idx != null && idx >= 0) filters.add(new ColumnarBatch.ColumnFilter(idx, e.getValue()));
+            }
+        }
+        return new ColumnarBatch.Builder(columns, capacity, filters, CellFilter::matches);
+    }
+
+    /**
+     * Pick the smallest cached view this request can be derived from: its filter must be implied by
+     * ours (quick filter included), and it must either already be in our sort order or we must re-sort anyway.
+     * Permutation builds can only derive from permutation views (they need the base row ids).
+     */
+    private Map.Entry<String, Map<String, Object>> findRefinementSource(String userId, String statementId, String sig,
+                                                                        List<SortModelEntry> sortModel,
+                                                                        Map<String, FilterDescriptor> filterMap,
+                                                                        List<String> quickTerms, boolean permutation) {
+        Map<String, Map<String, Object>> catalog;
+        try {
+            catalog = viewCache.listViews(userId, statementId);
+        } catch (Exception e) {
+            log.warn("View catalog unavailable for stmt={}: {}", statementId, e.toString());
+            return null;
+        }
+        boolean hasSort = sortModel != null && !sortModel.isEmpty();
+
+        Map.Entry<String, Map<String, Object>> best = null;
+        int bestRows = Integer.MAX_VALUE;
+        for (Map.Entry<String, Map<String, Object>> e : catalog.entrySet()) {
+            if (e.getKey().equals(sig)) continue;
+            Map<String, Object> entry = e.getValue();
+            String storage = String.valueOf(entry.get("storage"));
+            if (permutation != "permutation".equals(storage)) continue;
+
+            List<SortModelEntry> cachedSort = AgGridModelParser.parseSort((String) entry.get("sortModel"));
+            boolean sorted = sameSort(sortModel, cachedSort);
+            Map<String, FilterDescriptor> cachedFilter = parseFilterModel((String) entry.get("filterModel"));
+            List<String> cachedQuick = QuickFilter.terms((String) entry.get("quickFilter"));
+            // An unfiltered source only helps if it saves us the sort
+            if (cachedFilter.isEmpty() && cachedQuick.isEmpty() && !(sorted && hasSort)) continue;
+            if (!sorted && !hasSort) continue; // we need base order, the source has lost it
+            // Re-sorted rows of a rows view could not put ties back in base order (they carry no base row ids),
+            // so the result would differ from a build from base with the same signature
+            if (!sorted && !permutation) continue;
+            if (!FilterSubsumption.implies(filterMap, cachedFilter)) continue;
+            if (!QuickFilter.implies(quickTerms, cachedQuick)) continue;
+
+            Integer rows = safeInt(entry.get("rowCount"));
+            if (rows == null || rows >= bestRows) continue;
+            if (!ViewCacheService.isReady(viewCache.getMeta(userId, statementId, e.getKey()))) continue;
+            if (rows < bestRows) {
+                best = e;
+                bestRows = rows;
+            }
+        }
+        return best;
+    }
+
+    /** Re-filter every row of a cached view into {@code out}; false if the view vanished mid-read. */
+    private boolean collectFromView(String userId, String statementId, String sourceSig,
+                                    List<String> quickTerms, ColumnarBatch.Builder out) {
+        Map<String, Object> meta = viewCache.getMeta(userId, statementId, sourceSig);
+        if (meta == null) return false;
+        int chunkCount = Optional.ofNullable(safeInt(meta.get("chunkCount"))).orElse(0);
+        boolean permutationSource = "permutation".equals(meta.get("storage"));
+        int basePageSize = PAGE_SIZE;
+        if (permutationSource) {
+            Map<String, Object> baseMeta = cache.getMeta(userId, statementId);
+            if (baseMeta == null) return false;
+            basePageSize = ((Number) baseMeta.getOrDefault("pageSize", PAGE_SIZE)).intValue();
+        }
+
+        final int batch = 64;
+        for (int from = 0; from < chunkCount; from += batch) {
+            List<Integer> indexes = new ArrayList<>();
+            for (int i = from; i < Math.min(chunkCount, from + batch); i++) indexes.add(i);
+
+            if (!permutationSource) {
+                Map<Integer, List<List<Object>>> pages = viewCache.getChunks(userId, statementId, sourceSig, indexes);
+                for (Integer i : indexes) {
+                    List<List<Object>> page = pages.get(i);
+                    if (page == null) return false;
+                    for (List<Object> row : page) {
+                        if (QuickFilter.matches(row, quickTerms)) out.offer(row, -1);
+                    }
+                }
+                continue;
+            }
+
+            Map<Integer, int[]> perms = viewCache.getPermutationChunks(userId, statementId, sourceSig, indexes);
+            Set<Integer> baseIndexes = new LinkedHashSet<>();
+            for (Integer i : indexes) {
+                int[] ids = perms.get(i);
+                if (ids == null) return false;
+                for (int id : ids) baseIndexes.add(id / basePageSize);
+            }
+            Map<Integer, List<List<Object>>> basePages = cache.getChunks(userId, statementId, baseIndexes);
+            for (Integer i : indexes) {
+                for (int id : perms.get(i)) {
+                    List<List<Object>> page = basePages.get(id / basePageSize);
+                    if (page == null || id % basePageSize >= page.size()) return false;
+                    List<Object> row = page.get(id % basePageSize);
+                    if (QuickFilter.matches(row, quickTerms)) out.offer(row, id);
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean sameSort(List<SortModelEntry> a, List<SortModelEntry> b) {
+        int na = a == null ? 0 : a.size();
+        int nb = b == null ? 0 : b.size();
+        if (na != nb) return false;
+        for (int i = 0; i < na; i++) {
+            SortModelEntry x = a.get(i);
+            SortModelEntry y = b.get(i);
+            if (x.getColId() == null || !x.getColId().equalsIgnoreCase(y.getColId())) return false;
+            if (x.isAsc() != y.isAsc()) return false;
+        }
+        return true;
+    }
+
     private Map<String, Integer> indexColumns(List<String> columns) {
         Map<String, Integer> m = new HashMap<>();
         if (columns == null) return m;
@@ -381,116 +1831,112 @@ public class ReportServiceImpl implements ReportService {
 
     // ---------------- Filtering ----------------
 
-    private boolean rowMatchesFilters(List<Object> row, Map<String, FilterDescriptor> filterModel, Map<String, Integer> colIndex) {
-        if (filterModel == null || filterModel.isEmpty()) return true;
-        for (Map.Entry<String, FilterDescriptor> e : filterModel.entrySet()) {
-            String colId = e.getKey();
-            Integer idx = colIndex.get(colId);
-            if (idx == null && colId != null) idx = colIndex.get(colId.toLowerCase(Locale.ROOT));
-            if (idx == null && colId != null) {
-                String collapsed = colId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
-                idx = colIndex.get(collapsed);  // NEW: collapsed lookup
-            }
-            if (idx == null || idx < 0 || idx >= row.size()) continue; // unknown column => ignore
-            Object val = row.get(idx);
-            if (!evalFilter(val, e.getValue())) return false;
+    /**
+     * Pages whose zone map or Bloom filters prove that no row passes the filter. Pages
+     * without stats (ingest still running, stats disabled or expired) are never skipped.
+     */
+    private BitSet skippablePages(String userId, String statementId, Map<String, FilterDescriptor> filterMap,
+                                  Map<String, Integer> colIndex, int pageCount) {
+        BitSet skip = new BitSet();
+        if ((!INDEX_ZONE_MAPS_ENABLED && !INDEX_BLOOM_ENABLED) || filterMap == null || filterMap.isEmpty()) return skip;
+
+        Map<Integer, FilterDescriptor> byColumn = new HashMap<>();
+        for (Map.Entry<String, FilterDescriptor> e : filterMap.entrySet()) {
+            Integer idx = resolveColumnIndex(e.getKey(), colIndex);
+            if (idx != null && idx >= 0) byColumn.put(idx, e.getValue());
         }
-        return true;
-    }
-
-    private boolean evalFilter(Object cell, FilterDescriptor fd) {
-        if (fd == null) return true;
+        if (byColumn.isEmpty()) return skip;
 
-        // Compound
-        if (fd.isCompound()) {
-            boolean and = "AND".equalsIgnoreCase(fd.getOperator());
-            if (fd.getConditions() == null || fd.getConditions().isEmpty()) return true;
-            if (and) {
-                for (FilterDescriptor c : fd.getConditions()) {
-                    if (!evalFilter(cell, c)) return false;
+        boolean useBlooms = INDEX_BLOOM_ENABLED && byColumn.values().stream().anyMatch(PageBlooms::applies);
+        try {
+            final int batch = 256;
+            for (int from = 0; from < pageCount; from += batch) {
+                List<Integer> indexes = new ArrayList<>();
+                for (int i = from; i < Math.min(pageCount, from + batch); i++) indexes.add(i);
+                if (INDEX_ZONE_MAPS_ENABLED) {
+                    Map<Integer, PageStats> stats = indexCache.getPageStats(userId, statementId, indexes);
+                    for (Map.Entry<Integer, PageStats> e : stats.entrySet()) {
+                        if (!e.getValue().canMatch(byColumn)) skip.set(e.getKey());
+                    }
                 }
-                return true;
-            } else {
-                for (FilterDescriptor c : fd.getConditions()) {
-                    if (evalFilter(cell, c)) return true;
+                if (useBlooms) {
+                    indexes.removeIf(skip::get);
+                    Map<Integer, PageBlooms> blooms = indexCache.getPageBlooms(userId, statementId, indexes);
+                    for (Map.Entry<Integer, PageBlooms> e : blooms.entrySet()) {
+                        if (!e.getValue().canMatch(byColumn)) skip.set(e.getKey());
+                    }
                 }
-                return false;
             }
+        } catch (Exception e) {
+            log.warn("Page indexes unavailable for stmt={}: {}", statementId, e.toString());
+            return new BitSet();
         }
+        return skip;
+    }
 
-        String type = safeLower(fd.getType());
-        String filterType = safeLower(fd.getFilterType());
-
-        // Text filters
-        if ("text".equals(filterType)) {
-            String s = toStringOrNull(cell);
-            String q = fd.getFilter();
-            if (q == null) q = "";
-            String sL = s == null ? "" : s.toLowerCase(Locale.ROOT);
-            String qL = q.toLowerCase(Locale.ROOT);
-            return switch (type) {
-                case "contains" -> sL.contains(qL);
-                case "notcontains" -> !sL.contains(qL);
-                case "equals" -> sL.equals(qL);
-                case "notequals" -> !sL.equals(qL);
-                case "startswith" -> sL.startsWith(qL);
-                case "endswith" -> sL.endsWith(qL);
-                default -> true; // unknown -> pass
-            };
+    /**
+     * Candidate row ids from bitmap indexes (exact) and trigram indexes (superset, including
+     * the quick filter index); exact when every filter was answered by a bitmap index.
+     */
+    private record BitmapMatch(RoaringBitmap rows, boolean exact) {}
+
+    private BitmapMatch bitmapCandidates(String userId, String statementId, Map<String, Object> baseMeta,
+                                         Map<String, FilterDescriptor> filterMap, List<String> quickTerms,
+                                         Map<String, Integer> colIndex) {
+        if (baseMeta == null) return null;
+        Set<Integer> indexedColumns = new HashSet<>();
+        if (baseMeta.get("bitmapColumns") instanceof List<?> indexed) {
+            for (Object o : indexed) {
+                if (o instanceof Number n) indexedColumns.add(n.intValue());
+            }
         }
 
-        // Number filters
-        if ("number".equals(filterType)) {
-            BigDecimal n = toNumber(cell);
-            BigDecimal a = toNumber(fd.getFilter());
-            BigDecimal b = toNumber(fd.getFilterTo());
-            int cmp = (n == null || a == null) ? Integer.MIN_VALUE : n.compareTo(a);
-            return switch (type) {
-                case "equals" -> n != null && a != null && cmp == 0;
-                case "notequals" -> n != null && a != null && cmp != 0;
-                case "greaterthan" -> n != null && a != null && cmp > 0;
-                case "greaterthanequal" -> n != null && a != null && cmp >= 0;
-                case "lessthan" -> n != null && a != null && cmp < 0;
-                case "lessthanequal" -> n != null && a != null && cmp <= 0;
-                case "inrange" -> {
-                    if (n == null || a == null || b == null) yield true;
-                    int c1 = n.compareTo(a);
-                    int c2 = n.compareTo(b);
-                    yield (c1 >= 0 && c2 <= 0);
+        RoaringBitmap acc = null;
+        boolean exact = true;
+        try {
+            for (Map.Entry<String, FilterDescriptor> e : filterMap.entrySet()) {
+                Integer idx = resolveColumnIndex(e.getKey(), colIndex);
+                if (idx == null || idx < 0) continue; // ignored by the row filter as well
+                BitmapIndex index = indexedColumns.contains(idx) ? indexCache.getBitmapIndex(userId, statementId, idx) : null;
+                RoaringBitmap r = index == null ? null : index.evaluate(e.getValue());
+                if (r == null) {
+                    exact = false;
+                    r = trigrams.candidates(userId, statementId, idx, e.getValue());
+                    if (r == null) continue;
                 }
-                default -> true;
-            };
-        }
-
-        // Date filters (expects "yyyy-MM-dd" or ISO-like strings)
-        if ("date".equals(filterType)) {
-            LocalDate d = toDate(cell);
-            LocalDate a = toDate(fd.getDateFrom() != null ? fd.getDateFrom() : fd.getFilter());
-            LocalDate b = toDate(fd.getDateTo());
-            if (d == null || a == null) return true;
-            return switch (type) {
-                case "equals" -> d.isEqual(a);
-                case "notequals" -> !d.isEqual(a);
-                case "greaterthan" -> d.isAfter(a);
-                case "greaterthanequal" -> !d.isBefore(a);
-                case "lessthan" -> d.isBefore(a);
-                case "lessthanequal" -> !d.isAfter(a);
-                case "inrange" -> (b != null) ? (!d.isBefore(a) && !d.isAfter(b)) : true;
-                default -> true;
-            };
+                acc = acc == null ? r : RoaringBitmap.and(acc, r);
+            }
+            if (!quickTerms.isEmpty()) {
+                exact = false;
+                RoaringBitmap r = trigrams.quickCandidates(userId, statementId, quickTerms);
+                if (r != null) acc = acc == null ? r : RoaringBitmap.and(acc, r);
+            }
+        } catch (Exception e) {
+            log.warn("Bitmap indexes unavailable for stmt={}: {}", statementId, e.toString());
+            return null;
         }
-
-        // Unknown filter types pass
-        return true;
+        return acc == null ? null : new BitmapMatch(acc, exact);
     }
 
-    private String safeLower(String s) {
-        return s == null ? null : s.toLowerCase(Locale.ROOT);
+    private Integer resolveColumnIndex(String colId, Map<String, Integer> colIndex) {
+        Integer idx = colIndex.get(colId);
+        if (idx == null && colId != null) idx = colIndex.get(colId.toLowerCase(Locale.ROOT));
+        if (idx == null && colId != null) {
+            String collapsed = colId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+            idx = colIndex.get(collapsed);  // NEW: collapsed lookup
+        }
+        return idx;
     }
 
-    private String toStringOrNull(Object o) {
-        if (o == null) return null;
-        return String.valueOf(o);
+    private boolean rowMatchesFilters(List<Object> row, Map<String, FilterDescriptor> filterModel, Map<String, Integer> colIndex) {
+        if (filterModel == null || filterModel.isEmpty()) return true;
+        for (Map.Entry<String, FilterDescriptor> e : filterModel.entrySet()) {
+            Integer idx = resolveColumnIndex(e.getKey(), colIndex);
+            if (idx == null || idx < 0 || idx >= row.size()) continue; // unknown column => ignore
+            Object val = row.get(idx);
+            if (!CellFilter.matches(val, e.getValue())) return false;
+        }
+        return true;
     }
 
     private BigDecimal toNumber(Object o) {
@@ -525,30 +1971,16 @@ public class ReportServiceImpl implements ReportService {
 
     // ---------------- Sorting ----------------
 
-    private Comparator<List<Object>> buildComparator(List<SortModelEntry> sorts, Map<String, Integer> colIndex) {
-        if (sorts == null || sorts.isEmpty()) {
-            return (a, b) -> 0;
-        }
-        List<Comparator<List<Object>>> comparators = new ArrayList<>();
+    // Sort model -> column indexes (exact id, then lower-cased); unknown columns are ignored
+    private List<ColumnarBatch.SortKey> sortKeys(List<SortModelEntry> sorts, Map<String, Integer> colIndex) {
+        List<ColumnarBatch.SortKey> keys = new ArrayList<>();
+        if (sorts == null) return keys;
         for (SortModelEntry s : sorts) {
             String key = s.getColId();
             Integer idx = key == null ? null : colIndex.getOrDefault(key, colIndex.get(key.toLowerCase(Locale.ROOT)));
-            if (idx == null) continue;
-            boolean asc = s.isAsc();
-            comparators.add((r1, r2) -> {
-                Object o1 = idx < r1.size() ? r1.get(idx) : null;
-                Object o2 = idx < r2.size() ? r2.get(idx) : null;
-                int c = compareCells(o1, o2);
-                return asc ? c : -c;
-            });
+            if (idx != null) keys.add(new ColumnarBatch.SortKey(idx, s.isAsc()));
         }
-        return (r1, r2) -> {
-            for (Comparator<List<Object>> c : comparators) {
-                int x = c.compare(r1, r2);
-                if (x != 0) return x;
-            }
-            return 0;
-        };
+        return keys;
     }
 
     @SuppressWarnings({ "rawtypes", "unchecked" })
@@ -583,8 +2015,7 @@ public class ReportServiceImpl implements ReportService {
         try {
             com.fasterxml.jackson.core.type.TypeReference<java.util.Map<String, Object>> typeRef =
                     new com.fasterxml.jackson.core.type.TypeReference<>() {};
-            var mapper = new com.fasterxml.jackson.databind.ObjectMapper();
-            java.util.Map<String, Object> raw = mapper.readValue(filterModelJson, typeRef);
+            java.util.Map<String, Object> raw = MODEL_MAPPER.readValue(filterModelJson, typeRef);
             if (raw == null || raw.isEmpty()) return null;
 
             // Build lookups for server columns:
@@ -595,7 +2026,7 @@ public class ReportServiceImpl implements ReportService {
             for (String c : cols) {
                 if (c == null) continue;
                 String lower = c.toLowerCase(java.util.Locale.ROOT);
-                String collapsed = lower.replaceAll("[^a-z0-9]", "");
+                String collapsed = NON_ALNUM.matcher(lower).replaceAll("");
                 byLower.put(lower, c);
                 byCollapsed.put(collapsed, c);
             }
@@ -604,14 +2035,14 @@ public class ReportServiceImpl implements ReportService {
             for (var e : raw.entrySet()) {
                 if (e.getKey() == null) continue;
                 String kLower = e.getKey().toLowerCase(java.util.Locale.ROOT);
-                String kCollapsed = kLower.replaceAll("[^a-z0-9]", "");
+                String kCollapsed = NON_ALNUM.matcher(kLower).replaceAll("");
                 String actual = byLower.get(kLower);
                 if (actual == null) actual = byCollapsed.get(kCollapsed);
                 if (actual != null) normalized.put(actual, e.getValue());
             }
 
             if (normalized.isEmpty()) return null;
-            return mapper.writeValueAsString(normalized);
+            return MODEL_MAPPER.writeValueAsString(normalized);
         } catch (Exception ignore) {
             return null; // fall back gracefully
         }
@@ -621,9 +2052,8 @@ public class ReportServiceImpl implements ReportService {
     private Map<String, FilterDescriptor> parseFilterModel(String json) {
         if (json == null || json.isBlank() || "{}".equals(json.trim())) return java.util.Collections.emptyMap();
         try {
-            var mapper  = new com.fasterxml.jackson.databind.ObjectMapper();
             var typeRef = new com.fasterxml.jackson.core.type.TypeReference<java.util.Map<String, FilterDescriptor>>() {};
-            Map<String, FilterDescriptor> m = mapper.readValue(json, typeRef);
+            Map<String, FilterDescriptor> m = MODEL_MAPPER.readValue(json, typeRef);
             return (m == null) ? java.util.Collections.emptyMap() : m;
         } catch (Exception e) {
             log.warn("parseFilterModel: failed to parse filter JSON; ignoring. {}", e.toString());
@@ -0,0 +1,149 @@
+package com.mm.customreportbuilder.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Minimal CBOR (RFC 8949) encoder for API responses: maps, lists, text, integers,
+ * doubles, booleans and null, all with definite lengths.
+ *
+ * Text is written as length-prefixed UTF-8, so the client reads each cell with one
+ * decode call instead of tokenizing and unescaping JSON. BigDecimal / BigInteger and
+ * unknown types are written as their text form (no precision loss).
+ */
+public final class CborWriter {
+
+    public static final String MEDIA_TYPE = "application/cbor";
+
+    private final OutputStream out;
+    private final byte[] buf = new byte[8192];
+    private int pos;
+
+    public CborWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public void write(Object value) throws IOException {
+        if (value == null) {
+            put(0xF6);
+        } else if (value instanceof String s) {
+            writeText(s);
+        } else if (value instanceof Boolean b) {
+            put(b ? 0xF5 : 0xF4);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigDecimal bd) {
+            writeText(bd.toPlainString());
+        } else if (value instanceof BigInteger bi) {
+            writeText(bi.toString());
+        } else if (value instanceof Map<?, ?> m) {
+            head(5, m.size());
+            for (Map.Entry<?, ?> e : m.entrySet()) {
+                writeText(String.valueOf(e.getKey()));
+                write(e.getValue());
+            }
+        } else if (value instanceof Collection<?> c) {
+            head(4, c.size());
+            for (Object o : c) write(o);
+        } else if (value instanceof Object[] a) {
+            head(4, a.length);
+            for (Object o : a) write(o);
+        } else if (value instanceof int[] a) {
+            head(4, a.length);
+            for (int v : a) writeLong(v);
+        } else {
+            writeText(String.valueOf(value));
+        }
+    }
+
+    public void flush() throws IOException {
+        out.write(buf, 0, pos);
+        pos = 0;
+        out.flush();
+    }
+
+    private void writeLong(long v) throws IOException {
+        if (v >= 0) head(0, v);
+        else head(1, -1 - v);
+    }
+
+    private void writeDouble(double d) throws IOException {
+        ensure(9);
+        buf[pos++] = (byte) 0xFB;
+        long bits = Double.doubleToLongBits(d);
+        for (int shift = 56; shift >= 0; shift -= 8) buf[pos++] = (byte) (bits >>> shift);
+    }
+
+    private void writeText(String s) throws IOException {
+        int n = s.length();
+        boolean ascii = true;
+        for (int i = 0; i < n && ascii; i++) ascii = s.charAt(i) < 0x80;
+        if (!ascii) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            head(3, utf8.length);
+            putBytes(utf8);
+            return;
+        }
+        head(3, n);
+        if (n > buf.length) {
+            putBytes(s.getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        ensure(n);
+        for (int i = 0; i < n; i++) buf[pos++] = (byte) s.charAt(i);
+    }
+
+    // Major type + argument in the shortest form
+    private void head(int major, long arg) throws IOException {
+        ensure(9);
+        int mt = major << 5;
+        if (arg < 24) {
+            buf[pos++] = (byte) (mt | arg);
+        } else if (arg < 0x100) {
+            buf[pos++] = (byte) (mt | 24);
+            buf[pos++] = (byte) arg;
+        } else if (arg < 0x10000) {
+            buf[pos++] = (byte) (mt | 25);
+            buf[pos++] = (byte) (arg >>> 8);
+            buf[pos++] = (byte) arg;
+        } else if (arg < 0x100000000L) {
+            buf[pos++] = (byte) (mt | 26);
+            for (int shift = 24; shift >= 0; shift -= 8) buf[pos++] = (byte) (arg >>> shift);
+        } else {
+            buf[pos++] = (byte) (mt | 27);
+            for (int shift = 56; shift >= 0; shift -= 8) buf[pos++] = (byte) (arg >>> shift);
+        }
+    }
+
+    private void put(int b) throws IOException {
+        ensure(1);
+        buf[pos++] = (byte) b;
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buf.length - pos) {
+            out.write(buf, 0, pos);
+            pos = 0;
+            if (bytes.length > buf.length) {
+                out.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void ensure(int n) throws IOException {
+        if (buf.length - pos < n) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.mm.customreportbuilder.util;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+
+/**
+ * Single-pass CSV (RFC 4180) encoder writing cells straight into a reusable char buffer.
+ *
+ * Text cells are copied into the buffer and scanned there; only a cell that turns out to
+ * contain a separator, quote or line break is rewritten quoted (shifting what was already
+ * copied by one char). Nothing is allocated per row or per cell for String values.
+ * {@link Kind} lets callers skip the scan where the column type rules special characters
+ * out (numbers, booleans, dates). Output is byte for byte what the per-row string encoder
+ * it replaced wrote: a cell is quoted exactly when it contains one of those chars.
+ */
+public final class CsvWriter implements Flushable, Closeable {
+
+    public enum Kind {
+        /** Quoted only when needed (scanned). */
+        TEXT,
+        /** Written as is: numbers, booleans, dates and timestamps never contain separators. */
+        PLAIN;
+
+        /** Kind for a Databricks type_name (null / unknown: TEXT). */
+        public static Kind of(String typeName) {
+            if (typeName == null) return TEXT;
+            return switch (typeName.toUpperCase(Locale.ROOT)) {
+                case "BYTE", "TINYINT", "SHORT", "SMALLINT", "INT", "INTEGER", "LONG", "BIGINT", "FLOAT", "DOUBLE",
+                     "DECIMAL", "BOOLEAN", "DATE", "TIMESTAMP", "TIMESTAMP_NTZ" -> PLAIN;
+                default -> TEXT; // including ARRAY / MAP / STRUCT (JSON text)
+            };
+        }
+    }
+
+    private final Writer out;
+    private char[] buf;
+    private int pos;
+    private boolean rowStart = true;
+
+    public CsvWriter(Writer out, int bufferChars) {
+        this.out = out;
+        this.buf = new char[Math.max(256, bufferChars)];
+    }
+
+    /** Next cell of the current row; null is written as an empty cell. */
+    public void cell(Object value, Kind kind) throws IOException {
+        if (!rowStart) put(',');
+        rowStart = false;
+        if (value == null) return;
+        if (value instanceof String s) {
+            if (kind == Kind.PLAIN) plain(s);
+            else text(s);
+        } else if (value instanceof Number || value instanceof Boolean) {
+            plain(value.toString());
+        } else {
+            text(String.valueOf(value));
+        }
+    }
+
+    public void endRow() throws IOException {
+        ensure(2);
+        buf[pos++] = '\r';
+        buf[pos++] = '\n';
+        rowStart = true;
+    }
+
+    /** Raw chars outside the cell structure (e.g. a BOM). */
+    public void raw(String s) throws IOException {
+        plain(s);
+    }
+
+    private void plain(String s) throws IOException {
+        int n = s.length();
+        ensure(n);
+        s.getChars(0, n, buf, pos);
+        pos += n;
+    }
+
+    private void text(String s) throws IOException {
+        int n = s.length();
+        ensure(2 * n + 2); // worst case: every char a quote, plus the enclosing quotes
+        int start = pos;
+        s.getChars(0, n, buf, start);
+        for (int i = 0; i < n; i++) {
+            char c = buf[start + i];
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                quoted(s, i, start);
+                return;
+            }
+        }
+        pos = start + n;
+    }
+
+    // Quoted cell: the first {@code from} chars (already at buf[start...]) need no escaping
+    private void quoted(String s, int from, int start) {
+        int n = s.length();
+        System.arraycopy(buf, start, buf, start + 1, from);
+        buf[start] = '"';
+        pos = start + 1 + from;
+        for (int i = from; i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '"') buf[pos++] = '"';
+            buf[pos++] = c;
+        }
+        buf[pos++] = '"';
+    }
+
+    private void put(char c) throws IOException {
+        ensure(1);
+        buf[pos++] = c;
+    }
+
+    private void ensure(int n) throws IOException {
+        if (buf.length - pos >= n) return;
+        drain();
+        if (buf.length < n) buf = new char[Math.max(n, buf.length * 2)];
+    }
+
+    private void drain() throws IOException {
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        drain();
+        out.close();
+    }
+}
@@ -3,6 +3,7 @@ package com.mm.customreportbuilder.util;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.CRC32;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
@@ -28,4 +29,114 @@ public final class GzipUtils {
             return baos.toByteArray();
         }
     }
-}
\ No newline at end of file
+
+    /* ====================== Spliceable members ====================== */
+
+    /**
+     * Gzip whose deflate data is sync-flushed before the (empty) final block, so it can be
+     * embedded in another gzip stream without recompressing; see {@link #wrap}. Readable by
+     * any gzip decoder like {@link #gzip} output.
+     */
+    public static byte[] gzipSpliceable(byte[] input) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (GZIPOutputStream gos = new GZIPOutputStream(baos, true)) {
+            gos.write(input);
+            gos.flush(); // SYNC_FLUSH: the data ends byte-aligned, followed only by the final block
+        }
+        return baos.toByteArray();
+    }
+
+    /** The deflate data of a spliceable member plus its CRC-32 and uncompressed size. */
+    public record Member(byte[] gz, int from, int to, long crc, long size) {}
+
+    /** Parses {@link #gzipSpliceable} output; null for any other layout (e.g. pages written by {@link #gzip}). */
+    public static Member member(byte[] gz) {
+        int n = gz == null ? 0 : gz.length;
+        if (n < 10 + 6 + 8) return null;
+        // Plain header (no name/comment/extra), sync flush marker 00 00 FF FF, then final empty block 03 00
+        if (gz[0] != (byte) 0x1f || gz[1] != (byte) 0x8b || gz[2] != 8 || gz[3] != 0) return null;
+        if (gz[n - 10] != 0x03 || gz[n - 9] != 0x00) return null;
+        if (gz[n - 14] != 0 || gz[n - 13] != 0 || gz[n - 12] != (byte) 0xff || gz[n - 11] != (byte) 0xff) return null;
+        return new Member(gz, 10, n - 10, readIntLE(gz, n - 8), readIntLE(gz, n - 4));
+    }
+
+    /** One gzip stream decoding to {@code prefix + body + suffix}; body bytes are copied, not inflated. */
+    public static byte[] wrap(byte[] prefix, Member body, byte[] suffix) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.to() - body.from() + prefix.length + suffix.length + 64);
+        out.write(new byte[] { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff }, 0, 10);
+        stored(out, prefix, false);
+        out.write(body.gz(), body.from(), body.to() - body.from());
+        stored(out, suffix, true);
+        long crc = crc32Combine(crc32Combine(crc32(prefix), body.crc(), body.size()), crc32(suffix), suffix.length);
+        writeIntLE(out, crc);
+        writeIntLE(out, prefix.length + body.size() + suffix.length);
+        return out.toByteArray();
+    }
+
+    // Uncompressed deflate blocks (at most 65535 bytes each); the stream is byte-aligned here
+    private static void stored(ByteArrayOutputStream out, byte[] data, boolean last) {
+        int off = 0;
+        do {
+            int len = Math.min(65535, data.length - off);
+            boolean fin = last && off + len == data.length;
+            out.write(fin ? 1 : 0);
+            out.write(len & 0xff);
+            out.write(len >>> 8);
+            out.write(~len & 0xff);
+            out.write((~len >>> 8) & 0xff);
+            out.write(data, off, len);
+            off += len;
+        } while (off < data.length);
+    }
+
+    private static long crc32(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return crc.getValue();
+    }
+
+    // zlib's crc32_combine: CRC of A+B from crc(A), crc(B) and len(B)
+    private static long crc32Combine(long crc1, long crc2, long len2) {
+        if (len2 <= 0) return crc1;
+        long[] even = new long[32];
+        long[] odd = new long[32];
+        odd[0] = 0xedb88320L;
+        long row = 1;
+        for (int i = 1; i < 32; i++) {
+            odd[i] = row;
+            row <<= 1;
+        }
+        gf2Square(even, odd);
+        gf2Square(odd, even);
+        do {
+            gf2Square(even, odd);
+            if ((len2 & 1) != 0) crc1 = gf2Times(even, crc1);
+            len2 >>= 1;
+            if (len2 == 0) break;
+            gf2Square(odd, even);
+            if ((len2 & 1) != 0) crc1 = gf2Times(odd, crc1);
+            len2 >>= 1;
+        } while (len2 != 0);
+        return crc1 ^ crc2;
+    }
+
+    private static long gf2Times(long[] mat, long vec) {
+        long sum = 0;
+        for (int i = 0; vec != 0; i++, vec >>>= 1) {
+            if ((vec & 1) != 0) sum ^= mat[i];
+        }
+        return sum;
+    }
+
+    private static void gf2Square(long[] square, long[] mat) {
+        for (int i = 0; i < 32; i++) square[i] = gf2Times(mat, mat[i]);
+    }
+
+    private static long readIntLE(byte[] b, int at) {
+        return (b[at] & 0xffL) | (b[at + 1] & 0xffL) << 8 | (b[at + 2] & 0xffL) << 16 | (b[at + 3] & 0xffL) << 24;
+    }
+
+    private static void writeIntLE(ByteArrayOutputStream out, long v) {
+        for (int shift = 0; shift < 32; shift += 8) out.write((int) (v >>> shift) & 0xff);
+    }
+}
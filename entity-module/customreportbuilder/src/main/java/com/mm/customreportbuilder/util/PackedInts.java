@@ -0,0 +1,108 @@
+package com.mm.customreportbuilder.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Delta + bit-packed encoding for int arrays (row-id permutations).
+ *
+ * Layout:
+ *   int   count
+ *   per block of BLOCK values:
+ *     byte  bitWidth
+ *     bytes zig-zag deltas (vs. previous value), packed LSB-first
+ *
+ * Ascending ids (filter-only views) pack to a few bits per value; shuffled
+ * ids (sorted views) still pack to ~log2(rowCount) bits instead of 32.
+ */
+public final class PackedInts {
+    private static final int BLOCK = 128;
+
+    private PackedInts() {}
+
+    public static byte[] encode(int[] values, int from, int to) {
+        int n = Math.max(0, to - from);
+        ByteBuffer buf = ByteBuffer.allocate(4 + ((n + BLOCK - 1) / BLOCK) * (1 + BLOCK * 5));
+        buf.putInt(n);
+
+        long[] deltas = new long[BLOCK];
+        int prev = 0;
+        for (int start = from; start < to; start += BLOCK) {
+            int len = Math.min(BLOCK, to - start);
+            long max = 0;
+            for (int i = 0; i < len; i++) {
+                int v = values[start + i];
+                long zz = zigZag((long) v - prev);
+                deltas[i] = zz;
+                max |= zz;
+                prev = v;
+            }
+            int bits = 64 - Long.numberOfLeadingZeros(max);
+            buf.put((byte) bits);
+            writeBits(buf, deltas, len, bits);
+        }
+
+        byte[] out = new byte[buf.position()];
+        buf.flip();
+        buf.get(out);
+        return out;
+    }
+
+    public static int[] decode(byte[] data) {
+        if (data == null || data.length < 4) return new int[0];
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        int n = buf.getInt();
+        int[] out = new int[n];
+
+        int prev = 0;
+        for (int start = 0; start < n; start += BLOCK) {
+            int len = Math.min(BLOCK, n - start);
+            int bits = buf.get() & 0xFF;
+            long acc = 0;
+            int accBits = 0;
+            long mask = bits == 64 ? -1L : (1L << bits) - 1;
+            for (int i = 0; i < len; i++) {
+                long v;
+                if (bits == 0) {
+                    v = 0;
+                } else {
+                    while (accBits < bits) {
+                        acc |= (long) (buf.get() & 0xFF) << accBits;
+                        accBits += 8;
+                    }
+                    v = acc & mask;
+                    acc >>>= bits;
+                    accBits -= bits;
+                }
+                prev = (int) (prev + unZigZag(v));
+                out[start + i] = prev;
+            }
+        }
+        return out;
+    }
+
+    private static void writeBits(ByteBuffer buf, long[] values, int len, int bits) {
+        if (bits == 0) return;
+        long acc = 0;
+        int accBits = 0;
+        for (int i = 0; i < len; i++) {
+            long v = values[i];
+            // bits <= 34 for int deltas, so acc never needs more than 41 bits
+            acc |= v << accBits;
+            accBits += bits;
+            while (accBits >= 8) {
+                buf.put((byte) acc);
+                acc >>>= 8;
+                accBits -= 8;
+            }
+        }
+        if (accBits > 0) buf.put((byte) acc);
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
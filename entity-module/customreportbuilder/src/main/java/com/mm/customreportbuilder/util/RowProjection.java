@@ -0,0 +1,80 @@
+package com.mm.customreportbuilder.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Column projection over stored pages (JSON array of row arrays).
+ *
+ * {@link #decode} streams the page and only materializes the requested cells;
+ * unrequested cells are tokenized but never turned into Strings/objects (the parser
+ * scans past string contents without decoding them). Cells past the last requested
+ * column skip the column lookup, but are still tokenized one by one: JSON has no way
+ * to find the end of a row without scanning it.
+ * Projected rows hold the requested columns in request order (null if the row is short).
+ */
+public final class RowProjection {
+    private RowProjection() {}
+
+    public static List<List<Object>> decode(ObjectMapper mapper, byte[] json, int[] columns) throws IOException {
+        int last = -1;
+        for (int c : columns) last = Math.max(last, c);
+        try (JsonParser p = mapper.createParser(json)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) throw new IOException("Expected a JSON array of rows");
+            List<List<Object>> rows = new ArrayList<>();
+            while (p.nextToken() == JsonToken.START_ARRAY) {
+                Object[] out = new Object[columns.length];
+                int pos = 0;
+                JsonToken t;
+                while ((t = p.nextToken()) != JsonToken.END_ARRAY) {
+                    if (pos > last || !isRequested(columns, pos)) {
+                        p.skipChildren(); // no-op for scalars
+                    } else {
+                        Object v = readValue(p, t);
+                        for (int k = 0; k < columns.length; k++) if (columns[k] == pos) out[k] = v;
+                    }
+                    pos++;
+                }
+                rows.add(Arrays.asList(out));
+            }
+            return rows;
+        }
+    }
+
+    /** Same projection over an already decoded row. */
+    public static List<Object> project(List<Object> row, int[] columns) {
+        Object[] out = new Object[columns.length];
+        for (int k = 0; k < columns.length; k++) {
+            out[k] = columns[k] < row.size() ? row.get(columns[k]) : null;
+        }
+        return Arrays.asList(out);
+    }
+
+    public static List<List<Object>> projectAll(List<List<Object>> rows, int[] columns) {
+        List<List<Object>> out = new ArrayList<>(rows.size());
+        for (List<Object> row : rows) out.add(project(row, columns));
+        return out;
+    }
+
+    private static boolean isRequested(int[] columns, int pos) {
+        for (int c : columns) if (c == pos) return true;
+        return false;
+    }
+
+    private static Object readValue(JsonParser p, JsonToken t) throws IOException {
+        return switch (t) {
+            case VALUE_STRING -> p.getText();
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> p.getNumberValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            case VALUE_NULL -> null;
+            default -> p.readValueAs(Object.class); // nested struct/array cells
+        };
+    }
+}
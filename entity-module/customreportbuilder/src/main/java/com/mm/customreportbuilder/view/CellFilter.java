@@ -0,0 +1,152 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * AG Grid column filter semantics for one cell, as the view engine applies them.
+ *
+ * Text is compared lower-cased with nulls as "", number comparisons fail on null
+ * or unparseable cells except inRange, which passes them, and null dates pass every
+ * date filter. Page skipping (PageStats, PageBlooms, BitmapIndex) and view refinement
+ * (FilterSubsumption) must never reject a row this accepts.
+ */
+public final class CellFilter {
+
+    private CellFilter() {}
+
+    /** True if {@code cell} passes {@code fd}; null descriptors, unknown filter types and operators pass. */
+    public static boolean matches(Object cell, FilterDescriptor fd) {
+        if (fd == null) return true;
+
+        // Compound
+        if (fd.isCompound()) {
+            boolean and = "AND".equalsIgnoreCase(fd.getOperator());
+            if (fd.getConditions() == null || fd.getConditions().isEmpty()) return true;
+            if (and) {
+                for (FilterDescriptor c : fd.getConditions()) {
+                    if (!matches(cell, c)) return false;
+                }
+                return true;
+            } else {
+                for (FilterDescriptor c : fd.getConditions()) {
+                    if (matches(cell, c)) return true;
+                }
+                return false;
+            }
+        }
+
+        String type = safeLower(fd.getType());
+        String filterType = safeLower(fd.getFilterType());
+
+        // Text filters
+        if ("text".equals(filterType)) {
+            String s = toStringOrNull(cell);
+            String q = fd.getFilter();
+            if (q == null) q = "";
+            String sL = s == null ? "" : s.toLowerCase(Locale.ROOT);
+            String qL = q.toLowerCase(Locale.ROOT);
+            return switch (type) {
+                case "contains" -> sL.contains(qL);
+                case "notcontains" -> !sL.contains(qL);
+                case "equals" -> sL.equals(qL);
+                case "notequals" -> !sL.equals(qL);
+                case "startswith" -> sL.startsWith(qL);
+                case "endswith" -> sL.endsWith(qL);
+                default -> true; // unknown -> pass
+            };
+        }
+
+        // Number filters
+        if ("number".equals(filterType)) {
+            BigDecimal n = toNumber(cell);
+            BigDecimal a = toNumber(fd.getFilter());
+            BigDecimal b = toNumber(fd.getFilterTo());
+            int cmp = (n == null || a == null) ? Integer.MIN_VALUE : n.compareTo(a);
+            return switch (type) {
+                case "equals" -> n != null && a != null && cmp == 0;
+                case "notequals" -> n != null && a != null && cmp != 0;
+                case "greaterthan" -> n != null && a != null && cmp > 0;
+                case "greaterthanequal" -> n != null && a != null && cmp >= 0;
+                case "lessthan" -> n != null && a != null && cmp < 0;
+                case "lessthanequal" -> n != null && a != null && cmp <= 0;
+                case "inrange" -> {
+                    if (n == null || a == null || b == null) yield true;
+                    int c1 = n.compareTo(a);
+                    int c2 = n.compareTo(b);
+                    yield (c1 >= 0 && c2 <= 0);
+                }
+                default -> true;
+            };
+        }
+
+        // Set filters: hashed membership; no values list means nothing was deselected
+        if ("set".equals(filterType)) {
+            return fd.getValues() == null || fd.containsValue(cell);
+        }
+
+        // Date filters (expects "yyyy-MM-dd" or ISO-like strings)
+        if ("date".equals(filterType)) {
+            LocalDate d = toDate(cell);
+            LocalDate a = toDate(fd.getDateFrom() != null ? fd.getDateFrom() : fd.getFilter());
+            LocalDate b = toDate(fd.getDateTo());
+            if (d == null || a == null) return true;
+            return switch (type) {
+                case "equals" -> d.isEqual(a);
+                case "notequals" -> !d.isEqual(a);
+                case "greaterthan" -> d.isAfter(a);
+                case "greaterthanequal" -> !d.isBefore(a);
+                case "lessthan" -> d.isBefore(a);
+                case "lessthanequal" -> !d.isAfter(a);
+                case "inrange" -> (b != null) ? (!d.isBefore(a) && !d.isAfter(b)) : true;
+                default -> true;
+            };
+        }
+
+        // Unknown filter types pass
+        return true;
+    }
+
+    private static String safeLower(String s) {
+        return s == null ? null : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static String toStringOrNull(Object o) {
+        if (o == null) return null;
+        return String.valueOf(o);
+    }
+
+    private static BigDecimal toNumber(Object o) {
+        if (o == null) return null;
+        try {
+            if (o instanceof BigDecimal bd) return bd;
+            if (o instanceof Integer i) return new BigDecimal(i);
+            if (o instanceof Long l) return new BigDecimal(l);
+            if (o instanceof Double d) return BigDecimal.valueOf(d);
+            if (o instanceof Float f) return BigDecimal.valueOf(f.doubleValue());
+            String s = String.valueOf(o).replaceAll(",", "").trim();
+            if (s.isEmpty() || "null".equalsIgnoreCase(s)) return null;
+            return new BigDecimal(s);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static LocalDate toDate(Object o) {
+        if (o == null) return null;
+        String s = String.valueOf(o).trim();
+        if (s.isEmpty() || "null".equalsIgnoreCase(s)) return null;
+        try {
+            if (s.length() >= 10) {
+                return LocalDate.parse(s.substring(0, 10), DATE_FMT);
+            }
+        } catch (Exception ignore) {}
+        return null;
+    }
+}
@@ -0,0 +1,399 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+
+import java.util.*;
+import java.util.function.BiPredicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Column-major, dictionary-encoded row store for view builds and aggregation.
+ *
+ * Each column is an int[] of dictionary codes over the distinct cell values of that
+ * column (NULL / ABSENT mark null cells and rows too short to have the column), so a
+ * batch of n rows costs n ints per column instead of one List per row. Everything
+ * the engine derives from a cell (filter outcome, sort order, numeric value) is
+ * computed once per dictionary entry and then looked up by code. Rows are only
+ * materialized again when pages of a view are stored or returned.
+ *
+ * A column with more than {@link #MAX_DICTIONARY} distinct values (ids, timestamps) is
+ * not worth a hash lookup per cell: from then on it is stored plain, every value getting
+ * an entry of its own. Its dictionary may then hold a value more than once, which per-code
+ * consumers (ranks, numbers, aggregation) handle like any other pair of equal values.
+ */
+public final class ColumnarBatch {
+
+    public static final int NULL = -1;
+    public static final int ABSENT = -2;
+
+    /** Distinct values a column dictionary-encodes before it falls back to plain storage. */
+    public static final int MAX_DICTIONARY = 1 << 16;
+
+    /** One filter on one column (a column may carry several, like in the filter model). */
+    public record ColumnFilter(int column, FilterDescriptor filter) {}
+
+    public record SortKey(int column, boolean asc) {}
+
+    private final int[][] codes;      // [column][row]
+    private final Object[][] dicts;   // [column][code]
+    private final int[] rowIds;       // base row ids (-1 when unknown)
+    private final int size;
+
+    private ColumnarBatch(int[][] codes, Object[][] dicts, int[] rowIds, int size) {
+        this.codes = codes;
+        this.dicts = dicts;
+        this.rowIds = rowIds;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int columnCount() {
+        return codes.length;
+    }
+
+    public int rowId(int row) {
+        return rowIds[row];
+    }
+
+    public int code(int column, int row) {
+        return column < codes.length ? codes[column][row] : ABSENT;
+    }
+
+    public int dictionarySize(int column) {
+        return column < dicts.length ? dicts[column].length : 0;
+    }
+
+    /** Cell value for a code (null for NULL / ABSENT). */
+    public Object value(int column, int code) {
+        return code < 0 ? null : dicts[column][code];
+    }
+
+    /** Rebuilds the row as the engine stores it (trailing absent cells dropped). */
+    public List<Object> row(int row) {
+        int width = codes.length;
+        while (width > 0 && codes[width - 1][row] == ABSENT) width--;
+        Object[] out = new Object[width];
+        for (int c = 0; c < width; c++) out[c] = value(c, codes[c][row]);
+        return Arrays.asList(out);
+    }
+
+    /** Per-code numeric value of a column (NaN where {@code parse} finds no number). */
+    public double[] numbers(int column, ToDoubleFunction<Object> parse) {
+        Object[] dict = dicts[column];
+        double[] out = new double[dict.length];
+        for (int k = 0; k < dict.length; k++) out[k] = parse.applyAsDouble(dict[k]);
+        return out;
+    }
+
+    /**
+     * Sort rank per code under {@code cellCompare}: equal ranks for values the comparator
+     * considers equal, so sorting by rank is the same (stable) order as sorting the rows.
+     * NULL and ABSENT rank after every value, matching the engine's nulls-last compare.
+     */
+    public int[] ranks(int column, Comparator<Object> cellCompare) {
+        Object[] dict = dicts[column];
+        Integer[] byValue = new Integer[dict.length];
+        for (int k = 0; k < dict.length; k++) byValue[k] = k;
+        Arrays.sort(byValue, (a, b) -> cellCompare.compare(dict[a], dict[b]));
+        int[] rank = new int[dict.length];
+        int r = 0;
+        for (int i = 0; i < byValue.length; i++) {
+            if (i > 0 && cellCompare.compare(dict[byValue[i - 1]], dict[byValue[i]]) != 0) r++;
+            rank[byValue[i]] = r;
+        }
+        return rank;
+    }
+
+    /**
+     * Sort of all rows by {@code keys}; returns row positions in order. Ties keep base row
+     * order when every row has a base row id (rows collected from a differently sorted
+     * view), otherwise the order the rows were added in.
+     *
+     * Each row's key is normalized once into a long: per sort column the dictionary rank
+     * (NULL / ABSENT after every value, flipped for descending columns), packed with the
+     * first column in the high bits and the row's tie rank in the low bits. Sorting is then
+     * an LSD radix sort over those longs, and the tie rank makes it stable. If the columns
+     * do not all fit next to the tie rank, the long carries the leading ones and runs with
+     * an equal prefix are finished by comparing the remaining ranks.
+     */
+    public int[] order(List<SortKey> keys, Comparator<Object> cellCompare) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        if (keys.isEmpty() || size < 2) return order;
+
+        int n = keys.size();
+        int[][] rowRanks = new int[n][];
+        int[] bits = new int[n];
+        for (int k = 0; k < n; k++) {
+            SortKey key = keys.get(k);
+            int column = key.column();
+            int[] rank = column < codes.length ? ranks(column, cellCompare) : new int[0];
+            int nullRank = 0;
+            for (int r : rank) nullRank = Math.max(nullRank, r + 1);
+            int[] col = column < codes.length ? codes[column] : null;
+            int[] perRow = new int[size];
+            for (int i = 0; i < size; i++) {
+                int v = col == null || col[i] < 0 ? nullRank : rank[col[i]];
+                perRow[i] = key.asc() ? v : nullRank - v;
+            }
+            rowRanks[k] = perRow;
+            bits[k] = 32 - Integer.numberOfLeadingZeros(nullRank);
+        }
+
+        // Leading columns that fit next to the tie rank (the first one always does)
+        int positionBits = 32 - Integer.numberOfLeadingZeros(size - 1);
+        int[] byRowId = positionsByRowId(positionBits);
+        int[] tieRank = null;
+        if (byRowId != null) {
+            tieRank = new int[size];
+            for (int t = 0; t < size; t++) tieRank[byRowId[t]] = t;
+        }
+        int prefixColumns = 0;
+        int prefixBits = 0;
+        while (prefixColumns < n && prefixBits + bits[prefixColumns] + positionBits <= 64) {
+            prefixBits += bits[prefixColumns++];
+        }
+        long[] packed = new long[size];
+        for (int i = 0; i < size; i++) {
+            long p = 0;
+            for (int k = 0; k < prefixColumns; k++) p = (p << bits[k]) | rowRanks[k][i];
+            packed[i] = (p << positionBits) | (tieRank == null ? i : tieRank[i]);
+        }
+        Sorts.radixSort(packed, prefixBits + positionBits);
+        long positionMask = (1L << positionBits) - 1;
+        for (int i = 0; i < size; i++) {
+            int t = (int) (packed[i] & positionMask);
+            order[i] = byRowId == null ? t : byRowId[t];
+        }
+        if (prefixColumns == n) return order;
+
+        final int first = prefixColumns;
+        IntComparator rest = (a, b) -> {
+            for (int k = first; k < n; k++) {
+                int c = Integer.compare(rowRanks[k][a], rowRanks[k][b]);
+                if (c != 0) return c;
+            }
+            return 0;
+        };
+        int from = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i < size && packed[i] >>> positionBits == packed[from] >>> positionBits) continue;
+            if (i - from > 1) Sorts.stableSort(order, from, i, rest);
+            from = i;
+        }
+        return order;
+    }
+
+    // Row positions in base row id order; null if ids are unknown or already ascending (positions are that order)
+    private int[] positionsByRowId(int positionBits) {
+        boolean ascending = true;
+        for (int i = 0; i < size; i++) {
+            if (rowIds[i] < 0) return null;
+            if (i > 0 && rowIds[i] <= rowIds[i - 1]) ascending = false;
+        }
+        if (ascending) return null;
+        long[] keyed = new long[size];
+        for (int i = 0; i < size; i++) keyed[i] = ((long) rowIds[i] << positionBits) | i;
+        Sorts.radixSort(keyed, 31 + positionBits);
+        long positionMask = (1L << positionBits) - 1;
+        int[] byRowId = new int[size];
+        for (int t = 0; t < size; t++) byRowId[t] = (int) (keyed[t] & positionMask);
+        return byRowId;
+    }
+
+    /* ====================== Build ====================== */
+
+    public static final class Builder {
+        private final int columns;
+        private final ColumnFilter[] filters;
+        private final BiPredicate<Object, FilterDescriptor> eval;
+        private final List<Map<Object, Integer>> lookup = new ArrayList<>(); // null once the column is plain
+        private final List<List<Object>> values = new ArrayList<>();
+        private final byte[][] memo;          // [filter][code]: 0 unknown, 1 pass, 2 fail
+        private final byte[] nullMemo;        // [filter]
+        private final List<Set<Object>> rejected = new ArrayList<>(); // [filter]: values failing it, never coded
+        private int[][] codes;
+        private int[] rowIds;
+        private int size;
+
+        /**
+         * @param filters rows offered via {@link #offer} must pass all of these ({@code eval}
+         *                decides a single cell); a row too short for a filtered column passes it
+         */
+        public Builder(int columns, int capacity, List<ColumnFilter> filters, BiPredicate<Object, FilterDescriptor> eval) {
+            this.columns = columns;
+            this.filters = filters == null ? new ColumnFilter[0] : filters.toArray(new ColumnFilter[0]);
+            this.eval = eval;
+            int cap = Math.max(16, capacity);
+            this.codes = new int[columns][cap];
+            this.rowIds = new int[cap];
+            for (int c = 0; c < columns; c++) {
+                lookup.add(new HashMap<>());
+                values.add(new ArrayList<>());
+            }
+            this.memo = new byte[this.filters.length][];
+            for (int f = 0; f < memo.length; f++) memo[f] = new byte[16];
+            this.nullMemo = new byte[this.filters.length];
+            for (int f = 0; f < this.filters.length; f++) rejected.add(new HashSet<>());
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Adds the row if it passes the filters. Each filter runs once per distinct value of a
+         * dictionary-encoded column (passing values by code, failing ones in a per-filter set,
+         * since rejected values are not added to the dictionaries); on plain columns it runs per cell.
+         */
+        public boolean offer(List<Object> row, int rowId) {
+            for (int f = 0; f < filters.length; f++) {
+                int c = filters[f].column();
+                if (c >= row.size()) continue;
+                Object v = row.get(c);
+                if (v == null) {
+                    if (nullMemo[f] == 0) nullMemo[f] = eval.test(null, filters[f].filter()) ? (byte) 1 : (byte) 2;
+                    if (nullMemo[f] == 2) return false;
+                    continue;
+                }
+                Map<Object, Integer> dict = c < columns ? lookup.get(c) : null;
+                Integer code = dict != null ? dict.get(v) : null;
+                if (code == null) {
+                    Set<Object> failing = rejected.get(f);
+                    if (dict != null && failing.contains(v)) return false;
+                    if (!eval.test(v, filters[f].filter())) {
+                        if (dict != null && failing.size() < MAX_DICTIONARY) failing.add(v);
+                        return false;
+                    }
+                    continue; // memoized once the row is added
+                }
+                byte m = code < memo[f].length ? memo[f][code] : 0;
+                if (m == 0) {
+                    m = eval.test(v, filters[f].filter()) ? (byte) 1 : (byte) 2;
+                    remember(f, code, m);
+                }
+                if (m == 2) return false;
+            }
+            int r = append(row, rowId);
+            for (int f = 0; f < filters.length; f++) {
+                int c = filters[f].column();
+                if (c < columns && codes[c][r] >= 0 && lookup.get(c) != null) remember(f, codes[c][r], (byte) 1);
+            }
+            return true;
+        }
+
+        /** Adds the row unconditionally (it is already known to pass). */
+        public int append(List<Object> row, int rowId) {
+            if (size == rowIds.length) grow();
+            int r = size++;
+            rowIds[r] = rowId;
+            for (int c = 0; c < columns; c++) {
+                if (c >= row.size()) {
+                    codes[c][r] = ABSENT;
+                    continue;
+                }
+                Object v = row.get(c);
+                if (v == null) {
+                    codes[c][r] = NULL;
+                    continue;
+                }
+                Map<Object, Integer> dict = lookup.get(c);
+                List<Object> column = values.get(c);
+                Integer code = dict == null ? null : dict.get(v);
+                if (code == null) {
+                    code = column.size();
+                    column.add(v);
+                    if (dict != null) {
+                        dict.put(v, code);
+                        if (dict.size() > MAX_DICTIONARY) lookup.set(c, null); // plain from here on
+                    }
+                }
+                codes[c][r] = code;
+            }
+            return r;
+        }
+
+        public ColumnarBatch build() {
+            Object[][] dicts = new Object[columns][];
+            int[][] trimmed = new int[columns][];
+            for (int c = 0; c < columns; c++) {
+                dicts[c] = values.get(c).toArray();
+                trimmed[c] = Arrays.copyOf(codes[c], size);
+            }
+            return new ColumnarBatch(trimmed, dicts, Arrays.copyOf(rowIds, size), size);
+        }
+
+        private void remember(int f, int code, byte m) {
+            if (code >= memo[f].length) memo[f] = Arrays.copyOf(memo[f], Math.max(code + 1, memo[f].length * 2));
+            memo[f][code] = m;
+        }
+
+        private void grow() {
+            int cap = rowIds.length * 2;
+            rowIds = Arrays.copyOf(rowIds, cap);
+            for (int c = 0; c < columns; c++) codes[c] = Arrays.copyOf(codes[c], cap);
+        }
+    }
+
+    /* ====================== Primitive sorting ====================== */
+
+    /** Comparator over int positions (no boxing). */
+    public interface IntComparator {
+        int compare(int a, int b);
+    }
+
+    static final class Sorts {
+        private Sorts() {}
+
+        /** LSD radix sort (8 bits per pass) of the low {@code keyBits} bits, as unsigned values. */
+        static void radixSort(long[] a, int keyBits) {
+            long[] buf = new long[a.length];
+            int[] count = new int[257];
+            for (int shift = 0; shift < keyBits; shift += 8) {
+                Arrays.fill(count, 0);
+                for (long v : a) count[(int) (v >>> shift & 0xFF) + 1]++;
+                if (count[(int) (a[0] >>> shift & 0xFF) + 1] == a.length) continue; // digit is constant
+                for (int d = 0; d < 256; d++) count[d + 1] += count[d];
+                for (long v : a) buf[count[(int) (v >>> shift & 0xFF)]++] = v;
+                System.arraycopy(buf, 0, a, 0, a.length);
+            }
+        }
+
+        /** Stable merge sort of {@code a[from, to)} (insertion sort for short runs). */
+        static void stableSort(int[] a, int from, int to, IntComparator cmp) {
+            int[] run = Arrays.copyOfRange(a, from, to);
+            mergeSort(run.clone(), run, 0, run.length, cmp);
+            System.arraycopy(run, 0, a, from, run.length);
+        }
+
+        private static void mergeSort(int[] src, int[] dst, int from, int to, IntComparator cmp) {
+            int n = to - from;
+            if (n < 32) {
+                for (int i = from + 1; i < to; i++) {
+                    int v = dst[i];
+                    int j = i - 1;
+                    while (j >= from && cmp.compare(dst[j], v) > 0) {
+                        dst[j + 1] = dst[j];
+                        j--;
+                    }
+                    dst[j + 1] = v;
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(dst, src, from, mid, cmp);
+            mergeSort(dst, src, mid, to, cmp);
+            if (cmp.compare(src[mid - 1], src[mid]) <= 0) {
+                System.arraycopy(src, from, dst, from, n);
+                return;
+            }
+            for (int i = from, p = from, q = mid; i < to; i++) {
+                if (q >= to || (p < mid && cmp.compare(src[p], src[q]) <= 0)) dst[i] = src[p++];
+                else dst[i] = src[q++];
+            }
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Decides whether one AG Grid filter model implies another, i.e. every row that
+ * passes the narrower model also passes the wider one. Used to derive a new view
+ * from an already cached (smaller) view instead of rescanning the base pages.
+ *
+ * The check is conservative: "false" only means "could not prove it", never
+ * "the filters are disjoint". It mirrors the row semantics of the view engine
+ * (case-insensitive text, nulls treated as "" for text, null dates pass, number
+ * inRange passes nulls).
+ */
+public final class FilterSubsumption {
+
+    private FilterSubsumption() {}
+
+    /** True if rows matching {@code narrower} are guaranteed to match {@code wider}. */
+    public static boolean implies(Map<String, FilterDescriptor> narrower, Map<String, FilterDescriptor> wider) {
+        if (wider == null || wider.isEmpty()) return true;
+        if (narrower == null || narrower.isEmpty()) return false;
+        for (Map.Entry<String, FilterDescriptor> w : wider.entrySet()) {
+            FilterDescriptor n = narrower.get(w.getKey());
+            if (n == null || !cellImplies(n, w.getValue())) return false;
+        }
+        return true;
+    }
+
+    static boolean cellImplies(FilterDescriptor n, FilterDescriptor w) {
+        if (w == null) return true;
+        if (n == null) return false;
+        if (sameDescriptor(n, w)) return true;
+
+        // Split compounds: AND on the left / OR on the right only need one witness
+        if (n.isCompound() && isAnd(n)) {
+            for (FilterDescriptor c : n.getConditions()) if (cellImplies(c, w)) return true;
+        }
+        if (w.isCompound() && !isAnd(w)) {
+            for (FilterDescriptor c : w.getConditions()) if (cellImplies(n, c)) return true;
+        }
+        // ...AND on the right / OR on the left need every branch
+        if (w.isCompound() && isAnd(w)) {
+            return allImplied(n, w.getConditions());
+        }
+        if (n.isCompound() && !isAnd(n)) {
+            for (FilterDescriptor c : n.getConditions()) if (!cellImplies(c, w)) return false;
+            return true;
+        }
+        if (n.isCompound() || w.isCompound()) return false;
+
+        String ft = lower(n.getFilterType());
+        if (ft == null || !ft.equals(lower(w.getFilterType()))) return false;
+        return switch (ft) {
+            case "text" -> textImplies(n, w);
+            case "number" -> numberImplies(n, w);
+            case "date" -> dateImplies(n, w);
+            case "set" -> setImplies(n, w);
+            default -> false;
+        };
+    }
+
+    private static boolean allImplied(FilterDescriptor n, List<FilterDescriptor> ws) {
+        for (FilterDescriptor c : ws) if (!cellImplies(n, c)) return false;
+        return true;
+    }
+
+    // ---------------- Text ----------------
+
+    private static boolean textImplies(FilterDescriptor n, FilterDescriptor w) {
+        String nt = lower(n.getType());
+        String wt = lower(w.getType());
+        if (nt == null || wt == null) return false;
+        String a = textValue(n);
+        String b = textValue(w);
+        return switch (nt) {
+            case "equals" -> switch (wt) {
+                case "equals" -> a.equals(b);
+                case "notequals" -> !a.equals(b);
+                case "contains" -> a.contains(b);
+                case "notcontains" -> !a.contains(b);
+                case "startswith" -> a.startsWith(b);
+                case "endswith" -> a.endsWith(b);
+                default -> false;
+            };
+            case "contains" -> "contains".equals(wt) && a.contains(b);
+            case "startswith" -> ("startswith".equals(wt) && a.startsWith(b)) || ("contains".equals(wt) && a.contains(b));
+            case "endswith" -> ("endswith".equals(wt) && a.endsWith(b)) || ("contains".equals(wt) && a.contains(b));
+            case "notcontains" -> ("notcontains".equals(wt) || "notequals".equals(wt)) && b.contains(a);
+            case "notequals" -> "notequals".equals(wt) && a.equals(b);
+            default -> false;
+        };
+    }
+
+    private static String textValue(FilterDescriptor fd) {
+        return fd.getFilter() == null ? "" : fd.getFilter().toLowerCase(Locale.ROOT);
+    }
+
+    // ---------------- Set ----------------
+
+    private static boolean setImplies(FilterDescriptor n, FilterDescriptor w) {
+        if (w.getValues() == null) return true;
+        if (n.getValues() == null) return false;
+        return new java.util.HashSet<>(w.getValues()).containsAll(n.getValues());
+    }
+
+    // ---------------- Number ----------------
+
+    private static boolean numberImplies(FilterDescriptor n, FilterDescriptor w) {
+        Range<BigDecimal> rn = numberRange(n);
+        Range<BigDecimal> rw = numberRange(w);
+        if (rn == null || rw == null) return false;
+        return rn.within(rw);
+    }
+
+    private static Range<BigDecimal> numberRange(FilterDescriptor fd) {
+        String t = lower(fd.getType());
+        BigDecimal a = toNumber(fd.getFilter());
+        BigDecimal b = toNumber(fd.getFilterTo());
+        if (t == null || a == null) return null;
+        return switch (t) {
+            case "equals" -> new Range<>(a, true, a, true, false);
+            case "greaterthan" -> new Range<>(a, false, null, false, false);
+            case "greaterthanequal" -> new Range<>(a, true, null, false, false);
+            case "lessthan" -> new Range<>(null, false, a, false, false);
+            case "lessthanequal" -> new Range<>(null, false, a, true, false);
+            // inRange lets null/unparseable cells through (see the view engine)
+            case "inrange" -> b == null ? null : new Range<>(a, true, b, true, true);
+            default -> null;
+        };
+    }
+
+    // ---------------- Date ----------------
+
+    private static boolean dateImplies(FilterDescriptor n, FilterDescriptor w) {
+        Range<LocalDate> rn = dateRange(n);
+        Range<LocalDate> rw = dateRange(w);
+        if (rn == null || rw == null) return false;
+        return rn.within(rw);
+    }
+
+    private static Range<LocalDate> dateRange(FilterDescriptor fd) {
+        String t = lower(fd.getType());
+        LocalDate a = toDate(fd.getDateFrom() != null ? fd.getDateFrom() : fd.getFilter());
+        LocalDate b = toDate(fd.getDateTo());
+        if (t == null || a == null) return null;
+        // Null dates pass every date filter, so all date ranges include nulls
+        return switch (t) {
+            case "equals" -> new Range<>(a, true, a, true, true);
+            case "greaterthan" -> new Range<>(a, false, null, false, true);
+            case "greaterthanequal" -> new Range<>(a, true, null, false, true);
+            case "lessthan" -> new Range<>(null, false, a, false, true);
+            case "lessthanequal" -> new Range<>(null, false, a, true, true);
+            case "inrange" -> b == null ? new Range<>(null, false, null, false, true) : new Range<>(a, true, b, true, true);
+            default -> null;
+        };
+    }
+
+    /** Interval with optional open ends; {@code nulls} = whether null cells pass. */
+    private record Range<T extends Comparable<? super T>>(T lo, boolean loInc, T hi, boolean hiInc, boolean nulls) {
+        boolean within(Range<T> o) {
+            if (nulls && !o.nulls) return false;
+            if (o.lo != null) {
+                if (lo == null) return false;
+                int c = lo.compareTo(o.lo);
+                if (c < 0 || (c == 0 && loInc && !o.loInc)) return false;
+            }
+            if (o.hi != null) {
+                if (hi == null) return false;
+                int c = hi.compareTo(o.hi);
+                if (c > 0 || (c == 0 && hiInc && !o.hiInc)) return false;
+            }
+            return true;
+        }
+    }
+
+    // ---------------- Helpers ----------------
+
+    private static boolean isAnd(FilterDescriptor fd) {
+        return "AND".equalsIgnoreCase(fd.getOperator());
+    }
+
+    private static boolean sameDescriptor(FilterDescriptor a, FilterDescriptor b) {
+        if (a.isCompound() || b.isCompound()) {
+            if (!a.isCompound() || !b.isCompound()) return false;
+            if (!Objects.equals(lower(a.getOperator()), lower(b.getOperator()))) return false;
+            if (a.getConditions().size() != b.getConditions().size()) return false;
+            for (int i = 0; i < a.getConditions().size(); i++) {
+                if (!sameDescriptor(a.getConditions().get(i), b.getConditions().get(i))) return false;
+            }
+            return true;
+        }
+        return Objects.equals(lower(a.getFilterType()), lower(b.getFilterType()))
+                && Objects.equals(lower(a.getType()), lower(b.getType()))
+                && Objects.equals(a.getFilter(), b.getFilter())
+                && Objects.equals(a.getFilterTo(), b.getFilterTo())
+                && Objects.equals(a.getDateFrom(), b.getDateFrom())
+                && Objects.equals(a.getDateTo(), b.getDateTo())
+                && Objects.equals(a.getValues(), b.getValues());
+    }
+
+    private static String lower(String s) {
+        return s == null ? null : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static BigDecimal toNumber(String s) {
+        if (s == null) return null;
+        try {
+            String t = s.replaceAll(",", "").trim();
+            if (t.isEmpty() || "null".equalsIgnoreCase(t)) return null;
+            return new BigDecimal(t);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static LocalDate toDate(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        if (t.length() < 10) return null;
+        try {
+            return LocalDate.parse(t.substring(0, 10));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
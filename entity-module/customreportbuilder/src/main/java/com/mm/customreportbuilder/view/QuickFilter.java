@@ -0,0 +1,70 @@
+package com.mm.customreportbuilder.view;
+
+import java.util.*;
+
+/**
+ * AG Grid quick filter ("search all columns") semantics on the server.
+ *
+ * The search text is lower-cased and split on whitespace; a row passes when every
+ * term is contained in its row text (all cells lower-cased, joined by newlines),
+ * which is what the grid does client-side. Terms are de-duplicated and sorted so
+ * "b a" and "a  b" share one view signature.
+ */
+public final class QuickFilter {
+
+    private QuickFilter() {}
+
+    /** Canonical terms of a quick filter; empty when there is nothing to search for. */
+    public static List<String> terms(String quickFilter) {
+        if (quickFilter == null || quickFilter.isBlank()) return List.of();
+        TreeSet<String> terms = new TreeSet<>();
+        for (String t : quickFilter.toLowerCase(Locale.ROOT).trim().split("\\s+")) {
+            if (!t.isEmpty()) terms.add(t);
+        }
+        return List.copyOf(terms);
+    }
+
+    /** Canonical form used in view signatures and the view catalog; null when empty. */
+    public static String normalize(String quickFilter) {
+        List<String> terms = terms(quickFilter);
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    public static String rowText(List<Object> row) {
+        StringBuilder sb = new StringBuilder();
+        for (Object cell : row) {
+            if (cell == null) continue;
+            if (sb.length() > 0) sb.append('\n');
+            sb.append(String.valueOf(cell).toLowerCase(Locale.ROOT));
+        }
+        return sb.toString();
+    }
+
+    public static boolean matches(List<Object> row, List<String> terms) {
+        if (terms == null || terms.isEmpty()) return true;
+        String text = rowText(row);
+        for (String t : terms) {
+            if (!text.contains(t)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if every row passing {@code terms} also passes {@code cachedTerms}: each cached
+     * term is a substring of one of ours (a row containing "acme" contains "acm").
+     */
+    public static boolean implies(List<String> terms, List<String> cachedTerms) {
+        if (cachedTerms == null || cachedTerms.isEmpty()) return true;
+        for (String c : cachedTerms) {
+            boolean covered = false;
+            for (String t : terms) {
+                if (t.contains(c)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,346 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import com.mm.customreportbuilder.model.aggrid.SortModelEntry;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Translates an AG Grid sort/filter model into Spark SQL wrapped around the
+ * original compiled statement:
+ *
+ *   SELECT * FROM ( <original> ) AS v WHERE ... ORDER BY ...
+ *
+ * Values never get inlined: every literal becomes a named parameter (:p0, :p1, ...)
+ * sent through the Statement Execution API. Column references are validated against
+ * the statement's own columns and backtick-quoted.
+ *
+ * The predicates mirror the in-memory view engine: text is case-insensitive with
+ * nulls treated as "", null dates pass date filters, number inRange passes nulls,
+ * nulls sort last ascending / first descending.
+ *
+ * The engine compares cells as numbers, then as dates (day only), then as text, so only
+ * sorts on columns typed numeric or DATE order the same in SQL (see isSortTranslatable).
+ * Ties are broken by the remaining columns, which makes a re-run return the same order;
+ * the engine keeps ties in base row order instead, so tied rows of a pushed-down view may
+ * come in another order than those of an in-memory build with the same signature.
+ */
+public final class SparkSqlViewRewriter {
+
+    private static final Set<String> SORTABLE_TYPES = Set.of(
+            "BYTE", "SHORT", "INT", "INTEGER", "LONG", "BIGINT", "FLOAT", "DOUBLE", "DECIMAL", "DATE");
+
+    private SparkSqlViewRewriter() {}
+
+    public record Rewritten(String sql, List<Map<String, Object>> parameters) {}
+
+    /**
+     * @param columns   the statement's column names (in order)
+     * @param typeNames column name -> Databricks type_name (may be empty)
+     * @throws IllegalArgumentException if the sort model is not translatable (see isSortTranslatable)
+     */
+    public static Rewritten rewrite(String baseSql,
+                                    List<SortModelEntry> sortModel,
+                                    Map<String, FilterDescriptor> filterModel,
+                                    List<String> columns,
+                                    Map<String, String> typeNames) {
+        String inner = baseSql.trim();
+        if (inner.endsWith(";")) inner = inner.substring(0, inner.length() - 1).trim();
+
+        Params params = new Params();
+        List<String> predicates = new ArrayList<>();
+        if (filterModel != null) {
+            for (Map.Entry<String, FilterDescriptor> e : filterModel.entrySet()) {
+                String col = resolveColumn(e.getKey(), columns);
+                if (col == null) continue; // unknown column => ignored, like the in-memory engine
+                predicates.add(predicate(colRef(col), e.getValue(), params));
+            }
+        }
+
+        List<String> orderBy = new ArrayList<>();
+        Set<String> sorted = new HashSet<>();
+        if (sortModel != null) {
+            for (SortModelEntry s : sortModel) {
+                String col = resolveColumn(s.getColId(), columns);
+                if (col == null || !sorted.add(col)) continue;
+                String type = typeNames == null ? null : typeNames.get(col);
+                if (!isSortable(type)) {
+                    throw new IllegalArgumentException("Sort on " + col + " (" + type + ") is not translatable to SQL");
+                }
+                orderBy.add(colRef(col) + (s.isAsc() ? " ASC NULLS LAST" : " DESC NULLS FIRST"));
+            }
+        }
+        if (!orderBy.isEmpty()) {
+            for (String col : columns) {
+                if (sorted.contains(col)) continue;
+                String type = typeNames == null ? null : typeNames.get(col);
+                String expr = isSortable(type) ? colRef(col) : "CAST(" + colRef(col) + " AS STRING)";
+                orderBy.add(expr + " ASC NULLS LAST");
+            }
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM (\n").append(inner).append("\n) AS v");
+        if (!predicates.isEmpty()) sql.append("\nWHERE ").append(String.join("\n  AND ", predicates));
+        if (!orderBy.isEmpty()) sql.append("\nORDER BY ").append(String.join(", ", orderBy));
+        return new Rewritten(sql.toString(), params.list);
+    }
+
+    /** True if every filter entry can be expressed in SQL (unknown filter types make the planner stay in memory). */
+    public static boolean isTranslatable(Map<String, FilterDescriptor> filterModel) {
+        if (filterModel == null) return true;
+        for (FilterDescriptor fd : filterModel.values()) {
+            if (!translatable(fd)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if SQL orders the sort model as the view engine does: every sorted column is typed numeric
+     * or DATE. The engine compares text cells that parse as numbers or dates as such, and timestamps by
+     * day only, neither of which an ORDER BY on the column can reproduce.
+     */
+    public static boolean isSortTranslatable(List<SortModelEntry> sortModel, List<String> columns, Map<String, String> typeNames) {
+        if (sortModel == null) return true;
+        for (SortModelEntry s : sortModel) {
+            String col = resolveColumn(s.getColId(), columns);
+            if (col != null && !isSortable(typeNames == null ? null : typeNames.get(col))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * True if the wrapped statement reads the same rows as the original on its own. A LIMIT
+     * (SafeSqlPolicy appends one to unordered statements) lets the warehouse return any n rows,
+     * so a re-run may not match the cached base; it is only stable under an ORDER BY of the same
+     * query block with no random keys, which the statement author is trusted to make a total order.
+     */
+    public static boolean preservesRows(String s) {
+        if (s == null) return false;
+        Deque<Integer> orderBy = new ArrayDeque<>(); // ORDER keyword offset per open query block, -1 = none
+        orderBy.push(-1);
+        int n = s.length();
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(s, i, c);
+            } else if (c == '-' && i + 1 < n && s.charAt(i + 1) == '-') {
+                int eol = s.indexOf('\n', i);
+                i = eol < 0 ? n : eol;
+            } else if (c == '/' && i + 1 < n && s.charAt(i + 1) == '*') {
+                int end = s.indexOf("*/", i + 2);
+                i = end < 0 ? n : end + 1;
+            } else if (c == '(') {
+                orderBy.push(-1);
+            } else if (c == ')') {
+                if (orderBy.size() > 1) orderBy.pop();
+            } else if (Character.isLetter(c) && (i == 0 || !isWordChar(s.charAt(i - 1)))) {
+                int end = i;
+                while (end < n && isWordChar(s.charAt(end))) end++;
+                String word = s.substring(i, end).toUpperCase(Locale.ROOT);
+                if ("ORDER".equals(word)) {
+                    orderBy.pop();
+                    orderBy.push(i);
+                } else if ("LIMIT".equals(word)) {
+                    int from = orderBy.peek();
+                    if (from < 0) return false;
+                    String keys = s.substring(from, i).toLowerCase(Locale.ROOT);
+                    if (keys.contains("rand(") || keys.contains("random(") || keys.contains("uuid(") || keys.contains("shuffle(")) {
+                        return false;
+                    }
+                } else if ("TABLESAMPLE".equals(word)) {
+                    return false;
+                }
+                i = end - 1;
+            }
+        }
+        return true;
+    }
+
+    private static int skipQuoted(String s, int start, char quote) {
+        for (int i = start + 1; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && quote != '`') {
+                i++;
+            } else if (c == quote) {
+                if (i + 1 < s.length() && s.charAt(i + 1) == quote) i++; // doubled quote
+                else return i;
+            }
+        }
+        return s.length();
+    }
+
+    private static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+
+    private static boolean translatable(FilterDescriptor fd) {
+        if (fd == null) return true;
+        if (fd.isCompound()) {
+            for (FilterDescriptor c : fd.getConditions()) if (!translatable(c)) return false;
+            return true;
+        }
+        String ft = lower(fd.getFilterType());
+        return "text".equals(ft) || "number".equals(ft) || "date".equals(ft) || "set".equals(ft);
+    }
+
+    // ---------------- Predicates ----------------
+
+    private static String predicate(String col, FilterDescriptor fd, Params params) {
+        if (fd == null) return "TRUE";
+        if (fd.isCompound()) {
+            String op = "AND".equalsIgnoreCase(fd.getOperator()) ? " AND " : " OR ";
+            List<String> parts = new ArrayList<>();
+            for (FilterDescriptor c : fd.getConditions()) parts.add(predicate(col, c, params));
+            return "(" + String.join(op, parts) + ")";
+        }
+        if ("set".equals(lower(fd.getFilterType()))) return setPredicate(col, fd, params);
+        String type = lower(fd.getType());
+        if (type == null) return "TRUE";
+        return switch (String.valueOf(lower(fd.getFilterType()))) {
+            case "text" -> textPredicate(col, type, fd, params);
+            case "number" -> numberPredicate(col, type, fd, params);
+            case "date" -> datePredicate(col, type, fd, params);
+            default -> "TRUE";
+        };
+    }
+
+    private static String textPredicate(String col, String type, FilterDescriptor fd, Params params) {
+        String expr = "lower(coalesce(CAST(" + col + " AS STRING), ''))";
+        String q = fd.getFilter() == null ? "" : fd.getFilter().toLowerCase(Locale.ROOT);
+        return switch (type) {
+            case "contains" -> "instr(" + expr + ", " + params.add(q, "STRING") + ") > 0";
+            case "notcontains" -> "instr(" + expr + ", " + params.add(q, "STRING") + ") = 0";
+            case "equals" -> expr + " = " + params.add(q, "STRING");
+            case "notequals" -> expr + " <> " + params.add(q, "STRING");
+            case "startswith" -> {
+                String p = params.add(q, "STRING");
+                yield "substr(" + expr + ", 1, length(" + p + ")) = " + p;
+            }
+            case "endswith" -> {
+                String p = params.add(q, "STRING");
+                yield "right(" + expr + ", length(" + p + ")) = " + p;
+            }
+            default -> "TRUE";
+        };
+    }
+
+    // Exact string membership, as the view engine compares set filter values
+    private static String setPredicate(String col, FilterDescriptor fd, Params params) {
+        if (fd.getValues() == null) return "TRUE";
+        List<String> in = new ArrayList<>();
+        boolean blanks = false;
+        for (String v : fd.getValues()) {
+            if (v == null) blanks = true;
+            else in.add(params.add(v, "STRING"));
+        }
+        List<String> parts = new ArrayList<>();
+        if (!in.isEmpty()) parts.add("CAST(" + col + " AS STRING) IN (" + String.join(", ", in) + ")");
+        if (blanks) parts.add(col + " IS NULL");
+        return parts.isEmpty() ? "FALSE" : "(" + String.join(" OR ", parts) + ")";
+    }
+
+    private static String numberPredicate(String col, String type, FilterDescriptor fd, Params params) {
+        String expr = "try_cast(" + col + " AS DECIMAL(38,9))";
+        BigDecimal a = toNumber(fd.getFilter());
+        BigDecimal b = toNumber(fd.getFilterTo());
+        if ("inrange".equals(type)) {
+            if (a == null || b == null) return "TRUE";
+            return "(" + expr + " IS NULL OR " + expr + " BETWEEN "
+                    + params.add(a.toPlainString(), "DECIMAL(38,9)") + " AND " + params.add(b.toPlainString(), "DECIMAL(38,9)") + ")";
+        }
+        String op = comparison(type);
+        if (op == null) return "TRUE";
+        if (a == null) return "FALSE"; // unparseable filter value never matches a number
+        return expr + " " + op + " " + params.add(a.toPlainString(), "DECIMAL(38,9)");
+    }
+
+    private static String datePredicate(String col, String type, FilterDescriptor fd, Params params) {
+        String expr = "try_cast(substr(CAST(" + col + " AS STRING), 1, 10) AS DATE)";
+        LocalDate a = toDate(fd.getDateFrom() != null ? fd.getDateFrom() : fd.getFilter());
+        LocalDate b = toDate(fd.getDateTo());
+        if (a == null) return "TRUE";
+        if ("inrange".equals(type)) {
+            if (b == null) return "TRUE";
+            return "(" + expr + " IS NULL OR " + expr + " BETWEEN "
+                    + params.add(a.toString(), "DATE") + " AND " + params.add(b.toString(), "DATE") + ")";
+        }
+        String op = comparison(type);
+        if (op == null) return "TRUE";
+        return "(" + expr + " IS NULL OR " + expr + " " + op + " " + params.add(a.toString(), "DATE") + ")";
+    }
+
+    private static String comparison(String type) {
+        return switch (type) {
+            case "equals" -> "=";
+            case "notequals" -> "<>";
+            case "greaterthan" -> ">";
+            case "greaterthanequal" -> ">=";
+            case "lessthan" -> "<";
+            case "lessthanequal" -> "<=";
+            default -> null;
+        };
+    }
+
+    // ---------------- Helpers ----------------
+
+    private static final class Params {
+        final List<Map<String, Object>> list = new ArrayList<>();
+
+        String add(String value, String type) {
+            String name = "p" + list.size();
+            Map<String, Object> p = new LinkedHashMap<>();
+            p.put("name", name);
+            p.put("value", value);
+            p.put("type", type);
+            list.add(p);
+            return ":" + name;
+        }
+    }
+
+    /** Match a grid column id to an actual column (exact, case-insensitive, then collapsed). */
+    private static String resolveColumn(String colId, List<String> columns) {
+        if (colId == null || columns == null) return null;
+        String lower = colId.toLowerCase(Locale.ROOT);
+        String collapsed = lower.replaceAll("[^a-z0-9]", "");
+        for (String c : columns) if (c.equals(colId)) return c;
+        for (String c : columns) if (c.toLowerCase(Locale.ROOT).equals(lower)) return c;
+        for (String c : columns) if (c.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "").equals(collapsed)) return c;
+        return null;
+    }
+
+    private static String colRef(String column) {
+        return "v.`" + column.replace("`", "``") + "`";
+    }
+
+    private static boolean isSortable(String typeName) {
+        return typeName != null && SORTABLE_TYPES.contains(typeName.toUpperCase(Locale.ROOT));
+    }
+
+    private static String lower(String s) {
+        return s == null ? null : s.toLowerCase(Locale.ROOT);
+    }
+
+    private static BigDecimal toNumber(String s) {
+        if (s == null) return null;
+        try {
+            String t = s.replaceAll(",", "").trim();
+            if (t.isEmpty() || "null".equalsIgnoreCase(t)) return null;
+            return new BigDecimal(t);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static LocalDate toDate(String s) {
+        if (s == null) return null;
+        String t = s.trim();
+        if (t.length() < 10) return null;
+        try {
+            return LocalDate.parse(t.substring(0, 10));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.mm.customreportbuilder.view;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mm.customreportbuilder.config.FactsProperties;
+import com.mm.customreportbuilder.model.aggrid.SortModelEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Speculative pre-build of the views users are likely to open next.
+ *
+ * When a templated statement finishes ingesting, the hot sorts of its fact template
+ * (FactsProperties hotSorts, plus the most used sorts seen on this node when
+ * VIEW_SPECULATIVE_LEARN is on) are built one after another on a single low-priority
+ * thread. A build only starts while the node is quiet (no more than
+ * VIEW_SPECULATIVE_MAX_ACTIVE_REQUESTS interactive requests in flight and the load
+ * average under VIEW_SPECULATIVE_MAX_CPU_LOAD per core), and {@link #busy()} is the
+ * signal running builds poll to abandon themselves when interactive load rises.
+ *
+ * Sorts are kept as specs: "col:dir" entries joined by ",", e.g. "price:desc".
+ */
+@Component
+public class SpeculativeViewBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(SpeculativeViewBuilder.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Map<String, List<String>> configured = new HashMap<>();
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, LongAdder>> learned = new ConcurrentHashMap<>();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private final OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    private final ExecutorService executor;
+    private final boolean enabled;
+    private final boolean learn;
+    private final int learnedMax;
+    private final int maxActiveRequests;
+    private final double maxCpuLoad;
+    private final long quietWaitMs;
+
+    public SpeculativeViewBuilder(
+            FactsProperties facts,
+            @Value("${VIEW_SPECULATIVE_ENABLED:true}") boolean enabled,
+            @Value("${VIEW_SPECULATIVE_LEARN:true}") boolean learn,
+            @Value("${VIEW_SPECULATIVE_LEARNED_MAX:2}") int learnedMax,
+            @Value("${VIEW_SPECULATIVE_MAX_ACTIVE_REQUESTS:0}") int maxActiveRequests,
+            @Value("${VIEW_SPECULATIVE_MAX_CPU_LOAD:0.75}") double maxCpuLoad,
+            @Value("${VIEW_SPECULATIVE_QUIET_WAIT_MS:60000}") long quietWaitMs) {
+        for (Map.Entry<String, FactsProperties.FactConfig> e : facts.getFacts().entrySet()) {
+            List<String> specs = new ArrayList<>();
+            for (String spec : e.getValue().getHotSorts()) {
+                String canonical = canonical(spec);
+                if (canonical != null && !specs.contains(canonical)) specs.add(canonical);
+            }
+            configured.put(e.getKey(), specs);
+        }
+        this.enabled = enabled;
+        this.learn = learn;
+        this.learnedMax = Math.max(0, learnedMax);
+        this.maxActiveRequests = Math.max(0, maxActiveRequests);
+        this.maxCpuLoad = maxCpuLoad;
+        this.quietWaitMs = Math.max(0L, quietWaitMs);
+        this.executor = new ThreadPoolExecutor(1, 1, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "view-speculate");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+    }
+
+    /* ====================== Load ====================== */
+
+    public void requestStarted() {
+        activeRequests.incrementAndGet();
+    }
+
+    public void requestFinished() {
+        activeRequests.decrementAndGet();
+    }
+
+    /** True while interactive work should have the node: speculative builds do not start and running ones stop. */
+    public boolean busy() {
+        if (activeRequests.get() > maxActiveRequests) return true;
+        double load = os.getSystemLoadAverage(); // -1 where unavailable
+        return load >= 0 && load / Math.max(1, os.getAvailableProcessors()) > maxCpuLoad;
+    }
+
+    /* ====================== Hot sorts ====================== */
+
+    /** Counts a sort opened on a statement of {@code template} (only used when learning is on). */
+    public void recordSort(String template, List<SortModelEntry> sortModel) {
+        if (!learn || template == null || sortModel == null || sortModel.isEmpty()) return;
+        String spec = spec(sortModel);
+        if (spec == null) return;
+        learned.computeIfAbsent(template, t -> new ConcurrentHashMap<>())
+                .computeIfAbsent(spec, s -> new LongAdder())
+                .increment();
+    }
+
+    /** Configured hot sorts of the template first, then the most used learned ones, as specs. */
+    public List<String> hotSorts(String template) {
+        List<String> out = new ArrayList<>(configured.getOrDefault(template, List.of()));
+        Map<String, LongAdder> counts = learned.get(template);
+        if (counts == null || learnedMax == 0) return out;
+        List<Map.Entry<String, LongAdder>> byUse = new ArrayList<>(counts.entrySet());
+        byUse.sort((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()));
+        int added = 0;
+        for (Map.Entry<String, LongAdder> e : byUse) {
+            if (added == learnedMax) break;
+            if (!out.contains(e.getKey())) {
+                out.add(e.getKey());
+                added++;
+            }
+        }
+        return out;
+    }
+
+    /* ====================== Scheduling ====================== */
+
+    /**
+     * Queue pre-builds of the template's hot sorts for a statement. {@code build} receives the
+     * sort model JSON and returns false if the build was abandoned; an abandoned sort is
+     * retried (up to 3 times) once the node is quiet again, within VIEW_SPECULATIVE_QUIET_WAIT_MS.
+     */
+    public void schedule(String statementId, String template, Predicate<String> build) {
+        if (!enabled || template == null) return;
+        List<String> specs = hotSorts(template);
+        if (specs.isEmpty()) return;
+        executor.execute(() -> {
+            for (String spec : specs) {
+                boolean done = false;
+                for (int attempt = 0; attempt < 3 && !done; attempt++) {
+                    if (!awaitQuiet()) {
+                        log.debug("Speculative builds for stmt={} given up: node stayed busy", statementId);
+                        return;
+                    }
+                    try {
+                        done = build.test(sortModelJson(spec));
+                        if (!done) log.debug("Speculative build abandoned stmt={} sort={}", statementId, spec);
+                    } catch (RuntimeException e) {
+                        log.debug("Speculative build failed stmt={} sort={}: {}", statementId, spec, e.toString());
+                        done = true;
+                    }
+                }
+            }
+        });
+    }
+
+    private boolean awaitQuiet() {
+        long deadline = System.currentTimeMillis() + quietWaitMs;
+        while (busy()) {
+            if (System.currentTimeMillis() >= deadline) return false;
+            try {
+                Thread.sleep(250L);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* ====================== Specs ====================== */
+
+    private static String spec(List<SortModelEntry> sortModel) {
+        List<String> parts = new ArrayList<>();
+        for (SortModelEntry s : sortModel) {
+            if (s.getColId() == null || (!s.isAsc() && !s.isDesc())) return null;
+            parts.add(s.getColId() + ":" + (s.isAsc() ? "asc" : "desc"));
+        }
+        return String.join(",", parts);
+    }
+
+    // "price : DESC, modified date" -> "price:desc,modified date:asc"; null if malformed
+    private static String canonical(String spec) {
+        if (spec == null || spec.isBlank()) return null;
+        List<SortModelEntry> entries = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            int colon = part.lastIndexOf(':');
+            String col = (colon < 0 ? part : part.substring(0, colon)).trim();
+            String dir = colon < 0 ? "asc" : part.substring(colon + 1).trim().toLowerCase(Locale.ROOT);
+            if (col.isEmpty() || !(dir.equals("asc") || dir.equals("desc"))) {
+                log.warn("Ignoring malformed hot sort '{}'", spec);
+                return null;
+            }
+            entries.add(new SortModelEntry(col, dir));
+        }
+        return spec(entries);
+    }
+
+    private static String sortModelJson(String spec) {
+        List<Map<String, String>> model = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            int colon = part.lastIndexOf(':');
+            model.add(Map.of("colId", part.substring(0, colon), "sort", part.substring(colon + 1)));
+        }
+        try {
+            return MAPPER.writeValueAsString(model);
+        } catch (Exception e) {
+            throw new IllegalStateException("Cannot serialize sort model", e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
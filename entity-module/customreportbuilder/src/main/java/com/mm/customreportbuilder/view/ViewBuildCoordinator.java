@@ -0,0 +1,172 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.cache.ViewCacheService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Single-flight coordination of view builds per (statement, sig).
+ *
+ * In-process: concurrent callers for the same view share one future.
+ * Across nodes: the builder holds a Redis lock (see {@link ViewCacheService#tryLock}),
+ * renewed every third of its TTL for as long as the build runs, whatever phase it is in;
+ * other nodes poll the view meta until it turns READY or the lock disappears
+ * (builder died), in which case they try to take over.
+ */
+@Component
+public class ViewBuildCoordinator {
+
+    private static final Logger log = LoggerFactory.getLogger(ViewBuildCoordinator.class);
+
+    private final ViewCacheService viewCache;
+    private final ConcurrentHashMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private final Set<String> joined = ConcurrentHashMap.newKeySet();
+    private final ExecutorService buildExecutor;
+    private final ScheduledExecutorService lockRenewer;
+    private final long maxWaitMs;
+    private final long pollMs;
+
+    public ViewBuildCoordinator(
+            ViewCacheService viewCache,
+            @Value("${VIEW_BUILD_THREADS:2}") int buildThreads,
+            @Value("${VIEW_BUILD_MAX_WAIT_MS:120000}") long maxWaitMs,
+            @Value("${CACHE_FIRST_CHUNK_POLL_MS:150}") long pollMs) {
+        this.viewCache = viewCache;
+        this.maxWaitMs = maxWaitMs;
+        this.pollMs = Math.max(10L, pollMs);
+        this.buildExecutor = new ThreadPoolExecutor(
+                Math.max(1, buildThreads), Math.max(1, buildThreads),
+                60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "view-build");
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.lockRenewer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "view-lock-renew");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Run {@code build} at most once per view across threads and nodes and wait for the result.
+     * Returns true when a READY view exists afterwards.
+     */
+    public boolean buildOnce(String userId, String statementId, String sig, BooleanSupplier build) {
+        String key = statementId + "|" + sig;
+        CompletableFuture<Boolean> mine = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            joined.add(key);
+            return await(running, sig);
+        }
+        try {
+            boolean ok = runLocked(userId, statementId, sig, build);
+            mine.complete(ok);
+            return ok;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+            joined.remove(key);
+        }
+    }
+
+    /** Start (or join) a build without blocking the caller. */
+    public CompletableFuture<Boolean> buildAsync(String userId, String statementId, String sig, BooleanSupplier build) {
+        String key = statementId + "|" + sig;
+        CompletableFuture<Boolean> running = inFlight.get(key);
+        if (running != null) {
+            joined.add(key); // the caller waits on it: a speculative build must not give way
+            if (running.isDone()) joined.remove(key);
+            return running;
+        }
+        return CompletableFuture.supplyAsync(() -> buildOnce(userId, statementId, sig, build), buildExecutor);
+    }
+
+    /** True if another caller in this process is waiting on the running build of this view. */
+    public boolean isAwaited(String statementId, String sig) {
+        return joined.contains(statementId + "|" + sig);
+    }
+
+    private boolean runLocked(String userId, String statementId, String sig, BooleanSupplier build) {
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        while (true) {
+            if (ViewCacheService.isReady(viewCache.getMeta(userId, statementId, sig))) {
+                return true;
+            }
+            String token = viewCache.tryLock(userId, statementId, sig);
+            if (token != null) {
+                ScheduledFuture<?> keepAlive = keepAlive(userId, statementId, sig, token);
+                try {
+                    // Someone may have finished between our meta read and the lock
+                    if (ViewCacheService.isReady(viewCache.getMeta(userId, statementId, sig))) {
+                        return true;
+                    }
+                    return build.getAsBoolean();
+                } finally {
+                    keepAlive.cancel(false);
+                    viewCache.unlock(userId, statementId, sig, token);
+                }
+            }
+
+            // Another node is building this view: wait for READY (or for its lock to vanish)
+            if (System.currentTimeMillis() >= deadline) {
+                log.warn("Timed out waiting for view build stmt={} sig={}", statementId, sig);
+                return false;
+            }
+            try {
+                Thread.sleep(pollMs);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    // Sort and store phases publish no progress: the lock is renewed on a timer, not by the build
+    private ScheduledFuture<?> keepAlive(String userId, String statementId, String sig, String token) {
+        long periodMs = Math.max(100L, viewCache.lockTtlMs() / 3);
+        return lockRenewer.scheduleAtFixedRate(() -> {
+            try {
+                if (!viewCache.renewLock(userId, statementId, sig, token)) {
+                    log.warn("Lost build lock of view stmt={} sig={}", statementId, sig);
+                }
+            } catch (RuntimeException e) {
+                // A failed run would cancel the schedule; the next one retries
+                log.warn("Could not renew build lock of view stmt={} sig={}: {}", statementId, sig, e.toString());
+            }
+        }, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    private boolean await(CompletableFuture<Boolean> running, String sig) {
+        try {
+            return running.get(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for in-process view build sig={}", sig);
+            return false;
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            throw new IllegalStateException("View build failed", cause);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        buildExecutor.shutdownNow();
+        lockRenewer.shutdownNow();
+    }
+}
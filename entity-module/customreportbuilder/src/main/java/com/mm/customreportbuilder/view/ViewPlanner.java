@@ -0,0 +1,176 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses how a sorted/filtered view gets built:
+ *   IN_MEMORY - scan the cached base pages (or a refinable cached view) in the JVM
+ *   PUSHDOWN  - re-run the original statement on the warehouse with WHERE/ORDER BY
+ *
+ * The cost model is deliberately simple (estimated milliseconds, tunable per deployment):
+ *   in-memory = rowsToScan * scan + sort(estRows) + rows still to be ingested * ingest
+ *   pushdown  = fixed warehouse latency + estRows * ingest
+ * Selectivity comes from per-operator heuristics (AND = product, OR = union).
+ *
+ * Pushdown is only considered when the re-run reads the same rows as the cached base, i.e. the
+ * statement orders every row set it limits (see SparkSqlViewRewriter#preservesRows), and when
+ * SQL orders the sort model as the in-memory engine does (SparkSqlViewRewriter#isSortTranslatable).
+ * Statements sanitized with the default LIMIT and no ORDER BY always stay in memory.
+ */
+@Component
+public class ViewPlanner {
+
+    private static final Logger log = LoggerFactory.getLogger(ViewPlanner.class);
+
+    public enum Strategy { IN_MEMORY, PUSHDOWN }
+
+    public record Plan(Strategy strategy, double selectivity, long estimatedRows,
+                       double inMemoryCostMs, double pushdownCostMs, List<String> reasons) {
+        public Map<String, Object> toMap() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            m.put("strategy", strategy.name());
+            m.put("selectivity", Math.round(selectivity * 10000) / 10000.0);
+            m.put("estimatedRows", estimatedRows);
+            m.put("inMemoryCostMs", Math.round(inMemoryCostMs));
+            m.put("pushdownCostMs", Math.round(pushdownCostMs));
+            m.put("reasons", reasons);
+            return m;
+        }
+    }
+
+    private final boolean enabled;
+    private final int minRows;
+    private final double pushdownLatencyMs;
+    private final double scanUsPerRow;
+    private final double sortNsPerCompare;
+    private final double ingestUsPerRow;
+
+    private final AtomicLong inMemoryDecisions = new AtomicLong();
+    private final AtomicLong pushdownDecisions = new AtomicLong();
+
+    public ViewPlanner(
+            @Value("${VIEW_PUSHDOWN_ENABLED:false}") boolean enabled,
+            @Value("${VIEW_PUSHDOWN_MIN_ROWS:250000}") int minRows,
+            @Value("${VIEW_PUSHDOWN_LATENCY_MS:5000}") double pushdownLatencyMs,
+            @Value("${VIEW_COST_SCAN_US_PER_ROW:2.0}") double scanUsPerRow,
+            @Value("${VIEW_COST_SORT_NS_PER_CMP:120}") double sortNsPerCompare,
+            @Value("${VIEW_COST_INGEST_US_PER_ROW:6.0}") double ingestUsPerRow) {
+        this.enabled = enabled;
+        this.minRows = minRows;
+        this.pushdownLatencyMs = pushdownLatencyMs;
+        this.scanUsPerRow = scanUsPerRow;
+        this.sortNsPerCompare = sortNsPerCompare;
+        this.ingestUsPerRow = ingestUsPerRow;
+    }
+
+    /**
+     * @param rowCount       base row count (null = unknown)
+     * @param rowsToScan     rows the in-memory build would read (base, or a smaller cached view)
+     * @param baseState      Databricks state of the base statement
+     * @param pagesIngested  base pages already in Redis (null = unknown)
+     * @param quickFilter    whether a quick filter (search all columns) is part of the view
+     * @param baseSql        the original statement text (null = unknown)
+     * @param permutation    whether the view is stored as base row ids (pushdown results have none)
+     * @param sortTranslatable whether SQL orders the sort model as the in-memory engine does
+     */
+    public Plan plan(String statementId, String sig, Integer rowCount, long rowsToScan, String baseState,
+                     Integer pagesIngested, int pageSize, boolean hasSort,
+                     Map<String, FilterDescriptor> filterModel, boolean quickFilter, String baseSql,
+                     boolean permutation, boolean sortTranslatable) {
+        List<String> reasons = new ArrayList<>();
+        double selectivity = estimateSelectivity(filterModel);
+        long estRows = rowCount == null ? -1 : Math.round(rowCount * selectivity);
+
+        double inMemory = Double.NaN;
+        double pushdown = Double.NaN;
+        Strategy strategy = Strategy.IN_MEMORY;
+
+        if (!enabled) {
+            reasons.add("pushdown disabled");
+        } else if (permutation) {
+            reasons.add("permutation storage needs base row ids");
+        } else if (baseSql == null) {
+            reasons.add("original SQL unavailable");
+        } else if (!SparkSqlViewRewriter.preservesRows(baseSql)) {
+            reasons.add("base statement has a LIMIT without ORDER BY; a re-run may return other rows");
+        } else if (rowCount == null) {
+            reasons.add("rowCount unknown");
+        } else if (rowCount < minRows) {
+            reasons.add("rowCount " + rowCount + " below pushdown threshold " + minRows);
+        } else if (quickFilter) {
+            reasons.add("quick filter not translatable to SQL");
+        } else if (!SparkSqlViewRewriter.isTranslatable(filterModel)) {
+            reasons.add("filter not translatable to SQL");
+        } else if (!sortTranslatable) {
+            reasons.add("sort on a column not typed numeric or DATE");
+        } else {
+            long ingested = pagesIngested == null ? 0 : (long) pagesIngested * pageSize;
+            long pending = "SUCCEEDED".equals(baseState) ? 0 : Math.max(0, rowCount - ingested);
+            if (pending > 0) reasons.add("base ingest incomplete (" + pending + " rows pending)");
+            if (rowsToScan < rowCount) reasons.add("refinable cached view with " + rowsToScan + " rows");
+
+            inMemory = rowsToScan * scanUsPerRow / 1000.0
+                    + (hasSort ? sortCostMs(estRows) : 0)
+                    + pending * ingestUsPerRow / 1000.0;
+            pushdown = pushdownLatencyMs + estRows * ingestUsPerRow / 1000.0;
+            strategy = pushdown < inMemory ? Strategy.PUSHDOWN : Strategy.IN_MEMORY;
+            reasons.add("estimated in-memory " + Math.round(inMemory) + "ms vs pushdown " + Math.round(pushdown) + "ms");
+        }
+
+        long n = (strategy == Strategy.PUSHDOWN ? pushdownDecisions : inMemoryDecisions).incrementAndGet();
+        Plan plan = new Plan(strategy, selectivity, estRows, inMemory, pushdown, reasons);
+        log.info("view.plan stmt={} sig={} strategy={} decisions.{}={} rowCount={} scanRows={} selectivity={} estRows={} inMemoryMs={} pushdownMs={} reasons={}",
+                statementId, sig, strategy, strategy.name().toLowerCase(Locale.ROOT), n, rowCount, rowsToScan,
+                plan.toMap().get("selectivity"), estRows, Math.round(inMemory), Math.round(pushdown), reasons);
+        return plan;
+    }
+
+    private double sortCostMs(long rows) {
+        if (rows <= 1) return 0;
+        return rows * (Math.log(rows) / Math.log(2)) * sortNsPerCompare / 1_000_000.0;
+    }
+
+    // ---------------- Selectivity ----------------
+
+    static double estimateSelectivity(Map<String, FilterDescriptor> filterModel) {
+        if (filterModel == null || filterModel.isEmpty()) return 1.0;
+        double s = 1.0;
+        for (FilterDescriptor fd : filterModel.values()) s *= selectivity(fd);
+        return clamp(s);
+    }
+
+    private static double selectivity(FilterDescriptor fd) {
+        if (fd == null) return 1.0;
+        if (fd.isCompound()) {
+            boolean and = "AND".equalsIgnoreCase(fd.getOperator());
+            double acc = and ? 1.0 : 0.0;
+            for (FilterDescriptor c : fd.getConditions()) {
+                double sc = selectivity(c);
+                acc = and ? acc * sc : acc + sc - acc * sc;
+            }
+            return clamp(acc);
+        }
+        String type = fd.getType() == null ? "" : fd.getType().toLowerCase(Locale.ROOT);
+        return switch (type) {
+            case "equals" -> 0.01;
+            case "notequals" -> 0.99;
+            case "contains" -> 0.10;
+            case "notcontains" -> 0.90;
+            case "startswith", "endswith" -> 0.05;
+            case "greaterthan", "greaterthanequal", "lessthan", "lessthanequal" -> 0.33;
+            case "inrange" -> 0.25;
+            default -> 1.0;
+        };
+    }
+
+    private static double clamp(double s) {
+        return Math.max(0.0001, Math.min(1.0, s));
+    }
+}
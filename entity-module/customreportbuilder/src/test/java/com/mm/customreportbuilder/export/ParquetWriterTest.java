@@ -0,0 +1,299 @@
+package com.mm.customreportbuilder.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Writes a small multi-row-group file and reads it back by hand: footer (thrift compact),
+ * then every page header and page of every column chunk.
+ */
+class ParquetWriterTest {
+
+    private static final List<ExportColumn> COLUMNS = List.of(
+            new ExportColumn("id", "BIGINT", 0, 0),
+            new ExportColumn("name", "STRING", 0, 0),
+            new ExportColumn("amount", "DECIMAL", 10, 2),
+            new ExportColumn("day", "DATE", 0, 0),
+            new ExportColumn("ts", "TIMESTAMP", 0, 0),
+            new ExportColumn("local_ts", "TIMESTAMP_NTZ", 0, 0),
+            new ExportColumn("ok", "BOOLEAN", 0, 0),
+            new ExportColumn("x", "DOUBLE", 0, 0),
+            new ExportColumn("n", "INT", 0, 0),
+            new ExportColumn("tiny", "TINYINT", 0, 0));
+
+    // parquet.thrift
+    private static final long BOOLEAN = 0, INT32 = 1, INT64 = 2, DOUBLE = 5, BYTE_ARRAY = 6;
+    private static final long UTF8 = 0, DECIMAL = 5, DATE = 6, TIMESTAMP_MICROS = 10, INT_8 = 15;
+
+    @Test
+    void writesReadableFile() throws IOException {
+        int rows = 20_000;
+        List<Object[]> input = new ArrayList<>();
+        for (int i = 0; i < rows; i++) input.add(row(i));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ParquetWriter w = new ParquetWriter(bytes, COLUMNS, 0)) {
+            for (Object[] r : input) w.row(r);
+            w.finish();
+        }
+        byte[] file = bytes.toByteArray();
+
+        assertEquals("PAR1", new String(file, 0, 4, StandardCharsets.US_ASCII));
+        assertEquals("PAR1", new String(file, file.length - 4, 4, StandardCharsets.US_ASCII));
+        int footerLength = ByteBuffer.wrap(file, file.length - 8, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        Thrift footer = new Thrift(file, file.length - 8 - footerLength);
+        Map<Integer, Object> meta = footer.struct();
+        assertEquals(file.length - 8, footer.pos);
+
+        assertEquals(1L, meta.get(1));
+        assertEquals((long) rows, meta.get(3));
+        List<?> schema = (List<?>) meta.get(2);
+        assertEquals(COLUMNS.size() + 1, schema.size());
+        assertEquals((long) COLUMNS.size(), struct(schema.get(0)).get(5));
+        long[] physical = { INT64, BYTE_ARRAY, BYTE_ARRAY, INT32, INT64, INT64, BOOLEAN, DOUBLE, INT32, INT32 };
+        Long[] converted = { null, UTF8, DECIMAL, DATE, TIMESTAMP_MICROS, null, null, null, null, INT_8 };
+        for (int c = 0; c < COLUMNS.size(); c++) {
+            Map<Integer, Object> e = struct(schema.get(c + 1));
+            assertEquals(physical[c], e.get(1), COLUMNS.get(c).name());
+            assertEquals(1L, e.get(3)); // OPTIONAL
+            assertEquals(COLUMNS.get(c).name(), text(e.get(4)));
+            assertEquals(converted[c], e.get(6), COLUMNS.get(c).name());
+        }
+        assertEquals(2L, struct(schema.get(3)).get(7));
+        assertEquals(10L, struct(schema.get(3)).get(8));
+        assertTimestampLogicalType(struct(schema.get(5)), true);
+        assertTimestampLogicalType(struct(schema.get(6)), false);
+
+        List<?> rowGroups = (List<?>) meta.get(4);
+        assertTrue(rowGroups.size() > 1, "expected several row groups, got " + rowGroups.size());
+        List<List<Object>> decoded = new ArrayList<>();
+        for (int c = 0; c < COLUMNS.size(); c++) decoded.add(new ArrayList<>());
+        long groupRowsTotal = 0;
+        for (Object g : rowGroups) {
+            Map<Integer, Object> group = struct(g);
+            long groupRows = (Long) group.get(3);
+            groupRowsTotal += groupRows;
+            List<?> chunks = (List<?>) group.get(1);
+            assertEquals(COLUMNS.size(), chunks.size());
+            long groupBytes = 0;
+            for (int c = 0; c < chunks.size(); c++) {
+                Map<Integer, Object> chunk = struct(chunks.get(c));
+                Map<Integer, Object> cm = struct(chunk.get(3));
+                assertEquals(physical[c], cm.get(1));
+                assertEquals(COLUMNS.get(c).name(), text(((List<?>) cm.get(3)).get(0)));
+                assertEquals(2L, cm.get(4)); // GZIP
+                assertEquals(groupRows, cm.get(5));
+                assertEquals(chunk.get(2), cm.get(9));
+                groupBytes += (Long) cm.get(6);
+                readChunk(file, cm, (int) physical[c], Long.valueOf(DECIMAL).equals(converted[c]), decoded.get(c));
+            }
+            assertEquals(groupBytes, group.get(2));
+        }
+        assertEquals(rows, groupRowsTotal);
+
+        for (int i = 0; i < rows; i++) {
+            Object[] in = input.get(i);
+            List<Object> expected = Arrays.asList(
+                    Long.parseLong((String) in[0]),
+                    in[1],
+                    in[2] == null ? null : new BigDecimal((String) in[2]).setScale(2).unscaledValue().longValueExact(),
+                    LocalDate.parse((String) in[3]).toEpochDay(),
+                    micros(LocalDateTime.parse("2024-02-03T04:05:06").plusSeconds(i)),
+                    micros(LocalDateTime.parse((String) in[5])),
+                    in[6] == null ? null : Boolean.valueOf((String) in[6]),
+                    Double.parseDouble((String) in[7]),
+                    (long) Integer.parseInt((String) in[8]),
+                    (long) Byte.parseByte((String) in[9]));
+            for (int c = 0; c < COLUMNS.size(); c++) {
+                assertEquals(expected.get(c), decoded.get(c).get(i), "row " + i + " column " + COLUMNS.get(c).name());
+            }
+        }
+    }
+
+    @Test
+    void rejectsValueNotFittingItsColumn() throws IOException {
+        ParquetWriter w = new ParquetWriter(new ByteArrayOutputStream(), List.of(new ExportColumn("n", "INT", 0, 0)), 0);
+        assertThrows(IOException.class, () -> w.row(new Object[] { "not a number" }));
+        assertThrows(IOException.class, () -> w.row(new Object[] { "3000000000" }));
+    }
+
+    private static Object[] row(int i) {
+        return new Object[] {
+                String.valueOf(i),
+                i % 7 == 0 ? null : "name " + i + " ü, \"quoted\" " + "x".repeat(i % 40),
+                i % 5 == 0 ? null : (i % 1000) + "." + (i % 10) + "5",
+                LocalDate.of(2024, 1, 1).plusDays(i % 400).toString(),
+                // same instant, with and without an offset
+                i % 2 == 0
+                        ? LocalDateTime.parse("2024-02-03T04:05:06").plusSeconds(i) + "Z"
+                        : LocalDateTime.parse("2024-02-03T06:05:06").plusSeconds(i) + "+02:00",
+                LocalDateTime.parse("2024-07-01T23:59:58.123456").plusSeconds(i).toString(),
+                i % 3 == 0 ? null : (i % 2 == 0 ? "true" : "false"),
+                String.valueOf(i * 0.5),
+                String.valueOf(-i),
+                String.valueOf(i % 128 - 64) };
+    }
+
+    private static long micros(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + t.getNano() / 1000;
+    }
+
+    private static void assertTimestampLogicalType(Map<Integer, Object> element, boolean adjustedToUtc) {
+        Map<Integer, Object> timestamp = struct(struct(element.get(10)).get(8));
+        assertEquals(adjustedToUtc, timestamp.get(1));
+        assertEquals(Set.of(2), struct(timestamp.get(2)).keySet()); // MICROS
+    }
+
+    // Page header after page header up to the chunk's compressed size; values appended to out (null for undefined)
+    private static void readChunk(byte[] file, Map<Integer, Object> cm, int physical, boolean decimal, List<Object> out)
+            throws IOException {
+        long start = (Long) cm.get(9);
+        long end = start + (Long) cm.get(7);
+        long uncompressedTotal = 0;
+        long valuesTotal = 0;
+        Thrift t = new Thrift(file, (int) start);
+        while (t.pos < end) {
+            int headerStart = t.pos;
+            Map<Integer, Object> header = t.struct();
+            assertEquals(0L, header.get(1)); // DATA_PAGE
+            int uncompressed = ((Long) header.get(2)).intValue();
+            int compressed = ((Long) header.get(3)).intValue();
+            Map<Integer, Object> data = struct(header.get(5));
+            int values = ((Long) data.get(1)).intValue();
+            assertEquals(0L, data.get(2)); // PLAIN
+            assertEquals(3L, data.get(3)); // RLE definition levels
+
+            byte[] page;
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(file, t.pos, compressed))) {
+                page = in.readAllBytes();
+            }
+            assertEquals(uncompressed, page.length);
+            uncompressedTotal += (t.pos - headerStart) + uncompressed;
+            valuesTotal += values;
+            t.pos += compressed;
+
+            ByteBuffer b = ByteBuffer.wrap(page).order(ByteOrder.LITTLE_ENDIAN);
+            int levelsLength = b.getInt();
+            Thrift levels = new Thrift(page, 4);
+            long run = levels.varint();
+            assertEquals(1, run & 1); // one bit-packed run
+            assertEquals((values + 7) / 8, (int) (run >>> 1));
+            int defined = levels.pos;
+            b.position(4 + levelsLength);
+            int booleans = 0;
+            for (int i = 0; i < values; i++) {
+                if ((page[defined + (i >> 3)] >> (i & 7) & 1) == 0) {
+                    out.add(null);
+                    continue;
+                }
+                switch (physical) {
+                    case 0 -> {
+                        out.add((page[b.position() + (booleans >> 3)] >> (booleans & 7) & 1) == 1);
+                        booleans++;
+                    }
+                    case 1 -> out.add((long) b.getInt());
+                    case 2 -> out.add(b.getLong());
+                    case 5 -> out.add(b.getDouble());
+                    default -> {
+                        byte[] v = new byte[b.getInt()];
+                        b.get(v);
+                        out.add(decimal ? new BigInteger(v).longValueExact() : new String(v, StandardCharsets.UTF_8));
+                    }
+                }
+            }
+            if (physical != 0) assertEquals(page.length, b.position());
+            else assertEquals(4 + levelsLength + (booleans + 7) / 8, page.length);
+        }
+        assertEquals(end, t.pos);
+        assertEquals(cm.get(6), uncompressedTotal);
+        assertEquals(cm.get(5), valuesTotal);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Integer, Object> struct(Object o) {
+        return (Map<Integer, Object>) o;
+    }
+
+    private static String text(Object o) {
+        return new String((byte[]) o, StandardCharsets.UTF_8);
+    }
+
+    /** Thrift compact protocol reader: structs as field id -> value maps. */
+    private static final class Thrift {
+        final byte[] b;
+        int pos;
+
+        Thrift(byte[] b, int pos) {
+            this.b = b;
+            this.pos = pos;
+        }
+
+        Map<Integer, Object> struct() {
+            Map<Integer, Object> fields = new LinkedHashMap<>();
+            int last = 0;
+            while (true) {
+                int h = b[pos++] & 0xFF;
+                if (h == 0) return fields;
+                int type = h & 0x0F;
+                int delta = h >>> 4;
+                int id = delta != 0 ? last + delta : (int) zigzag();
+                assertTrue(id > last, "field ids ascending");
+                last = id;
+                fields.put(id, value(type));
+            }
+        }
+
+        Object value(int type) {
+            switch (type) {
+                case 1: return true;
+                case 2: return false;
+                case 5: case 6: return zigzag();
+                case 8: {
+                    int n = (int) varint();
+                    byte[] v = Arrays.copyOfRange(b, pos, pos + n);
+                    pos += n;
+                    return v;
+                }
+                case 9: {
+                    int h = b[pos++] & 0xFF;
+                    int n = h >>> 4;
+                    if (n == 15) n = (int) varint();
+                    List<Object> list = new ArrayList<>(n);
+                    for (int i = 0; i < n; i++) list.add(value(h & 0x0F));
+                    return list;
+                }
+                case 12: return struct();
+                default: throw new AssertionError("Unexpected thrift type " + type);
+            }
+        }
+
+        long varint() {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                int x = b[pos++] & 0xFF;
+                v |= (long) (x & 0x7F) << shift;
+                if ((x & 0x80) == 0) return v;
+            }
+        }
+
+        long zigzag() {
+            long v = varint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+    }
+}
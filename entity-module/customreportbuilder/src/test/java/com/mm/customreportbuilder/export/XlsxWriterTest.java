@@ -0,0 +1,140 @@
+package com.mm.customreportbuilder.export;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Every part of a written workbook must parse as XML, with the cells as written. */
+class XlsxWriterTest {
+
+    private static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+
+    private static final List<ExportColumn> COLUMNS = List.of(
+            new ExportColumn("text", "STRING", 0, 0),
+            new ExportColumn("amount", "DECIMAL", 18, 2),
+            new ExportColumn("ok", "BOOLEAN", 0, 0),
+            new ExportColumn("day", "DATE", 0, 0),
+            new ExportColumn("ts", "TIMESTAMP", 0, 0),
+            new ExportColumn("local_ts", "TIMESTAMP_NTZ", 0, 0));
+
+    @Test
+    void writesWellFormedParts() throws Exception {
+        List<Object[]> rows = List.of(
+                new Object[] { "a < b & c > \"d\" 'e'", "12.50", "true", "2024-02-03", "2024-02-03T12:00:00Z", "2024-02-03T12:00:00" },
+                new Object[] { "ctrl\u0001\u0008\u001F chars\ttab\nline", "1234567890123456789", "FALSE", "not a date", "later", null },
+                new Object[] { "  padded  ", "-0.5", null, "1900-03-01", "2024-02-03 00:00:00+02:00", "1970-01-01T00:00:00" },
+                new Object[] { "ünïcödé 日本語 😀 ￾", "abc", "maybe", null, null, null });
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (XlsxWriter w = new XlsxWriter(bytes, COLUMNS, true)) {
+            for (Object[] r : rows) w.row(r);
+            w.finish();
+        }
+
+        Map<String, Document> parts = new LinkedHashMap<>();
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            for (ZipEntry e; (e = zip.getNextEntry()) != null; ) {
+                byte[] part = zip.readAllBytes();
+                // Throws on anything that is not well-formed XML 1.0 (stray control chars, bad escapes)
+                parts.put(e.getName(), factory.newDocumentBuilder().parse(new ByteArrayInputStream(part)));
+            }
+        }
+        assertEquals(Set.of("xl/worksheets/sheet1.xml", "[Content_Types].xml", "_rels/.rels", "xl/workbook.xml",
+                "xl/_rels/workbook.xml.rels", "xl/styles.xml"), parts.keySet());
+        assertEquals(1, parts.get("xl/workbook.xml").getElementsByTagNameNS(NS_MAIN, "sheet").getLength());
+
+        List<Map<String, Element>> sheet = cells(parts.get("xl/worksheets/sheet1.xml"));
+        assertEquals(rows.size() + 1, sheet.size());
+        for (int c = 0; c < COLUMNS.size(); c++) {
+            assertEquals(COLUMNS.get(c).name(), text(sheet.get(0).get(ref(c, 1))));
+        }
+
+        Map<String, Element> r2 = sheet.get(1);
+        assertEquals("a < b & c > \"d\" 'e'", text(r2.get("A2")));
+        assertEquals("12.50", value(r2.get("B2")));
+        assertEquals("b", r2.get("C2").getAttribute("t"));
+        assertEquals("1", value(r2.get("C2")));
+        assertEquals(45325.0, Double.parseDouble(value(r2.get("D2"))));
+        assertEquals("1", r2.get("D2").getAttribute("s"));
+        assertEquals(45325.5, Double.parseDouble(value(r2.get("E2"))), 1e-9);
+        assertEquals(45325.5, Double.parseDouble(value(r2.get("F2"))), 1e-9);
+
+        Map<String, Element> r3 = sheet.get(2);
+        assertEquals("ctrl chars\ttab\nline", text(r3.get("A3")));
+        assertEquals("1234567890123456789", text(r3.get("B3"))); // beyond 15 digits: kept as text
+        assertEquals("0", value(r3.get("C3")));
+        assertEquals("not a date", text(r3.get("D3")));
+        assertEquals("later", text(r3.get("E3")));
+        assertNull(r3.get("F3"));
+
+        Map<String, Element> r4 = sheet.get(3);
+        assertEquals("  padded  ", text(r4.get("A4")));
+        assertEquals("-0.5", value(r4.get("B4")));
+        assertNull(r4.get("C4"));
+        assertEquals(61.0, Double.parseDouble(value(r4.get("D4"))));
+        assertEquals(45324.916666666664, Double.parseDouble(value(r4.get("E4"))), 1e-9);
+        assertEquals(25569.0, Double.parseDouble(value(r4.get("F4"))), 1e-9);
+
+        Map<String, Element> r5 = sheet.get(4);
+        assertEquals("ünïcödé 日本語 😀 ", text(r5.get("A5")));
+        assertEquals("abc", text(r5.get("B5")));
+        assertEquals("maybe", text(r5.get("C5")));
+    }
+
+    @Test
+    void unfinishedWorkbookHasNoDirectory() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (XlsxWriter w = new XlsxWriter(bytes, COLUMNS, false)) {
+            w.row(new Object[] { "x", "1", "true", "2024-01-01", null, null });
+            w.flush();
+        }
+        byte[] zip = bytes.toByteArray();
+        // End of central directory record signature
+        for (int i = 0; i + 4 <= zip.length; i++) {
+            assertFalse(zip[i] == 0x50 && zip[i + 1] == 0x4b && zip[i + 2] == 0x05 && zip[i + 3] == 0x06);
+        }
+    }
+
+    // Rows of the sheet as cell reference -> <c> element
+    private static List<Map<String, Element>> cells(Document sheet) {
+        List<Map<String, Element>> rows = new ArrayList<>();
+        NodeList rowNodes = sheet.getElementsByTagNameNS(NS_MAIN, "row");
+        for (int r = 0; r < rowNodes.getLength(); r++) {
+            Element row = (Element) rowNodes.item(r);
+            assertEquals(String.valueOf(r + 1), row.getAttribute("r"));
+            Map<String, Element> cells = new HashMap<>();
+            NodeList cellNodes = row.getElementsByTagNameNS(NS_MAIN, "c");
+            for (int c = 0; c < cellNodes.getLength(); c++) {
+                Element cell = (Element) cellNodes.item(c);
+                cells.put(cell.getAttribute("r"), cell);
+            }
+            rows.add(cells);
+        }
+        return rows;
+    }
+
+    private static String ref(int column, int row) {
+        return (char) ('A' + column) + String.valueOf(row);
+    }
+
+    private static String text(Element cell) {
+        assertEquals("inlineStr", cell.getAttribute("t"));
+        return cell.getElementsByTagNameNS(NS_MAIN, "t").item(0).getTextContent();
+    }
+
+    private static String value(Element cell) {
+        return cell.getElementsByTagNameNS(NS_MAIN, "v").item(0).getTextContent();
+    }
+}
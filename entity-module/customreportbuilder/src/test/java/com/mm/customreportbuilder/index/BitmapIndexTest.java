@@ -0,0 +1,188 @@
+package com.mm.customreportbuilder.index;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import com.mm.customreportbuilder.view.CellFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Rows answered from a bitmap index must be exactly the rows passing the filter under the view engine's semantics. */
+class BitmapIndexTest {
+
+    private static final String LONG = "x".repeat(70);
+
+    private static final List<Object> CELLS = Arrays.asList(
+            null, "", "a", "A", "b", "abc", "Ünï", "10", "9", "null", 5, 7.5,
+            "2024-01-05", "2024-01-05T10:00:00", LONG, LONG + "y");
+
+    @Test
+    void nullCellsAreEmptyTextAndOtherFilterTypesAreNotAnswered() {
+        BitmapIndex index = index(rows("Apple", null, "", "pear"));
+        assertEquals(Set.of(1, 2), ids(index.evaluate(text("equals", ""))));
+        assertEquals(Set.of(1, 2), ids(index.evaluate(text("equals", null))));
+        assertEquals(Set.of(0, 3), ids(index.evaluate(text("notEquals", ""))));
+        assertEquals(Set.of(0, 1, 2, 3), ids(index.evaluate(text("notContains", "zzz"))));
+        // Null cells pass number inRange and every date filter: left to the row filter
+        assertNull(index.evaluate(number("inRange", "10", "20")));
+        assertNull(index.evaluate(date("greaterThan", "2030-01-01")));
+        assertNull(index.evaluate(text("blank", null)));
+        assertNull(index.evaluate(null));
+    }
+
+    @Test
+    void columnsSomeRowsLackAreNotIndexed() {
+        BitmapIndex.Builder builder = new BitmapIndex.Builder(10);
+        builder.addPage(List.of(List.of("a"), List.of("b", "x")), 0);
+        builder.addPage(List.of(List.of("c", "y"), List.of("d")), 2);
+        Map<Integer, BitmapIndex> built = builder.build();
+        assertEquals(Set.of(0), built.keySet());
+        assertEquals(Set.of(2), ids(built.get(0).evaluate(text("equals", "C"))));
+    }
+
+    @Test
+    void longValuesAndTheCardinalityLimit() {
+        BitmapIndex index = index(rows(LONG + "b", "a", LONG + "B"));
+        assertEquals(Set.of(0, 2), ids(index.evaluate(text("equals", LONG.toUpperCase(Locale.ROOT) + "b"))));
+        assertEquals(Set.of(0, 2), ids(index.evaluate(text("startsWith", LONG))));
+        assertEquals(Set.of(), ids(index.evaluate(text("equals", LONG))));
+
+        BitmapIndex.Builder builder = new BitmapIndex.Builder(2);
+        builder.addPage(rows("a", "b", "a"), 0);
+        builder.addPage(rows("c"), 3);
+        assertTrue(builder.build().isEmpty());
+    }
+
+    @Test
+    void notEqualsOnASingleValuedColumnMatchesNothing() {
+        BitmapIndex index = index(rows("a", "A", "a"));
+        assertEquals(1, index.cardinality());
+        assertEquals(Set.of(), ids(index.evaluate(text("notEquals", "a"))));
+        assertEquals(Set.of(0, 1, 2), ids(index.evaluate(text("notEquals", "b"))));
+    }
+
+    @Test
+    void compoundsCombineTheirConditions() {
+        BitmapIndex index = index(rows("apple", "pear", "plum", null));
+        assertEquals(Set.of(0, 2), ids(index.evaluate(or(text("equals", "plum"), text("startsWith", "a")))));
+        assertEquals(Set.of(1), ids(index.evaluate(and(text("contains", "p"), text("endsWith", "r")))));
+        assertEquals(Set.of(), ids(index.evaluate(and(text("equals", "apple"), text("equals", "pear")))));
+        // Any condition the index cannot answer leaves the whole compound to the row filter
+        assertNull(index.evaluate(and(text("equals", "apple"), number("greaterThan", "1"))));
+        assertNull(index.evaluate(or(text("equals", "apple"), text("blank", null))));
+    }
+
+    @Test
+    void answersMatchTheRowFilterExactly() {
+        List<FilterDescriptor> filters = filters();
+        Random random = new Random(9);
+        for (int run = 0; run < 200; run++) {
+            BitmapIndex.Builder builder = new BitmapIndex.Builder(64);
+            List<Object> cells = new ArrayList<>();
+            int pages = 1 + random.nextInt(4);
+            for (int p = 0; p < pages; p++) {
+                List<List<Object>> page = new ArrayList<>();
+                for (int i = 0; i < 1 + random.nextInt(20); i++) {
+                    Object cell = CELLS.get(random.nextInt(CELLS.size()));
+                    page.add(Collections.singletonList(cell));
+                    cells.add(cell);
+                }
+                builder.addPage(page, cells.size() - page.size());
+            }
+            BitmapIndex computed = builder.build().get(0);
+            // Indexes are stored as bytes; what comes back must answer the same
+            BitmapIndex stored = BitmapIndex.fromBytes(computed.toBytes());
+            for (FilterDescriptor fd : filters) {
+                RoaringBitmap answer = computed.evaluate(fd);
+                if (answer == null) {
+                    assertNull(stored.evaluate(fd));
+                    continue;
+                }
+                Set<Integer> expected = new TreeSet<>();
+                for (int id = 0; id < cells.size(); id++) if (CellFilter.matches(cells.get(id), fd)) expected.add(id);
+                assertEquals(expected, ids(answer), () -> cells.toString());
+                assertEquals(expected, ids(stored.evaluate(fd)));
+            }
+        }
+    }
+
+    // ---------------- Helpers ----------------
+
+    private static List<FilterDescriptor> filters() {
+        List<FilterDescriptor> simple = new ArrayList<>();
+        for (String t : List.of("equals", "notEquals", "contains", "notContains", "startsWith", "endsWith")) {
+            for (String q : Arrays.asList("a", "ABC", "ünï", "10", "7.5", "", "zzz", "null", LONG, null)) simple.add(text(t, q));
+        }
+        simple.add(number("equals", "5"));
+        simple.add(date("equals", "2024-01-05"));
+        List<FilterDescriptor> all = new ArrayList<>(simple);
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            FilterDescriptor x = simple.get(random.nextInt(simple.size()));
+            FilterDescriptor y = simple.get(random.nextInt(simple.size()));
+            FilterDescriptor z = simple.get(random.nextInt(simple.size()));
+            all.add(random.nextBoolean() ? and(x, or(y, z)) : or(x, and(y, z)));
+        }
+        return all;
+    }
+
+    private static BitmapIndex index(List<List<Object>> rows) {
+        BitmapIndex.Builder builder = new BitmapIndex.Builder(100);
+        builder.addPage(rows, 0);
+        return builder.build().get(0);
+    }
+
+    private static Set<Integer> ids(RoaringBitmap bitmap) {
+        Set<Integer> ids = new TreeSet<>();
+        for (int id = bitmap.nextSetBit(0); id >= 0; id = bitmap.nextSetBit(id + 1)) ids.add(id);
+        return ids;
+    }
+
+    private static List<List<Object>> rows(Object... cells) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Object c : cells) rows.add(Collections.singletonList(c));
+        return rows;
+    }
+
+    private static FilterDescriptor text(String type, String filter) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("text");
+        fd.setType(type);
+        fd.setFilter(filter);
+        return fd;
+    }
+
+    private static FilterDescriptor number(String type, String filter, String... filterTo) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("number");
+        fd.setType(type);
+        fd.setFilter(filter);
+        if (filterTo.length > 0) fd.setFilterTo(filterTo[0]);
+        return fd;
+    }
+
+    private static FilterDescriptor date(String type, String from) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("date");
+        fd.setType(type);
+        fd.setDateFrom(from);
+        return fd;
+    }
+
+    private static FilterDescriptor and(FilterDescriptor... conditions) {
+        return compound("AND", conditions);
+    }
+
+    private static FilterDescriptor or(FilterDescriptor... conditions) {
+        return compound("OR", conditions);
+    }
+
+    private static FilterDescriptor compound(String operator, FilterDescriptor... conditions) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType(conditions[0].getFilterType());
+        fd.setOperator(operator);
+        fd.setConditions(List.of(conditions));
+        return fd;
+    }
+}
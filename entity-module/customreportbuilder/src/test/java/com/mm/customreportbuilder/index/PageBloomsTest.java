@@ -0,0 +1,190 @@
+package com.mm.customreportbuilder.index;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import com.mm.customreportbuilder.view.CellFilter;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Bloom filters may only skip a page when no row passes the filters under the view engine's semantics (CellFilter). */
+class PageBloomsTest {
+
+    private static final String LONG = "x".repeat(70);
+
+    private static final List<Object> CELLS = Arrays.asList(
+            null, "", "a", "A", "b", "abc", "Ünï", "10", "9", "null", 5, 7.5,
+            "2024-01-05", "2024-01-05T10:00:00", "not a date", LONG, LONG + "y");
+
+    @Test
+    void textEqualsIsRuledOutOnlyForAbsentValues() {
+        PageBlooms blooms = PageBlooms.compute(rows("Apple", "pear", null), 1, 0.001);
+        assertTrue(canMatch(blooms, text("equals", "APPLE")));
+        assertTrue(canMatch(blooms, text("equals", "pear")));
+        // A null cell is "" for text equality
+        assertTrue(canMatch(blooms, text("equals", "")));
+        assertTrue(canMatch(blooms, text("equals", null)));
+        assertFalse(canMatch(blooms, text("equals", "plum")));
+    }
+
+    @Test
+    void nonEqualityFiltersAreNeverPruned() {
+        PageBlooms blooms = PageBlooms.compute(rows("a", "b", null), 1, 0.001);
+        assertTrue(canMatch(blooms, text("notEquals", "a")));
+        assertTrue(canMatch(blooms, text("contains", "zzz")));
+        // Null cells pass number inRange and every date filter; blooms do not look at those filters at all
+        assertTrue(canMatch(blooms, number("inRange", "10", "20")));
+        assertTrue(canMatch(blooms, date("greaterThan", "2030-01-01")));
+        // notEquals on a single-valued page: no row passes, but the bloom filter cannot tell
+        PageBlooms single = PageBlooms.compute(rows("a", "A", "a"), 1, 0.001);
+        assertTrue(canMatch(single, text("notEquals", "a")));
+    }
+
+    @Test
+    void columnsSomeRowsLackGetNoFilter() {
+        List<List<Object>> rows = List.of(List.of("a", "x"), List.of("b"), List.of("c", "y"));
+        PageBlooms blooms = PageBlooms.compute(rows, 1, 0.001);
+        assertTrue(blooms.canMatch(Map.of(1, text("equals", "zzz"))));
+        assertFalse(blooms.canMatch(Map.of(0, text("equals", "zzz"))));
+    }
+
+    @Test
+    void longAndNumericValues() {
+        PageBlooms blooms = PageBlooms.compute(rows(LONG + "b", "a"), 1, 0.001);
+        assertTrue(canMatch(blooms, text("equals", LONG.toUpperCase(Locale.ROOT) + "B")));
+        assertFalse(canMatch(blooms, text("equals", LONG)));
+        // Purely numeric columns are left to the zone maps
+        assertTrue(PageBlooms.compute(rows("1", 2, null, "3,000"), 1, 0.001).isEmpty());
+        // Below the distinct-value threshold no filter is kept either
+        assertTrue(PageBlooms.compute(rows("a", "b"), 3, 0.001).isEmpty());
+    }
+
+    @Test
+    void compoundsCombineTheirConditions() {
+        PageBlooms blooms = PageBlooms.compute(rows("apple", "pear"), 1, 0.001);
+        assertTrue(canMatch(blooms, or(text("equals", "plum"), text("equals", "pear"))));
+        assertFalse(canMatch(blooms, or(text("equals", "plum"), text("equals", "fig"))));
+        assertFalse(canMatch(blooms, and(text("equals", "plum"), text("contains", "p"))));
+        assertTrue(canMatch(blooms, and(text("equals", "apple"), text("contains", "zzz"))));
+        assertTrue(canMatch(blooms, or(text("equals", "plum"), text("contains", "zzz"))));
+        assertTrue(PageBlooms.applies(and(text("contains", "p"), text("equals", "x"))));
+        assertFalse(PageBlooms.applies(or(text("contains", "p"), number("equals", "1"))));
+    }
+
+    @Test
+    void neverSkipsAPageWithAMatchingRow() {
+        List<FilterDescriptor> filters = filters();
+        Random random = new Random(5);
+        int pruned = 0;
+        for (int p = 0; p < 3_000; p++) {
+            List<List<Object>> rows = randomPage(random);
+            PageBlooms computed = PageBlooms.compute(rows, 1 + random.nextInt(3), 0.01);
+            // Filters are stored as bytes; what comes back must prune the same way
+            PageBlooms stored = PageBlooms.fromBytes(computed.toBytes());
+            for (int k = 0; k < 40; k++) {
+                Map<Integer, FilterDescriptor> byColumn = new HashMap<>();
+                byColumn.put(0, filters.get(random.nextInt(filters.size())));
+                if (random.nextBoolean()) byColumn.put(1, filters.get(random.nextInt(filters.size())));
+                boolean anyRow = false;
+                for (List<Object> row : rows) anyRow |= passes(row, byColumn);
+                boolean canMatch = computed.canMatch(byColumn);
+                assertEquals(canMatch, stored.canMatch(byColumn));
+                if (anyRow) assertTrue(canMatch, () -> "skipped " + rows);
+                else if (!canMatch) pruned++;
+            }
+        }
+        assertTrue(pruned > 5_000, "pruned " + pruned);
+    }
+
+    // ---------------- Helpers ----------------
+
+    // Row semantics of the view engine: filters on columns a row lacks are ignored
+    private static boolean passes(List<Object> row, Map<Integer, FilterDescriptor> filters) {
+        for (Map.Entry<Integer, FilterDescriptor> e : filters.entrySet()) {
+            if (e.getKey() < row.size() && !CellFilter.matches(row.get(e.getKey()), e.getValue())) return false;
+        }
+        return true;
+    }
+
+    private static List<List<Object>> randomPage(Random random) {
+        int n = random.nextInt(8);
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int width = random.nextInt(12) == 0 ? random.nextInt(2) : 2;
+            List<Object> row = new ArrayList<>();
+            for (int c = 0; c < width; c++) row.add(CELLS.get(random.nextInt(CELLS.size())));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<FilterDescriptor> filters() {
+        List<FilterDescriptor> simple = new ArrayList<>();
+        for (String t : List.of("equals", "notEquals", "contains", "startsWith")) {
+            for (String q : Arrays.asList("a", "ABC", "ünï", "10", "7.5", "", "zzz", LONG, null)) simple.add(text(t, q));
+        }
+        simple.add(number("inRange", "6", "9.5"));
+        simple.add(number("equals", "5"));
+        simple.add(date("equals", "2024-01-05"));
+        List<FilterDescriptor> all = new ArrayList<>(simple);
+        Random random = new Random(3);
+        for (int i = 0; i < 100; i++) {
+            FilterDescriptor x = simple.get(random.nextInt(simple.size()));
+            FilterDescriptor y = simple.get(random.nextInt(simple.size()));
+            all.add(random.nextBoolean() ? and(x, y) : or(x, y));
+        }
+        return all;
+    }
+
+    private static boolean canMatch(PageBlooms blooms, FilterDescriptor fd) {
+        return blooms.canMatch(Map.of(0, fd));
+    }
+
+    private static List<List<Object>> rows(Object... cells) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Object c : cells) rows.add(Collections.singletonList(c));
+        return rows;
+    }
+
+    private static FilterDescriptor text(String type, String filter) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("text");
+        fd.setType(type);
+        fd.setFilter(filter);
+        return fd;
+    }
+
+    private static FilterDescriptor number(String type, String filter, String... filterTo) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("number");
+        fd.setType(type);
+        fd.setFilter(filter);
+        if (filterTo.length > 0) fd.setFilterTo(filterTo[0]);
+        return fd;
+    }
+
+    private static FilterDescriptor date(String type, String from) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("date");
+        fd.setType(type);
+        fd.setDateFrom(from);
+        return fd;
+    }
+
+    private static FilterDescriptor and(FilterDescriptor... conditions) {
+        return compound("AND", conditions);
+    }
+
+    private static FilterDescriptor or(FilterDescriptor... conditions) {
+        return compound("OR", conditions);
+    }
+
+    private static FilterDescriptor compound(String operator, FilterDescriptor... conditions) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType(conditions[0].getFilterType());
+        fd.setOperator(operator);
+        fd.setConditions(List.of(conditions));
+        return fd;
+    }
+}
@@ -0,0 +1,246 @@
+package com.mm.customreportbuilder.index;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import com.mm.customreportbuilder.view.CellFilter;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Zone maps may only skip a page when no row passes the filters under the view engine's semantics (CellFilter). */
+class PageStatsTest {
+
+    private static final String LONG = "x".repeat(70);
+
+    private static final List<Object> CELLS = Arrays.asList(
+            null, "", "a", "A", "b", "abc", "10", "9", "1,000", "-2.5", "null", 5, 7.5, new BigDecimal("10.0"),
+            "2024-01-05", "2024-01-05T10:00:00", "2023-12-31", "2024-02-30", "not a date", LONG, LONG + "y");
+
+    private static final List<FilterDescriptor> FILTERS = filters();
+
+    @Test
+    void nullCellsPassNumberInRangeAndDateFilters() {
+        PageStats ps = PageStats.compute(rows(null, 50));
+        assertTrue(canMatch(ps, number("inRange", "10", "20")));
+        assertFalse(canMatch(ps, number("greaterThan", "50")));
+        assertFalse(canMatch(PageStats.compute(rows(30, 50)), number("inRange", "10", "20")));
+
+        PageStats dates = PageStats.compute(rows(null, "2024-01-05"));
+        assertTrue(canMatch(dates, date("greaterThan", "2025-01-01")));
+        assertTrue(canMatch(dates, date("inRange", "2025-01-01", "2025-12-31")));
+        assertFalse(canMatch(PageStats.compute(rows("2024-01-05", "2024-01-06")), date("greaterThan", "2025-01-01")));
+    }
+
+    @Test
+    void pagesWithRowsLackingTheColumnAreNeverSkipped() {
+        List<List<Object>> rows = List.of(List.of("a", 1), List.of("b"));
+        PageStats ps = PageStats.compute(rows);
+        assertEquals(1, ps.cols.get(1).absent);
+        assertTrue(ps.canMatch(Map.of(1, number("greaterThan", "100"))));
+        assertFalse(ps.canMatch(Map.of(0, text("equals", "c"))));
+        // Filters on columns past every row's width are ignored, like the engine does
+        assertTrue(ps.canMatch(Map.of(5, text("equals", "c"))));
+    }
+
+    @Test
+    void textLongerThanTheTrackedLengthIsNotPruned() {
+        PageStats ps = PageStats.compute(rows("a", LONG + "b"));
+        assertEquals(Boolean.TRUE, ps.cols.get(0).textUntracked);
+        assertTrue(canMatch(ps, text("equals", LONG + "b")));
+        assertTrue(canMatch(ps, text("equals", "zzz")));
+        // Short values only: tracked, and a value outside the range is pruned
+        assertFalse(canMatch(PageStats.compute(rows("a", "b")), text("equals", "zzz")));
+    }
+
+    @Test
+    void notEqualsPrunesOnlyPagesHoldingJustThatValue() {
+        assertFalse(canMatch(PageStats.compute(rows("a", "A")), text("notEquals", "a")));
+        assertTrue(canMatch(PageStats.compute(rows("a", "b")), text("notEquals", "a")));
+        // Null text is "": not equal to "a"
+        assertTrue(canMatch(PageStats.compute(rows("a", null)), text("notEquals", "a")));
+
+        assertFalse(canMatch(PageStats.compute(rows(5, "5", new BigDecimal("5.00"))), number("notEquals", "5")));
+        // A null cell fails every number comparison, notEquals included
+        assertFalse(canMatch(PageStats.compute(rows(5, null)), number("notEquals", "5")));
+        assertTrue(canMatch(PageStats.compute(rows(5, 6)), number("notEquals", "5")));
+
+        assertFalse(canMatch(PageStats.compute(rows("2024-01-05", "2024-01-05T23:59:59")), date("notEquals", "2024-01-05")));
+        assertTrue(canMatch(PageStats.compute(rows("2024-01-05", null)), date("notEquals", "2024-01-05")));
+    }
+
+    @Test
+    void compoundsCombineTheirConditions() {
+        PageStats ps = PageStats.compute(rows(1, 5));
+        assertFalse(canMatch(ps, and(number("greaterThan", "10"), number("lessThan", "3"))));
+        assertTrue(canMatch(ps, or(number("greaterThan", "10"), number("lessThan", "3"))));
+        assertFalse(canMatch(ps, or(number("greaterThan", "10"), number("lessThan", "0"))));
+        // Each condition is checked against the whole page: conservative for AND
+        assertTrue(canMatch(ps, and(number("greaterThan", "4"), number("lessThan", "2"))));
+        assertTrue(canMatch(ps, and(number("greaterThan", "0"), text("contains", "zzz"))));
+    }
+
+    @Test
+    void neverSkipsAPageWithAMatchingRow() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        Random random = new Random(11);
+        int pruned = 0;
+        for (int p = 0; p < 3_000; p++) {
+            List<List<Object>> rows = randomPage(random);
+            PageStats computed = PageStats.compute(rows);
+            // Stats are stored as JSON; what comes back must prune the same way
+            PageStats stored = mapper.readValue(mapper.writeValueAsBytes(computed), PageStats.class);
+            for (int k = 0; k < 40; k++) {
+                Map<Integer, FilterDescriptor> filters = new HashMap<>();
+                filters.put(0, FILTERS.get(random.nextInt(FILTERS.size())));
+                if (random.nextBoolean()) filters.put(1, FILTERS.get(random.nextInt(FILTERS.size())));
+                boolean anyRow = false;
+                for (List<Object> row : rows) anyRow |= passes(row, filters);
+                boolean canMatch = computed.canMatch(filters);
+                assertEquals(canMatch, stored.canMatch(filters));
+                if (anyRow) assertTrue(canMatch, () -> "skipped " + rows + " for " + describe(filters));
+                else if (!canMatch) pruned++;
+            }
+        }
+        assertTrue(pruned > 10_000, "pruned " + pruned);
+    }
+
+    // ---------------- Helpers ----------------
+
+    // Row semantics of the view engine: filters on columns a row lacks are ignored
+    private static boolean passes(List<Object> row, Map<Integer, FilterDescriptor> filters) {
+        for (Map.Entry<Integer, FilterDescriptor> e : filters.entrySet()) {
+            if (e.getKey() < row.size() && !CellFilter.matches(row.get(e.getKey()), e.getValue())) return false;
+        }
+        return true;
+    }
+
+    private static List<List<Object>> randomPage(Random random) {
+        int n = random.nextInt(5);
+        // Few distinct cells per page, so single-valued pages are common
+        List<Object> pool = new ArrayList<>();
+        for (int i = 0; i < 1 + random.nextInt(3); i++) pool.add(CELLS.get(random.nextInt(CELLS.size())));
+        List<List<Object>> rows = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int width = random.nextInt(12) == 0 ? random.nextInt(2) : 2;
+            List<Object> row = new ArrayList<>();
+            for (int c = 0; c < width; c++) row.add(pool.get(random.nextInt(pool.size())));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<FilterDescriptor> filters() {
+        List<FilterDescriptor> simple = new ArrayList<>();
+        for (String t : List.of("equals", "notEquals", "contains", "notContains", "startsWith", "endsWith")) {
+            for (String q : Arrays.asList("a", "abc", "10", "", "zzz", LONG, null)) simple.add(text(t, q));
+        }
+        for (String t : List.of("equals", "notEquals", "greaterThan", "greaterThanEqual", "lessThan", "lessThanEqual")) {
+            for (String q : Arrays.asList("9", "10", "5", "1,000", "-3", "abc", null)) simple.add(number(t, q));
+        }
+        simple.add(number("inRange", "6", "9.5"));
+        simple.add(number("inRange", "100", "200"));
+        simple.add(number("inRange", "1", null));
+        for (String t : List.of("equals", "notEquals", "greaterThan", "greaterThanEqual", "lessThan", "lessThanEqual")) {
+            for (String q : Arrays.asList("2024-01-05", "2023-12-31", "2024-02-29", "2024-02-30", "garbage")) simple.add(date(t, q));
+        }
+        simple.add(date("inRange", "2024-01-01", "2024-01-31"));
+        simple.add(date("inRange", "2025-01-01", "2025-12-31"));
+        simple.add(set("a", "10"));
+        List<FilterDescriptor> all = new ArrayList<>(simple);
+        Random random = new Random(3);
+        for (int i = 0; i < 150; i++) {
+            FilterDescriptor x = simple.get(random.nextInt(simple.size()));
+            FilterDescriptor y = simple.get(random.nextInt(simple.size()));
+            all.add(random.nextBoolean() ? and(x, y) : or(x, y));
+        }
+        all.add(or(and(number("greaterThan", "5"), number("lessThan", "9")), text("equals", "abc")));
+        return all;
+    }
+
+    private static boolean canMatch(PageStats ps, FilterDescriptor fd) {
+        return ps.canMatch(Map.of(0, fd));
+    }
+
+    private static List<List<Object>> rows(Object... cells) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Object c : cells) rows.add(Collections.singletonList(c));
+        return rows;
+    }
+
+    private static FilterDescriptor text(String type, String filter) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("text");
+        fd.setType(type);
+        fd.setFilter(filter);
+        return fd;
+    }
+
+    private static FilterDescriptor number(String type, String filter) {
+        return number(type, filter, null);
+    }
+
+    private static FilterDescriptor number(String type, String filter, String filterTo) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("number");
+        fd.setType(type);
+        fd.setFilter(filter);
+        fd.setFilterTo(filterTo);
+        return fd;
+    }
+
+    private static FilterDescriptor date(String type, String from) {
+        return date(type, from, null);
+    }
+
+    private static FilterDescriptor date(String type, String from, String to) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("date");
+        fd.setType(type);
+        fd.setDateFrom(from);
+        fd.setDateTo(to);
+        return fd;
+    }
+
+    private static FilterDescriptor set(String... values) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("set");
+        fd.setValues(Arrays.asList(values));
+        return fd;
+    }
+
+    private static FilterDescriptor and(FilterDescriptor... conditions) {
+        return compound("AND", conditions);
+    }
+
+    private static FilterDescriptor or(FilterDescriptor... conditions) {
+        return compound("OR", conditions);
+    }
+
+    private static FilterDescriptor compound(String operator, FilterDescriptor... conditions) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType(conditions[0].getFilterType());
+        fd.setOperator(operator);
+        fd.setConditions(List.of(conditions));
+        return fd;
+    }
+
+    private static String describe(Map<Integer, FilterDescriptor> filters) {
+        StringBuilder sb = new StringBuilder();
+        filters.forEach((c, fd) -> sb.append(c).append('=').append(describe(fd)).append(' '));
+        return sb.toString();
+    }
+
+    private static String describe(FilterDescriptor fd) {
+        if (fd.isCompound()) {
+            List<String> parts = new ArrayList<>();
+            for (FilterDescriptor c : fd.getConditions()) parts.add(describe(c));
+            return "(" + String.join(" " + fd.getOperator() + " ", parts) + ")";
+        }
+        return fd.getFilterType() + ":" + fd.getType() + ":" + (fd.getFilter() != null ? fd.getFilter() : fd.getDateFrom())
+                + (fd.getFilterTo() != null ? ".." + fd.getFilterTo() : fd.getDateTo() != null ? ".." + fd.getDateTo() : "")
+                + (fd.getValues() != null ? fd.getValues() : "");
+    }
+}
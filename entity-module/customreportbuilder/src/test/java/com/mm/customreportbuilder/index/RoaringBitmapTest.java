@@ -0,0 +1,86 @@
+package com.mm.customreportbuilder.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Set operations against java.util.BitSet, across sparse (array) and dense (bitset) containers. */
+class RoaringBitmapTest {
+
+    private static final int SPAN = 5 << 16;
+
+    @Test
+    void setOperationsMatchBitSet() {
+        Random random = new Random(7);
+        // Densities below and above the 4096-per-container array limit, and sums either side of it
+        int[] counts = { 0, 50, 1_500, 2_500, 3_000, 20_000, 200_000 };
+        for (int x : counts) {
+            for (int y : counts) {
+                BitSet ea = randomSet(random, x), eb = randomSet(random, y);
+                RoaringBitmap a = of(ea), b = of(eb);
+
+                BitSet or = (BitSet) ea.clone();
+                or.or(eb);
+                assertBits(or, RoaringBitmap.or(a, b));
+                assertBits(or, RoaringBitmap.or(b, a));
+
+                BitSet and = (BitSet) ea.clone();
+                and.and(eb);
+                assertBits(and, RoaringBitmap.and(a, b));
+
+                BitSet andNot = (BitSet) ea.clone();
+                andNot.andNot(eb);
+                assertBits(andNot, RoaringBitmap.andNot(a, b));
+
+                // Inputs are left as they were
+                assertBits(ea, a);
+                assertBits(eb, b);
+            }
+        }
+    }
+
+    @Test
+    void unorderedAddsAndRoundTrip() {
+        Random random = new Random(11);
+        BitSet expected = new BitSet();
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < 30_000; i++) {
+            int x = random.nextInt(SPAN);
+            expected.set(x);
+            bitmap.add(x);
+        }
+        assertBits(expected, bitmap);
+        assertBits(expected, RoaringBitmap.fromBytes(bitmap.toBytes()));
+        assertTrue(new RoaringBitmap().isEmpty());
+        assertEquals(-1, new RoaringBitmap().nextSetBit(0));
+        assertThrows(IllegalArgumentException.class, () -> bitmap.add(-1));
+    }
+
+    private static BitSet randomSet(Random random, int count) {
+        BitSet s = new BitSet();
+        // Ids spread over a few containers, with some containers left empty
+        for (int i = 0; i < count; i++) s.set(random.nextInt(SPAN / 2) * 2);
+        return s;
+    }
+
+    private static RoaringBitmap of(BitSet s) {
+        RoaringBitmap r = new RoaringBitmap();
+        for (int x = s.nextSetBit(0); x >= 0; x = s.nextSetBit(x + 1)) r.add(x);
+        return r;
+    }
+
+    private static void assertBits(BitSet expected, RoaringBitmap actual) {
+        assertEquals(expected.cardinality(), actual.cardinality());
+        assertEquals(expected.isEmpty(), actual.isEmpty());
+        int x = -1, y = -1;
+        do {
+            x = expected.nextSetBit(x + 1);
+            y = actual.nextSetBit(y + 1);
+            assertEquals(x, y);
+        } while (x >= 0);
+        for (int probe = 0; probe < SPAN; probe += 997) assertEquals(expected.get(probe), actual.contains(probe));
+    }
+}
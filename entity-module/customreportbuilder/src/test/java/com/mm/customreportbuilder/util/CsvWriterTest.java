@@ -0,0 +1,105 @@
+package com.mm.customreportbuilder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** CsvWriter output must stay byte-identical to the per-row string encoder it replaced. */
+class CsvWriterTest {
+
+    @Test
+    void matchesPreviousEncoderOnEdgeCases() throws IOException {
+        List<List<Object>> rows = List.of(
+                Arrays.asList("plain", "", null, "a,b", "say \"hi\"", "\"", "\"\"", ","),
+                Arrays.asList("line\nbreak", "cr\rreturn", "crlf\r\nend", "\n", "\r"),
+                Arrays.asList(" leading", "trailing ", "  both  ", " ", " , "),
+                Arrays.asList("[1,2,3]", "[1]", "[]", "{}", "{\"a\":1}", "{\"k\":\"v, w\"}", "[\"x\",null]", "null"),
+                Arrays.asList("ünïcödé", "日本語,テキスト", "emoji 😀", "tab\tseparated", ";semi;"),
+                Arrays.asList(42, -1.5, new BigDecimal("12345.678900"), true, false, 0L),
+                Arrays.asList(List.of(1, 2), Map.of("k", "v")),
+                Collections.singletonList(null),
+                List.of());
+        CsvWriter.Kind[] kinds = new CsvWriter.Kind[8];
+        Arrays.fill(kinds, CsvWriter.Kind.TEXT);
+        assertEquals(previous(rows), written(rows, kinds, 256));
+    }
+
+    @Test
+    void matchesPreviousEncoderOnTypedColumns() throws IOException {
+        List<List<Object>> rows = List.of(
+                Arrays.asList("1", "-12.50", "2024-02-03", "2024-02-03T04:05:06.789Z", "true", "a \"quoted\", text", "[1,\"x\"]"),
+                Arrays.asList("9223372036854775807", "1E+10", "1970-01-01", "2024-02-03 04:05:06", "false", " text ", "{}"),
+                Arrays.asList(null, null, null, null, null, null, null));
+        CsvWriter.Kind[] kinds = {
+                CsvWriter.Kind.of("BIGINT"), CsvWriter.Kind.of("DECIMAL"), CsvWriter.Kind.of("DATE"),
+                CsvWriter.Kind.of("TIMESTAMP"), CsvWriter.Kind.of("BOOLEAN"), CsvWriter.Kind.of("STRING"),
+                CsvWriter.Kind.of("ARRAY") };
+        assertEquals(CsvWriter.Kind.TEXT, CsvWriter.Kind.of("ARRAY"));
+        assertEquals(CsvWriter.Kind.TEXT, CsvWriter.Kind.of("MAP"));
+        assertEquals(CsvWriter.Kind.TEXT, CsvWriter.Kind.of("STRUCT"));
+        assertEquals(CsvWriter.Kind.TEXT, CsvWriter.Kind.of(null));
+        assertEquals(previous(rows), written(rows, kinds, 256));
+    }
+
+    @Test
+    void matchesPreviousEncoderOnRandomCells() throws IOException {
+        Random random = new Random(3);
+        String alphabet = "ab ,\"\r\né";
+        List<List<Object>> rows = new ArrayList<>();
+        for (int r = 0; r < 2_000; r++) {
+            List<Object> row = new ArrayList<>();
+            int cells = random.nextInt(6);
+            for (int c = 0; c < cells; c++) {
+                if (random.nextInt(10) == 0) {
+                    row.add(null);
+                    continue;
+                }
+                // Mostly short cells, some longer than the writer's buffer
+                int length = random.nextInt(20) == 0 ? 300 + random.nextInt(1_000) : random.nextInt(12);
+                StringBuilder sb = new StringBuilder(length);
+                for (int i = 0; i < length; i++) sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                row.add(sb.toString());
+            }
+            rows.add(row);
+        }
+        CsvWriter.Kind[] kinds = new CsvWriter.Kind[5];
+        Arrays.fill(kinds, CsvWriter.Kind.TEXT);
+        String expected = previous(rows);
+        assertEquals(expected, written(rows, kinds, 256));
+        assertEquals(expected, written(rows, kinds, 64 * 1024));
+    }
+
+    private static String written(List<List<Object>> rows, CsvWriter.Kind[] kinds, int bufferChars) throws IOException {
+        StringWriter out = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(out, bufferChars)) {
+            for (List<Object> row : rows) {
+                for (int i = 0; i < row.size(); i++) csv.cell(row.get(i), kinds[i]);
+                csv.endRow();
+            }
+        }
+        return out.toString();
+    }
+
+    // The encoder CsvWriter replaced (ExportController.csvLine / quoteCsv), cells via String.valueOf
+    private static String previous(List<List<Object>> rows) {
+        StringBuilder sb = new StringBuilder();
+        for (List<Object> row : rows) {
+            List<String> values = row.stream().map(v -> v == null ? "" : String.valueOf(v)).collect(Collectors.toList());
+            sb.append(values.stream().map(CsvWriterTest::quoteCsv).collect(Collectors.joining(","))).append("\r\n");
+        }
+        return sb.toString();
+    }
+
+    private static String quoteCsv(String s) {
+        if (s == null) s = "";
+        boolean needs = s.contains(",") || s.contains("\"") || s.contains("\n") || s.contains("\r");
+        if (needs) s = "\"" + s.replace("\"", "\"\"") + "\"";
+        return s;
+    }
+}
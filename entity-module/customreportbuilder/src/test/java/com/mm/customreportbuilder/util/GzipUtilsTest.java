@@ -0,0 +1,83 @@
+package com.mm.customreportbuilder.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Spliced gzip bodies must decode (CRC and length checked) to prefix + page + suffix. */
+class GzipUtilsTest {
+
+    @Test
+    void wrapsStoredPageBetweenPrefixAndSuffix() throws IOException {
+        byte[] page = "[[1,\"a\"],[2,\"b\"]]".getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = "{\"rows\":".getBytes(StandardCharsets.UTF_8);
+        byte[] suffix = ",\"lastRow\":2,\"cursor\":\"c0ffee\"}".getBytes(StandardCharsets.UTF_8);
+
+        assertSplices(prefix, page, suffix);
+    }
+
+    @Test
+    void splitsPrefixAndSuffixLongerThanOneStoredBlock() throws IOException {
+        // Stored deflate blocks hold at most 65535 bytes
+        byte[] prefix = text(70_000, 1);
+        byte[] suffix = text(200_000, 2);
+        assertSplices(prefix, text(5_000, 3), suffix);
+        assertSplices(new byte[0], text(10, 4), text(65_535, 5));
+        assertSplices(text(65_536, 6), text(10, 7), new byte[0]);
+    }
+
+    @Test
+    void splicesLargeIncompressiblePage() throws IOException {
+        byte[] page = new byte[300_000];
+        new Random(42).nextBytes(page);
+        assertSplices("{\"rows\":".getBytes(StandardCharsets.UTF_8), page, "}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void splicesEmptyPage() throws IOException {
+        assertSplices(text(3, 8), new byte[0], text(3, 9));
+    }
+
+    @Test
+    void memberRejectsNonSpliceableGzip() throws IOException {
+        assertNull(GzipUtils.member(GzipUtils.gzip("[[1]]".getBytes(StandardCharsets.UTF_8))));
+        assertNull(GzipUtils.member(new byte[] { 1, 2, 3 }));
+        assertNull(GzipUtils.member(null));
+    }
+
+    @Test
+    void spliceableOutputIsOrdinaryGzip() throws IOException {
+        byte[] data = text(100_000, 10);
+        assertArrayEquals(data, GzipUtils.ungzip(GzipUtils.gzipSpliceable(data)));
+    }
+
+    private static void assertSplices(byte[] prefix, byte[] page, byte[] suffix) throws IOException {
+        GzipUtils.Member member = GzipUtils.member(GzipUtils.gzipSpliceable(page));
+        assertNotNull(member);
+        assertEquals(page.length, member.size());
+
+        byte[] wrapped = GzipUtils.wrap(prefix, member, suffix);
+
+        byte[] expected = new byte[prefix.length + page.length + suffix.length];
+        System.arraycopy(prefix, 0, expected, 0, prefix.length);
+        System.arraycopy(page, 0, expected, prefix.length, page.length);
+        System.arraycopy(suffix, 0, expected, prefix.length + page.length, suffix.length);
+        // GZIPInputStream verifies the trailer CRC-32 (crc32Combine) and length at end of stream
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(wrapped))) {
+            assertArrayEquals(expected, in.readAllBytes());
+        }
+    }
+
+    private static byte[] text(int length, int seed) {
+        Random random = new Random(seed);
+        byte[] out = new byte[length];
+        for (int i = 0; i < length; i++) out[i] = (byte) ('a' + random.nextInt(26));
+        return out;
+    }
+}
@@ -0,0 +1,103 @@
+package com.mm.customreportbuilder.view;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * View sort benchmark: {@link ColumnarBatch#order} (ranks packed into longs, radix sorted)
+ * against the comparator sort of row lists it replaced. Not a test; run by hand:
+ *
+ *   java -cp target/classes:target/test-classes com.mm.customreportbuilder.view.ColumnarBatchSortBench [rows] [rounds]
+ *
+ * Prints the best time of each approach per sort model. That both give the same order is
+ * checked by {@link ColumnarBatchTest}.
+ */
+public final class ColumnarBatchSortBench {
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<List<Object>> data = generate(rows, new Random(42));
+        ColumnarBatch.Builder builder = new ColumnarBatch.Builder(5, rows, null, null);
+        long t0 = System.nanoTime();
+        for (int i = 0; i < rows; i++) builder.append(data.get(i), i);
+        ColumnarBatch batch = builder.build();
+        System.out.printf("rows=%d, columnar build %.1f ms%n", rows, (System.nanoTime() - t0) / 1e6);
+
+        Map<String, List<ColumnarBatch.SortKey>> models = new LinkedHashMap<>();
+        models.put("category", List.of(new ColumnarBatch.SortKey(0, true)));
+        models.put("price desc", List.of(new ColumnarBatch.SortKey(1, false)));
+        models.put("category, price desc", List.of(new ColumnarBatch.SortKey(0, true), new ColumnarBatch.SortKey(1, false)));
+        models.put("id (plain column)", List.of(new ColumnarBatch.SortKey(2, true)));
+        models.put("nullable, category, id", List.of(new ColumnarBatch.SortKey(3, true), new ColumnarBatch.SortKey(0, true),
+                new ColumnarBatch.SortKey(2, false)));
+
+        for (Map.Entry<String, List<ColumnarBatch.SortKey>> m : models.entrySet()) {
+            List<ColumnarBatch.SortKey> keys = m.getValue();
+            long radix = Long.MAX_VALUE, comparator = Long.MAX_VALUE;
+            for (int r = 0; r < rounds; r++) {
+                long s = System.nanoTime();
+                batch.order(keys, ColumnarBatchSortBench::compareCells);
+                radix = Math.min(radix, System.nanoTime() - s);
+
+                s = System.nanoTime();
+                comparatorOrder(data, keys);
+                comparator = Math.min(comparator, System.nanoTime() - s);
+            }
+            System.out.printf("%-24s radix %8.1f ms   comparator %8.1f ms   x%.1f%n",
+                    m.getKey(), radix / 1e6, comparator / 1e6, (double) comparator / radix);
+        }
+    }
+
+    // The sort views used before ColumnarBatch: boxed row positions, cells compared per key
+    private static int[] comparatorOrder(List<List<Object>> data, List<ColumnarBatch.SortKey> keys) {
+        Integer[] order = new Integer[data.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            List<Object> ra = data.get(a), rb = data.get(b);
+            for (ColumnarBatch.SortKey k : keys) {
+                int c = compareCells(ra.get(k.column()), rb.get(k.column()));
+                if (c != 0) return k.asc() ? c : -c;
+            }
+            return 0;
+        });
+        int[] out = new int[order.length];
+        for (int i = 0; i < out.length; i++) out[i] = order[i];
+        return out;
+    }
+
+    // Same shape as the service's cell compare: nulls last, numbers numerically, else text ignoring case
+    private static int compareCells(Object a, Object b) {
+        if (a == b) return 0;
+        if (a == null) return 1;
+        if (b == null) return -1;
+        BigDecimal na = number(a), nb = number(b);
+        if (na != null && nb != null) return na.compareTo(nb);
+        return String.valueOf(a).compareToIgnoreCase(String.valueOf(b));
+    }
+
+    private static BigDecimal number(Object o) {
+        String s = String.valueOf(o);
+        if (s.isEmpty() || !(Character.isDigit(s.charAt(0)) || s.charAt(0) == '-')) return null;
+        try {
+            return new BigDecimal(s);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // category (50 values), price (~10k values), unique id, a column with 20% nulls, free text
+    private static List<List<Object>> generate(int rows, Random random) {
+        List<List<Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            data.add(Arrays.asList(
+                    "category-" + random.nextInt(50),
+                    String.valueOf(random.nextInt(1_000_000) / 100.0),
+                    String.valueOf(random.nextInt(Integer.MAX_VALUE)),
+                    random.nextInt(5) == 0 ? null : "brand-" + random.nextInt(2_000),
+                    "item " + Long.toHexString(random.nextLong())));
+        }
+        return data;
+    }
+}
@@ -0,0 +1,234 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Filtered builds and sorted orders of ColumnarBatch must match the row-at-a-time engine they replace. */
+class ColumnarBatchTest {
+
+    private static final Comparator<Object> CELLS = ColumnarBatchTest::compareCells;
+
+    @Test
+    void tiesKeepBaseRowOrder() {
+        // Rows collected from a view sorted on another column: added out of base order
+        ColumnarBatch.Builder builder = new ColumnarBatch.Builder(2, 4, null, null);
+        builder.append(List.of("b", "x"), 7);
+        builder.append(List.of("a", "y"), 3);
+        builder.append(List.of("b", "z"), 1);
+        builder.append(List.of("a", "w"), 5);
+        ColumnarBatch batch = builder.build();
+        assertArrayEquals(new int[] { 1, 3, 2, 0 }, batch.order(List.of(asc(0)), CELLS));
+        assertArrayEquals(new int[] { 2, 0, 1, 3 }, batch.order(List.of(desc(0)), CELLS));
+        // Past the packed prefix the remaining columns are compared; ties there keep base order too
+        assertArrayEquals(new int[] { 1, 3, 2, 0 }, batch.order(wideKeys(0, 70), CELLS));
+
+        // Without base row ids ties keep the order rows were added in
+        ColumnarBatch.Builder unknown = new ColumnarBatch.Builder(1, 4, null, null);
+        for (String v : List.of("b", "a", "b", "a")) unknown.append(List.of(v), -1);
+        assertArrayEquals(new int[] { 1, 3, 0, 2 }, unknown.build().order(List.of(asc(0)), CELLS));
+    }
+
+    @Test
+    void offerEvaluatesEachFilterOncePerDistinctValue() {
+        AtomicInteger evals = new AtomicInteger();
+        ColumnarBatch.Builder builder = new ColumnarBatch.Builder(2, 4, List.of(
+                new ColumnarBatch.ColumnFilter(0, text("startsWith", "a")),
+                new ColumnarBatch.ColumnFilter(1, number("greaterThan", "0"))), counting(evals));
+        Object[][] rows = {
+                { "apple", 1 }, { "banana", 1 }, { "apple", 2 }, { "banana", 2 },
+                // Passes the first filter, fails the second: not added, so not memoized as passing either
+                { "apricot", -1 }, { "apricot", 1 }, { "apricot", -1 },
+                { null, 1 }, { null, 2 },
+                // Too short for the second filter's column: passes it
+                { "avocado" },
+        };
+        boolean[] expected = { true, false, true, false, false, true, false, false, false, true };
+        for (int i = 0; i < rows.length; i++) {
+            Object[] row = rows[i];
+            assertEquals(expected[i], builder.offer(Arrays.asList(row), i), () -> Arrays.toString(row));
+        }
+        // apple, 1, banana, 2, apricot, -1, apricot (after -1 kept it out), null, avocado
+        assertEquals(9, evals.get());
+
+        ColumnarBatch batch = builder.build();
+        assertEquals(4, batch.size());
+        assertEquals(List.of("apricot", 1), batch.row(2));
+        assertEquals(List.of("avocado"), batch.row(3));
+        assertEquals(ColumnarBatch.ABSENT, batch.code(1, 3));
+        assertEquals(9, batch.rowId(3));
+    }
+
+    @Test
+    void columnsPastMaxDictionaryAreStoredPlain() {
+        AtomicInteger evals = new AtomicInteger();
+        ColumnarBatch.Builder builder = new ColumnarBatch.Builder(1, 16,
+                List.of(new ColumnarBatch.ColumnFilter(0, text("notEquals", "drop"))), counting(evals));
+        assertFalse(builder.offer(List.of("drop"), -1));
+        assertFalse(builder.offer(List.of("drop"), -1));
+        assertEquals(1, evals.get());
+        for (int i = 0; i <= ColumnarBatch.MAX_DICTIONARY; i++) assertTrue(builder.offer(List.of("v" + i), -1));
+        assertEquals(ColumnarBatch.MAX_DICTIONARY + 2, evals.get());
+
+        // Plain from here on: every cell gets its own entry and is evaluated again
+        evals.set(0);
+        assertTrue(builder.offer(List.of("v0"), -1));
+        assertTrue(builder.offer(List.of("v0"), -1));
+        assertFalse(builder.offer(List.of("drop"), -1));
+        assertFalse(builder.offer(List.of("drop"), -1));
+        assertEquals(4, evals.get());
+
+        ColumnarBatch batch = builder.build();
+        int n = ColumnarBatch.MAX_DICTIONARY + 3;
+        assertEquals(n, batch.size());
+        assertEquals(n, batch.dictionarySize(0));
+        assertEquals(List.of("v0"), batch.row(n - 1));
+        // Repeated values rank equal, so they sort together in insertion order
+        int[] order = batch.order(List.of(asc(0)), CELLS);
+        assertArrayEquals(new int[] { 0, n - 2, n - 1 }, Arrays.copyOf(order, 3));
+    }
+
+    @Test
+    void nullAndAbsentCellsSortLastAscendingAndFirstDescending() {
+        ColumnarBatch.Builder builder = new ColumnarBatch.Builder(2, 8, null, null);
+        builder.append(Arrays.asList("x", 3), -1);
+        builder.append(Arrays.asList("y", null), -1);
+        builder.append(Arrays.asList("x", 1), -1);
+        builder.append(List.of("y"), -1);
+        builder.append(Arrays.asList("X", 2), -1);
+        ColumnarBatch batch = builder.build();
+        assertArrayEquals(new int[] { 2, 4, 0, 1, 3 }, batch.order(List.of(asc(1)), CELLS));
+        assertArrayEquals(new int[] { 1, 3, 0, 4, 2 }, batch.order(List.of(desc(1)), CELLS));
+        assertArrayEquals(new int[] { 1, 3, 0, 4, 2 }, batch.order(List.of(desc(0), desc(1)), CELLS));
+        assertArrayEquals(new int[] { 2, 4, 0, 1, 3 }, batch.order(List.of(asc(0), asc(1)), CELLS));
+        // A key past every column is all ABSENT: base order
+        assertArrayEquals(new int[] { 0, 1, 2, 3, 4 }, batch.order(List.of(asc(5)), CELLS));
+    }
+
+    @Test
+    void orderMatchesAStableComparatorSort() {
+        Random random = new Random(21);
+        int overflowing = 0;
+        for (int run = 0; run < 300; run++) {
+            int columns = 1 + random.nextInt(14);
+            int groups = 1 + random.nextInt(random.nextBoolean() ? 4 : 200);
+            int rows = random.nextInt(random.nextInt(8) == 0 ? 3_000 : 60);
+            boolean shuffledIds = random.nextBoolean();
+            List<List<Object>> data = randomRows(random, rows, columns, groups);
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < rows; i++) ids.add(i * 3);
+            if (shuffledIds) Collections.shuffle(ids, random);
+
+            ColumnarBatch.Builder builder = new ColumnarBatch.Builder(columns, rows, null, null);
+            for (int i = 0; i < rows; i++) builder.append(data.get(i), ids.get(i));
+            ColumnarBatch batch = builder.build();
+
+            List<ColumnarBatch.SortKey> keys = new ArrayList<>();
+            int keyCount = 1 + random.nextInt(columns + 1);
+            for (int k = 0; k < keyCount; k++) keys.add(new ColumnarBatch.SortKey(random.nextInt(columns + 1), random.nextBoolean()));
+
+            int[] expected = comparatorOrder(data, ids, keys);
+            assertArrayEquals(expected, batch.order(keys, CELLS), () -> keys + " over " + data);
+            if (keyCount * (32 - Integer.numberOfLeadingZeros(Math.min(groups, rows))) > 48) overflowing++;
+        }
+        // Keys wider than a long alongside the position are finished by stableSort
+        assertTrue(overflowing > 20, "overflowing " + overflowing);
+    }
+
+    // ---------------- Helpers ----------------
+
+    // Leading columns take one of `groups` values per row group, so rows tie on long prefixes;
+    // the last column varies per row. Cells are all numbers or all text per column, some null or absent.
+    private static List<List<Object>> randomRows(Random random, int rows, int columns, int groups) {
+        Object[][] groupCells = new Object[groups][columns];
+        for (int g = 0; g < groups; g++) {
+            for (int c = 0; c < columns; c++) groupCells[g][c] = randomCell(random, c, 300);
+        }
+        List<List<Object>> data = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            Object[] group = groupCells[random.nextInt(groups)];
+            List<Object> row = new ArrayList<>(Arrays.asList(group));
+            row.set(columns - 1, randomCell(random, columns - 1, 5));
+            if (random.nextInt(10) == 0) row = row.subList(0, random.nextInt(columns));
+            data.add(row);
+        }
+        return data;
+    }
+
+    private static Object randomCell(Random random, int column, int distinct) {
+        if (random.nextInt(12) == 0) return null;
+        int v = random.nextInt(distinct) - distinct / 3;
+        return column % 2 == 0 ? (Object) v : (random.nextBoolean() ? "k" : "K") + v;
+    }
+
+    // The sort views did before ColumnarBatch: cells compared per key, ties in base row id order
+    private static int[] comparatorOrder(List<List<Object>> data, List<Integer> ids, List<ColumnarBatch.SortKey> keys) {
+        Integer[] order = new Integer[data.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            List<Object> ra = data.get(a), rb = data.get(b);
+            for (ColumnarBatch.SortKey k : keys) {
+                Object ca = k.column() < ra.size() ? ra.get(k.column()) : null;
+                Object cb = k.column() < rb.size() ? rb.get(k.column()) : null;
+                int c = compareCells(ca, cb);
+                if (c != 0) return k.asc() ? c : -c;
+            }
+            return Integer.compare(ids.get(a), ids.get(b));
+        });
+        int[] out = new int[order.length];
+        for (int i = 0; i < out.length; i++) out[i] = order[i];
+        return out;
+    }
+
+    private static BiPredicate<Object, FilterDescriptor> counting(AtomicInteger evals) {
+        return (cell, fd) -> {
+            evals.incrementAndGet();
+            return CellFilter.matches(cell, fd);
+        };
+    }
+
+    private static FilterDescriptor text(String type, String filter) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("text");
+        fd.setType(type);
+        fd.setFilter(filter);
+        return fd;
+    }
+
+    private static FilterDescriptor number(String type, String filter) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("number");
+        fd.setType(type);
+        fd.setFilter(filter);
+        return fd;
+    }
+
+    private static ColumnarBatch.SortKey asc(int column) {
+        return new ColumnarBatch.SortKey(column, true);
+    }
+
+    private static ColumnarBatch.SortKey desc(int column) {
+        return new ColumnarBatch.SortKey(column, false);
+    }
+
+    // The same column repeated: more keys than fit in one long
+    private static List<ColumnarBatch.SortKey> wideKeys(int column, int count) {
+        List<ColumnarBatch.SortKey> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) keys.add(asc(column));
+        return keys;
+    }
+
+    // Shape of the service's cell compare: nulls last, numbers numerically, else text ignoring case
+    private static int compareCells(Object a, Object b) {
+        if (a == b) return 0;
+        if (a == null) return 1;
+        if (b == null) return -1;
+        if (a instanceof Number na && b instanceof Number nb) return Double.compare(na.doubleValue(), nb.doubleValue());
+        return String.valueOf(a).compareToIgnoreCase(String.valueOf(b));
+    }
+}
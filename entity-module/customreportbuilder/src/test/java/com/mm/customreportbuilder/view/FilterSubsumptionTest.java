@@ -0,0 +1,235 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** implies() may only answer true when every cell passing the narrower filter passes the wider one (CellFilter). */
+class FilterSubsumptionTest {
+
+    private static final List<Object> CELLS = Arrays.asList(
+            null, "", "a", "A", "ab", "abc", "xabcx", "b", "ba", "Apple", "apple pie", "pineapple", "null", "ünï",
+            "0", "1", "5", "9", "10", "10.0", "1,000", "-2.5", "abc1", 5, 7.5, 10L, new BigDecimal("9.99"),
+            "2023-12-31", "2024-01-01", "2024-01-05", "2024-01-05T10:00:00", "2024-01-31", "2024-02-29", "2024-02-30",
+            "2025-06-01", "not a date");
+
+    @Test
+    void narrowerWiderTable() {
+        Object[][] table = {
+                // text
+                { text("equals", "Apple"), text("contains", "PP"), true },
+                { text("equals", "apple"), text("startsWith", "ap"), true },
+                { text("equals", "apple"), text("endsWith", "le"), true },
+                { text("equals", "apple"), text("notEquals", "pear"), true },
+                { text("equals", "apple"), text("notContains", "x"), true },
+                { text("equals", "apple"), text("notContains", "pl"), false },
+                { text("equals", ""), text("equals", null), true },
+                { text("contains", "apple"), text("contains", "pp"), true },
+                { text("contains", "pp"), text("contains", "apple"), false },
+                { text("startsWith", "app"), text("startsWith", "ap"), true },
+                { text("startsWith", "app"), text("contains", "pp"), true },
+                { text("startsWith", "ap"), text("startsWith", "app"), false },
+                { text("endsWith", "ple"), text("endsWith", "le"), true },
+                { text("endsWith", "ple"), text("startsWith", "le"), false },
+                { text("notContains", "a"), text("notContains", "ab"), true },
+                { text("notContains", "a"), text("notEquals", "ab"), true },
+                { text("notContains", "ab"), text("notContains", "a"), false },
+                { text("notEquals", "a"), text("notEquals", "A"), true },
+                { text("notEquals", "a"), text("notContains", "a"), false },
+                { text("contains", "a"), text("blank", "a"), false },
+                // number
+                { number("equals", "5"), number("greaterThan", "4"), true },
+                { number("equals", "5"), number("inRange", "5", "6"), true },
+                { number("greaterThan", "5"), number("greaterThanEqual", "5"), true },
+                { number("greaterThanEqual", "5"), number("greaterThan", "5"), false },
+                { number("lessThan", "5"), number("lessThanEqual", "5"), true },
+                { number("inRange", "2", "3"), number("inRange", "1", "4"), true },
+                { number("inRange", "2", "3"), number("greaterThan", "1"), false }, // inRange lets nulls through
+                { number("greaterThan", "1"), number("inRange", "0", "100"), false },
+                { number("equals", "1,000"), number("greaterThan", "999"), true },
+                { number("equals", "abc"), number("greaterThan", "1"), false },
+                { number("notEquals", "5"), number("notEquals", "5"), true },
+                { number("notEquals", "5"), number("greaterThan", "0"), false },
+                // date
+                { date("equals", "2024-01-05"), date("inRange", "2024-01-01", "2024-01-31"), true },
+                { date("greaterThan", "2024-01-05"), date("greaterThanEqual", "2024-01-01"), true },
+                { date("lessThan", "2024-01-05"), date("greaterThan", "2023-01-01"), false },
+                { date("inRange", "2024-01-02", "2024-01-03"), date("lessThanEqual", "2024-01-03"), true },
+                { date("equals", "2024-02-30"), date("inRange", "2024-02-01", "2024-02-29"), false },
+                { date("greaterThan", "2024-01-05"), date("inRange", "2024-01-01", null), true },
+                // set
+                { set("a", "b"), set("a", "b", "c"), true },
+                { set("a", null), set("a"), false },
+                { set("a", null), set("a", null), true },
+                { set("a"), set(), false },
+                { set(), set("a"), true },
+                { setAll(), set("a"), false },
+                { set("a"), setAll(), true },
+                { set("a"), text("equals", "a"), false },
+                // compounds
+                { and(number("greaterThan", "1"), number("lessThan", "3")), number("lessThan", "5"), true },
+                { or(number("equals", "1"), number("equals", "2")), number("inRange", "1", "2"), true },
+                { or(number("equals", "1"), number("equals", "7")), number("inRange", "1", "2"), false },
+                { number("equals", "2"), or(number("equals", "9"), number("lessThan", "3")), true },
+                { number("equals", "2"), and(number("greaterThan", "1"), number("lessThan", "3")), true },
+                { number("equals", "2"), and(number("greaterThan", "1"), number("lessThan", "2")), false },
+                { and(text("startsWith", "a"), text("endsWith", "z")), or(text("contains", "q"), text("startsWith", "a")), true },
+                { or(text("equals", "a"), text("equals", "b")), and(text("contains", "a"), text("contains", "b")), false },
+        };
+        for (Object[] row : table) {
+            FilterDescriptor n = (FilterDescriptor) row[0], w = (FilterDescriptor) row[1];
+            boolean expected = (Boolean) row[2];
+            assertEquals(expected, FilterSubsumption.cellImplies(n, w), () -> describe(n) + " => " + describe(w));
+            if (expected) assertSound(n, w);
+        }
+    }
+
+    @Test
+    void everyWiderColumnNeedsANarrowerFilter() {
+        Map<String, FilterDescriptor> narrower = Map.of("a", number("equals", "5"), "b", text("equals", "x"));
+        assertTrue(FilterSubsumption.implies(narrower, Map.of("a", number("greaterThan", "1"))));
+        assertTrue(FilterSubsumption.implies(narrower, Map.of()));
+        assertTrue(FilterSubsumption.implies(narrower, null));
+        assertFalse(FilterSubsumption.implies(narrower, Map.of("c", text("contains", "x"))));
+        assertFalse(FilterSubsumption.implies(Map.of(), Map.of("a", number("greaterThan", "1"))));
+        assertFalse(FilterSubsumption.implies(narrower, Map.of("a", number("greaterThan", "1"), "b", text("equals", "y"))));
+    }
+
+    @Test
+    void neverImpliesWhatSomeCellContradicts() {
+        List<FilterDescriptor> filters = filters();
+        int proved = 0;
+        for (FilterDescriptor n : filters) {
+            for (FilterDescriptor w : filters) {
+                if (!FilterSubsumption.cellImplies(n, w)) continue;
+                assertSound(n, w);
+                proved++;
+            }
+        }
+        // Not vacuous: well beyond the identical pairs
+        assertTrue(proved > 3 * filters.size(), "proved " + proved + " of " + filters.size() * filters.size());
+    }
+
+    // ---------------- Helpers ----------------
+
+    private static void assertSound(FilterDescriptor n, FilterDescriptor w) {
+        for (Object cell : CELLS) {
+            if (CellFilter.matches(cell, n)) {
+                assertTrue(CellFilter.matches(cell, w), () -> describe(n) + " => " + describe(w) + " fails for " + cell);
+            }
+        }
+    }
+
+    private static List<FilterDescriptor> filters() {
+        List<FilterDescriptor> simple = new ArrayList<>();
+        for (String t : List.of("equals", "notEquals", "contains", "notContains", "startsWith", "endsWith")) {
+            for (String q : Arrays.asList("a", "ab", "abc", "B", "apple", "", null)) simple.add(text(t, q));
+        }
+        for (String t : List.of("equals", "notEquals", "greaterThan", "greaterThanEqual", "lessThan", "lessThanEqual")) {
+            for (String q : Arrays.asList("1", "5", "9.99", "10", "1,000", "abc")) simple.add(number(t, q));
+        }
+        simple.add(number("inRange", "1", "9"));
+        simple.add(number("inRange", "5", "10"));
+        simple.add(number("inRange", "5", null));
+        for (String t : List.of("equals", "notEquals", "greaterThan", "greaterThanEqual", "lessThan", "lessThanEqual")) {
+            for (String q : Arrays.asList("2024-01-01", "2024-01-05", "2024-02-30", "bad")) simple.add(date(t, q));
+        }
+        simple.add(date("inRange", "2024-01-01", "2024-01-31"));
+        simple.add(date("inRange", "2024-01-05", "2025-01-01"));
+        simple.add(date("inRange", "2024-01-05", null));
+        simple.add(set("a", "b"));
+        simple.add(set("a", "b", "5"));
+        simple.add(set("a", null));
+        simple.add(set());
+        simple.add(setAll());
+        List<FilterDescriptor> all = new ArrayList<>(simple);
+        Random random = new Random(17);
+        for (int i = 0; i < 300; i++) {
+            FilterDescriptor x = simple.get(random.nextInt(simple.size()));
+            FilterDescriptor y = simple.get(random.nextInt(simple.size()));
+            FilterDescriptor c = random.nextBoolean() ? and(x, y) : or(x, y);
+            all.add(random.nextInt(4) == 0 ? (random.nextBoolean() ? and(c, simple.get(random.nextInt(simple.size())))
+                                                                   : or(c, simple.get(random.nextInt(simple.size())))) : c);
+        }
+        return all;
+    }
+
+    private static FilterDescriptor text(String type, String filter) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("text");
+        fd.setType(type);
+        fd.setFilter(filter);
+        return fd;
+    }
+
+    private static FilterDescriptor number(String type, String filter) {
+        return number(type, filter, null);
+    }
+
+    private static FilterDescriptor number(String type, String filter, String filterTo) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("number");
+        fd.setType(type);
+        fd.setFilter(filter);
+        fd.setFilterTo(filterTo);
+        return fd;
+    }
+
+    private static FilterDescriptor date(String type, String from) {
+        return date(type, from, null);
+    }
+
+    private static FilterDescriptor date(String type, String from, String to) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("date");
+        fd.setType(type);
+        fd.setDateFrom(from);
+        fd.setDateTo(to);
+        return fd;
+    }
+
+    private static FilterDescriptor set(String... values) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("set");
+        fd.setValues(Arrays.asList(values));
+        return fd;
+    }
+
+    // No values list: nothing deselected
+    private static FilterDescriptor setAll() {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType("set");
+        return fd;
+    }
+
+    private static FilterDescriptor and(FilterDescriptor... conditions) {
+        return compound("AND", conditions);
+    }
+
+    private static FilterDescriptor or(FilterDescriptor... conditions) {
+        return compound("OR", conditions);
+    }
+
+    private static FilterDescriptor compound(String operator, FilterDescriptor... conditions) {
+        FilterDescriptor fd = new FilterDescriptor();
+        fd.setFilterType(conditions[0].getFilterType());
+        fd.setOperator(operator);
+        fd.setConditions(List.of(conditions));
+        return fd;
+    }
+
+    private static String describe(FilterDescriptor fd) {
+        if (fd.isCompound()) {
+            List<String> parts = new ArrayList<>();
+            for (FilterDescriptor c : fd.getConditions()) parts.add(describe(c));
+            return "(" + String.join(" " + fd.getOperator() + " ", parts) + ")";
+        }
+        return fd.getFilterType() + ":" + fd.getType() + ":" + (fd.getFilter() != null ? fd.getFilter() : fd.getDateFrom())
+                + (fd.getFilterTo() != null ? ".." + fd.getFilterTo() : fd.getDateTo() != null ? ".." + fd.getDateTo() : "")
+                + (fd.getValues() != null ? fd.getValues() : "");
+    }
+}
@@ -0,0 +1,246 @@
+package com.mm.customreportbuilder.view;
+
+import com.mm.customreportbuilder.model.aggrid.FilterDescriptor;
+import com.mm.customreportbuilder.model.aggrid.SortModelEntry;
+import com.mm.customreportbuilder.util.AgGridModelParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** SQL and parameters generated per predicate shape, sort translatability, and LIMIT detection in preservesRows. */
+class SparkSqlViewRewriterTest {
+
+    private static final String BASE = "SELECT * FROM sales";
+    private static final List<String> COLUMNS = List.of("region", "amount", "order_date", "created_at", "note");
+    private static final Map<String, String> TYPES = Map.of(
+            "region", "STRING", "amount", "DECIMAL", "order_date", "DATE", "created_at", "TIMESTAMP", "note", "STRING");
+
+    @Test
+    void textPredicatesAreCaseInsensitiveWithNullsAsEmpty() {
+        String expr = "lower(coalesce(CAST(v.`region` AS STRING), ''))";
+        assertWhere("instr(" + expr + ", :p0) > 0", text("contains", "EaSt"), "east", "STRING");
+        assertWhere("instr(" + expr + ", :p0) = 0", text("notContains", "east"), "east", "STRING");
+        assertWhere(expr + " = :p0", text("equals", "East"), "east", "STRING");
+        assertWhere(expr + " <> :p0", text("notEquals", "East"), "east", "STRING");
+        assertWhere("substr(" + expr + ", 1, length(:p0)) = :p0", text("startsWith", "Ea"), "ea", "STRING");
+        assertWhere("right(" + expr + ", length(:p0)) = :p0", text("endsWith", "ST"), "st", "STRING");
+        // No value: matched as "", like the engine
+        assertWhere(expr + " = :p0", "{\"region\":{\"filterType\":\"text\",\"type\":\"equals\"}}", "", "STRING");
+        assertWhere("TRUE", text("blank", "x"));
+    }
+
+    @Test
+    void numberPredicatesCastAndBindDecimals() {
+        String expr = "try_cast(v.`amount` AS DECIMAL(38,9))";
+        assertWhere(expr + " = :p0", number("equals", "1,000", null), "1000", "DECIMAL(38,9)");
+        assertWhere(expr + " <> :p0", number("notEquals", "5", null), "5", "DECIMAL(38,9)");
+        assertWhere(expr + " > :p0", number("greaterThan", "-1.50", null), "-1.50", "DECIMAL(38,9)");
+        assertWhere(expr + " >= :p0", number("greaterThanEqual", "1E+3", null), "1000", "DECIMAL(38,9)");
+        assertWhere(expr + " < :p0", number("lessThan", "0", null), "0", "DECIMAL(38,9)");
+        assertWhere(expr + " <= :p0", number("lessThanEqual", "7", null), "7", "DECIMAL(38,9)");
+        // inRange passes nulls; a missing bound passes everything
+        assertWhere("(" + expr + " IS NULL OR " + expr + " BETWEEN :p0 AND :p1)", number("inRange", "1", "9"),
+                "1", "DECIMAL(38,9)", "9", "DECIMAL(38,9)");
+        assertWhere("TRUE", number("inRange", "1", null));
+        // An unparseable value never matches a number
+        assertWhere("FALSE", number("equals", "abc", null));
+        assertWhere("TRUE", number("between", "1", null));
+    }
+
+    @Test
+    void datePredicatesPassNullsAndCompareDays() {
+        String expr = "try_cast(substr(CAST(v.`order_date` AS STRING), 1, 10) AS DATE)";
+        assertWhere("(" + expr + " IS NULL OR " + expr + " = :p0)", date("equals", "2024-03-01 00:00:00", null), "2024-03-01", "DATE");
+        assertWhere("(" + expr + " IS NULL OR " + expr + " <> :p0)", date("notEquals", "2024-03-01", null), "2024-03-01", "DATE");
+        assertWhere("(" + expr + " IS NULL OR " + expr + " > :p0)", date("greaterThan", "2024-03-01", null), "2024-03-01", "DATE");
+        assertWhere("(" + expr + " IS NULL OR " + expr + " < :p0)", date("lessThan", "2024-03-01", null), "2024-03-01", "DATE");
+        assertWhere("(" + expr + " IS NULL OR " + expr + " BETWEEN :p0 AND :p1)", date("inRange", "2024-01-01", "2024-12-31"),
+                "2024-01-01", "DATE", "2024-12-31", "DATE");
+        assertWhere("TRUE", date("inRange", "2024-01-01", null));
+        assertWhere("TRUE", date("equals", "not a date", null));
+        // The value may come as "filter" instead of "dateFrom"
+        assertWhere("(" + expr + " IS NULL OR " + expr + " >= :p0)",
+                "{\"order_date\":{\"filterType\":\"date\",\"type\":\"greaterThanEqual\",\"filter\":\"2024-05-06\"}}",
+                "2024-05-06", "DATE");
+    }
+
+    @Test
+    void setPredicatesMatchExactStringsAndBlanks() {
+        assertWhere("(CAST(v.`region` AS STRING) IN (:p0, :p1))", set("\"East\"", "\"west\""), "East", "STRING", "west", "STRING");
+        assertWhere("(CAST(v.`region` AS STRING) IN (:p0) OR v.`region` IS NULL)", set("\"East\"", "null"), "East", "STRING");
+        assertWhere("(v.`region` IS NULL)", set("null"));
+        assertWhere("FALSE", set());
+        assertWhere("TRUE", "{\"region\":{\"filterType\":\"set\"}}");
+    }
+
+    @Test
+    void compoundsNestAndNumberParametersInOrder() {
+        String json = """
+                {"region": {"filterType": "text", "operator": "OR", "conditions": [
+                     {"filterType": "text", "type": "equals", "filter": "a"},
+                     {"filterType": "text", "operator": "AND", "conditions": [
+                         {"filterType": "text", "type": "startsWith", "filter": "b"},
+                         {"filterType": "text", "type": "endsWith", "filter": "c"}]}]},
+                 "amount": {"filterType": "number", "operator": "AND", "conditions": [
+                     {"filterType": "number", "type": "greaterThan", "filter": "1"},
+                     {"filterType": "number", "type": "lessThan", "filter": "2"}]}}""";
+        String t = "lower(coalesce(CAST(v.`region` AS STRING), ''))";
+        String n = "try_cast(v.`amount` AS DECIMAL(38,9))";
+        assertWhere("(" + t + " = :p0 OR (substr(" + t + ", 1, length(:p1)) = :p1 AND right(" + t + ", length(:p2)) = :p2))"
+                        + "\n  AND (" + n + " > :p3 AND " + n + " < :p4)", json,
+                "a", "STRING", "b", "STRING", "c", "STRING", "1", "DECIMAL(38,9)", "2", "DECIMAL(38,9)");
+    }
+
+    @Test
+    void valuesAreBoundNeverInlined() {
+        String hostile = "x') OR 1=1 --";
+        SparkSqlViewRewriter.Rewritten r = rewrite(null, text("equals", hostile));
+        assertFalse(r.sql().contains("1=1"), r.sql());
+        assertEquals(List.of(param("p0", hostile.toLowerCase(Locale.ROOT), "STRING")), r.parameters());
+    }
+
+    @Test
+    void identifiersAreResolvedAndBacktickQuoted() {
+        List<String> columns = List.of("Order Date", "we`ird");
+        Map<String, FilterDescriptor> filters = AgGridModelParser.parseFilter(
+                "{\"orderdate\":{\"filterType\":\"set\",\"values\":[\"1\"]},"
+                        + "\"WE`IRD\":{\"filterType\":\"set\",\"values\":[\"2\"]},"
+                        + "\"missing\":{\"filterType\":\"set\",\"values\":[\"3\"]}}");
+        String sql = SparkSqlViewRewriter.rewrite(BASE, null, filters, columns, Map.of()).sql();
+        assertTrue(sql.contains("CAST(v.`Order Date` AS STRING) IN (:p0)"), sql);
+        assertTrue(sql.contains("CAST(v.`we``ird` AS STRING) IN (:p1)"), sql);
+        assertFalse(sql.contains("missing"), sql);
+        assertFalse(sql.contains(":p2"), sql);
+    }
+
+    @Test
+    void wrapsTheStatementWithoutItsSemicolon() {
+        SparkSqlViewRewriter.Rewritten r = SparkSqlViewRewriter.rewrite("  SELECT * FROM sales;  ", null, null, COLUMNS, TYPES);
+        assertEquals("SELECT * FROM (\nSELECT * FROM sales\n) AS v", r.sql());
+        assertTrue(r.parameters().isEmpty());
+    }
+
+    @Test
+    void ordersTypedKeysThenBreaksTiesOnTheRemainingColumns() {
+        String sql = rewrite(List.of(new SortModelEntry("AMOUNT", "desc"), new SortModelEntry("order_date", "asc")), null).sql();
+        assertTrue(sql.endsWith("\nORDER BY v.`amount` DESC NULLS FIRST, v.`order_date` ASC NULLS LAST, "
+                + "CAST(v.`region` AS STRING) ASC NULLS LAST, CAST(v.`created_at` AS STRING) ASC NULLS LAST, "
+                + "CAST(v.`note` AS STRING) ASC NULLS LAST"), sql);
+        // A column sorted twice is keyed once
+        String twice = rewrite(List.of(new SortModelEntry("amount", "asc"), new SortModelEntry("amount", "desc")), null).sql();
+        assertTrue(twice.contains("ORDER BY v.`amount` ASC NULLS LAST, CAST(v.`region` AS STRING)"), twice);
+        assertFalse(twice.contains("DESC"), twice);
+        assertFalse(rewrite(List.of(new SortModelEntry("missing", "asc")), null).sql().contains("ORDER BY"));
+        assertFalse(rewrite(null, null).sql().contains("ORDER BY"));
+    }
+
+    @Test
+    void sortsTheEngineComparesByCellContentAreNotTranslatable() {
+        for (String col : List.of("region", "created_at")) {
+            List<SortModelEntry> sort = List.of(new SortModelEntry(col, "asc"));
+            assertFalse(SparkSqlViewRewriter.isSortTranslatable(sort, COLUMNS, TYPES), col);
+            assertThrows(IllegalArgumentException.class, () -> rewrite(sort, null), col);
+        }
+        List<SortModelEntry> untyped = List.of(new SortModelEntry("amount", "asc"));
+        assertFalse(SparkSqlViewRewriter.isSortTranslatable(untyped, COLUMNS, Map.of()));
+        assertFalse(SparkSqlViewRewriter.isSortTranslatable(untyped, COLUMNS, null));
+
+        assertTrue(SparkSqlViewRewriter.isSortTranslatable(null, COLUMNS, TYPES));
+        assertTrue(SparkSqlViewRewriter.isSortTranslatable(List.of(
+                new SortModelEntry("amount", "asc"), new SortModelEntry("order_date", "desc"), new SortModelEntry("missing", "asc")),
+                COLUMNS, TYPES));
+        assertTrue(SparkSqlViewRewriter.isSortTranslatable(untyped, COLUMNS, Map.of("amount", "bigint")));
+    }
+
+    @Test
+    void onlyKnownFilterTypesAreTranslatable() {
+        assertTrue(SparkSqlViewRewriter.isTranslatable(null));
+        assertTrue(SparkSqlViewRewriter.isTranslatable(AgGridModelParser.parseFilter(text("contains", "a"))));
+        assertTrue(SparkSqlViewRewriter.isTranslatable(AgGridModelParser.parseFilter(set("\"a\""))));
+        assertFalse(SparkSqlViewRewriter.isTranslatable(AgGridModelParser.parseFilter(
+                "{\"region\":{\"filterType\":\"multi\",\"type\":\"contains\",\"filter\":\"a\"}}")));
+        assertFalse(SparkSqlViewRewriter.isTranslatable(AgGridModelParser.parseFilter("""
+                {"region": {"filterType": "text", "operator": "AND", "conditions": [
+                    {"filterType": "text", "type": "equals", "filter": "a"},
+                    {"filterType": "custom", "type": "equals", "filter": "b"}]}}""")));
+    }
+
+    @Test
+    void preservesRowsOnlyWhereEveryLimitIsOrdered() {
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT * FROM t"));
+        assertFalse(SparkSqlViewRewriter.preservesRows("SELECT * FROM t LIMIT 10"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT * FROM t ORDER BY id LIMIT 10"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("select * from t order by id limit 10"));
+        assertFalse(SparkSqlViewRewriter.preservesRows("SELECT * FROM t ORDER BY rand() LIMIT 10"));
+        assertFalse(SparkSqlViewRewriter.preservesRows("SELECT * FROM t ORDER BY uuid() LIMIT 10"));
+        assertFalse(SparkSqlViewRewriter.preservesRows("SELECT * FROM t TABLESAMPLE (10 PERCENT)"));
+        assertFalse(SparkSqlViewRewriter.preservesRows(null));
+    }
+
+    @Test
+    void preservesRowsScopesOrderByToItsQueryBlock() {
+        // LIMIT inside a subquery, ORDER BY only outside
+        assertFalse(SparkSqlViewRewriter.preservesRows("SELECT * FROM (SELECT * FROM t LIMIT 5) x ORDER BY id"));
+        assertFalse(SparkSqlViewRewriter.preservesRows("SELECT * FROM (SELECT * FROM t LIMIT 5) x ORDER BY id LIMIT 3"));
+        // ORDER BY only inside: the outer LIMIT is unordered
+        assertFalse(SparkSqlViewRewriter.preservesRows("SELECT * FROM (SELECT * FROM t ORDER BY id) x LIMIT 5"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT * FROM (SELECT * FROM t ORDER BY id LIMIT 5) x"));
+        assertTrue(SparkSqlViewRewriter.preservesRows(
+                "SELECT * FROM (SELECT * FROM t ORDER BY id LIMIT 5) x WHERE a IN (SELECT a FROM u) ORDER BY id LIMIT 3"));
+        // Function calls between ORDER BY and LIMIT stay in the same block
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT * FROM t ORDER BY coalesce(a, b), lower(c) LIMIT 10"));
+    }
+
+    @Test
+    void preservesRowsIgnoresLimitInLiteralsCommentsAndIdentifiers() {
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT 'LIMIT 10' AS s FROM t"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT 'it''s a ) LIMIT' AS s FROM t"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT 'a\\' LIMIT 1' AS s FROM t"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT \"LIMIT\" FROM t"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT `limit` FROM t"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT a -- LIMIT 10\nFROM t"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT a /* LIMIT 10 */ FROM t"));
+        assertTrue(SparkSqlViewRewriter.preservesRows("SELECT order_limit, unlimited FROM t"));
+        // A literal does not hide a real LIMIT after it
+        assertFalse(SparkSqlViewRewriter.preservesRows("SELECT 'ORDER BY' AS s FROM t LIMIT 10"));
+    }
+
+    // ---------------- Helpers ----------------
+
+    private static SparkSqlViewRewriter.Rewritten rewrite(List<SortModelEntry> sort, String filterJson) {
+        return SparkSqlViewRewriter.rewrite(BASE, sort, AgGridModelParser.parseFilter(filterJson), COLUMNS, TYPES);
+    }
+
+    // WHERE clause and parameters (value, type pairs, named :p0, :p1, ...) for the filter model
+    private static void assertWhere(String where, String filterJson, String... params) {
+        SparkSqlViewRewriter.Rewritten r = rewrite(null, filterJson);
+        assertEquals("SELECT * FROM (\n" + BASE + "\n) AS v\nWHERE " + where, r.sql());
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for (int i = 0; i < params.length; i += 2) expected.add(param("p" + i / 2, params[i], params[i + 1]));
+        assertEquals(expected, r.parameters(), filterJson);
+    }
+
+    private static Map<String, Object> param(String name, String value, String type) {
+        return Map.of("name", name, "value", value, "type", type);
+    }
+
+    private static String text(String type, String filter) {
+        return "{\"region\":{\"filterType\":\"text\",\"type\":\"" + type + "\",\"filter\":\"" + filter + "\"}}";
+    }
+
+    private static String number(String type, String from, String to) {
+        return "{\"amount\":{\"filterType\":\"number\",\"type\":\"" + type + "\",\"filter\":\"" + from + "\""
+                + (to == null ? "" : ",\"filterTo\":\"" + to + "\"") + "}}";
+    }
+
+    private static String date(String type, String from, String to) {
+        return "{\"order_date\":{\"filterType\":\"date\",\"type\":\"" + type + "\",\"dateFrom\":\"" + from + "\""
+                + (to == null ? "" : ",\"dateTo\":\"" + to + "\"") + "}}";
+    }
+
+    private static String set(String... values) {
+        return "{\"region\":{\"filterType\":\"set\",\"values\":[" + String.join(",", values) + "]}}";
+    }
+}
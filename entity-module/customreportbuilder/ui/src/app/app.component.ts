@@ -74,6 +74,12 @@ type Meta = {
       <button (click)="exportCsv()" [disabled]="!statementId || loading" title="Download full result as CSV">
         Export CSV
       </button>
+      <button (click)="exportAs('xlsx')" [disabled]="!statementId || loading" title="Download full result as an Excel workbook">
+        Export XLSX
+      </button>
+      <button (click)="exportAs('parquet')" [disabled]="!statementId || loading" title="Download full result as Parquet">
+        Export Parquet
+      </button>
 
       <div *ngIf="meta" style="margin:12px 0;">
         <strong>meta</strong>
@@ -136,6 +142,8 @@ export class AppComponent implements OnInit {
   // AG Grid
   private gridApi: GridApi | null = null;
   private _lastModelSig: string | null = null; // for debug
+  private viewCursor: string | null = null; // server cursor for the current models (skips re-resolving them)
+  private rowsComplete = false; // rows of the current models are final: blocks load as cacheable GETs
 
   columnDefs: ColDef[] = [];
   defaultColDef: ColDef = { resizable: true, sortable: true, filter: true, flex: 1, minWidth: 120 };
@@ -149,6 +157,8 @@ export class AppComponent implements OnInit {
   private prefetchCache = new Map<number, any[]>();
   private pendingPrefetches = new Set<number>();
   private maxPrefetchBlocks = 2; // keep at most N prefetched blocks in memory
+  private viewRetryMs = 1000; // delay before reloading blocks refused while the view was building (503)
+  private viewRetryTimer: any = null;
 
   // Debug
   debugResponse: any = null;
@@ -188,7 +198,7 @@ export class AppComponent implements OnInit {
       this.statementId = last;
 
       // Short poll for meta
-      this.meta = await this.pollMeta(this.statementId, /*timeout*/ 5000, /*interval*/ 250);
+      this.meta = await this.waitForMeta(this.statementId, /*timeout*/ 5000, /*interval*/ 250);
 
       // Build columns + align block size with server
       this.setupColumnsFromMeta();
@@ -242,18 +252,29 @@ export class AppComponent implements OnInit {
   }
 
   exportCsv() {
+    this.exportAs('csv');
+  }
+
+  // Stream directly from the backend (no memory pressure in Angular), with the grid's sort and filter
+  exportAs(format: 'csv' | 'xlsx' | 'parquet') {
     if (!this.statementId) return;
-    // Stream directly from the backend (no memory pressure in Angular)
-    // const url = `${BASE}/export/csv?statementId=${encodeURIComponent(this.statementId)}&header=true&bom=true`;
-    // window.open(url, '_blank');   // triggers a file download in a new tab
     const filterModel = JSON.stringify(this.gridApi?.getFilterModel?.() ?? {});
+    const sortModel = JSON.stringify(
+      (this.gridApi?.getColumnState?.() ?? [])
+        .filter((c: any) => c.sort)
+        .sort((a: any, b: any) => (a.sortIndex ?? 0) - (b.sortIndex ?? 0))
+        .map((c: any) => ({ colId: c.colId, sort: c.sort }))
+    );
     const params = new URLSearchParams();
     params.set('statementId', this.statementId);
-    params.set('header', 'true');
-    params.set('bom', 'true');
+    if (format === 'csv') {
+      params.set('header', 'true');
+      params.set('bom', 'true');
+    }
+    if (sortModel !== '[]') params.set('sortModel', sortModel);
     if (filterModel !== '{}') params.set('filterModel', filterModel);
-    window.open(`${BASE}/export/csv?${params.toString()}`, '_blank');
-    this.showToast?.('CSV export started', 1200);
+    window.open(`${BASE}/export/${format}?${params.toString()}`, '_blank');
+    this.showToast?.(`${format.toUpperCase()} export started`, 1200);
   }
 
   async run() {
@@ -277,7 +298,7 @@ export class AppComponent implements OnInit {
       localStorage.setItem(STORAGE_KEY, this.statementId);
 
       // 2) poll meta
-      this.meta = await this.pollMeta(this.statementId, /*timeout*/ 20000, /*interval*/ 300);
+      this.meta = await this.waitForMeta(this.statementId, /*timeout*/ 20000, /*interval*/ 300);
 
       // 3) columns + block size from meta
       this.setupColumnsFromMeta();
@@ -326,6 +347,7 @@ export class AppComponent implements OnInit {
     const statementId = this.statementId!;
     const totalRows = this.meta?.rowCount ?? null;
     const blockSize = this.cacheBlockSize;
+    this.rowsComplete = false;
 
     return {
       getRows: async (params: IGetRowsParams) => {
@@ -342,15 +364,10 @@ export class AppComponent implements OnInit {
           this.prefetchCache.clear();
           this.pendingPrefetches.clear();
           this._lastModelSig = currentSig;
+          this.viewCursor = null;
+          this.rowsComplete = false;
         }
 
-        const p = new URLSearchParams();
-        p.set('statementId', statementId);
-        p.set('startRow', String(params.startRow));
-        p.set('endRow', String(params.endRow));
-        if (sortModelJson !== '[]')       p.set('sortModel', sortModelJson);
-        if (filterModelJson !== '{}')     p.set('filterModel', filterModelJson);
-
         // 1) Serve from prefetch cache if available
         const cached = this.prefetchCache.get(start);
         if (cached) {
@@ -363,28 +380,78 @@ export class AppComponent implements OnInit {
           return;
         }
 
-        // 2) Otherwise, fetch from server (include models)
-        const url = this.mkRowsUrl(statementId, start, end, sortModelJson, filterModelJson);
+        // 2) Rows are final: one GET per block, which the browser caches (immutable, ETag) unlike the batch POST
+        if (this.rowsComplete) {
+          try {
+            const url = this.mkRowsUrl(statementId, start, end, sortModelJson, filterModelJson, this.viewCursor);
+            const res = await this.reportQuery.getRows(url, this.blockEncoding(start, blockSize));
+            this.debugResponse = res;
+            if (typeof res?.cursor === 'string' && this._lastModelSig === currentSig) this.viewCursor = res.cursor;
+            const lastRow = this.resolveLastRow(res, totalRows);
+            params.successCallback(this.mapToObjects(this.extractRows(res)), lastRow);
+            this.maybePrefetchNext(statementId, end, blockSize, lastRow, sortModelJson, filterModelJson);
+          } catch (err) {
+            console.error('getRows error', err);
+            params.failCallback();
+            this.retryWhenViewReady(err, currentSig);
+          }
+          return;
+        }
+
+        // 3) Otherwise, fetch this block and the next one in one batched request (include models)
+        const nextEnd = end + blockSize;
+        const withNext = !(typeof totalRows === 'number' && end >= totalRows)
+          && !this.prefetchCache.has(end) && !this.pendingPrefetches.has(end);
+        const ranges: Array<[number, number]> = withNext ? [[start, end], [end, nextEnd]] : [[start, end]];
         try {
-          const res = await this.safeGet<any>(url);
+          const res = await this.reportQuery.getBlocks({
+            statementId,
+            ranges,
+            sortModel: sortModelJson,
+            filterModel: filterModelJson,
+            cursor: this.viewCursor ?? undefined,
+          });
           this.debugResponse = res;
+          if (typeof res?.cursor === 'string' && this._lastModelSig === currentSig) this.viewCursor = res.cursor;
+          if (res?.complete === true && this._lastModelSig === currentSig) this.rowsComplete = true;
 
-          const rows = this.mapToObjects(this.extractRows(res));
+          const blocks: any[] = Array.isArray(res?.blocks) ? res.blocks : [];
+          const rows = this.mapToObjects(this.extractRows(blocks[0] ?? {}));
           const lastRow = this.resolveLastRow(res, totalRows);
 
           params.successCallback(rows, lastRow);
 
-          // 3) Prefetch next block in background (include models)
-          this.maybePrefetchNext(statementId, end, blockSize, lastRow, sortModelJson, filterModelJson);
+          // 4) Keep the next block for the grid's next request, or prefetch it in background
+          const next = blocks[1];
+          if (withNext && this._lastModelSig === currentSig && Array.isArray(next?.rows) && (lastRow < 0 || end < lastRow)) {
+            this.prefetchCache.set(end, this.mapToObjects(next.rows));
+            while (this.prefetchCache.size > this.maxPrefetchBlocks) {
+              const oldestKey = this.prefetchCache.keys().next().value;
+              if (typeof oldestKey === 'number') this.prefetchCache.delete(oldestKey);
+            }
+          } else {
+            this.maybePrefetchNext(statementId, end, blockSize, lastRow, sortModelJson, filterModelJson);
+          }
         } catch (err) {
           console.error('getRows error', err);
           params.failCallback();
+          this.retryWhenViewReady(err, currentSig);
         }
       },
     };
 
   }
 
+  // 503: the view of these models is not READY yet (base rows are never served in its place), so the
+  // failed blocks are reloaded after a delay unless the models changed meanwhile
+  private retryWhenViewReady(err: any, modelSig: string) {
+    if (err?.status !== 503 || this.viewRetryTimer) return;
+    this.viewRetryTimer = setTimeout(() => {
+      this.viewRetryTimer = null;
+      if (this._lastModelSig === modelSig) this.gridApi?.refreshInfiniteCache?.();
+    }, this.viewRetryMs);
+  }
+
   private resolveLastRow(res: any, metaTotal: number | null): number {
     if (typeof res?.lastRow === 'number') return res.lastRow;
     if (typeof metaTotal === 'number') return metaTotal;
@@ -407,10 +474,13 @@ export class AppComponent implements OnInit {
     const nextEnd = nextStart + blockSize;
 
     // Include models so view caching matches the visible data
-    const url = this.mkRowsUrl(statementId, nextStart, nextEnd, sortModelJson, filterModelJson);
+    const url = this.mkRowsUrl(statementId, nextStart, nextEnd, sortModelJson, filterModelJson, this.viewCursor);
 
     try {
-      const res = await this.safeGet<any>(url);
+      const res = await this.reportQuery.getRows(url, this.blockEncoding(nextStart, blockSize));
+      if (typeof res?.cursor === 'string' && this._lastModelSig === `${sortModelJson}|${filterModelJson}`) {
+        this.viewCursor = res.cursor;
+      }
       const rows = this.mapToObjects(this.extractRows(res));
 
       this.prefetchCache.set(nextStart, rows);
@@ -419,13 +489,18 @@ export class AppComponent implements OnInit {
         if (typeof oldestKey === 'number') this.prefetchCache.delete(oldestKey);
       }
     } catch {
-      // ignore prefetch failures
+      // ignore prefetch failures (503 included: nothing is cached, the grid's own request retries)
     } finally {
       this.pendingPrefetches.delete(nextStart);
     }
   }
 
   // ---------- Helpers ----------
+  // Blocks of exactly one stored page are served as the stored gzip (JSON), others as CBOR
+  private blockEncoding(start: number, blockSize: number): 'json' | 'cbor' {
+    return blockSize === this.meta?.pageSize && start % blockSize === 0 ? 'json' : 'cbor';
+  }
+
   private setupColumnsFromMeta() {
     const colNames: string[] =
       this.meta?.columns?.length
@@ -462,7 +537,8 @@ export class AppComponent implements OnInit {
     start: number,
     end: number,
     sortModelJson?: string | null,
-    filterModelJson?: string | null
+    filterModelJson?: string | null,
+    cursor?: string | null
   ) {
     const p = new URLSearchParams();
     p.set('statementId', statementId);
@@ -475,13 +551,45 @@ export class AppComponent implements OnInit {
 
     p.set('sortModel', sortParam);
     p.set('filterModel', filterParam);
+    if (cursor) p.set('cursor', cursor);
 
     return `${BASE}?${p.toString()}`;
   }
 
 
-  private async safeGet<T = any>(url: string): Promise<T> {
-    return await firstValueFrom(this.http.get<T>(url));
+  // Meta pushed over SSE (first event is the current snapshot); polling when streams are unavailable
+  private waitForMeta(statementId: string, timeoutMs: number, intervalMs: number): Promise<Meta> {
+    if (typeof EventSource === 'undefined') return this.pollMeta(statementId, timeoutMs, intervalMs);
+    return new Promise<Meta>((resolve, reject) => {
+      const source = new EventSource(`${BASE}/events?statementId=${encodeURIComponent(statementId)}`);
+      const start = Date.now();
+      let meta: Meta = {};
+      let settled = false;
+      const fallback = () => {
+        if (settled) return;
+        settled = true;
+        source.close();
+        clearTimeout(timer);
+        const remaining = Math.max(intervalMs, timeoutMs - (Date.now() - start));
+        this.pollMeta(statementId, remaining, intervalMs).then(resolve, reject);
+      };
+      const timer = setTimeout(fallback, timeoutMs);
+      source.addEventListener('meta', (ev) => {
+        try {
+          meta = { ...meta, ...JSON.parse((ev as MessageEvent).data) };
+        } catch {
+          return;
+        }
+        const state = (meta.state ?? '').toUpperCase();
+        if (typeof meta.rowCount === 'number' || ['SUCCEEDED', 'DONE', 'COMPLETED'].includes(state)) {
+          settled = true;
+          source.close();
+          clearTimeout(timer);
+          resolve(meta);
+        }
+      });
+      source.onerror = fallback;
+    });
   }
 
   private async pollMeta(statementId: string, timeoutMs: number, intervalMs: number): Promise<Meta> {
@@ -0,0 +1,78 @@
+// Minimal CBOR (RFC 8949) decoder for the row endpoint's binary responses.
+// Covers what the server writes: maps, arrays, text, integers, float64, booleans and null.
+// Indefinite lengths, tags and byte strings are not produced by the server and are rejected.
+
+const utf8 = new TextDecoder('utf-8');
+
+export function decodeCbor(buffer: ArrayBuffer): any {
+  const view = new DataView(buffer);
+  const bytes = new Uint8Array(buffer);
+  let pos = 0;
+
+  const argument = (info: number): number => {
+    if (info < 24) return info;
+    switch (info) {
+      case 24: return view.getUint8(pos++);
+      case 25: { const v = view.getUint16(pos); pos += 2; return v; }
+      case 26: { const v = view.getUint32(pos); pos += 4; return v; }
+      case 27: {
+        const hi = view.getUint32(pos), lo = view.getUint32(pos + 4);
+        pos += 8;
+        return hi * 0x100000000 + lo; // exact up to 2^53
+      }
+      default: throw new Error(`Unsupported CBOR length encoding ${info} at ${pos - 1}`);
+    }
+  };
+
+  const item = (): any => {
+    const initial = view.getUint8(pos++);
+    const major = initial >> 5;
+    const info = initial & 0x1f;
+    switch (major) {
+      case 0: return argument(info);
+      case 1: return -1 - argument(info);
+      case 3: {
+        const len = argument(info);
+        // Short ASCII cells are the common case: skip TextDecoder for them
+        if (len <= 16) {
+          let ascii = true;
+          for (let i = 0; i < len; i++) if (bytes[pos + i] > 0x7f) { ascii = false; break; }
+          if (ascii) {
+            const s = String.fromCharCode(...bytes.subarray(pos, pos + len));
+            pos += len;
+            return s;
+          }
+        }
+        const s = utf8.decode(bytes.subarray(pos, pos + len));
+        pos += len;
+        return s;
+      }
+      case 4: {
+        const len = argument(info);
+        const arr = new Array(len);
+        for (let i = 0; i < len; i++) arr[i] = item();
+        return arr;
+      }
+      case 5: {
+        const len = argument(info);
+        const obj: Record<string, any> = {};
+        for (let i = 0; i < len; i++) {
+          const key = item();
+          obj[key] = item();
+        }
+        return obj;
+      }
+      case 7:
+        switch (info) {
+          case 20: return false;
+          case 21: return true;
+          case 22: case 23: return null;
+          case 27: { const v = view.getFloat64(pos); pos += 8; return v; }
+          case 26: { const v = view.getFloat32(pos); pos += 4; return v; }
+        }
+    }
+    throw new Error(`Unsupported CBOR item 0x${initial.toString(16)} at ${pos - 1}`);
+  };
+
+  return item();
+}
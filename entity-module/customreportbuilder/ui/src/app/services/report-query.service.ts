@@ -1,7 +1,8 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpHeaders } from '@angular/common/http';
 import { firstValueFrom } from 'rxjs';
 import { compileTemplate, sqlString } from '../lib/query-compiler';
+import { decodeCbor } from '../lib/cbor';
 
 export interface ProductFilters {
   dateFrom?: string | null;
@@ -118,4 +119,46 @@ export class ReportQueryService {
     );
     return res.statementId;
   }
+
+  /**
+   * Row blocks (GET /api/reports?...) in the binary CBOR encoding: same payload as the JSON
+   * response ({ rows, lastRow, ... }), but cells arrive length-prefixed instead of as JSON text.
+   * With 'json' a block that is exactly one stored page comes back as the stored gzip bytes,
+   * sent as they are (no decode / re-encode on the server): use it for page-aligned blocks.
+   */
+  async getRows(url: string, encoding: 'cbor' | 'json' = 'cbor'): Promise<any> {
+    if (encoding === 'json') {
+      return await firstValueFrom(
+        this.http.get<any>(url, { headers: new HttpHeaders({ Accept: 'application/json' }) })
+      );
+    }
+    const buf = await firstValueFrom(
+      this.http.get(url, {
+        responseType: 'arraybuffer',
+        headers: new HttpHeaders({ Accept: 'application/cbor' })
+      })
+    );
+    return decodeCbor(buf);
+  }
+
+  /**
+   * Several row blocks of one model in one request (POST /api/reports/blocks, CBOR):
+   * { blocks: [{ startRow, endRow, rows }, ...], lastRow }, blocks in request order.
+   */
+  async getBlocks(body: {
+    statementId: string;
+    ranges: Array<[number, number]>;
+    sortModel?: string;
+    filterModel?: string;
+    quickFilter?: string;
+    cursor?: string;
+  }): Promise<any> {
+    const buf = await firstValueFrom(
+      this.http.post('/api/reports/blocks', body, {
+        responseType: 'arraybuffer',
+        headers: new HttpHeaders({ Accept: 'application/cbor' })
+      })
+    );
+    return decodeCbor(buf);
+  }
 }